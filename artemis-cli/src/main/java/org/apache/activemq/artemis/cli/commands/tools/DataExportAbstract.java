@@ -0,0 +1,365 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.activemq.artemis.cli.commands.tools;
+
+import java.io.File;
+import java.lang.invoke.MethodHandles;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.apache.activemq.artemis.api.core.ActiveMQBuffer;
+import org.apache.activemq.artemis.api.core.ActiveMQBuffers;
+import org.apache.activemq.artemis.api.core.ICoreMessage;
+import org.apache.activemq.artemis.api.core.Message;
+import org.apache.activemq.artemis.api.core.SimpleString;
+import org.apache.activemq.artemis.core.journal.Journal;
+import org.apache.activemq.artemis.core.journal.PreparedTransactionInfo;
+import org.apache.activemq.artemis.core.journal.RecordInfo;
+import org.apache.activemq.artemis.core.journal.TransactionFailureCallback;
+import org.apache.activemq.artemis.core.paging.PagedMessage;
+import org.apache.activemq.artemis.core.paging.PagingStore;
+import org.apache.activemq.artemis.core.paging.cursor.PagePosition;
+import org.apache.activemq.artemis.core.paging.cursor.impl.PagePositionImpl;
+import org.apache.activemq.artemis.core.paging.impl.Page;
+import org.apache.activemq.artemis.core.paging.impl.PageTransactionInfoImpl;
+import org.apache.activemq.artemis.core.persistence.impl.journal.AckDescribe;
+import org.apache.activemq.artemis.core.persistence.impl.journal.DescribeJournal;
+import org.apache.activemq.artemis.core.persistence.impl.journal.DescribeJournal.MessageDescribe;
+import org.apache.activemq.artemis.core.persistence.impl.journal.DescribeJournal.ReferenceDescribe;
+import org.apache.activemq.artemis.core.persistence.impl.journal.JournalRecordIds;
+import org.apache.activemq.artemis.core.persistence.impl.journal.codec.CursorAckRecordEncoding;
+import org.apache.activemq.artemis.core.persistence.impl.journal.codec.PageUpdateTXEncoding;
+import org.apache.activemq.artemis.core.persistence.impl.journal.codec.PersistentAddressBindingEncoding;
+import org.apache.activemq.artemis.core.persistence.impl.journal.codec.PersistentQueueBindingEncoding;
+import org.apache.activemq.artemis.utils.collections.LinkedListIterator;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import picocli.CommandLine.Option;
+
+/**
+ * Abstract class for the exporters of the message data: it reads the bindings and the message journal, keeping what
+ * has to be exported, and it iterates the paged messages that haven't been acknowledged yet.
+ */
+public abstract class DataExportAbstract extends DBOption {
+
+   private static final Logger logger = LoggerFactory.getLogger(MethodHandles.lookup().lookupClass());
+
+   @Option(names = "log-interval", description = "How often to print progress in the console. Set to <= 0 to disable it.")
+   protected int logInterval = 10_000;
+
+   @Option(names = "undefined-prefix", description = "In case a queue does not exist, this will define the prefix to be used on the message export. Default: 'UndefinedQueue_'")
+   private String undefinedPrefix = "UndefinedQueue_";
+
+   // an inner map of message refs hashed by the queue ID to which they belong and then hashed by their record ID
+   protected final Map<Long, Map<Long, ReferenceDescribe>> messageRefs = new HashMap<>();
+
+   // map of all message records hashed by their record ID (which will match the record ID of the message refs)
+   protected final Map<Long, Message> messages = new TreeMap<>();
+
+   protected final Map<Long, Set<PagePosition>> cursorRecords = new HashMap<>();
+
+   protected final Set<Long> pgTXs = new HashSet<>();
+
+   protected final Map<Long, PersistentQueueBindingEncoding> queueBindings = new HashMap<>();
+
+   protected final Map<Long, PersistentAddressBindingEncoding> addressBindings = new HashMap<>();
+
+   private final AtomicLong pagedMessagesRead = new AtomicLong();
+
+   public String getUndefinedPrefix() {
+      return undefinedPrefix;
+   }
+
+   public DataExportAbstract setUndefinedPrefix(String undefinedPrefix) {
+      this.undefinedPrefix = undefinedPrefix;
+      return this;
+   }
+
+   /**
+    * Read through the message journal and stuff all the events/data we care about into local data structures.  We'll
+    * use this data later to print all the right information.
+    *
+    * @throws Exception will be thrown if anything goes wrong reading the journal
+    */
+   protected void processMessageJournal() throws Exception {
+      List<RecordInfo> acks = new ArrayList<>();
+
+      List<RecordInfo> records = new LinkedList<>();
+
+      // We load these, but don't use them.
+      List<PreparedTransactionInfo> preparedTransactions = new LinkedList<>();
+
+      Journal messageJournal = storageManager.getMessageJournal();
+
+      logger.debug("Reading journal from {}", config.getJournalDirectory());
+
+      messageJournal.start();
+
+      // Just logging these, no action necessary
+      TransactionFailureCallback transactionFailureCallback = (transactionID, records1, recordsToDelete) -> {
+         StringBuilder message = new StringBuilder();
+         message.append("Encountered failed journal transaction: ").append(transactionID);
+         for (int i = 0; i < records1.size(); i++) {
+            if (i == 0) {
+               message.append("; Records: ");
+            }
+            message.append(records1.get(i));
+            if (i != (records1.size() - 1)) {
+               message.append(", ");
+            }
+         }
+
+         for (int i = 0; i < recordsToDelete.size(); i++) {
+            if (i == 0) {
+               message.append("; RecordsToDelete: ");
+            }
+            message.append(recordsToDelete.get(i));
+            if (i != (recordsToDelete.size() - 1)) {
+               message.append(", ");
+            }
+         }
+
+         logger.debug(message.toString());
+      };
+
+      messageJournal.load(records, preparedTransactions, transactionFailureCallback, false);
+
+      // Since we don't use these nullify the reference so that the garbage collector can clean them up
+      preparedTransactions = null;
+
+      for (RecordInfo info : records) {
+         byte[] data = info.data;
+
+         ActiveMQBuffer buff = ActiveMQBuffers.wrappedBuffer(data);
+
+         Object o = DescribeJournal.newObjectEncoding(info, storageManager);
+         if (info.getUserRecordType() == JournalRecordIds.ADD_MESSAGE) {
+            messages.put(info.id, ((MessageDescribe) o).getMsg().toCore());
+         } else if (info.getUserRecordType() == JournalRecordIds.ADD_MESSAGE_PROTOCOL) {
+            messages.put(info.id, ((MessageDescribe) o).getMsg().toCore());
+         } else if (info.getUserRecordType() == JournalRecordIds.ADD_LARGE_MESSAGE) {
+            messages.put(info.id, ((MessageDescribe) o).getMsg());
+         } else if (info.getUserRecordType() == JournalRecordIds.ADD_REF) {
+            ReferenceDescribe ref = (ReferenceDescribe) o;
+            Map<Long, ReferenceDescribe> map = messageRefs.get(info.id);
+            if (map == null) {
+               Map<Long, ReferenceDescribe> newMap = new HashMap<>();
+               newMap.put(ref.refEncoding.queueID, ref);
+               messageRefs.put(info.id, newMap);
+            } else {
+               map.put(ref.refEncoding.queueID, ref);
+            }
+         } else if (info.getUserRecordType() == JournalRecordIds.ACKNOWLEDGE_REF) {
+            acks.add(info);
+         } else if (info.userRecordType == JournalRecordIds.ACKNOWLEDGE_CURSOR) {
+            CursorAckRecordEncoding encoding = new CursorAckRecordEncoding();
+            encoding.decode(buff);
+
+            Set<PagePosition> set = cursorRecords.get(encoding.queueID);
+
+            if (set == null) {
+               set = new HashSet<>();
+               cursorRecords.put(encoding.queueID, set);
+            }
+
+            set.add(encoding.position);
+         } else if (info.userRecordType == JournalRecordIds.PAGE_TRANSACTION) {
+            if (info.isUpdate) {
+               PageUpdateTXEncoding pageUpdate = new PageUpdateTXEncoding();
+
+               pageUpdate.decode(buff);
+               pgTXs.add(pageUpdate.pageTX);
+            } else {
+               PageTransactionInfoImpl pageTransactionInfo = new PageTransactionInfoImpl();
+
+               pageTransactionInfo.decode(buff);
+
+               pageTransactionInfo.setRecordID(info.id);
+               pgTXs.add(pageTransactionInfo.getTransactionID());
+            }
+         }
+      }
+
+      messageJournal.stop();
+
+      removeAcked(acks);
+   }
+
+   /**
+    * Go back through the messages and message refs we found in the journal and remove the ones that have been acked.
+    *
+    * @param acks the list of ack records we got from the journal
+    */
+   private void removeAcked(List<RecordInfo> acks) {
+      for (RecordInfo info : acks) {
+         AckDescribe ack = (AckDescribe) DescribeJournal.newObjectEncoding(info, null);
+         Map<Long, ReferenceDescribe> referenceDescribeHashMap = messageRefs.get(info.id);
+         if (referenceDescribeHashMap != null) {
+            referenceDescribeHashMap.remove(ack.refEncoding.queueID);
+            if (referenceDescribeHashMap.isEmpty()) {
+               messages.remove(info.id);
+               messageRefs.remove(info.id);
+            }
+         }
+      }
+   }
+
+   /**
+    * Open the bindings journal and extract all bindings data.
+    *
+    * @throws Exception will be thrown if anything goes wrong reading the bindings journal
+    */
+   protected void getBindings() throws Exception {
+      List<RecordInfo> records = new LinkedList<>();
+
+      Journal bindingsJournal = storageManager.getBindingsJournal();
+
+      bindingsJournal.start();
+
+      logger.debug("Reading bindings journal from {}", config.getBindingsDirectory());
+
+      bindingsJournal.load(records, null, null);
+
+      for (RecordInfo info : records) {
+         if (info.getUserRecordType() == JournalRecordIds.QUEUE_BINDING_RECORD) {
+            PersistentQueueBindingEncoding bindingEncoding = (PersistentQueueBindingEncoding) DescribeJournal.newObjectEncoding(info, null);
+            queueBindings.put(bindingEncoding.getId(), bindingEncoding);
+         } else if (info.getUserRecordType() == JournalRecordIds.ADDRESS_BINDING_RECORD) {
+            PersistentAddressBindingEncoding bindingEncoding = (PersistentAddressBindingEncoding) DescribeJournal.newObjectEncoding(info, null);
+            addressBindings.put(bindingEncoding.getId(), bindingEncoding);
+         }
+      }
+
+      bindingsJournal.stop();
+   }
+
+   /**
+    * Starts the paging manager and returns all its page stores.
+    */
+   protected List<PagingStore> getPagingStores() throws Exception {
+      pagingmanager.start();
+
+      List<PagingStore> pagingStores = new ArrayList<>();
+      for (SimpleString store : pagingmanager.getStoreNames()) {
+         PagingStore pageStore = pagingmanager.getPageStore(store);
+
+         if (pageStore != null) {
+            pagingStores.add(pageStore);
+         } else {
+            logger.debug("Page store was null");
+         }
+      }
+      return pagingStores;
+   }
+
+   /**
+    * Reads from the page files of a store and hands the messages to the exporter as it finds them (making sure to check
+    * acks and transactions from the journal).<br>
+    * Different stores can be exported concurrently, once the journals have been processed.
+    */
+   protected void exportPagedMessages(PagingStore pageStore, PagedMessageExporter exporter) throws Exception {
+      File folder = pageStore.getFolder();
+      logger.debug("Reading page store {} folder = {}", pageStore.getStoreName(), folder);
+
+      long pageId = pageStore.getFirstPage();
+      for (long i = 0; i < pageStore.getNumberOfPages(); i++) {
+         logger.debug("Reading page {}", pageId);
+         Page page = pageStore.newPageObject(pageId);
+         page.open(false);
+         org.apache.activemq.artemis.utils.collections.LinkedList<PagedMessage> messages = page.read(storageManager);
+         page.close(false, false);
+
+         int messageId = 0;
+
+         try (LinkedListIterator<PagedMessage> iter = messages.iterator()) {
+
+            while (iter.hasNext()) {
+               long msgs = pagedMessagesRead.incrementAndGet();
+               if (logInterval > 0 && msgs % logInterval == 0) {
+                  getActionContext().err.println("Exported " + msgs + " messages from paging");
+               }
+               PagedMessage message = iter.next();
+               message.initMessage(storageManager);
+               long[] queueIDs = message.getQueueIDs();
+               List<String> queueNames = new ArrayList<>();
+               for (long queueID : queueIDs) {
+                  PagePosition posCheck = new PagePositionImpl(pageId, messageId);
+
+                  boolean acked = false;
+
+                  Set<PagePosition> positions = cursorRecords.get(queueID);
+                  if (positions != null) {
+                     acked = positions.contains(posCheck);
+                  }
+
+                  if (!acked) {
+                     PersistentQueueBindingEncoding queueBinding = queueBindings.get(queueID);
+                     if (queueBinding != null) {
+                        SimpleString queueName = queueBinding.getQueueName();
+                        queueNames.add(queueName.toString());
+                     }
+                  }
+               }
+
+               if (!queueNames.isEmpty() && (message.getTransactionID() == -1 || pgTXs.contains(message.getTransactionID()))) {
+                  exporter.export(message.getMessage().toCore(), queueNames);
+               }
+
+               messageId++;
+            }
+
+            pageId++;
+         }
+      }
+   }
+
+   protected List<String> extractQueueNames(Map<Long, DescribeJournal.ReferenceDescribe> refMap) {
+      List<String> queues = new ArrayList<>();
+      for (DescribeJournal.ReferenceDescribe ref : refMap.values()) {
+         String queueName;
+
+         PersistentQueueBindingEncoding persistentQueueBindingEncoding = queueBindings.get(ref.refEncoding.queueID);
+         if (persistentQueueBindingEncoding == null) {
+            PersistentQueueBindingEncoding undefinedQueue = new PersistentQueueBindingEncoding();
+            undefinedQueue.setId(ref.refEncoding.queueID);
+            undefinedQueue.replaceQueueName(SimpleString.of(undefinedPrefix + ref.refEncoding.queueID));
+            undefinedQueue.replaceAddress(undefinedQueue.getQueueName());
+            queueBindings.put(undefinedQueue.getId(), undefinedQueue);
+            queueName = String.valueOf(undefinedQueue.getQueueName());
+            getActionContext().err.println("Queue ID " + ref.refEncoding.queueID + " not defined. Exporting it as " + undefinedQueue.getQueueName());
+         } else {
+            queueName = String.valueOf(persistentQueueBindingEncoding.getQueueName());
+         }
+
+         queues.add(queueName);
+      }
+      return queues;
+   }
+
+   @FunctionalInterface
+   protected interface PagedMessageExporter {
+
+      void export(ICoreMessage message, List<String> queues) throws Exception;
+   }
+}
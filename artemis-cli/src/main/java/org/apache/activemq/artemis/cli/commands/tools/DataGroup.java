@@ -18,6 +18,8 @@
 package org.apache.activemq.artemis.cli.commands.tools;
 
 import org.apache.activemq.artemis.cli.commands.HelpAction;
+import org.apache.activemq.artemis.cli.commands.tools.binary.BinaryDataExporter;
+import org.apache.activemq.artemis.cli.commands.tools.binary.BinaryDataImporter;
 import org.apache.activemq.artemis.cli.commands.tools.journal.CompactJournal;
 import org.apache.activemq.artemis.cli.commands.tools.journal.DecodeJournal;
 import org.apache.activemq.artemis.cli.commands.tools.journal.EncodeJournal;
@@ -26,7 +28,7 @@ import org.apache.activemq.artemis.cli.commands.tools.xml.XmlDataImporter;
 import picocli.CommandLine;
 import picocli.CommandLine.Command;
 
-@Command(name = "data", description = "use 'help data' for sub commands list", subcommands = {RecoverMessages.class, PrintData.class, XmlDataExporter.class, XmlDataImporter.class, DecodeJournal.class, EncodeJournal.class, CompactJournal.class})
+@Command(name = "data", description = "use 'help data' for sub commands list", subcommands = {RecoverMessages.class, PrintData.class, XmlDataExporter.class, XmlDataImporter.class, BinaryDataExporter.class, BinaryDataImporter.class, DecodeJournal.class, EncodeJournal.class, CompactJournal.class})
 public class DataGroup implements Runnable {
 
    CommandLine commandLine;
@@ -0,0 +1,58 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.activemq.artemis.cli.commands.tools.binary;
+
+/**
+ * The constants shared by {@link BinaryDataExporter} and {@link BinaryDataImporter}.
+ * <p>
+ * An export starts with a header which is never compressed: {@link #MAGIC}, {@link #VERSION} and a byte of flags. When
+ * {@link #FLAG_COMPRESSED} is set everything after the header is a deflate stream. What follows is a sequence of
+ * records, each one made of a byte for its type, an int for the length of its payload and the payload itself, up to
+ * {@link #RECORD_END}. The body of a large message follows its {@link #RECORD_LARGE_MESSAGE} record as
+ * {@link #RECORD_LARGE_MESSAGE_CHUNK} records, so no record needs to hold a whole large message.
+ */
+public final class BinaryDataConstants {
+
+   private BinaryDataConstants() {
+      // Utility
+   }
+
+   // "AMQB"
+   public static final int MAGIC = 0x414D5142;
+   public static final int VERSION = 1;
+
+   public static final byte FLAG_COMPRESSED = 1;
+
+   // no payload
+   public static final byte RECORD_END = 0;
+   // name, routing types
+   public static final byte RECORD_ADDRESS_BINDING = 1;
+   // name, address, nullable filter string, routing type
+   public static final byte RECORD_QUEUE_BINDING = 2;
+   // queue names, message attributes, properties and body
+   public static final byte RECORD_MESSAGE = 3;
+   // queue names, message attributes, properties and size of the body
+   public static final byte RECORD_LARGE_MESSAGE = 4;
+   // bytes of the body of the last large message
+   public static final byte RECORD_LARGE_MESSAGE_CHUNK = 5;
+
+   // size of the header, of the record type and record length
+   public static final int HEADER_SIZE = 9;
+   public static final int RECORD_HEADER_SIZE = 5;
+
+   public static final int LARGE_MESSAGE_CHUNK_SIZE = 100 * 1024;
+}
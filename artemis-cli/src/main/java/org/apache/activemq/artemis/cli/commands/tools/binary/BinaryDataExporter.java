@@ -0,0 +1,350 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.activemq.artemis.cli.commands.tools.binary;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.lang.invoke.MethodHandles;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.zip.Deflater;
+import java.util.zip.DeflaterOutputStream;
+
+import org.apache.activemq.artemis.api.core.ActiveMQBuffer;
+import org.apache.activemq.artemis.api.core.ActiveMQBuffers;
+import org.apache.activemq.artemis.api.core.ICoreMessage;
+import org.apache.activemq.artemis.api.core.Message;
+import org.apache.activemq.artemis.api.core.RoutingType;
+import org.apache.activemq.artemis.api.core.SimpleString;
+import org.apache.activemq.artemis.cli.commands.ActionContext;
+import org.apache.activemq.artemis.cli.commands.tools.DataExportAbstract;
+import org.apache.activemq.artemis.core.config.Configuration;
+import org.apache.activemq.artemis.core.message.LargeBodyReader;
+import org.apache.activemq.artemis.core.paging.PagingStore;
+import org.apache.activemq.artemis.core.persistence.impl.journal.codec.PersistentAddressBindingEncoding;
+import org.apache.activemq.artemis.core.persistence.impl.journal.codec.PersistentQueueBindingEncoding;
+import org.apache.activemq.artemis.core.server.LargeServerMessage;
+import org.apache.activemq.artemis.utils.ActiveMQThreadFactory;
+import org.apache.activemq.artemis.utils.collections.TypedProperties;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import picocli.CommandLine.Command;
+import picocli.CommandLine.Option;
+
+/**
+ * Exports the same data as {@code exp} using the records described on {@link BinaryDataConstants}: the page stores
+ * are read and encoded in parallel, as they are the bulk of the data on a broker with a backlog of messages.
+ * <p>
+ * Messages are exported in the same order as {@code exp}, the journal first and then the paged messages of every
+ * store, so the order of the messages of each queue is kept: different page stores are interleaved on the output, but
+ * the records of each store are written in order.
+ */
+@Command(name = "exp-bin", description = "Export all message-data using a compact binary format, to be imported with 'imp-bin'.")
+public final class BinaryDataExporter extends DataExportAbstract {
+
+   private static final Logger logger = LoggerFactory.getLogger(MethodHandles.lookup().lookupClass());
+
+   // records are encoded by each thread on its own buffer, and copied to the output when they are about this size
+   private static final int FLUSH_SIZE = 1024 * 1024;
+
+   @Option(names = "--compress", description = "Compress the exported data. Default: false.")
+   public boolean compress = false;
+
+   @Option(names = "--threads", description = "How many page stores are exported in parallel. Default: the number of available processors.")
+   public int threads = Runtime.getRuntime().availableProcessors();
+
+   private final Object outputLock = new Object();
+
+   private OutputStream output;
+
+   private final AtomicLong messagesExported = new AtomicLong();
+
+   private long bindingsExported = 0L;
+
+   public boolean isCompress() {
+      return compress;
+   }
+
+   public BinaryDataExporter setCompress(boolean compress) {
+      this.compress = compress;
+      return this;
+   }
+
+   public int getThreads() {
+      return threads;
+   }
+
+   public BinaryDataExporter setThreads(int threads) {
+      this.threads = threads;
+      return this;
+   }
+
+   @Override
+   public BinaryDataExporter setUndefinedPrefix(String undefinedPrefix) {
+      super.setUndefinedPrefix(undefinedPrefix);
+      return this;
+   }
+
+   @Override
+   public Object execute(ActionContext context) throws Exception {
+      super.execute(context);
+
+      try {
+         process(context.out, getParameterConfiguration());
+         done();
+      } catch (Exception e) {
+         treatError(e, "data", "exp-bin");
+      }
+      return null;
+   }
+
+   /**
+    * Exports the data of the broker using the given configuration to find it.
+    *
+    * @param out           the stream to which the export is written, it's flushed but not closed
+    * @param configuration the configuration of the bindings, journal, paging and large messages storage
+    */
+   public void process(OutputStream out, Configuration configuration) throws Exception {
+      initializeJournal(configuration);
+
+      try {
+         writeOutput(out);
+      } finally {
+         cleanup();
+      }
+   }
+
+   private void writeOutput(OutputStream out) throws Exception {
+      long start = System.currentTimeMillis();
+      getBindings();
+      processMessageJournal();
+
+      DataOutputStream header = new DataOutputStream(out);
+      header.writeInt(BinaryDataConstants.MAGIC);
+      header.writeInt(BinaryDataConstants.VERSION);
+      header.writeByte(compress ? BinaryDataConstants.FLAG_COMPRESSED : 0);
+      header.flush();
+
+      Deflater deflater = compress ? new Deflater(Deflater.BEST_SPEED) : null;
+      try {
+         if (deflater != null) {
+            output = new DeflaterOutputStream(out, deflater, 64 * 1024);
+         } else {
+            output = new BufferedOutputStream(out, 64 * 1024);
+         }
+         writeRecords();
+         if (output instanceof DeflaterOutputStream deflaterOutput) {
+            deflaterOutput.finish();
+         }
+         output.flush();
+      } finally {
+         if (deflater != null) {
+            deflater.end();
+         }
+      }
+
+      logger.debug("\n\nProcessing took: {}ms", (System.currentTimeMillis() - start));
+      logger.debug("Output {} messages and {} bindings.", messagesExported, bindingsExported);
+   }
+
+   private void writeRecords() throws Exception {
+      ActiveMQBuffer records = ActiveMQBuffers.dynamicBuffer(FLUSH_SIZE);
+
+      writeBindings(records);
+
+      if (logInterval > 0) {
+         getActionContext().err.println("Processing journal messages");
+      }
+
+      // Order here is important.  We must process the messages from the journal before we process those from the page
+      // files in order to get the messages in the right order.
+      for (Map.Entry<Long, Message> messageMapEntry : messages.entrySet()) {
+         writeMessage(records, messageMapEntry.getValue().toCore(), extractQueueNames(messageRefs.get(messageMapEntry.getKey())));
+         long msgs = messagesExported.get();
+         if (logInterval > 0 && msgs % logInterval == 0) {
+            getActionContext().err.println("exported " + msgs + " messages from journal");
+         }
+      }
+      flush(records);
+
+      writePagedMessages();
+
+      records.writeByte(BinaryDataConstants.RECORD_END);
+      records.writeInt(0);
+      flush(records);
+   }
+
+   private void writeBindings(ActiveMQBuffer records) throws IOException {
+      for (PersistentAddressBindingEncoding bindingEncoding : addressBindings.values()) {
+         int record = startRecord(records, BinaryDataConstants.RECORD_ADDRESS_BINDING);
+         records.writeSimpleString(bindingEncoding.getName());
+         records.writeInt(bindingEncoding.getRoutingTypes().size());
+         for (RoutingType routingType : bindingEncoding.getRoutingTypes()) {
+            records.writeByte(routingType.getType());
+         }
+         endRecord(records, record);
+         bindingsExported++;
+      }
+      for (PersistentQueueBindingEncoding bindingEncoding : queueBindings.values()) {
+         int record = startRecord(records, BinaryDataConstants.RECORD_QUEUE_BINDING);
+         records.writeSimpleString(bindingEncoding.getQueueName());
+         records.writeSimpleString(bindingEncoding.getAddress());
+         records.writeNullableSimpleString(bindingEncoding.getFilterString());
+         records.writeByte(bindingEncoding.getRoutingType());
+         endRecord(records, record);
+         bindingsExported++;
+      }
+      flush(records);
+   }
+
+   /**
+    * Exports every page store on its own thread, up to {@link #threads} at the same time.
+    */
+   private void writePagedMessages() throws Exception {
+      List<PagingStore> pagingStores = getPagingStores();
+      if (pagingStores.isEmpty()) {
+         return;
+      }
+      ExecutorService executor = Executors.newFixedThreadPool(Math.max(1, Math.min(threads, pagingStores.size())), ActiveMQThreadFactory.defaultThreadFactory(getClass().getName()));
+      try {
+         List<Future<?>> exports = new ArrayList<>(pagingStores.size());
+         for (PagingStore pageStore : pagingStores) {
+            exports.add(executor.submit(() -> {
+               ActiveMQBuffer records = ActiveMQBuffers.dynamicBuffer(FLUSH_SIZE);
+               exportPagedMessages(pageStore, (message, queues) -> writeMessage(records, message, queues));
+               flush(records);
+               return null;
+            }));
+         }
+         for (Future<?> export : exports) {
+            export.get();
+         }
+      } finally {
+         executor.shutdownNow();
+      }
+   }
+
+   private void writeMessage(ActiveMQBuffer records, ICoreMessage message, List<String> queues) throws Exception {
+      if (message.isLargeMessage()) {
+         writeLargeMessage(records, message, queues);
+      } else {
+         int record = startRecord(records, BinaryDataConstants.RECORD_MESSAGE);
+         writeMessageHeaders(records, message, queues);
+         ActiveMQBuffer body = message.getReadOnlyBodyBuffer();
+         records.writeInt(body.readableBytes());
+         records.writeBytes(body, body.readableBytes());
+         endRecord(records, record);
+         if (records.writerIndex() >= FLUSH_SIZE) {
+            flush(records);
+         }
+      }
+      messagesExported.incrementAndGet();
+   }
+
+   /**
+    * The body of a large message is copied from its file straight to the output, holding the output until it's done
+    * so its chunks follow the record of the message.
+    */
+   private void writeLargeMessage(ActiveMQBuffer records, ICoreMessage message, List<String> queues) throws Exception {
+      LargeBodyReader reader;
+      if (message instanceof LargeServerMessage largeServerMessage) {
+         reader = largeServerMessage.toMessage().toCore().getLargeBodyReader();
+      } else {
+         throw new IllegalStateException("Unrecognized large message implementation: " + message.getClass().getName());
+      }
+      reader.open();
+      try {
+         long bodySize = reader.getSize();
+         int record = startRecord(records, BinaryDataConstants.RECORD_LARGE_MESSAGE);
+         writeMessageHeaders(records, message, queues);
+         records.writeLong(bodySize);
+         endRecord(records, record);
+
+         synchronized (outputLock) {
+            flush(records);
+            ByteBuffer chunk = ByteBuffer.allocate((int) Math.min(bodySize, BinaryDataConstants.LARGE_MESSAGE_CHUNK_SIZE) + BinaryDataConstants.RECORD_HEADER_SIZE);
+            for (long written = 0; written < bodySize; ) {
+               chunk.clear();
+               chunk.position(BinaryDataConstants.RECORD_HEADER_SIZE);
+               chunk.limit(chunk.position() + (int) Math.min(bodySize - written, BinaryDataConstants.LARGE_MESSAGE_CHUNK_SIZE));
+               int read = reader.readInto(chunk);
+               if (read <= 0) {
+                  throw new IOException("Large message " + message.getMessageID() + " is " + (bodySize - written) + " bytes shorter than expected");
+               }
+               chunk.put(0, BinaryDataConstants.RECORD_LARGE_MESSAGE_CHUNK);
+               chunk.putInt(1, read);
+               output.write(chunk.array(), 0, BinaryDataConstants.RECORD_HEADER_SIZE + read);
+               written += read;
+            }
+         }
+      } finally {
+         reader.close();
+      }
+   }
+
+   private static void writeMessageHeaders(ActiveMQBuffer records, ICoreMessage message, List<String> queues) {
+      records.writeInt(queues.size());
+      for (String queue : queues) {
+         records.writeSimpleString(SimpleString.of(queue));
+      }
+      records.writeByte(message.getType());
+      records.writeBoolean(message.isDurable());
+      records.writeByte(message.getPriority());
+      records.writeLong(message.getExpiration());
+      records.writeLong(message.getTimestamp());
+      Object userID = message.getUserID();
+      if (userID instanceof org.apache.activemq.artemis.utils.UUID uuid) {
+         records.writeBoolean(true);
+         records.writeBytes(uuid.asBytes());
+      } else {
+         records.writeBoolean(false);
+      }
+      TypedProperties properties = new TypedProperties();
+      for (SimpleString key : message.getPropertyNames()) {
+         properties.putProperty(key, message.getObjectProperty(key));
+      }
+      properties.encode(records.byteBuf());
+   }
+
+   private static int startRecord(ActiveMQBuffer records, byte type) {
+      int record = records.writerIndex();
+      records.writeByte(type);
+      records.writeInt(0);
+      return record;
+   }
+
+   private static void endRecord(ActiveMQBuffer records, int record) {
+      records.setInt(record + 1, records.writerIndex() - record - BinaryDataConstants.RECORD_HEADER_SIZE);
+   }
+
+   private void flush(ActiveMQBuffer records) throws IOException {
+      if (records.readableBytes() > 0) {
+         synchronized (outputLock) {
+            records.byteBuf().getBytes(records.readerIndex(), output, records.readableBytes());
+         }
+      }
+      records.clear();
+   }
+}
@@ -0,0 +1,462 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.activemq.artemis.cli.commands.tools.binary;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.lang.invoke.MethodHandles;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.util.EnumSet;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.zip.Inflater;
+import java.util.zip.InflaterInputStream;
+
+import org.apache.activemq.artemis.api.core.ActiveMQBuffer;
+import org.apache.activemq.artemis.api.core.ActiveMQBuffers;
+import org.apache.activemq.artemis.api.core.Message;
+import org.apache.activemq.artemis.api.core.QueueConfiguration;
+import org.apache.activemq.artemis.api.core.RoutingType;
+import org.apache.activemq.artemis.api.core.SimpleString;
+import org.apache.activemq.artemis.api.core.client.ActiveMQClient;
+import org.apache.activemq.artemis.api.core.client.ClientMessage;
+import org.apache.activemq.artemis.api.core.client.ClientProducer;
+import org.apache.activemq.artemis.api.core.client.ClientRequestor;
+import org.apache.activemq.artemis.api.core.client.ClientSession;
+import org.apache.activemq.artemis.api.core.client.ClientSessionFactory;
+import org.apache.activemq.artemis.api.core.client.ServerLocator;
+import org.apache.activemq.artemis.api.core.management.ManagementHelper;
+import org.apache.activemq.artemis.api.core.management.ResourceNames;
+import org.apache.activemq.artemis.cli.commands.ActionContext;
+import org.apache.activemq.artemis.cli.commands.messages.ConnectionConfigurationAbtract;
+import org.apache.activemq.artemis.utils.UUID;
+import org.apache.activemq.artemis.utils.collections.TypedProperties;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import picocli.CommandLine.Command;
+import picocli.CommandLine.Option;
+
+/**
+ * Reads the output of {@link BinaryDataExporter} and sends the messages to a running broker.
+ * <p>
+ * The input is decoded and the bindings are created on the calling thread, which hands the messages to
+ * {@link #threads} senders, each one with its own session. All the messages of an address go through the same sender,
+ * so the order of the messages of each queue is kept.
+ */
+@Command(name = "imp-bin", description = "Import all message-data exported by 'exp-bin'.")
+public final class BinaryDataImporter extends ConnectionConfigurationAbtract {
+
+   private static final Logger logger = LoggerFactory.getLogger(MethodHandles.lookup().lookupClass());
+
+   private static final String STDIN = "-";
+
+   // messages read ahead of each sender
+   private static final int MAX_PENDING_MESSAGES = 1024;
+
+   @Option(names = "--input", description = "The input file name, or '-' to read it from the standard input.", required = true)
+   public String input;
+
+   @Option(names = "--threads", description = "How many sessions send messages in parallel. The messages of an address are always sent by the same session. Default: 4.")
+   public int threads = 4;
+
+   @Option(names = "--commit-interval", description = "How many messages each session sends before committing. Default: 1000.")
+   public int commitInterval = 1000;
+
+   private ClientSession managementSession;
+
+   private final Map<String, String> addressMap = new HashMap<>();
+
+   private final Map<String, Long> queueIDs = new HashMap<>();
+
+   private final AtomicReference<Throwable> failure = new AtomicReference<>();
+
+   private long messageNr = 0;
+
+   public int getThreads() {
+      return threads;
+   }
+
+   public BinaryDataImporter setThreads(int threads) {
+      this.threads = threads;
+      return this;
+   }
+
+   public int getCommitInterval() {
+      return commitInterval;
+   }
+
+   public BinaryDataImporter setCommitInterval(int commitInterval) {
+      this.commitInterval = commitInterval;
+      return this;
+   }
+
+   @Override
+   public Object execute(ActionContext context) throws Exception {
+      super.execute(context);
+
+      try (ServerLocator serverLocator = ActiveMQClient.createServerLocator(brokerURL);
+           ClientSessionFactory sessionFactory = serverLocator.createSessionFactory()) {
+         if (STDIN.equals(input)) {
+            process(context.in, sessionFactory);
+         } else {
+            try (FileInputStream inputFile = new FileInputStream(input)) {
+               process(inputFile, sessionFactory);
+            }
+         }
+      }
+      return null;
+   }
+
+   /**
+    * Imports everything read from the stream, creating the sessions from the factory.
+    *
+    * @param inputStream    the stream from which to read the output of {@link BinaryDataExporter}
+    * @param sessionFactory used to create a session for management operations and one for each sender
+    */
+   public void process(InputStream inputStream, ClientSessionFactory sessionFactory) throws Exception {
+      Objects.requireNonNull(inputStream);
+      DataInputStream data = new DataInputStream(new BufferedInputStream(inputStream, 64 * 1024));
+
+      if (data.readInt() != BinaryDataConstants.MAGIC) {
+         throw new IOException("The input wasn't created by exp-bin");
+      }
+      int version = data.readInt();
+      if (version != BinaryDataConstants.VERSION) {
+         throw new IOException("Unsupported version " + version + " of the exp-bin format");
+      }
+      byte flags = data.readByte();
+
+      Inflater inflater = null;
+      if ((flags & BinaryDataConstants.FLAG_COMPRESSED) != 0) {
+         inflater = new Inflater();
+         data = new DataInputStream(new BufferedInputStream(new InflaterInputStream(data, inflater, 64 * 1024), 64 * 1024));
+      }
+
+      Sender[] senders = new Sender[Math.max(1, threads)];
+      try {
+         managementSession = createSession(sessionFactory, true);
+         for (int i = 0; i < senders.length; i++) {
+            senders[i] = new Sender(createSession(sessionFactory, false), i);
+         }
+         readRecords(data, senders);
+      } finally {
+         stop(senders);
+         if (managementSession != null) {
+            managementSession.close();
+         }
+         if (inflater != null) {
+            inflater.end();
+         }
+      }
+
+      Throwable error = failure.get();
+      if (error instanceof Exception exception) {
+         throw exception;
+      } else if (error != null) {
+         throw new IllegalStateException(error);
+      }
+   }
+
+   private ClientSession createSession(ClientSessionFactory sessionFactory, boolean autoCommitSends) throws Exception {
+      return sessionFactory.createSession(user, password, false, autoCommitSends, true, false, 0);
+   }
+
+   private void readRecords(DataInputStream data, Sender[] senders) throws Exception {
+      while (failure.get() == null) {
+         byte type = data.readByte();
+         int length = data.readInt();
+         if (type == BinaryDataConstants.RECORD_END) {
+            return;
+         }
+         byte[] payload = new byte[length];
+         data.readFully(payload);
+         ActiveMQBuffer record = ActiveMQBuffers.wrappedBuffer(payload);
+
+         switch (type) {
+            case BinaryDataConstants.RECORD_ADDRESS_BINDING:
+               bindAddress(record);
+               break;
+            case BinaryDataConstants.RECORD_QUEUE_BINDING:
+               bindQueue(record);
+               break;
+            case BinaryDataConstants.RECORD_MESSAGE:
+            case BinaryDataConstants.RECORD_LARGE_MESSAGE:
+               readMessage(type, record, data, senders);
+               break;
+            default:
+               throw new IOException("Unexpected record type " + type);
+         }
+      }
+   }
+
+   private void readMessage(byte type, ActiveMQBuffer record, DataInputStream data, Sender[] senders) throws Exception {
+      int queueCount = record.readInt();
+      String[] queues = new String[queueCount];
+      for (int i = 0; i < queueCount; i++) {
+         queues[i] = record.readSimpleString().toString();
+      }
+      byte messageType = record.readByte();
+      boolean durable = record.readBoolean();
+      byte priority = record.readByte();
+      long expiration = record.readLong();
+      long timestamp = record.readLong();
+
+      ClientMessage message = managementSession.createMessage(messageType, durable, expiration, timestamp, priority);
+      if (record.readBoolean()) {
+         byte[] userID = new byte[16];
+         record.readBytes(userID);
+         message.setUserID(new UUID(UUID.TYPE_TIME_BASED, userID));
+      }
+      TypedProperties properties = new TypedProperties();
+      properties.decode(record.byteBuf());
+      properties.forEach(message::putObjectProperty);
+
+      File largeBody = null;
+      if (type == BinaryDataConstants.RECORD_MESSAGE) {
+         int bodySize = record.readInt();
+         message.getBodyBuffer().writeBytes(record, bodySize);
+      } else {
+         largeBody = readLargeBody(data, record.readLong());
+      }
+
+      String destination = route(List.of(queues), message);
+
+      if (++messageNr % commitInterval == 0) {
+         getActionContext().err.println("Processed " + messageNr + " messages");
+      }
+
+      // a queue belongs to a single address: sending all the messages of an address through the same sender keeps the
+      // order of each queue
+      Sender sender = senders[Math.floorMod(destination.hashCode(), senders.length)];
+      sender.pending.put(new PendingMessage(SimpleString.of(destination), message, largeBody));
+   }
+
+   /**
+    * Copies the body of a large message to a temporary file, so the senders can stream it to the broker without ever
+    * holding it in memory.
+    */
+   private static File readLargeBody(DataInputStream data, long bodySize) throws IOException {
+      File file = File.createTempFile("imp-bin", ".msg");
+      try (OutputStream out = new BufferedOutputStream(new FileOutputStream(file), 64 * 1024)) {
+         byte[] chunk = new byte[(int) Math.min(bodySize, BinaryDataConstants.LARGE_MESSAGE_CHUNK_SIZE)];
+         for (long read = 0; read < bodySize; ) {
+            byte type = data.readByte();
+            int length = data.readInt();
+            if (type != BinaryDataConstants.RECORD_LARGE_MESSAGE_CHUNK || length > bodySize - read) {
+               throw new IOException("Unexpected record type " + type + " of " + length + " bytes within a large message");
+            }
+            if (chunk.length < length) {
+               chunk = new byte[length];
+            }
+            data.readFully(chunk, 0, length);
+            out.write(chunk, 0, length);
+            read += length;
+         }
+      } catch (IOException e) {
+         Files.deleteIfExists(file.toPath());
+         throw e;
+      }
+      return file;
+   }
+
+   /**
+    * Sets the IDs of the queues on the message and returns the address it has to be sent to.
+    */
+   private String route(List<String> queues, Message message) throws Exception {
+      String destination = addressMap.get(queues.get(0));
+      if (destination == null) {
+         createUndefinedQueue(queues.get(0), message.getRoutingType());
+         destination = queues.get(0);
+         addressMap.put(queues.get(0), queues.get(0));
+      }
+
+      final ByteBuffer buffer = ByteBuffer.allocate(queues.size() * 8);
+      for (String queue : queues) {
+         Long queueID = queueIDs.get(queue);
+         if (queueID == null) {
+            queueID = queryQueueID(queue);
+            if (queueID != -1) {
+               queueIDs.put(queue, queueID);  // store it so we don't have to look it up every time
+            }
+         }
+         if (queueID != -1) {
+            buffer.putLong(queueID);
+         }
+      }
+      message.putBytesProperty(Message.HDR_ROUTE_TO_IDS, buffer.array());
+      return destination;
+   }
+
+   // Get the ID of the queues involved so the message can be routed properly.  This is done because we cannot send
+   // directly to a queue, we have to send to an address instead but not all the queues related to the address may
+   // need the message
+   private long queryQueueID(String queue) throws Exception {
+      try (ClientRequestor requestor = new ClientRequestor(managementSession, "activemq.management")) {
+         ClientMessage managementMessage = managementSession.createMessage(false);
+         ManagementHelper.putAttribute(managementMessage, ResourceNames.QUEUE + queue, "ID");
+         managementSession.start();
+         ClientMessage reply = requestor.request(managementMessage);
+         if (ManagementHelper.hasOperationSucceeded(reply)) {
+            return ((Number) ManagementHelper.getResult(reply)).longValue();
+         }
+         logger.debug("Failed to get ID for {}, reply: {}", queue, ManagementHelper.getResult(reply, String.class));
+         return -1;
+      }
+   }
+
+   private void createUndefinedQueue(String name, RoutingType routingType) throws Exception {
+      ClientSession.QueueQuery queueQuery = managementSession.queueQuery(SimpleString.of(name));
+      if (!queueQuery.isExists()) {
+         managementSession.createQueue(QueueConfiguration.of(name).setRoutingType(routingType).setDurable(true).setAutoCreateAddress(true));
+      }
+   }
+
+   private void bindQueue(ActiveMQBuffer record) throws Exception {
+      SimpleString queueName = record.readSimpleString();
+      SimpleString address = record.readSimpleString();
+      SimpleString filter = record.readNullableSimpleString();
+      RoutingType routingType = RoutingType.getType(record.readByte());
+
+      ClientSession.QueueQuery queueQuery = managementSession.queueQuery(queueName);
+
+      if (!queueQuery.isExists()) {
+         managementSession.createQueue(QueueConfiguration.of(queueName).setAddress(address).setRoutingType(routingType).setFilterString(filter));
+         logger.debug("Binding queue(name={}, address={}, filter={})", queueName, address, filter);
+      } else {
+         logger.debug("Binding {} already exists so won't re-bind.", queueName);
+      }
+
+      addressMap.put(queueName.toString(), address.toString());
+   }
+
+   private void bindAddress(ActiveMQBuffer record) throws Exception {
+      SimpleString addressName = record.readSimpleString();
+      int routingTypeCount = record.readInt();
+      EnumSet<RoutingType> routingTypes = EnumSet.noneOf(RoutingType.class);
+      for (int i = 0; i < routingTypeCount; i++) {
+         routingTypes.add(RoutingType.getType(record.readByte()));
+      }
+
+      ClientSession.AddressQuery addressQuery = managementSession.addressQuery(addressName);
+
+      if (!addressQuery.isExists()) {
+         managementSession.createAddress(addressName, routingTypes, false);
+         logger.debug("Binding address(name={}, routingTypes={})", addressName, routingTypes);
+      } else {
+         logger.debug("Binding {} already exists so won't re-bind.", addressName);
+      }
+   }
+
+   private void stop(Sender[] senders) throws InterruptedException {
+      for (Sender sender : senders) {
+         if (sender != null) {
+            sender.pending.put(PendingMessage.STOP);
+         }
+      }
+      for (Sender sender : senders) {
+         if (sender != null) {
+            sender.thread.join();
+         }
+      }
+   }
+
+   private record PendingMessage(SimpleString destination, ClientMessage message, File largeBody) {
+
+      static final PendingMessage STOP = new PendingMessage(null, null, null);
+   }
+
+   private final class Sender implements Runnable {
+
+      private final BlockingQueue<PendingMessage> pending = new ArrayBlockingQueue<>(MAX_PENDING_MESSAGES);
+
+      private final ClientSession session;
+
+      private final ClientProducer producer;
+
+      private final Thread thread;
+
+      private long sent = 0;
+
+      private Sender(ClientSession session, int id) throws Exception {
+         this.session = session;
+         this.producer = session.createProducer();
+         this.thread = new Thread(this, "imp-bin-" + id);
+         this.thread.start();
+      }
+
+      @Override
+      public void run() {
+         try {
+            for (;;) {
+               PendingMessage message = pending.take();
+               if (message == PendingMessage.STOP) {
+                  break;
+               }
+               try {
+                  // once anything has failed the messages are only drained, to never block the reader
+                  if (failure.get() == null) {
+                     send(message);
+                  }
+               } catch (Throwable e) {
+                  failure.compareAndSet(null, e);
+               } finally {
+                  if (message.largeBody() != null) {
+                     Files.deleteIfExists(message.largeBody().toPath());
+                  }
+               }
+            }
+            if (failure.get() == null) {
+               session.commit();
+            }
+         } catch (Throwable e) {
+            failure.compareAndSet(null, e);
+         } finally {
+            try {
+               session.close();
+            } catch (Throwable ignored) {
+            }
+         }
+      }
+
+      private void send(PendingMessage message) throws Exception {
+         if (message.largeBody() != null) {
+            try (InputStream body = new BufferedInputStream(new FileInputStream(message.largeBody()), 64 * 1024)) {
+               message.message().setBodyInputStream(body);
+               producer.send(message.destination(), message.message());
+            }
+         } else {
+            producer.send(message.destination(), message.message());
+         }
+         if (++sent % commitInterval == 0) {
+            session.commit();
+         }
+      }
+   }
+}
@@ -16,12 +16,15 @@
  */
 package org.apache.activemq.artemis.cli.commands.tools.journal;
 
+import java.io.File;
 import java.text.DecimalFormat;
 
 import org.apache.activemq.artemis.cli.commands.ActionContext;
 import org.apache.activemq.artemis.cli.commands.tools.OptionalLocking;
 import org.apache.activemq.artemis.cli.commands.util.SyncCalculation;
 import org.apache.activemq.artemis.core.config.impl.FileConfiguration;
+import org.apache.activemq.artemis.core.io.aio.AIOSequentialFileFactory;
+import org.apache.activemq.artemis.core.io.nio.NIOSequentialFileFactory;
 import org.apache.activemq.artemis.core.server.JournalType;
 import picocli.CommandLine.Command;
 import picocli.CommandLine.Option;
@@ -45,7 +48,7 @@ public class PerfJournal extends OptionalLocking {
    @Option(names = "--sync", description = "Enable syncs.")
    public boolean syncs = false;
 
-   @Option(names = "--journal-type", description = "Journal type to be used: Default: read from broker.xml.")
+   @Option(names = "--journal-type", description = "Journal type to be used (ASYNCIO, NIO, NIO_DIRECT or MAPPED). Default: read from broker.xml.")
    public String journalType = null;
 
    @Option(names = "--sync-writes", description = "Perform each write synchronously, e.g. if there was a single producer.")
@@ -57,6 +60,15 @@ public class PerfJournal extends OptionalLocking {
    @Option(names = "--max-aio", description = "libaio.maxAIO to be used. Default: read from broker.xml.")
    public int maxAIO = 0;
 
+   @Option(names = "--checksum", description = "Compute the CRC32C checksum of each block before writing it, as journal-checksum does. Default: read from broker.xml.")
+   public boolean checksum = false;
+
+   @Option(names = "--write-through", description = "Open NIO and NIO_DIRECT files with O_DSYNC, as journal-write-through does. Default: read from broker.xml.")
+   public boolean writeThrough = false;
+
+   @Option(names = "--compare", description = "Run the test for every journal type supported by the data folder, NIO and NIO_DIRECT with and without write-through, and print the results side by side.")
+   public boolean compare = false;
+
 
    @Override
    public Object execute(ActionContext context) throws Exception {
@@ -75,18 +87,31 @@ public class PerfJournal extends OptionalLocking {
          fileConfiguration.setJournalType(JournalType.getType(journalType));
       }
 
+      if (checksum) {
+         fileConfiguration.setJournalChecksum(true);
+      }
+
+      if (writeThrough) {
+         fileConfiguration.setJournalWriteThrough(true);
+      }
+
       context.out.println("");
       context.out.println("Auto tuning journal ...");
 
-      context.out.println("Performing " + tries + " tests writing " + writes + " blocks of " + size + " on each test, sync=" + fileConfiguration.isJournalDatasync() + " with journalType = " + fileConfiguration.getJournalType());
-
       fileConfiguration.getJournalLocation().mkdirs();
 
       if (maxAIO <= 0) {
          maxAIO = fileConfiguration.getJournalMaxIO_AIO();
       }
 
-      long time = SyncCalculation.syncTest(fileConfiguration.getJournalLocation(), size, writes, tries, verbose, fileConfiguration.isJournalDatasync(), syncWrites, fileName, maxAIO, fileConfiguration.getJournalType(), context);
+      if (compare) {
+         compare(fileConfiguration, context);
+         return null;
+      }
+
+      context.out.println("Performing " + tries + " tests writing " + writes + " blocks of " + size + " on each test, sync=" + fileConfiguration.isJournalDatasync() + ", checksum=" + fileConfiguration.isJournalChecksum() + ", writeThrough=" + fileConfiguration.isJournalWriteThrough() + " with journalType = " + fileConfiguration.getJournalType());
+
+      long time = SyncCalculation.syncTest(fileConfiguration.getJournalLocation(), size, writes, tries, verbose, fileConfiguration.isJournalDatasync(), syncWrites, fileName, maxAIO, fileConfiguration.getJournalType(), fileConfiguration.isJournalChecksum(), fileConfiguration.isJournalWriteThrough(), context);
 
       long nanosecondsWait = SyncCalculation.toNanos(time, writes, verbose, context);
       double writesPerMillisecond = (double) writes / (double) time;
@@ -101,4 +126,38 @@ public class PerfJournal extends OptionalLocking {
 
       return null;
    }
+
+   private void compare(FileConfiguration fileConfiguration, ActionContext context) throws Exception {
+      File location = fileConfiguration.getJournalLocation();
+      boolean datasync = fileConfiguration.isJournalDatasync();
+      boolean journalChecksum = fileConfiguration.isJournalChecksum();
+
+      context.out.println("Comparing journal types performing " + tries + " tests writing " + writes + " blocks of " + size + " on each test, sync=" + datasync + ", checksum=" + journalChecksum);
+      context.out.println();
+      context.out.println(String.format("%-28s %16s %24s", "journal", "writes/ms", "journal-buffer-timeout"));
+
+      if (AIOSequentialFileFactory.isSupported(location)) {
+         compare(location, JournalType.ASYNCIO, false, datasync, journalChecksum, context);
+      }
+      compare(location, JournalType.NIO, false, datasync, journalChecksum, context);
+      compare(location, JournalType.NIO, true, datasync, journalChecksum, context);
+      if (NIOSequentialFileFactory.isDirectIOSupported(location)) {
+         compare(location, JournalType.NIO_DIRECT, false, datasync, journalChecksum, context);
+         compare(location, JournalType.NIO_DIRECT, true, datasync, journalChecksum, context);
+      }
+      compare(location, JournalType.MAPPED, false, datasync, journalChecksum, context);
+   }
+
+   private void compare(File location,
+                        JournalType type,
+                        boolean typeWriteThrough,
+                        boolean datasync,
+                        boolean journalChecksum,
+                        ActionContext context) throws Exception {
+      long time = SyncCalculation.syncTest(location, size, writes, tries, verbose, datasync, syncWrites, fileName, maxAIO, type, journalChecksum, typeWriteThrough, context);
+      long nanosecondsWait = SyncCalculation.toNanos(time, writes, false, context);
+      String writesPerMillisecondStr = new DecimalFormat("###.##").format((double) writes / (double) time);
+      String name = typeWriteThrough ? type + " (write-through)" : type.toString();
+      context.out.println(String.format("%-28s %16s %24d", name, writesPerMillisecondStr, nanosecondsWait));
+   }
 }
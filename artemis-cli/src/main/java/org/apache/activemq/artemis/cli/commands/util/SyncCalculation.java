@@ -22,6 +22,7 @@ import java.nio.ByteBuffer;
 import java.text.DecimalFormat;
 import java.util.Arrays;
 import java.util.concurrent.TimeUnit;
+import java.util.zip.CRC32C;
 
 import org.apache.activemq.artemis.cli.commands.ActionContext;
 import org.apache.activemq.artemis.core.io.IOCallback;
@@ -33,6 +34,7 @@ import org.apache.activemq.artemis.core.io.nio.NIOSequentialFileFactory;
 import org.apache.activemq.artemis.core.server.ActiveMQMessageBundle;
 import org.apache.activemq.artemis.core.server.JournalType;
 import org.apache.activemq.artemis.nativo.jlibaio.LibaioContext;
+import org.apache.activemq.artemis.utils.DataConstants;
 import org.apache.activemq.artemis.utils.ReusableLatch;
 
 /**
@@ -77,7 +79,48 @@ public class SyncCalculation {
                                int maxAIO,
                                JournalType journalType,
                                ActionContext context) throws Exception {
-      SequentialFileFactory factory = newFactory(datafolder, fsync, journalType, blockSize * blocks, maxAIO);
+      return syncTest(datafolder, blockSize, blocks, tries, verbose, fsync, syncWrites, fileName, maxAIO, journalType, false, context);
+   }
+
+   /**
+    * As {@link #syncTest(File, int, int, int, boolean, boolean, boolean, String, int, JournalType, ActionContext)}, but
+    * if {@code checksum} each block is preceded by the CRC32C of its content before being written, as the journal does
+    * for each batch of records when {@code journal-checksum} is enabled: the time spent on it is part of the results.
+    */
+   public static long syncTest(File datafolder,
+                               int blockSize,
+                               int blocks,
+                               int tries,
+                               boolean verbose,
+                               boolean fsync,
+                               boolean syncWrites,
+                               String fileName,
+                               int maxAIO,
+                               JournalType journalType,
+                               boolean checksum,
+                               ActionContext context) throws Exception {
+      return syncTest(datafolder, blockSize, blocks, tries, verbose, fsync, syncWrites, fileName, maxAIO, journalType, checksum, false, context);
+   }
+
+   /**
+    * As {@link #syncTest(File, int, int, int, boolean, boolean, boolean, String, int, JournalType, boolean, ActionContext)},
+    * but if {@code writeThrough} the NIO journal types open the file with {@code O_DSYNC}, as {@code journal-write-through}
+    * does: each block is then written and synced by a single system call.
+    */
+   public static long syncTest(File datafolder,
+                               int blockSize,
+                               int blocks,
+                               int tries,
+                               boolean verbose,
+                               boolean fsync,
+                               boolean syncWrites,
+                               String fileName,
+                               int maxAIO,
+                               JournalType journalType,
+                               boolean checksum,
+                               boolean writeThrough,
+                               ActionContext context) throws Exception {
+      SequentialFileFactory factory = newFactory(datafolder, fsync, journalType, blockSize * blocks, maxAIO, writeThrough);
 
       if (factory instanceof AIOSequentialFileFactory) {
          factory.setAlignment(blockSize);
@@ -117,6 +160,8 @@ public class SyncCalculation {
 
          final ReusableLatch latch = new ReusableLatch(0);
 
+         final CRC32C checksumCalculator = checksum ? new CRC32C() : null;
+
          IOCallback callback = new IOCallback() {
             @Override
             public void done() {
@@ -138,8 +183,17 @@ public class SyncCalculation {
             }
             file.open();
             file.position(0);
+            long checksumNanos = 0;
             long start = System.currentTimeMillis();
             for (int i = 0; i < blocks; i++) {
+               if (checksumCalculator != null) {
+                  final long checksumStart = System.nanoTime();
+                  checksumCalculator.reset();
+                  bufferBlock.position(DataConstants.SIZE_INT);
+                  checksumCalculator.update(bufferBlock);
+                  bufferBlock.putInt(0, (int) checksumCalculator.getValue());
+                  checksumNanos += System.nanoTime() - checksumStart;
+               }
                bufferBlock.position(0);
                latch.countUp();
                file.writeDirect(bufferBlock, true, callback);
@@ -160,6 +214,9 @@ public class SyncCalculation {
                context.out.println("Time = " + result[ntry] + " milliseconds");
                context.out.println("Writes / millisecond = " + dcformat.format(writesPerMillisecond));
                context.out.println("bufferTimeout = " + toNanos(result[ntry], blocks, verbose, context));
+               if (checksumCalculator != null) {
+                  context.out.println("Checksum time = " + TimeUnit.NANOSECONDS.toMicros(checksumNanos) + " microseconds");
+               }
                context.out.println("**************************************************");
             }
             file.close();
@@ -226,17 +283,21 @@ public class SyncCalculation {
       return timeWait;
    }
 
-   private static SequentialFileFactory newFactory(File datafolder, boolean datasync, JournalType journalType, int fileSize, int maxAIO) {
+   private static SequentialFileFactory newFactory(File datafolder, boolean datasync, JournalType journalType, int fileSize, int maxAIO, boolean writeThrough) {
       SequentialFileFactory factory;
 
       if (journalType == JournalType.ASYNCIO && !LibaioContext.isLoaded()) {
          journalType = JournalType.NIO;
       }
 
+      if (journalType == JournalType.NIO_DIRECT && !NIOSequentialFileFactory.isDirectIOSupported(datafolder)) {
+         journalType = JournalType.NIO;
+      }
+
       switch (journalType) {
 
          case NIO:
-            factory = new NIOSequentialFileFactory(datafolder, 1).setDatasync(datasync);
+            factory = new NIOSequentialFileFactory(datafolder, 1).setWriteThrough(writeThrough).setDatasync(datasync);
             ((NIOSequentialFileFactory) factory).disableBufferReuse();
             factory.start();
             return factory;
@@ -245,6 +306,11 @@ public class SyncCalculation {
             factory.start();
             ((AIOSequentialFileFactory) factory).disableBufferReuse();
             return factory;
+         case NIO_DIRECT:
+            factory = new NIOSequentialFileFactory(datafolder, false, 0, 0, 1, false, null, null, true).setWriteThrough(writeThrough).setDatasync(datasync);
+            ((NIOSequentialFileFactory) factory).disableBufferReuse();
+            factory.start();
+            return factory;
          case MAPPED:
             factory = new MappedSequentialFileFactory(datafolder, fileSize, false, 0, 0, null)
                .setDatasync(datasync)
@@ -1371,6 +1371,10 @@ public class ArtemisTest extends CliTestBase {
       System.setProperty("artemis.instance", instanceFolder.getAbsolutePath());
 
       Artemis.main("perf-journal", "--journal-type", "NIO", "--writes", "5", "--tries", "1");
+      Artemis.main("perf-journal", "--journal-type", "NIO", "--writes", "5", "--tries", "1", "--checksum");
+      Artemis.main("perf-journal", "--journal-type", "NIO_DIRECT", "--writes", "5", "--tries", "1");
+      Artemis.main("perf-journal", "--journal-type", "NIO", "--writes", "5", "--tries", "1", "--write-through");
+      Artemis.main("perf-journal", "--compare", "--writes", "5", "--tries", "1");
 
    }
 
@@ -2823,4 +2823,25 @@ public interface AuditLogger {
    @LogMessage(id = 601791, value = "User {} is getting the number of messages sent on target resource: {}", level = LogMessage.Level.INFO)
    void getMessagesSent(String user, Object source);
 
+   static void getJournalCompactCount(Object source) {
+      BASE_LOGGER.getJournalCompactCount(getCaller(), source);
+   }
+
+   @LogMessage(id = 601792, value = "User {} is getting journal compact count on target resource: {}", level = LogMessage.Level.INFO)
+   void getJournalCompactCount(String user, Object source);
+
+   static void getJournalCompactBytesReclaimed(Object source) {
+      BASE_LOGGER.getJournalCompactBytesReclaimed(getCaller(), source);
+   }
+
+   @LogMessage(id = 601793, value = "User {} is getting journal compact bytes reclaimed on target resource: {}", level = LogMessage.Level.INFO)
+   void getJournalCompactBytesReclaimed(String user, Object source);
+
+   static void getJournalCompactPauseHistogram(Object source) {
+      BASE_LOGGER.getJournalCompactPauseHistogram(getCaller(), source);
+   }
+
+   @LogMessage(id = 601794, value = "User {} is getting journal compact pause histogram on target resource: {}", level = LogMessage.Level.INFO)
+   void getJournalCompactPauseHistogram(String user, Object source);
+
 }
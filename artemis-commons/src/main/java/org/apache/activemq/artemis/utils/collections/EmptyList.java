@@ -46,6 +46,11 @@ public class EmptyList<E> implements LinkedList<E> {
       throw new UnsupportedOperationException("method not supported");
    }
 
+   @Override
+   public void addSorted(E e) {
+      throw new UnsupportedOperationException("method not supported");
+   }
+
    @Override
    public E get(int position) {
       throw new IndexOutOfBoundsException("position = " + position);
@@ -24,6 +24,9 @@ public interface LinkedList<E> {
 
    void addTail(E e);
 
+   /** Adds the element before the first element that is not lower according to the comparator of the list. */
+   void addSorted(E e);
+
    E get(int position);
 
    E poll();
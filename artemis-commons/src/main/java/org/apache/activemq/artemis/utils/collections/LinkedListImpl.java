@@ -199,6 +199,7 @@ public class LinkedListImpl<E> implements LinkedList<E> {
       }
    }
 
+   @Override
    public void addSorted(E e) {
       final Node<E> localLastAdd = lastAdd;
 
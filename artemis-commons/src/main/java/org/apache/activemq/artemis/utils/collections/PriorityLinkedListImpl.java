@@ -20,18 +20,20 @@ import java.lang.reflect.Array;
 import java.util.Comparator;
 import java.util.NoSuchElementException;
 import java.util.concurrent.atomic.AtomicIntegerFieldUpdater;
+import java.util.function.IntFunction;
 import java.util.function.Supplier;
 
 /**
  * A priority linked list implementation
  * <p>
- * It implements this by maintaining an individual LinkedBlockingDeque for each priority level.
+ * It implements this by maintaining an individual {@link LinkedList} for each priority level, a {@link LinkedListImpl}
+ * unless another implementation is provided.
  */
 public class PriorityLinkedListImpl<E> implements PriorityLinkedList<E> {
 
    private static final AtomicIntegerFieldUpdater<PriorityLinkedListImpl> SIZE_UPDATER = AtomicIntegerFieldUpdater.newUpdater(PriorityLinkedListImpl.class, "size");
 
-   protected final LinkedListImpl<E>[] levels;
+   protected final LinkedList<E>[] levels;
 
    private volatile int size;
 
@@ -46,15 +48,23 @@ public class PriorityLinkedListImpl<E> implements PriorityLinkedList<E> {
    }
 
    public PriorityLinkedListImpl(final int priorities) {
-      this(priorities, null);
+      this(priorities, (Comparator<E>) null);
    }
 
 
    public PriorityLinkedListImpl(final int priorities, Comparator<E> comparator) {
-      levels = (LinkedListImpl<E>[]) Array.newInstance(LinkedListImpl.class, priorities);
+      this(priorities, priority -> new LinkedListImpl<>(comparator));
+   }
+
+   /**
+    * @param levelFactory creates the list of each priority level, which must support {@link LinkedList#addSorted} to
+    *                     be able to use {@link #addSorted}
+    */
+   public PriorityLinkedListImpl(final int priorities, IntFunction<? extends LinkedList<E>> levelFactory) {
+      levels = (LinkedList<E>[]) Array.newInstance(LinkedList.class, priorities);
 
       for (int i = 0; i < priorities; i++) {
-         levels[i] = new LinkedListImpl<>(comparator);
+         levels[i] = levelFactory.apply(i);
       }
    }
 
@@ -134,7 +144,7 @@ public class PriorityLinkedListImpl<E> implements PriorityLinkedList<E> {
 
    @Override
    public E peek() {
-      for (LinkedListImpl<E> level : levels) {
+      for (LinkedList<E> level : levels) {
          E value = level.peek();
          if (value != null) {
             return value;
@@ -155,7 +165,7 @@ public class PriorityLinkedListImpl<E> implements PriorityLinkedList<E> {
       // TODO - A better prioritization algorithm
 
       for (int i = highestPriority; i >= 0; i--) {
-         LinkedListImpl<E> ll = levels[i];
+         LinkedList<E> ll = levels[i];
 
          if (ll.size() != 0) {
             e = ll.poll();
@@ -179,7 +189,7 @@ public class PriorityLinkedListImpl<E> implements PriorityLinkedList<E> {
 
    @Override
    public void clear() {
-      for (LinkedListImpl<E> list : levels) {
+      for (LinkedList<E> list : levels) {
          list.clear();
       }
 
@@ -310,6 +320,11 @@ public class PriorityLinkedListImpl<E> implements PriorityLinkedList<E> {
 
          E returningElement = lastIter.removeLastElement();
 
+         if (returningElement == null) {
+            // the element was already removed from the list
+            return null;
+         }
+
          // If the last message in the current priority is removed then find the next highest
          for (int i = index; i >= 0 && levels[i].size() == 0; i--) {
             highestPriority = i;
@@ -144,6 +144,15 @@ public final class ActiveMQDefaultConfiguration {
    // true means that the server will sync data files
    private static boolean DEFAULT_JOURNAL_DATASYNC = true;
 
+   // true means that each batch of records written on the journal is preceded by its checksum
+   private static boolean DEFAULT_JOURNAL_CHECKSUM = false;
+
+   // true means that the journal buffer timeout is tuned online, following the sync latency of the device
+   private static boolean DEFAULT_JOURNAL_ADAPTIVE_BUFFER_TIMEOUT = false;
+
+   // true means that the NIO journal files are opened with O_DSYNC, to sync each write along with it
+   private static boolean DEFAULT_JOURNAL_WRITE_THROUGH = false;
+
    // Maximum number of threads to use for the scheduled thread pool
    private static int DEFAULT_SCHEDULED_THREAD_POOL_MAX_SIZE = 5;
 
@@ -239,6 +248,9 @@ public final class ActiveMQDefaultConfiguration {
    // true means that ID's are persisted to the journal
    private static boolean DEFAULT_PERSIST_ID_CACHE = true;
 
+   // true means that the duplicate ID caches are kept in primitive arrays instead of maps
+   private static boolean DEFAULT_COMPACT_ID_CACHE = false;
+
    // True means that the delivery count is persisted before delivery. False means that this only happens after a message has been cancelled.
    private static boolean DEFAULT_PERSIST_DELIVERY_COUNT_BEFORE_DELIVERY = false;
 
@@ -260,6 +272,18 @@ public final class ActiveMQDefaultConfiguration {
    // If true the whole page would be read, otherwise just seek and read while getting message
    private static boolean DEFAULT_READ_WHOLE_PAGE = false;
 
+   // the max size (in bytes) of the page files decoded and retained for reuse by every address, -1 means disabled
+   private static long DEFAULT_SHARED_PAGE_CACHE_MAX_SIZE = -1;
+
+   // the max number of threads rebuilding the page counters on start, -1 means the number of available processors
+   private static int DEFAULT_PAGE_COUNTER_REBUILD_PARALLELISM = -1;
+
+   // the period (in milliseconds) of the checks for sparse page files to compact, -1 means disabled
+   private static long DEFAULT_PAGE_COMPACT_PERIOD = -1;
+
+   // the percentage of acknowledged records a page file needs to be compacted
+   private static int DEFAULT_PAGE_COMPACT_THRESHOLD = 50;
+
    // the directory to store the journal files in
    private static String DEFAULT_JOURNAL_DIR = "data/journal";
 
@@ -488,6 +512,10 @@ public final class ActiveMQDefaultConfiguration {
 
    private static final long DEFAULT_JDBC_JOURNAL_SYNC_PERIOD_MILLIS = 5;
 
+   private static final boolean DEFAULT_JDBC_JOURNAL_PIPELINED = false;
+
+   private static final int DEFAULT_JDBC_JOURNAL_MAX_BATCH_SIZE = 1000;
+
    private static final long DEFAULT_JDBC_LOCK_ACQUISITION_TIMEOUT_MILLIS = -1;
 
    private static final long DEFAULT_JDBC_ALLOWED_TIME_DIFF_MILLIS = 250;
@@ -741,6 +769,18 @@ public final class ActiveMQDefaultConfiguration {
       return DEFAULT_JOURNAL_DATASYNC;
    }
 
+   public static boolean isDefaultJournalChecksum() {
+      return DEFAULT_JOURNAL_CHECKSUM;
+   }
+
+   public static boolean isDefaultJournalAdaptiveBufferTimeout() {
+      return DEFAULT_JOURNAL_ADAPTIVE_BUFFER_TIMEOUT;
+   }
+
+   public static boolean isDefaultJournalWriteThrough() {
+      return DEFAULT_JOURNAL_WRITE_THROUGH;
+   }
+
    /**
     * Maximum number of threads to use for the scheduled thread pool
     */
@@ -979,6 +1019,13 @@ public final class ActiveMQDefaultConfiguration {
       return DEFAULT_PERSIST_ID_CACHE;
    }
 
+   /**
+    * true means that the duplicate ID caches are kept in primitive arrays instead of maps
+    */
+   public static boolean isDefaultCompactIdCache() {
+      return DEFAULT_COMPACT_ID_CACHE;
+   }
+
    /**
     * True means that the delivery count is persisted before delivery. False means that this only happens after a message has been cancelled.
     */
@@ -1019,6 +1066,34 @@ public final class ActiveMQDefaultConfiguration {
       return DEFAULT_READ_WHOLE_PAGE;
    }
 
+   /**
+    * the max size (in bytes) of the page files decoded and retained for reuse by every address, -1 means disabled
+    */
+   public static long getDefaultSharedPageCacheMaxSize() {
+      return DEFAULT_SHARED_PAGE_CACHE_MAX_SIZE;
+   }
+
+   /**
+    * the max number of threads rebuilding the page counters on start, -1 means the number of available processors
+    */
+   public static int getDefaultPageCounterRebuildParallelism() {
+      return DEFAULT_PAGE_COUNTER_REBUILD_PARALLELISM;
+   }
+
+   /**
+    * the period (in milliseconds) of the checks for sparse page files to compact, -1 means disabled
+    */
+   public static long getDefaultPageCompactPeriod() {
+      return DEFAULT_PAGE_COMPACT_PERIOD;
+   }
+
+   /**
+    * the percentage of acknowledged records a page file needs to be compacted
+    */
+   public static int getDefaultPageCompactThreshold() {
+      return DEFAULT_PAGE_COMPACT_THRESHOLD;
+   }
+
    /**
     * the directory to store the journal files in
     */
@@ -1538,6 +1613,14 @@ public final class ActiveMQDefaultConfiguration {
       return DEFAULT_JDBC_JOURNAL_SYNC_PERIOD_MILLIS;
    }
 
+   public static boolean isDefaultJdbcJournalPipelined() {
+      return DEFAULT_JDBC_JOURNAL_PIPELINED;
+   }
+
+   public static int getDefaultJdbcJournalMaxBatchSize() {
+      return DEFAULT_JDBC_JOURNAL_MAX_BATCH_SIZE;
+   }
+
    public static long getDefaultJdbcLockExpirationMillis() {
       return DEFAULT_JDBC_LOCK_EXPIRATION_MILLIS;
    }
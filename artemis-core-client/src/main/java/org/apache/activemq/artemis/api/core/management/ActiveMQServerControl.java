@@ -37,6 +37,16 @@ public interface ActiveMQServerControl {
    String AUTHENTICATION_FAILURE_COUNT = "Number of failed authentication attempts";
    String AUTHORIZATION_SUCCESS_COUNT = "Number of successful authorization attempts";
    String AUTHORIZATION_FAILURE_COUNT = "Number of failed authorization attempts";
+   String PAGE_CACHE_SIZE_DESCRIPTION = "Size of the page files held by the shared page cache";
+   String PAGE_CACHE_PAGES_DESCRIPTION = "Number of pages held by the shared page cache";
+   String PAGE_CACHE_HIT_COUNT_DESCRIPTION = "Number of pages reused from the shared page cache";
+   String PAGE_CACHE_MISS_COUNT_DESCRIPTION = "Number of pages which had to be read because they weren't in the shared page cache";
+   String PAGE_CACHE_EVICTION_COUNT_DESCRIPTION = "Number of pages evicted from the shared page cache";
+   String PAGE_COMPACT_COUNT_DESCRIPTION = "Number of page files compacted";
+   String PAGE_COMPACT_BYTES_RECLAIMED_DESCRIPTION = "Number of bytes reclaimed by compacting page files";
+   String JOURNAL_BUFFER_TIMEOUT_DESCRIPTION = "Timeout (in nanoseconds) used to flush the journal buffer";
+   String JOURNAL_BUFFER_SYNC_LATENCY_DESCRIPTION = "Average latency (in nanoseconds) of the syncs of the journal buffer, measured with journal-adaptive-buffer-timeout";
+   String JOURNAL_BUFFER_BATCH_COUNT_DESCRIPTION = "Number of batches flushed by the journal buffer, by number of writes";
 
    /**
     * Returns this server's name.
@@ -239,6 +249,27 @@ public interface ActiveMQServerControl {
    @Attribute(desc = "Percentage of live data before compacting the journal")
    int getJournalCompactPercentage();
 
+   /**
+    * Returns the number of times the message journal has been compacted.
+    */
+   @Attribute(desc = "Number of times the message journal has been compacted")
+   long getJournalCompactCount();
+
+   /**
+    * Returns the size (in bytes) of the message journal files reclaimed by compacting.
+    */
+   @Attribute(desc = "Size (in bytes) of the message journal files reclaimed by compacting")
+   long getJournalCompactBytesReclaimed();
+
+   /**
+    * Returns the histogram of the pauses of the message journal compactions, in JSON format.
+    * <p>
+    * A pause is the time during which compacting blocks any write to the journal. The histogram holds the longest
+    * pause and the number of pauses shorter than each bound, in milliseconds, not counted by a lower bound.
+    */
+   @Attribute(desc = "Histogram of the pauses (in milliseconds) of the message journal compactions, in JSON format")
+   String getJournalCompactPauseHistogram();
+
    /**
     * Returns whether this server is using persistence and store data.
     */
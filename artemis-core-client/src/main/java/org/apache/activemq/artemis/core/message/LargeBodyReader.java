@@ -16,6 +16,7 @@
  */
 package org.apache.activemq.artemis.core.message;
 
+import java.io.File;
 import java.nio.ByteBuffer;
 
 import org.apache.activemq.artemis.api.core.ActiveMQException;
@@ -63,4 +64,14 @@ public interface LargeBodyReader extends AutoCloseable {
     * This method must not be called directly by ActiveMQ Artemis clients.
     */
    long getSize() throws ActiveMQException;
+
+   /**
+    * This method must not be called directly by ActiveMQ Artemis clients.
+    *
+    * The file the body is read from, if the body is the plain content of a file that can be handed as is
+    * to the transport: {@code null} otherwise. The reader must be open.
+    */
+   default File getFile() {
+      return null;
+   }
 }
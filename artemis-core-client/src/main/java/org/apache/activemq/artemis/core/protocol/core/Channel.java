@@ -16,9 +16,12 @@
  */
 package org.apache.activemq.artemis.core.protocol.core;
 
+import java.io.File;
 import java.util.concurrent.locks.Lock;
 
+import io.netty.channel.ChannelFutureListener;
 import org.apache.activemq.artemis.api.core.ActiveMQException;
+import org.apache.activemq.artemis.core.protocol.core.impl.wireformat.SessionReceiveContinuationMessage;
 
 /**
  * A channel is a way of interleaving data meant for different endpoints over the same {@link org.apache.activemq.artemis.core.protocol.core.CoreRemotingConnection}.
@@ -92,6 +95,28 @@ public interface Channel {
     */
    boolean sendBatched(Packet packet);
 
+   /**
+    * Sends a large message continuation whose body is the {@code count} bytes of {@code file} starting at
+    * {@code position}, letting the transport send them without copying them through the heap.
+    * <p>
+    * This is only possible if the transport supports file regions, there are no outgoing interceptors (which would
+    * expect the body on the packet) and the packet isn't kept to be resent on reattach.
+    *
+    * @param packet         the packet to send, without any body set
+    * @param file           the file holding the body
+    * @param position       the position of the body on the file
+    * @param count          the length of the body
+    * @param futureListener notified once the transport is done with the file, if the packet was sent
+    * @return false if the packet cannot be sent this way and nothing was sent; true if the send was successful
+    */
+   default boolean sendFileRegion(SessionReceiveContinuationMessage packet,
+                                  File file,
+                                  long position,
+                                  int count,
+                                  ChannelFutureListener futureListener) {
+      return false;
+   }
+
    /**
     * Similarly to {@code flushConnection} on {@link #send(Packet, boolean)}, it requests
     * any un-flushed previous sent packets to be flushed to the underlying connection.<br>
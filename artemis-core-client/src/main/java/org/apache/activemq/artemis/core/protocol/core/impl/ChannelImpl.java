@@ -16,6 +16,7 @@
  */
 package org.apache.activemq.artemis.core.protocol.core.impl;
 
+import java.io.File;
 import java.util.EnumSet;
 import java.util.List;
 import java.util.Objects;
@@ -27,6 +28,7 @@ import java.util.concurrent.locks.Condition;
 import java.util.concurrent.locks.Lock;
 import java.util.concurrent.locks.ReentrantLock;
 
+import io.netty.channel.ChannelFutureListener;
 import org.apache.activemq.artemis.api.core.ActiveMQBuffer;
 import org.apache.activemq.artemis.api.core.ActiveMQException;
 import org.apache.activemq.artemis.api.core.ActiveMQInterruptedException;
@@ -41,7 +43,9 @@ import org.apache.activemq.artemis.core.protocol.core.Packet;
 import org.apache.activemq.artemis.core.protocol.core.ResponseHandler;
 import org.apache.activemq.artemis.core.protocol.core.impl.wireformat.ActiveMQExceptionMessage;
 import org.apache.activemq.artemis.core.protocol.core.impl.wireformat.PacketsConfirmedMessage;
+import org.apache.activemq.artemis.core.protocol.core.impl.wireformat.SessionReceiveContinuationMessage;
 import org.apache.activemq.artemis.spi.core.protocol.RemotingConnection;
+import org.apache.activemq.artemis.spi.core.remoting.Connection;
 import org.apache.activemq.artemis.utils.ConcurrentUtil;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -346,6 +350,50 @@ public final class ChannelImpl implements Channel {
       return send(packet, -1, false, true);
    }
 
+   @Override
+   public boolean sendFileRegion(final SessionReceiveContinuationMessage packet,
+                                 final File file,
+                                 final long position,
+                                 final int count,
+                                 final ChannelFutureListener futureListener) {
+      final Connection transportConnection = connection.getTransportConnection();
+
+      if ((interceptors != null && !interceptors.isEmpty()) || (resendCache != null && packet.isRequiresConfirmations()) || !transportConnection.isFileRegionSupported()) {
+         return false;
+      }
+
+      synchronized (sendLock) {
+         packet.setChannelID(id);
+
+         if (logger.isTraceEnabled()) {
+            logger.trace("RemotingConnectionID={} Sending packet nonblocking {} with a file region of {} bytes on channelID={}", connection.getID(), packet, count, id);
+         }
+
+         final ActiveMQBuffer header = packet.encodeBeforeBody(connection, count);
+         final ActiveMQBuffer trailer = packet.encodeAfterBody(connection);
+
+         lock.lock();
+
+         try {
+            if (failingOver) {
+               waitForFailOver("RemotingConnectionID=" + connection.getID() + " timed-out waiting for fail-over condition on non-blocking send");
+            }
+
+            // Sanity check
+            if (transferring) {
+               throw ActiveMQClientMessageBundle.BUNDLE.cannotSendPacketDuringFailover();
+            }
+         } finally {
+            lock.unlock();
+         }
+
+         // The actual send must be outside the lock, as on send
+         transportConnection.writeFileRegion(header, file, position, count, trailer, futureListener);
+
+         return true;
+      }
+   }
+
    @Override
    public void setTransferring(boolean transferring) {
       this.transferring = transferring;
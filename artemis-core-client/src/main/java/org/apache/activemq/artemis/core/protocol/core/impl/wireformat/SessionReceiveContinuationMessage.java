@@ -17,6 +17,7 @@
 package org.apache.activemq.artemis.core.protocol.core.impl.wireformat;
 
 import org.apache.activemq.artemis.api.core.ActiveMQBuffer;
+import org.apache.activemq.artemis.core.protocol.core.CoreRemotingConnection;
 import org.apache.activemq.artemis.utils.DataConstants;
 
 public class SessionReceiveContinuationMessage extends SessionContinuationMessage {
@@ -73,6 +74,30 @@ public class SessionReceiveContinuationMessage extends SessionContinuationMessag
       buffer.writeLong(consumerID);
    }
 
+   /**
+    * Encodes the fields preceding a body of {@code bodyLength} bytes, when the body isn't set on this packet but
+    * written separately by the transport, between these fields and the ones of {@link #encodeAfterBody}.
+    */
+   public ActiveMQBuffer encodeBeforeBody(final CoreRemotingConnection connection, final int bodyLength) {
+      size = SESSION_RECEIVE_CONTINUATION_BASE_SIZE + bodyLength;
+      ActiveMQBuffer buffer = connection.createTransportBuffer(PACKET_HEADERS_SIZE + DataConstants.SIZE_INT);
+      encodeHeader(buffer);
+      buffer.writeInt(bodyLength);
+      // The length doesn't include the actual length byte
+      buffer.setInt(0, size - DataConstants.SIZE_INT);
+      return buffer;
+   }
+
+   /**
+    * Encodes the fields following the body written separately by the transport, see {@link #encodeBeforeBody}.
+    */
+   public ActiveMQBuffer encodeAfterBody(final CoreRemotingConnection connection) {
+      ActiveMQBuffer buffer = connection.createTransportBuffer(DataConstants.SIZE_BOOLEAN + DataConstants.SIZE_LONG);
+      buffer.writeBoolean(continues);
+      buffer.writeLong(consumerID);
+      return buffer;
+   }
+
    @Override
    public int getPacketSize() {
       if (size == -1) {
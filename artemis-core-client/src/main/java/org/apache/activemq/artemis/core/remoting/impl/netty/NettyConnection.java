@@ -16,10 +16,12 @@
  */
 package org.apache.activemq.artemis.core.remoting.impl.netty;
 
+import java.io.File;
 import java.net.SocketAddress;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.RejectedExecutionException;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.locks.LockSupport;
 
@@ -27,9 +29,13 @@ import io.netty.buffer.ByteBuf;
 import io.netty.channel.Channel;
 import io.netty.channel.ChannelFuture;
 import io.netty.channel.ChannelFutureListener;
+import io.netty.channel.ChannelHandler;
 import io.netty.channel.ChannelOutboundBuffer;
+import io.netty.channel.ChannelOutboundHandler;
 import io.netty.channel.ChannelPromise;
+import io.netty.channel.DefaultFileRegion;
 import io.netty.channel.EventLoop;
+import io.netty.channel.socket.SocketChannel;
 import io.netty.util.concurrent.FastThreadLocal;
 import org.apache.activemq.artemis.api.core.ActiveMQBuffer;
 import org.apache.activemq.artemis.api.core.ActiveMQInterruptedException;
@@ -69,6 +75,8 @@ public class NettyConnection implements Connection {
 
    private final boolean batchingEnabled;
 
+   private final boolean zeroCopyLargeMessages;
+
    private boolean closed;
    private RemotingConnection protocolConnection;
 
@@ -90,6 +98,8 @@ public class NettyConnection implements Connection {
       this.directDeliver = directDeliver;
 
       this.batchingEnabled = batchingEnabled;
+
+      this.zeroCopyLargeMessages = ConfigurationHelper.getBooleanProperty(TransportConstants.ZERO_COPY_LARGE_MESSAGES, TransportConstants.DEFAULT_ZERO_COPY_LARGE_MESSAGES, configuration);
    }
 
    @Override
@@ -383,6 +393,62 @@ public class NettyConnection implements Connection {
       }
    }
 
+   /**
+    * A file region reaches the socket untouched only on a socket channel whose pipeline has no outbound handler
+    * transforming the written messages (e.g. TLS, WebSocket or HTTP): the pipeline is checked on each call as the
+    * protocol handlers are added after the connection is created.
+    */
+   @Override
+   public boolean isFileRegionSupported() {
+      if (!zeroCopyLargeMessages || !(channel instanceof SocketChannel)) {
+         return false;
+      }
+      for (Map.Entry<String, ChannelHandler> entry : channel.pipeline()) {
+         final ChannelHandler handler = entry.getValue();
+         if (handler instanceof ChannelOutboundHandler && !(handler instanceof ActiveMQChannelHandler)) {
+            return false;
+         }
+      }
+      return true;
+   }
+
+   @Override
+   public void writeFileRegion(final ActiveMQBuffer header,
+                               final File file,
+                               final long position,
+                               final int count,
+                               final ActiveMQBuffer trailer,
+                               final ChannelFutureListener futureListener) {
+      final Channel channel = this.channel;
+      // the file is opened by the event loop only while transferring the region, to not hold a descriptor for each
+      // region waiting on the outbound buffer
+      final DefaultFileRegion region = new DefaultFileRegion(file, position, count);
+      final ChannelPromise promise = futureListener == null ? channel.voidPromise() : channel.newPromise();
+      if (futureListener != null) {
+         promise.addListener(futureListener);
+      }
+      // the 3 writes must not interleave with the ones of other threads: on the event loop no other write can happen
+      // in between, while the task is ordered after the writes already requested by the calling thread
+      final Runnable writes = () -> {
+         channel.write(header.byteBuf(), channel.voidPromise());
+         channel.write(region, channel.voidPromise());
+         channel.writeAndFlush(trailer.byteBuf(), promise);
+      };
+      final EventLoop eventLoop = channel.eventLoop();
+      if (eventLoop.inEventLoop()) {
+         writes.run();
+      } else {
+         try {
+            eventLoop.execute(writes);
+         } catch (RejectedExecutionException e) {
+            header.byteBuf().release();
+            region.release();
+            trailer.byteBuf().release();
+            promise.setFailure(e);
+         }
+      }
+   }
+
    private static void flushAndWait(final Channel channel, final ChannelPromise promise) {
       if (!channel.eventLoop().inEventLoop()) {
          waitFor(promise, DEFAULT_WAIT_MILLIS);
@@ -176,6 +176,8 @@ public class TransportConstants {
 
    public static final String DIRECT_DELIVER = "directDeliver";
 
+   public static final String ZERO_COPY_LARGE_MESSAGES = "zeroCopyLargeMessages";
+
    public static final String CLUSTER_CONNECTION = "clusterConnection";
 
    @Deprecated
@@ -303,6 +305,8 @@ public class TransportConstants {
 
    public static final boolean DEFAULT_DIRECT_DELIVER = true;
 
+   public static final boolean DEFAULT_ZERO_COPY_LARGE_MESSAGES = true;
+
    public static final Set<String> ALLOWABLE_CONNECTOR_KEYS;
 
    public static final Set<String> ALLOWABLE_ACCEPTOR_KEYS;
@@ -449,6 +453,7 @@ public class TransportConstants {
       allowableAcceptorKeys.add(TransportConstants.REMOTING_THREADS_PROPNAME);
       allowableAcceptorKeys.add(TransportConstants.BATCH_DELAY);
       allowableAcceptorKeys.add(TransportConstants.DIRECT_DELIVER);
+      allowableAcceptorKeys.add(TransportConstants.ZERO_COPY_LARGE_MESSAGES);
       allowableAcceptorKeys.add(TransportConstants.CLUSTER_CONNECTION);
       allowableAcceptorKeys.add(TransportConstants.STOMP_CONSUMERS_CREDIT);
       allowableAcceptorKeys.add(TransportConstants.STOMP_CONSUMER_WINDOW_SIZE);
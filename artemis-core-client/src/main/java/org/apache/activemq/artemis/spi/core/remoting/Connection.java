@@ -16,6 +16,7 @@
  */
 package org.apache.activemq.artemis.spi.core.remoting;
 
+import java.io.File;
 import java.util.concurrent.TimeUnit;
 
 import io.netty.channel.ChannelFutureListener;
@@ -119,6 +120,38 @@ public interface Connection {
     */
    void write(ActiveMQBuffer buffer);
 
+   /**
+    * Returns whether {@link #writeFileRegion} can be used, ie the transport can send a region of a file to the wire
+    * without copying it through the heap (e.g. using {@code sendfile}).
+    * This is not the case if the bytes have to be transformed before reaching the wire, e.g. by TLS or WebSocket.
+    */
+   default boolean isFileRegionSupported() {
+      return false;
+   }
+
+   /**
+    * writes {@code header}, the {@code count} bytes of {@code file} starting at {@code position} and {@code trailer}
+    * to the connection, with nothing else in between, and flushes them onto the wire.
+    * The file is read by the transport while writing it, so it must not be changed or deleted before
+    * {@code futureListener} (if not {@code null}) is notified.
+    *
+    * @param header         the buffer to write before the file region
+    * @param file           the file to read the region from
+    * @param position       the position of the region on the file
+    * @param count          the length of the region
+    * @param trailer        the buffer to write after the file region
+    * @param futureListener notified once the write is done, whether it succeeded or not
+    * @throws UnsupportedOperationException if not {@link #isFileRegionSupported()}
+    */
+   default void writeFileRegion(ActiveMQBuffer header,
+                                File file,
+                                long position,
+                                int count,
+                                ActiveMQBuffer trailer,
+                                ChannelFutureListener futureListener) {
+      throw new UnsupportedOperationException();
+   }
+
    /**
     * This should close the internal channel without calling any listeners.
     * This is to avoid a situation where the broker is busy writing on an internal thread.
@@ -16,20 +16,28 @@
  */
 package org.apache.activemq.artemis.core.protocol.core.impl;
 
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
 
+import java.io.File;
 import java.util.concurrent.atomic.AtomicInteger;
 
+import io.netty.buffer.ByteBuf;
 import io.netty.buffer.Unpooled;
+import org.apache.activemq.artemis.api.core.ActiveMQBuffer;
 import org.apache.activemq.artemis.core.buffers.impl.ChannelBufferWrapper;
 import org.apache.activemq.artemis.core.protocol.core.CommandConfirmationHandler;
 import org.apache.activemq.artemis.core.protocol.core.CoreRemotingConnection;
 import org.apache.activemq.artemis.core.protocol.core.Packet;
 import org.apache.activemq.artemis.core.protocol.core.ResponseHandler;
 import org.apache.activemq.artemis.core.protocol.core.impl.wireformat.PacketsConfirmedMessage;
+import org.apache.activemq.artemis.core.protocol.core.impl.wireformat.SessionReceiveContinuationMessage;
 import org.apache.activemq.artemis.spi.core.remoting.Connection;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
 import org.mockito.Mockito;
 
 public class ChannelImplTest {
@@ -97,4 +105,57 @@ public class ChannelImplTest {
 
       assertEquals(0, channel.getCache().size());
    }
-}
\ No newline at end of file
+
+   @Test
+   public void testSendFileRegion() {
+      CoreRemotingConnection coreRC = Mockito.mock(CoreRemotingConnection.class);
+      Mockito.when(coreRC.createTransportBuffer(Mockito.anyInt())).thenAnswer(invocation -> new ChannelBufferWrapper(Unpooled.buffer(invocation.getArgument(0))));
+      Connection connection = Mockito.mock(Connection.class);
+      Mockito.when(connection.isFileRegionSupported()).thenReturn(true);
+      Mockito.when(coreRC.getTransportConnection()).thenReturn(connection);
+      ChannelImpl regionChannel = new ChannelImpl(coreRC, 7, -1, null);
+
+      File file = new File("body");
+      byte[] body = new byte[1000];
+      for (int i = 0; i < body.length; i++) {
+         body[i] = (byte) i;
+      }
+      SessionReceiveContinuationMessage packet = new SessionReceiveContinuationMessage(13, null, true, false);
+
+      assertTrue(regionChannel.sendFileRegion(packet, file, 100, body.length, null));
+
+      ArgumentCaptor<ActiveMQBuffer> header = ArgumentCaptor.forClass(ActiveMQBuffer.class);
+      ArgumentCaptor<ActiveMQBuffer> trailer = ArgumentCaptor.forClass(ActiveMQBuffer.class);
+      Mockito.verify(connection).writeFileRegion(header.capture(), Mockito.eq(file), Mockito.eq(100L), Mockito.eq(body.length), trailer.capture(), Mockito.isNull());
+
+      // the bytes on the wire are the same of the packet with the body set
+      SessionReceiveContinuationMessage expected = new SessionReceiveContinuationMessage(13, body, true, false);
+      expected.setChannelID(7);
+      ActiveMQBuffer expectedBuffer = expected.encode(null);
+      ByteBuf sent = Unpooled.wrappedBuffer(header.getValue().byteBuf(), Unpooled.wrappedBuffer(body), trailer.getValue().byteBuf());
+      assertArrayEquals(toBytes(expectedBuffer.byteBuf()), toBytes(sent));
+      assertEquals(expected.getPacketSize(), packet.getPacketSize());
+   }
+
+   @Test
+   public void testSendFileRegionNotSupported() {
+      CoreRemotingConnection coreRC = Mockito.mock(CoreRemotingConnection.class);
+      Connection connection = Mockito.mock(Connection.class);
+      Mockito.when(coreRC.getTransportConnection()).thenReturn(connection);
+
+      Mockito.when(connection.isFileRegionSupported()).thenReturn(false);
+      assertFalse(new ChannelImpl(coreRC, 7, -1, null).sendFileRegion(new SessionReceiveContinuationMessage(13, null, true, false), new File("body"), 0, 1000, null));
+
+      // the packet would be kept to be resent, without its body
+      Mockito.when(connection.isFileRegionSupported()).thenReturn(true);
+      assertFalse(new ChannelImpl(coreRC, 7, 4000, null).sendFileRegion(new SessionReceiveContinuationMessage(13, null, true, false), new File("body"), 0, 1000, null));
+
+      Mockito.verify(connection, Mockito.never()).writeFileRegion(Mockito.any(), Mockito.any(), Mockito.anyLong(), Mockito.anyInt(), Mockito.any(), Mockito.any());
+   }
+
+   private static byte[] toBytes(ByteBuf buffer) {
+      byte[] bytes = new byte[buffer.readableBytes()];
+      buffer.getBytes(buffer.readerIndex(), bytes);
+      return bytes;
+   }
+}
@@ -24,12 +24,15 @@ import java.sql.SQLException;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
 import java.util.concurrent.Executor;
 import java.util.concurrent.ScheduledExecutorService;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantLock;
 
 import org.apache.activemq.artemis.api.core.ActiveMQException;
 import org.apache.activemq.artemis.api.core.ActiveMQExceptionType;
@@ -53,6 +56,7 @@ import org.apache.activemq.artemis.core.server.ActiveMQScheduledComponent;
 import org.apache.activemq.artemis.jdbc.store.drivers.AbstractJDBCDriver;
 import org.apache.activemq.artemis.jdbc.store.drivers.JDBCConnectionProvider;
 import org.apache.activemq.artemis.jdbc.store.sql.SQLProvider;
+import org.apache.activemq.artemis.utils.ExecutorFactory;
 import org.apache.activemq.artemis.utils.collections.SparseArrayLinkedList;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -109,6 +113,24 @@ public class JDBCJournalImpl extends AbstractJDBCDriver implements Journal {
 
    private final IOCriticalErrorListener criticalIOErrorListener;
 
+   // The smallest batch the pipeline will shrink to when commits become slow
+   private static final int MIN_PIPELINE_BATCH_SIZE = 16;
+
+   // Serializes syncs, so that appends only wait on the in memory bookkeeping and never on a database commit
+   private final ReentrantLock syncLock = new ReentrantLock();
+
+   // When not null, sync() binds the next batch on its own connection while the previous batch commits
+   private ExecutorFactory pipelineExecutorFactory;
+
+   private Executor pipelineCommitExecutor;
+
+   private int maxBatchSize;
+
+   private volatile int batchLimit;
+
+   // Fastest commit seen recently, it slowly drifts up so the pipeline follows changes in the database latency
+   private long fastestCommitNanos = Long.MAX_VALUE;
+
    public JDBCJournalImpl(JDBCConnectionProvider connectionProvider,
                           SQLProvider provider,
                           ScheduledExecutorService scheduledExecutorService,
@@ -123,6 +145,35 @@ public class JDBCJournalImpl extends AbstractJDBCDriver implements Journal {
       this.syncDelay = syncDelay;
    }
 
+   /**
+    * Enables the pipelined sync. Pending records are written in batches of at most {@code maxBatchSize}, and each
+    * batch is bound to its statements on its own connection while the previous batch is still committing. Batches
+    * are always committed in order. The batch size adapts to the commit latency. This must be called before
+    * {@link #start()}.
+    *
+    * @param executorFactory provides the executors running the sync and the commits, off the completion executor
+    * @param maxBatchSize    the maximum number of records written in one database transaction
+    */
+   public void setPipelined(ExecutorFactory executorFactory, int maxBatchSize) {
+      if (maxBatchSize <= 0) {
+         throw new IllegalArgumentException("maxBatchSize must be greater than 0");
+      }
+      this.pipelineExecutorFactory = executorFactory;
+      this.maxBatchSize = maxBatchSize;
+      this.batchLimit = maxBatchSize;
+   }
+
+   public boolean isPipelined() {
+      return pipelineExecutorFactory != null;
+   }
+
+   /**
+    * {@return the current number of records the pipelined sync writes in one database transaction}
+    */
+   public int getPipelineBatchLimit() {
+      return batchLimit;
+   }
+
    @Override
    public void appendAddEvent(long id,
                               byte recordType,
@@ -136,7 +187,13 @@ public class JDBCJournalImpl extends AbstractJDBCDriver implements Journal {
    @Override
    public void start() throws SQLException {
       super.start();
-      syncTimer = new JDBCJournalSync(scheduledExecutorService, completeExecutor, syncDelay, TimeUnit.MILLISECONDS, this);
+      if (isPipelined()) {
+         // the sync blocks while a commit is in flight, it should never hold the completion executor
+         pipelineCommitExecutor = pipelineExecutorFactory.getExecutor();
+         syncTimer = new JDBCJournalSync(scheduledExecutorService, pipelineExecutorFactory.getExecutor(), syncDelay, TimeUnit.MILLISECONDS, this);
+      } else {
+         syncTimer = new JDBCJournalSync(scheduledExecutorService, completeExecutor, syncDelay, TimeUnit.MILLISECONDS, this);
+      }
       started = true;
    }
 
@@ -179,22 +236,51 @@ public class JDBCJournalImpl extends AbstractJDBCDriver implements Journal {
       stop(true);
    }
 
-   public synchronized void stop(boolean sync) throws SQLException {
-      if (started) {
-         if (sync)
-            sync();
-         started = false;
-         super.stop();
+   public void stop(boolean sync) throws SQLException {
+      // the sync lock is always taken before the journal monitor
+      syncLock.lock();
+      try {
+         synchronized (this) {
+            if (started) {
+               if (sync)
+                  sync();
+               started = false;
+               super.stop();
+            }
+         }
+      } finally {
+         syncLock.unlock();
       }
    }
 
    @Override
-   public synchronized void destroy() throws Exception {
-      super.destroy();
-      stop();
+   public void destroy() throws Exception {
+      syncLock.lock();
+      try {
+         synchronized (this) {
+            super.destroy();
+            stop();
+         }
+      } finally {
+         syncLock.unlock();
+      }
    }
 
-   public synchronized int sync() {
+   public int sync() {
+      if (isPipelined()) {
+         return syncPipelined();
+      }
+      syncLock.lock();
+      try {
+         synchronized (this) {
+            return syncBatch();
+         }
+      } finally {
+         syncLock.unlock();
+      }
+   }
+
+   private int syncBatch() {
 
       List<JDBCJournalRecord> recordRef;
       synchronized (records) {
@@ -215,8 +301,6 @@ public class JDBCJournalImpl extends AbstractJDBCDriver implements Journal {
       List<Long> deletedRecords = new ArrayList<>();
       List<Long> committedTransactions = new ArrayList<>();
 
-      TransactionHolder holder;
-
       try (Connection connection = connectionProvider.getConnection();
            PreparedStatement deleteJournalRecords = connection.prepareStatement(this.deleteJournalRecords);
            PreparedStatement deleteJournalTxRecords = connection.prepareStatement(this.deleteJournalTxRecords);
@@ -224,39 +308,7 @@ public class JDBCJournalImpl extends AbstractJDBCDriver implements Journal {
 
          connection.setAutoCommit(false);
 
-         for (JDBCJournalRecord record : recordRef) {
-
-            logger.trace("sync::preparing JDBC statement for {}", record);
-
-            switch (record.getRecordType()) {
-               case JDBCJournalRecord.DELETE_RECORD:
-                  // Standard SQL Delete Record, Non transactional delete
-                  deletedRecords.add(record.getId());
-                  record.writeDeleteRecord(deleteJournalRecords);
-                  break;
-               case JDBCJournalRecord.ROLLBACK_RECORD:
-                  // Roll back we remove all records associated with this TX ID.  This query is always performed last.
-                  deleteJournalTxRecords.setLong(1, record.getTxId());
-                  deleteJournalTxRecords.addBatch();
-                  break;
-               case JDBCJournalRecord.COMMIT_RECORD:
-                  // We perform all the deletes and add the commit record in the same Database TX
-                  holder = transactions.get(record.getTxId());
-                  for (RecordInfo info : holder.recordsToDelete) {
-                     deletedRecords.add(record.getId());
-                     deletedRecords.add(info.id);
-                     deleteJournalRecords.setLong(1, info.id);
-                     deleteJournalRecords.addBatch();
-                  }
-                  record.writeRecord(insertJournalRecords);
-                  committedTransactions.add(record.getTxId());
-                  break;
-               default:
-                  // Default we add a new record to the DB
-                  record.writeRecord(insertJournalRecords);
-                  break;
-            }
-         }
+         bindRecords(recordRef, deleteJournalRecords, deleteJournalTxRecords, insertJournalRecords, deletedRecords, committedTransactions);
 
          insertJournalRecords.executeBatch();
          deleteJournalRecords.executeBatch();
@@ -279,6 +331,214 @@ public class JDBCJournalImpl extends AbstractJDBCDriver implements Journal {
       }
    }
 
+   private void bindRecords(List<JDBCJournalRecord> recordRef,
+                            PreparedStatement deleteJournalRecords,
+                            PreparedStatement deleteJournalTxRecords,
+                            PreparedStatement insertJournalRecords,
+                            List<Long> deletedRecords,
+                            List<Long> committedTransactions) throws Exception {
+      TransactionHolder holder;
+
+      for (JDBCJournalRecord record : recordRef) {
+
+         logger.trace("sync::preparing JDBC statement for {}", record);
+
+         switch (record.getRecordType()) {
+            case JDBCJournalRecord.DELETE_RECORD:
+               // Standard SQL Delete Record, Non transactional delete
+               deletedRecords.add(record.getId());
+               record.writeDeleteRecord(deleteJournalRecords);
+               break;
+            case JDBCJournalRecord.ROLLBACK_RECORD:
+               // Roll back we remove all records associated with this TX ID.  This query is always performed last.
+               deleteJournalTxRecords.setLong(1, record.getTxId());
+               deleteJournalTxRecords.addBatch();
+               break;
+            case JDBCJournalRecord.COMMIT_RECORD:
+               // We perform all the deletes and add the commit record in the same Database TX
+               holder = transactions.get(record.getTxId());
+               for (RecordInfo info : holder.recordsToDelete) {
+                  deletedRecords.add(record.getId());
+                  deletedRecords.add(info.id);
+                  deleteJournalRecords.setLong(1, info.id);
+                  deleteJournalRecords.addBatch();
+               }
+               record.writeRecord(insertJournalRecords);
+               committedTransactions.add(record.getTxId());
+               break;
+            default:
+               // Default we add a new record to the DB
+               record.writeRecord(insertJournalRecords);
+               break;
+         }
+      }
+   }
+
+   private int syncPipelined() {
+      syncLock.lock();
+      try {
+         int synced = 0;
+         PipelinedBatch current = prepareBatch();
+         while (current != null) {
+            final PipelinedBatch committing = current;
+            final CompletableFuture<Long> commit = new CompletableFuture<>();
+            pipelineCommitExecutor.execute(() -> {
+               try {
+                  long start = System.nanoTime();
+                  committing.executeAndCommit();
+                  commit.complete(System.nanoTime() - start);
+               } catch (Throwable e) {
+                  commit.completeExceptionally(e);
+               }
+            });
+
+            // bind the next batch while the current one is committing
+            PipelinedBatch next = prepareBatch();
+
+            long elapsed;
+            try {
+               elapsed = commit.get();
+            } catch (ExecutionException | InterruptedException e) {
+               if (e instanceof InterruptedException) {
+                  Thread.currentThread().interrupt();
+               }
+               committing.close();
+               handleException(committing.records, e instanceof ExecutionException ? e.getCause() : e);
+               if (next != null) {
+                  next.close();
+                  executeCallbacks(next.records, false);
+               }
+               return synced;
+            }
+
+            try {
+               if (cleanupTxRecords(committing.deletedRecords, committing.committedTransactions, committing.deleteJournalTxRecords)) {
+                  committing.deleteJournalTxRecords.executeBatch();
+                  committing.connection.commit();
+                  logger.trace("JDBC commit worked on cleanupTxRecords");
+               }
+            } catch (Exception e) {
+               // the records themselves are committed, only the transaction bookkeeping failed
+               committing.close();
+               executeCallbacks(committing.records, true);
+               handleException(null, e);
+               if (next != null) {
+                  next.close();
+                  executeCallbacks(next.records, false);
+               }
+               return synced + committing.records.size();
+            }
+            committing.close();
+            executeCallbacks(committing.records, true);
+            synced += committing.records.size();
+            adaptBatchLimit(committing.records.size(), elapsed);
+
+            // group commit: whatever was appended during the commit goes straight into the next batch
+            current = next != null ? next : prepareBatch();
+         }
+         return synced;
+      } finally {
+         syncLock.unlock();
+      }
+   }
+
+   private PipelinedBatch prepareBatch() {
+      List<JDBCJournalRecord> recordRef;
+      synchronized (records) {
+         if (records.isEmpty()) {
+            return null;
+         }
+         List<JDBCJournalRecord> head = records.subList(0, Math.min(batchLimit, records.size()));
+         recordRef = new ArrayList<>(head);
+         head.clear();
+      }
+
+      if (!started || failed.get()) {
+         executeCallbacks(recordRef, false);
+         return null;
+      }
+
+      PipelinedBatch batch = null;
+      try {
+         batch = new PipelinedBatch(recordRef, connectionProvider.getConnection());
+         bindRecords(recordRef, batch.deleteJournalRecords, batch.deleteJournalTxRecords, batch.insertJournalRecords, batch.deletedRecords, batch.committedTransactions);
+         return batch;
+      } catch (Exception e) {
+         if (batch != null) {
+            batch.close();
+         }
+         handleException(recordRef, e);
+         return null;
+      }
+   }
+
+   /*
+    * A commit close to the fastest one seen is dominated by the database round trip, so a bigger batch is almost
+    * free. A commit well above it (and above the sync period) is dominated by the batch itself, so the batch is
+    * halved to keep the latency of each append bounded.
+    */
+   private void adaptBatchLimit(int batchSize, long elapsedNanos) {
+      fastestCommitNanos = Math.min(elapsedNanos, fastestCommitNanos == Long.MAX_VALUE ? elapsedNanos : fastestCommitNanos + (fastestCommitNanos >> 4));
+      final long slowCommitNanos = Math.max(TimeUnit.MILLISECONDS.toNanos(syncDelay), fastestCommitNanos * 2);
+      final int limit = batchLimit;
+      if (elapsedNanos > slowCommitNanos) {
+         batchLimit = Math.max(Math.min(MIN_PIPELINE_BATCH_SIZE, maxBatchSize), Math.min(limit, batchSize) / 2);
+      } else if (batchSize >= limit && limit < maxBatchSize) {
+         batchLimit = Math.min(maxBatchSize, limit + Math.max(1, limit / 4));
+      }
+      if (logger.isTraceEnabled() && limit != batchLimit) {
+         logger.trace("pipelined batch limit changed from {} to {} after a commit of {} records in {} ns", limit, batchLimit, batchSize, elapsedNanos);
+      }
+   }
+
+   private final class PipelinedBatch {
+
+      final List<JDBCJournalRecord> records;
+
+      final Connection connection;
+
+      final PreparedStatement deleteJournalRecords;
+
+      final PreparedStatement deleteJournalTxRecords;
+
+      final PreparedStatement insertJournalRecords;
+
+      final List<Long> deletedRecords = new ArrayList<>();
+
+      final List<Long> committedTransactions = new ArrayList<>();
+
+      PipelinedBatch(List<JDBCJournalRecord> records, Connection connection) throws SQLException {
+         this.records = records;
+         this.connection = connection;
+         try {
+            connection.setAutoCommit(false);
+            this.deleteJournalRecords = connection.prepareStatement(JDBCJournalImpl.this.deleteJournalRecords);
+            this.deleteJournalTxRecords = connection.prepareStatement(JDBCJournalImpl.this.deleteJournalTxRecords);
+            this.insertJournalRecords = connection.prepareStatement(JDBCJournalImpl.this.insertJournalRecords);
+         } catch (SQLException e) {
+            connection.close();
+            throw e;
+         }
+      }
+
+      void executeAndCommit() throws SQLException {
+         insertJournalRecords.executeBatch();
+         deleteJournalRecords.executeBatch();
+         deleteJournalTxRecords.executeBatch();
+         connection.commit();
+         logger.trace("JDBC pipelined commit worked");
+      }
+
+      void close() {
+         try {
+            // closing the connection also closes its statements
+            connection.close();
+         } catch (SQLException e) {
+            logger.debug("Error closing pipelined batch connection", e);
+         }
+      }
+   }
+
    /** public for tests only, not through API */
    public void handleException(List<JDBCJournalRecord> recordRef, Throwable e) {
       logger.warn(e.getMessage(), e);
@@ -0,0 +1,203 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.activemq.artemis.jdbc.store.journal;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.sql.DriverManager;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.apache.activemq.artemis.api.config.ActiveMQDefaultConfiguration;
+import org.apache.activemq.artemis.core.journal.IOCompletion;
+import org.apache.activemq.artemis.core.journal.PreparedTransactionInfo;
+import org.apache.activemq.artemis.core.journal.RecordInfo;
+import org.apache.activemq.artemis.core.journal.impl.dataformat.ByteArrayEncoding;
+import org.apache.activemq.artemis.jdbc.store.drivers.JDBCConnectionProvider;
+import org.apache.activemq.artemis.jdbc.store.drivers.JDBCDataSourceUtils;
+import org.apache.activemq.artemis.jdbc.store.drivers.JDBCUtils;
+import org.apache.activemq.artemis.jdbc.store.sql.SQLProvider;
+import org.apache.activemq.artemis.tests.util.ArtemisTestCase;
+import org.apache.activemq.artemis.utils.ActiveMQThreadFactory;
+import org.apache.activemq.artemis.utils.actors.OrderedExecutorFactory;
+import org.apache.derby.jdbc.EmbeddedDriver;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+public class JDBCJournalPipelineTest extends ArtemisTestCase {
+
+   private static final int MAX_BATCH_SIZE = 32;
+
+   private JDBCJournalImpl journal;
+
+   private ExecutorService executor;
+
+   private ExecutorService ioExecutor;
+
+   private ScheduledExecutorService scheduledExecutorService;
+
+   private final AtomicInteger criticalErrors = new AtomicInteger();
+
+   @BeforeEach
+   public void setup() throws Exception {
+      executor = Executors.newSingleThreadExecutor(ActiveMQThreadFactory.defaultThreadFactory(getClass().getName()));
+      ioExecutor = Executors.newCachedThreadPool(ActiveMQThreadFactory.defaultThreadFactory(getClass().getName()));
+      scheduledExecutorService = Executors.newSingleThreadScheduledExecutor(ActiveMQThreadFactory.defaultThreadFactory(getClass().getName()));
+      Map<String, Object> dataSourceProperties = new HashMap<>();
+      dataSourceProperties.put("url", "jdbc:derby:target/data;create=true");
+      dataSourceProperties.put("driverClassName", EmbeddedDriver.class.getCanonicalName());
+      String jdbcDatasourceClass = ActiveMQDefaultConfiguration.getDefaultDataSourceClassName();
+      journal = new JDBCJournalImpl(new JDBCConnectionProvider(JDBCDataSourceUtils.getDataSource(jdbcDatasourceClass, dataSourceProperties)), JDBCUtils.getSQLProvider(dataSourceProperties, "PIPELINED_MESSAGES", SQLProvider.DatabaseStoreType.MESSAGE_JOURNAL), scheduledExecutorService, executor, (code, message, file) -> criticalErrors.incrementAndGet(), 5);
+      journal.setPipelined(new OrderedExecutorFactory(ioExecutor), MAX_BATCH_SIZE);
+      journal.start();
+   }
+
+   @AfterEach
+   public void tearDown() throws Exception {
+      try {
+         journal.destroy();
+         executor.shutdown();
+         ioExecutor.shutdown();
+         scheduledExecutorService.shutdown();
+      } finally {
+         try {
+            DriverManager.getConnection("jdbc:derby:;shutdown=true");
+         } catch (Exception ignored) {
+         }
+      }
+   }
+
+   @Test
+   public void testBatchesNeverExceedMaxBatchSize() throws Exception {
+      final int noRecords = MAX_BATCH_SIZE * 10 + 3;
+      final CountDownLatch done = new CountDownLatch(noRecords);
+      final IOCompletion completion = new CountingCompletion(done);
+
+      for (int i = 0; i < noRecords; i++) {
+         journal.appendAddRecord(i, (byte) 1, new ByteArrayEncoding(new byte[]{(byte) i}), false, completion);
+      }
+      journal.sync();
+
+      assertTrue(done.await(10, TimeUnit.SECONDS));
+      assertTrue(journal.isPipelined());
+      assertTrue(journal.getPipelineBatchLimit() <= MAX_BATCH_SIZE);
+      assertEquals(noRecords, journal.getNumberOfRecords());
+      assertEquals(0, criticalErrors.get());
+   }
+
+   @Test
+   public void testConcurrentAppends() throws Exception {
+      final int producers = 8;
+      final int recordsPerProducer = 500;
+      final CountDownLatch done = new CountDownLatch(producers * recordsPerProducer);
+      final IOCompletion completion = new CountingCompletion(done);
+      final ExecutorService producerExecutor = Executors.newFixedThreadPool(producers);
+      runAfter(producerExecutor::shutdownNow);
+
+      for (int p = 0; p < producers; p++) {
+         final long firstId = (long) p * recordsPerProducer;
+         producerExecutor.execute(() -> {
+            try {
+               for (long id = firstId; id < firstId + recordsPerProducer; id++) {
+                  journal.appendAddRecord(id, (byte) 1, new ByteArrayEncoding(new byte[10]), id % 50 == 0, completion);
+               }
+            } catch (Exception e) {
+               criticalErrors.incrementAndGet();
+            }
+         });
+      }
+
+      assertTrue(done.await(30, TimeUnit.SECONDS));
+      assertEquals(producers * recordsPerProducer, journal.getNumberOfRecords());
+      assertEquals(0, criticalErrors.get());
+   }
+
+   @Test
+   public void testTransactionsAcrossBatches() throws Exception {
+      final int noTx = 20;
+      final int noTxRecords = MAX_BATCH_SIZE;
+      for (int tx = 0; tx < noTx; tx++) {
+         final long txID = 1000 + tx;
+         for (int i = 0; i < noTxRecords; i++) {
+            journal.appendAddRecordTransactional(txID, txID * 1000 + i, (byte) 1, new byte[0]);
+         }
+         journal.appendCommitRecord(txID, tx == noTx - 1);
+      }
+      assertEquals(noTx * (noTxRecords + 1), journal.getNumberOfRecords());
+
+      // deleting every record of the committed transactions also removes their commit records
+      for (int tx = 0; tx < noTx; tx++) {
+         final long txID = 2000 + tx;
+         final long addTxID = 1000 + tx;
+         for (int i = 0; i < noTxRecords; i++) {
+            journal.appendDeleteRecordTransactional(txID, addTxID * 1000 + i);
+         }
+         journal.appendCommitRecord(txID, tx == noTx - 1);
+      }
+      assertEquals(0, journal.getNumberOfRecords());
+      assertEquals(0, criticalErrors.get());
+   }
+
+   @Test
+   public void testStopFlushesPendingRecords() throws Exception {
+      final int noRecords = MAX_BATCH_SIZE * 3;
+      for (int i = 0; i < noRecords; i++) {
+         journal.appendAddRecord(i, (byte) 1, new byte[0], false);
+      }
+      journal.stop();
+      assertFalse(journal.isStarted());
+
+      journal.start();
+      List<RecordInfo> recordInfos = new ArrayList<>();
+      List<PreparedTransactionInfo> txInfos = new ArrayList<>();
+      journal.load(recordInfos, txInfos, null);
+      assertEquals(noRecords, recordInfos.size());
+   }
+
+   private static final class CountingCompletion implements IOCompletion {
+
+      private final CountDownLatch done;
+
+      CountingCompletion(CountDownLatch done) {
+         this.done = done;
+      }
+
+      @Override
+      public void storeLineUp() {
+      }
+
+      @Override
+      public void done() {
+         done.countDown();
+      }
+
+      @Override
+      public void onError(int errorCode, String errorMessage) {
+      }
+   }
+}
@@ -143,6 +143,32 @@ public abstract class AbstractSequentialFileFactory implements SequentialFileFac
       return dataSync;
    }
 
+   @Override
+   public SequentialFileFactory setChecksum(boolean enabled) {
+      if (timedBuffer != null) {
+         timedBuffer.setChecksum(enabled);
+      }
+      return this;
+   }
+
+   @Override
+   public boolean isChecksum() {
+      return timedBuffer != null && timedBuffer.isChecksum();
+   }
+
+   @Override
+   public SequentialFileFactory setAdaptiveBufferTimeout(boolean enabled) {
+      if (timedBuffer != null) {
+         timedBuffer.setAdaptiveTimeout(enabled);
+      }
+      return this;
+   }
+
+   @Override
+   public TimedBuffer getTimedBuffer() {
+      return timedBuffer;
+   }
+
 
    @Override
    public void stop() {
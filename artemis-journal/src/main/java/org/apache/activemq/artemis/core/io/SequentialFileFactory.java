@@ -20,6 +20,7 @@ import java.io.File;
 import java.nio.ByteBuffer;
 import java.util.List;
 
+import org.apache.activemq.artemis.core.io.buffer.TimedBuffer;
 import org.apache.activemq.artemis.utils.critical.CriticalAnalyzer;
 
 /**
@@ -147,6 +148,33 @@ public interface SequentialFileFactory {
 
    boolean isDatasync();
 
+   /**
+    * Precedes each batch of buffered writes by its checksum, see {@link TimedBuffer#setChecksum(boolean)}: it has no
+    * effect on unbuffered factories.
+    */
+   default SequentialFileFactory setChecksum(boolean enabled) {
+      return this;
+   }
+
+   default boolean isChecksum() {
+      return false;
+   }
+
+   /**
+    * Tunes the buffer timeout online, see {@link TimedBuffer#setAdaptiveTimeout(boolean)}: it has no effect on
+    * unbuffered factories.
+    */
+   default SequentialFileFactory setAdaptiveBufferTimeout(boolean enabled) {
+      return this;
+   }
+
+   /**
+    * @return the buffer shared by the files of this factory, or {@code null} if unbuffered
+    */
+   default TimedBuffer getTimedBuffer() {
+      return null;
+   }
+
    long getBufferSize();
 
    /** Only JDBC supports individual context.
@@ -23,16 +23,21 @@ import java.util.Timer;
 import java.util.TimerTask;
 import java.util.concurrent.Semaphore;
 import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
 import java.util.concurrent.locks.LockSupport;
+import java.util.zip.CRC32C;
 
+import io.netty.buffer.ByteBuf;
 import io.netty.buffer.Unpooled;
 import org.apache.activemq.artemis.api.core.ActiveMQBuffer;
 import org.apache.activemq.artemis.api.core.ActiveMQInterruptedException;
 import org.apache.activemq.artemis.core.buffers.impl.ChannelBufferWrapper;
 import org.apache.activemq.artemis.core.io.IOCallback;
 import org.apache.activemq.artemis.core.journal.EncodingSupport;
+import org.apache.activemq.artemis.core.journal.impl.JournalImpl;
 import org.apache.activemq.artemis.journal.ActiveMQJournalLogger;
 import org.apache.activemq.artemis.utils.ArtemisCloseable;
+import org.apache.activemq.artemis.utils.DataConstants;
 import org.apache.activemq.artemis.utils.critical.CriticalAnalyzer;
 import org.apache.activemq.artemis.utils.critical.CriticalComponentImpl;
 import org.slf4j.LoggerFactory;
@@ -58,6 +63,17 @@ public final class TimedBuffer extends CriticalComponentImpl {
    // The number of tries on sleep before switching to spin
    private static final int MAX_CHECKS_ON_SLEEP = 20;
 
+   // On adaptive mode the flush timeout is kept between timeout / MIN_ADAPTIVE_TIMEOUT_DIVISOR and
+   // timeout * MAX_ADAPTIVE_TIMEOUT_MULTIPLIER
+   private static final int MIN_ADAPTIVE_TIMEOUT_DIVISOR = 100;
+   private static final int MAX_ADAPTIVE_TIMEOUT_MULTIPLIER = 10;
+
+   // Each new sample weights 1 / 2^ADAPTIVE_SMOOTHING_SHIFT on the moving averages of the adaptive mode
+   private static final int ADAPTIVE_SMOOTHING_SHIFT = 3;
+
+   // Upper bounds of the batch sizes (in number of writes) histogram, plus a last bucket for the bigger ones
+   private static final int[] BATCH_SIZE_BUCKETS = {1, 2, 4, 8, 16, 32, 64, 128, 256};
+
 
    // If the TimedBuffer is idle - i.e. no records are being added, then it's pointless the timer flush thread
    // in spinning and checking the time - and using up CPU in the process - this semaphore is used to
@@ -66,6 +82,14 @@ public final class TimedBuffer extends CriticalComponentImpl {
    private final int bufferSize;
    private final ActiveMQBuffer buffer;
    private final int timeout;
+   // the timeout currently in use: it is the configured one, unless on adaptive mode
+   private volatile long flushTimeout;
+   private volatile boolean adaptiveTimeout;
+   // moving averages of the adaptive mode, guarded by adaptiveLock
+   private final Object adaptiveLock = new Object();
+   private long syncLatencyNanos = -1;
+   private long syncsPerBatch;
+   private final AtomicLongArray batchCounts = new AtomicLongArray(BATCH_SIZE_BUCKETS.length + 1);
    private final boolean logRates;
    private final AtomicLong bytesFlushed = new AtomicLong(0);
    private final AtomicLong flushesDone = new AtomicLong(0);
@@ -75,6 +99,8 @@ public final class TimedBuffer extends CriticalComponentImpl {
    private List<IOCallback> callbacks;
    // used to measure sync requests. When a sync is requested, it shouldn't take more than timeout to happen
    private volatile boolean pendingSync = false;
+   // number of writes of the current batch which requested a sync
+   private int pendingSyncs = 0;
 
    // for logging write rates
    private Thread timerThread;
@@ -90,6 +116,11 @@ public final class TimedBuffer extends CriticalComponentImpl {
    // no need to be volatile as every access is synchronized
    private boolean spinning = false;
 
+   // no need to be volatile as every access is synchronized
+   private boolean checksum = false;
+
+   private final CRC32C checksumCalculator = new CRC32C();
+
 
 
    public TimedBuffer(CriticalAnalyzer analyzer, final int size, final int timeout, final boolean logRates) {
@@ -106,7 +137,8 @@ public final class TimedBuffer extends CriticalComponentImpl {
       //prefer off heap buffer to allow further humongous allocations and reduce GC overhead
       //NOTE: it is used ByteBuffer::allocateDirect instead of Unpooled::directBuffer, because the latter could allocate
       //direct ByteBuffers with no Cleaner!
-      buffer = new ChannelBufferWrapper(Unpooled.wrappedBuffer(ByteBuffer.allocateDirect(size)));
+      //NOTE: room is left for the checksum record, so that records as big as the buffer still fit on it
+      buffer = new ChannelBufferWrapper(Unpooled.wrappedBuffer(ByteBuffer.allocateDirect(size + JournalImpl.SIZE_CHECKSUM_RECORD)));
 
       buffer.clear();
 
@@ -115,6 +147,8 @@ public final class TimedBuffer extends CriticalComponentImpl {
       callbacks = new ArrayList<>();
 
       this.timeout = timeout;
+
+      this.flushTimeout = timeout;
    }
 
    public void start() {
@@ -206,6 +240,75 @@ public final class TimedBuffer extends CriticalComponentImpl {
       }
    }
 
+   /**
+    * When enabled, each flushed batch is preceded by a {@link JournalImpl#CHECKSUM_RECORD} holding the length and the
+    * CRC32C of the batch, which lets {@link JournalImpl} tell apart a torn write while loading.
+    * <p>
+    * It has to be set before any bytes are added.
+    */
+   public synchronized void setChecksum(boolean checksum) {
+      this.checksum = checksum;
+   }
+
+   public synchronized boolean isChecksum() {
+      return checksum;
+   }
+
+   /**
+    * When enabled, the flush timeout is tuned online instead of using the configured one: it follows the observed sync
+    * latency of the device while concurrent writes are waiting on the same sync, in order to batch them, and shrinks
+    * towards its lower bound while each sync serves a single write, in order to not delay it.
+    */
+   public void setAdaptiveTimeout(boolean adaptiveTimeout) {
+      this.adaptiveTimeout = adaptiveTimeout;
+      if (!adaptiveTimeout) {
+         flushTimeout = timeout;
+      }
+   }
+
+   public boolean isAdaptiveTimeout() {
+      return adaptiveTimeout;
+   }
+
+   /**
+    * @return the flush timeout in use, in nanoseconds
+    */
+   public long getFlushTimeout() {
+      return flushTimeout;
+   }
+
+   /**
+    * @return the moving average of the sync latency observed on adaptive mode, in nanoseconds, or {@code -1} if unknown
+    */
+   public long getSyncLatency() {
+      synchronized (adaptiveLock) {
+         return syncLatencyNanos;
+      }
+   }
+
+   /**
+    * @return the inclusive upper bound of each bucket of {@link #getBatchCounts()} but the last one
+    */
+   public int[] getBatchSizeBuckets() {
+      return BATCH_SIZE_BUCKETS.clone();
+   }
+
+   /**
+    * @return the number of flushed batches by number of writes, the last bucket counting the batches bigger than any
+    * bound
+    */
+   public long[] getBatchCounts() {
+      final long[] counts = new long[batchCounts.length()];
+      for (int i = 0; i < counts.length; i++) {
+         counts[i] = batchCounts.get(i);
+      }
+      return counts;
+   }
+
+   public long getBatchCount(int bucket) {
+      return batchCounts.get(bucket);
+   }
+
    /**
     * Verify if the size fits the buffer
     *
@@ -232,14 +335,17 @@ public final class TimedBuffer extends CriticalComponentImpl {
 
                final int remainingInFile = bufferObserver.getRemainingBytes();
 
-               if (sizeChecked > remainingInFile) {
+               // a new batch begins with its checksum record
+               final int checksumSize = checksum && buffer.writerIndex() == 0 ? JournalImpl.SIZE_CHECKSUM_RECORD : 0;
+
+               if (sizeChecked + checksumSize > remainingInFile) {
                   return false;
                } else {
                   // There is enough space in the file for this size
 
                   // Need to re-calculate buffer limit
 
-                  bufferLimit = Math.min(remainingInFile, bufferSize);
+                  bufferLimit = Math.min(remainingInFile, bufferSize + checksumSize);
 
                   return true;
                }
@@ -261,6 +367,8 @@ public final class TimedBuffer extends CriticalComponentImpl {
 
             delayFlush = false;
 
+            reserveChecksum();
+
             //it doesn't modify the reader index of bytes as in the original version
             final int readableBytes = bytes.readableBytes();
             final int writerIndex = buffer.writerIndex();
@@ -271,6 +379,7 @@ public final class TimedBuffer extends CriticalComponentImpl {
 
             if (sync) {
                pendingSync = true;
+               pendingSyncs++;
             }
 
             startSpin();
@@ -288,12 +397,15 @@ public final class TimedBuffer extends CriticalComponentImpl {
 
             delayFlush = false;
 
+            reserveChecksum();
+
             bytes.encode(buffer);
 
             callbacks.add(callback);
 
             if (sync) {
                pendingSync = true;
+               pendingSyncs++;
             }
 
             startSpin();
@@ -324,10 +436,21 @@ public final class TimedBuffer extends CriticalComponentImpl {
             if (!delayFlush && buffer.writerIndex() > 0) {
                int pos = buffer.writerIndex();
 
+               if (checksum) {
+                  writeChecksum(pos);
+               }
+
                if (logRates) {
                   bytesFlushed.addAndGet(pos);
                }
 
+               batchCounts.incrementAndGet(batchSizeBucket(callbacks.size()));
+
+               if (pendingSync && adaptiveTimeout) {
+                  // completed along with the writes of this batch, once synced
+                  callbacks.add(new SyncLatencyCallback(pendingSyncs));
+               }
+
                if (bufferObserver.supportSync()) {
                   // performing the sync away from the lock
                   // so other writes can be performed while that flush is happening
@@ -343,6 +466,8 @@ public final class TimedBuffer extends CriticalComponentImpl {
 
                pendingSync = false;
 
+               pendingSyncs = 0;
+
                // swap the instance as the previous callback list is being used asynchronously
                callbacks = new ArrayList<>();
 
@@ -364,6 +489,31 @@ public final class TimedBuffer extends CriticalComponentImpl {
       }
    }
 
+   private static int batchSizeBucket(int batchSize) {
+      int bucket = 0;
+      while (bucket < BATCH_SIZE_BUCKETS.length && batchSize > BATCH_SIZE_BUCKETS[bucket]) {
+         bucket++;
+      }
+      return bucket;
+   }
+
+   private void reserveChecksum() {
+      if (checksum && buffer.writerIndex() == 0) {
+         buffer.writerIndex(JournalImpl.SIZE_CHECKSUM_RECORD);
+      }
+   }
+
+   private void writeChecksum(int pos) {
+      final ByteBuf byteBuf = buffer.byteBuf();
+      final int batchLength = pos - JournalImpl.SIZE_CHECKSUM_RECORD;
+      checksumCalculator.reset();
+      // on a direct buffer, CRC32C is computed by the JVM intrinsic
+      checksumCalculator.update(byteBuf.nioBuffer(JournalImpl.SIZE_CHECKSUM_RECORD, batchLength));
+      byteBuf.setByte(0, JournalImpl.CHECKSUM_RECORD);
+      byteBuf.setInt(DataConstants.SIZE_BYTE, batchLength);
+      byteBuf.setInt(DataConstants.SIZE_BYTE + DataConstants.SIZE_INT, (int) checksumCalculator.getValue());
+   }
+
    /**
     * Sub classes (tests basically) can use this to override how the sleep is being done
     *
@@ -442,6 +592,49 @@ public final class TimedBuffer extends CriticalComponentImpl {
       }
    }
 
+   /**
+    * Measures the latency of the sync of a batch, to adapt the flush timeout.
+    */
+   private final class SyncLatencyCallback implements IOCallback {
+
+      private final long flushTime = System.nanoTime();
+
+      private final int syncs;
+
+      private SyncLatencyCallback(int syncs) {
+         this.syncs = syncs;
+      }
+
+      @Override
+      public void done() {
+         final long latency = System.nanoTime() - flushTime;
+         // the writes can be completed by several threads
+         synchronized (adaptiveLock) {
+            if (syncLatencyNanos < 0) {
+               syncLatencyNanos = latency;
+               syncsPerBatch = syncs << ADAPTIVE_SMOOTHING_SHIFT;
+            } else {
+               syncLatencyNanos += (latency - syncLatencyNanos) >> ADAPTIVE_SMOOTHING_SHIFT;
+               // kept scaled by 2^ADAPTIVE_SMOOTHING_SHIFT to not lose its fractional part
+               syncsPerBatch += syncs - (syncsPerBatch >> ADAPTIVE_SMOOTHING_SHIFT);
+            }
+            final long minTimeout = Math.max(1, timeout / MIN_ADAPTIVE_TIMEOUT_DIVISOR);
+            final long maxTimeout = (long) timeout * MAX_ADAPTIVE_TIMEOUT_MULTIPLIER;
+            // waiting for more writes is worthy only if they are concurrently requesting a sync
+            final long target = syncsPerBatch >= (2 << ADAPTIVE_SMOOTHING_SHIFT) ? syncLatencyNanos : minTimeout;
+            final long current = flushTimeout;
+            final long next = current + ((target - current) >> ADAPTIVE_SMOOTHING_SHIFT);
+            if (adaptiveTimeout) {
+               flushTimeout = Math.min(maxTimeout, Math.max(minTimeout, next));
+            }
+         }
+      }
+
+      @Override
+      public void onError(int errorCode, String errorMessage) {
+      }
+   }
+
    private class CheckTimer implements Runnable {
 
       int checks = 0;
@@ -459,6 +652,8 @@ public final class TimedBuffer extends CriticalComponentImpl {
             // Effectively flushing "resets" the timer
             // On the timeout verification, notice that we ignore the timeout check if we are using sleep
 
+            final long timeout = flushTimeout;
+
             if (pendingSync || System.nanoTime() - lastFlushTime > timeout) {
                if (useSleep) {
                   // if using sleep, we will always flush
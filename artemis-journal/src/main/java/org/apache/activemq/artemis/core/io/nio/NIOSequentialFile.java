@@ -24,13 +24,16 @@ import java.io.StringWriter;
 import java.nio.ByteBuffer;
 import java.nio.channels.ClosedChannelException;
 import java.nio.channels.FileChannel;
+import java.nio.file.StandardOpenOption;
 import java.util.List;
 import java.util.Map;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.Executor;
 import java.util.concurrent.atomic.AtomicInteger;
 
+import com.sun.nio.file.ExtendedOpenOption;
 import io.netty.buffer.ByteBuf;
+import io.netty.util.internal.PlatformDependent;
 import org.apache.activemq.artemis.api.core.ActiveMQException;
 import org.apache.activemq.artemis.api.core.ActiveMQExceptionType;
 import org.apache.activemq.artemis.api.core.ActiveMQIOErrorException;
@@ -42,7 +45,9 @@ import org.apache.activemq.artemis.core.io.SequentialFile;
 import org.apache.activemq.artemis.core.io.SequentialFileFactory;
 import org.apache.activemq.artemis.core.io.buffer.TimedBufferObserver;
 import org.apache.activemq.artemis.journal.ActiveMQJournalBundle;
+import org.apache.activemq.artemis.utils.ByteUtil;
 import org.apache.activemq.artemis.utils.Env;
+import org.apache.activemq.artemis.utils.PowerOf2Util;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import java.lang.invoke.MethodHandles;
@@ -69,6 +74,18 @@ public class NIOSequentialFile extends AbstractSequentialFile {
 
    protected final int maxIO;
 
+   /**
+    * When {@code true} the file bypasses the page cache: there is no {@link #rfile} and {@link #channel} is only
+    * accessed with buffers, positions and sizes aligned to {@link SequentialFileFactory#getAlignment()}.
+    */
+   private final boolean directIO;
+
+   /**
+    * When {@code true} the file is opened with {@link StandardOpenOption#DSYNC}: any write is durable once completed and
+    * {@link #sync()} has nothing left to do.
+    */
+   private final boolean writeThrough;
+
    public NIOSequentialFile(final SequentialFileFactory factory,
                             final File directory,
                             final String file,
@@ -76,6 +93,8 @@ public class NIOSequentialFile extends AbstractSequentialFile {
                             final Executor writerExecutor) {
       super(directory, file, factory, writerExecutor);
       this.maxIO = maxIO;
+      this.directIO = factory instanceof NIOSequentialFileFactory && ((NIOSequentialFileFactory) factory).isDirectIO();
+      this.writeThrough = factory instanceof NIOSequentialFileFactory && ((NIOSequentialFileFactory) factory).isWriteThrough();
    }
 
    @Override
@@ -85,7 +104,7 @@ public class NIOSequentialFile extends AbstractSequentialFile {
 
    @Override
    public int calculateBlockStart(final int position) {
-      return position;
+      return factory.calculateBlockSize(position);
    }
 
    @Override
@@ -144,9 +163,15 @@ public class NIOSequentialFile extends AbstractSequentialFile {
    @Override
    public void open(final int maxIO, final boolean useExecutor) throws IOException {
       try {
-         rfile = new RandomAccessFile(getFile(), "rw");
+         if (directIO) {
+            channel = writeThrough ?
+               FileChannel.open(getFile().toPath(), StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE, StandardOpenOption.DSYNC, ExtendedOpenOption.DIRECT) :
+               FileChannel.open(getFile().toPath(), StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE, ExtendedOpenOption.DIRECT);
+         } else {
+            rfile = new RandomAccessFile(getFile(), writeThrough ? "rwd" : "rw");
 
-         channel = rfile.getChannel();
+            channel = rfile.getChannel();
+         }
 
          fileSize = channel.size();
 
@@ -166,27 +191,32 @@ public class NIOSequentialFile extends AbstractSequentialFile {
    public void fill(final int size) throws IOException {
       try {
          //uses the most common OS page size to match the Page Cache entry size and reduce JVM memory footprint
-         final int zeroPageCapacity = Env.osPageSize();
+         final int zeroPageCapacity = factory.calculateBlockSize(Env.osPageSize());
          final ByteBuffer zeroPage = this.factory.newBuffer(zeroPageCapacity);
+         //a write-through channel would sync each page: the whole file is synced once instead
+         final FileChannel fillChannel = writeThrough ? FileChannel.open(getFile().toPath(), StandardOpenOption.WRITE) : channel;
          try {
-            int bytesToWrite = size;
+            int bytesToWrite = factory.calculateBlockSize(size);
             long writePosition = 0;
             while (bytesToWrite > 0) {
                zeroPage.clear();
                final int zeroPageLimit = Math.min(bytesToWrite, zeroPageCapacity);
                zeroPage.limit(zeroPageLimit);
                //use the cheaper pwrite instead of fseek + fwrite
-               final int writtenBytes = channel.write(zeroPage, writePosition);
+               final int writtenBytes = fillChannel.write(zeroPage, writePosition);
                bytesToWrite -= writtenBytes;
                writePosition += writtenBytes;
             }
             if (factory.isDatasync()) {
-               channel.force(true);
+               fillChannel.force(true);
             }
             //set the position to 0 to match the fill contract
             channel.position(0);
             fileSize = channel.size();
          } finally {
+            if (fillChannel != channel) {
+               fillChannel.close();
+            }
             //return it to the factory
             this.factory.releaseBuffer(zeroPage);
          }
@@ -282,7 +312,9 @@ public class NIOSequentialFile extends AbstractSequentialFile {
             throw new ActiveMQIllegalStateException("File " + this.getFileName() + " has a null channel");
          }
          final int bytesRead;
-         if (bytes.hasArray()) {
+         if (directIO) {
+            bytesRead = directRead(bytes);
+         } else if (bytes.hasArray()) {
             if (bytes.remaining() > CHUNK_SIZE) {
                bytesRead = readRafInChunks(rfile, bytes.array(), bytes.arrayOffset() + bytes.position(), bytes.remaining());
             } else {
@@ -315,10 +347,39 @@ public class NIOSequentialFile extends AbstractSequentialFile {
       }
    }
 
+   private boolean isAligned(final ByteBuffer bytes) {
+      final int alignment = factory.getAlignment();
+      return bytes.isDirect() && PowerOf2Util.isAligned(PlatformDependent.directBufferAddress(bytes) + bytes.position(), alignment) &&
+         PowerOf2Util.isAligned(bytes.remaining(), alignment);
+   }
+
+   /**
+    * Reads into {@code bytes} from the current (aligned) position, through an aligned copy if {@code bytes} isn't.
+    */
+   private int directRead(final ByteBuffer bytes) throws IOException {
+      if (isAligned(bytes)) {
+         return channel.read(bytes);
+      }
+      final ByteBuffer alignedBytes = factory.newBuffer(bytes.remaining(), false);
+      try {
+         final int bytesRead = channel.read(alignedBytes);
+         if (bytesRead <= 0) {
+            return bytesRead;
+         }
+         alignedBytes.flip();
+         alignedBytes.limit(Math.min(bytesRead, bytes.remaining()));
+         final int bytesCopied = alignedBytes.remaining();
+         bytes.put(alignedBytes);
+         return bytesCopied;
+      } finally {
+         factory.releaseBuffer(alignedBytes);
+      }
+   }
+
    @Override
    public void sync() throws IOException {
       FileChannel channel1 = channel;
-      if (factory.isDatasync() && channel1 != null && channel1.isOpen()) {
+      if (factory.isDatasync() && !writeThrough && channel1 != null && channel1.isOpen()) {
          try {
             syncChannel(channel1);
          } catch (IOException e) {
@@ -409,7 +470,7 @@ public class NIOSequentialFile extends AbstractSequentialFile {
          return;
       }
 
-      position.addAndGet(bytes.limit());
+      position.addAndGet(directIO ? factory.calculateBlockSize(bytes.limit()) : bytes.limit());
 
       try {
          doInternalWrite(bytes, sync, callback, releaseBuffer);
@@ -432,7 +493,9 @@ public class NIOSequentialFile extends AbstractSequentialFile {
                                 final IOCallback callback,
                                 boolean releaseBuffer) throws IOException {
       try {
-         if (bytes.hasArray()) {
+         if (directIO) {
+            directWrite(bytes);
+         } else if (bytes.hasArray()) {
             if (bytes.remaining() > CHUNK_SIZE) {
                writeRafInChunks(rfile, bytes.array(), bytes.arrayOffset() + bytes.position(), bytes.remaining());
             } else {
@@ -458,6 +521,43 @@ public class NIOSequentialFile extends AbstractSequentialFile {
       }
    }
 
+   /**
+    * Writes {@code bytes} padded with zeros up to the alignment, through an aligned copy if {@code bytes} can't be
+    * padded in place.
+    */
+   private void directWrite(final ByteBuffer bytes) throws IOException {
+      final int alignedSize = factory.calculateBlockSize(bytes.remaining());
+      if (bytes.isDirect() && !bytes.isReadOnly() && bytes.capacity() - bytes.position() >= alignedSize &&
+         PowerOf2Util.isAligned(PlatformDependent.directBufferAddress(bytes) + bytes.position(), factory.getAlignment())) {
+         final int padding = alignedSize - bytes.remaining();
+         if (padding > 0) {
+            final int limit = bytes.limit();
+            bytes.limit(bytes.position() + alignedSize);
+            ByteUtil.zeros(bytes, limit, padding);
+         }
+         writeFully(bytes);
+      } else {
+         final ByteBuffer alignedBytes = factory.newBuffer(alignedSize, false);
+         try {
+            alignedBytes.put(bytes);
+            if (alignedBytes.position() < alignedSize) {
+               ByteUtil.zeros(alignedBytes, alignedBytes.position(), alignedSize - alignedBytes.position());
+            }
+            alignedBytes.clear();
+            alignedBytes.limit(alignedSize);
+            writeFully(alignedBytes);
+         } finally {
+            factory.releaseBuffer(alignedBytes);
+         }
+      }
+   }
+
+   private void writeFully(final ByteBuffer bytes) throws IOException {
+      while (bytes.hasRemaining()) {
+         channel.write(bytes);
+      }
+   }
+
    @Override
    public void copyTo(SequentialFile dstFile) throws IOException {
       logger.debug("Copying {} as {}", this, dstFile);
@@ -480,8 +580,8 @@ public class NIOSequentialFile extends AbstractSequentialFile {
          if (bytes == 0) {
             IOCallback.done(callbacks);
          } else {
-            //enable zero copy case
-            if (byteBuf.nioBufferCount() == 1 && byteBuf.isDirect()) {
+            //enable zero copy case: with direct I/O the buffer has to be copied anyway, to be aligned and padded
+            if (!directIO && byteBuf.nioBufferCount() == 1 && byteBuf.isDirect()) {
                final ByteBuffer buffer = byteBuf.internalNioBuffer(byteBuf.readerIndex(), bytes);
                final IOCallback callback = DelegateCallback.wrap(callbacks);
                try {
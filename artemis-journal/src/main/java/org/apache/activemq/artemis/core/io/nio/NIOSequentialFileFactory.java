@@ -17,10 +17,17 @@
 package org.apache.activemq.artemis.core.io.nio;
 
 import java.io.File;
+import java.io.IOException;
+import java.lang.invoke.MethodHandles;
 import java.lang.ref.WeakReference;
 import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.StandardOpenOption;
 import java.util.Arrays;
 
+import com.sun.nio.file.ExtendedOpenOption;
+
 import io.netty.util.internal.PlatformDependent;
 import org.apache.activemq.artemis.ArtemisConstants;
 import org.apache.activemq.artemis.core.io.AbstractSequentialFileFactory;
@@ -30,14 +37,33 @@ import org.apache.activemq.artemis.core.io.util.ByteBufferPool;
 import org.apache.activemq.artemis.utils.PowerOf2Util;
 import org.apache.activemq.artemis.utils.Env;
 import org.apache.activemq.artemis.utils.critical.CriticalAnalyzer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 
+/**
+ * Factory of {@link NIOSequentialFile}s, which go through the OS page cache unless {@code directIO} is enabled: the
+ * files are then opened with {@link ExtendedOpenOption#DIRECT} and any read and write is performed on buffers, positions
+ * and sizes aligned to {@link #getAlignment()}, the block size of the file store unless configured otherwise.
+ * <p>
+ * With {@link #setWriteThrough(boolean) write-through} and {@link #isDatasync() datasync} the files are opened with
+ * {@link StandardOpenOption#DSYNC} instead, as AIO does: each write is durable once completed, so a batch of the
+ * {@link org.apache.activemq.artemis.core.io.buffer.TimedBuffer} is written and synced by a single system call.
+ */
 public class NIOSequentialFileFactory extends AbstractSequentialFileFactory {
 
+   private static final Logger logger = LoggerFactory.getLogger(MethodHandles.lookup().lookupClass());
+
    private static final int DEFAULT_CAPACITY_ALIGNMENT = Env.osPageSize();
 
+   private static final String DIRECT_IO_TEST_FILE = ".direct-io-test";
+
    private boolean bufferPooling;
 
-   private final ByteBufferPool bytesPool;
+   private final boolean directIO;
+
+   private boolean writeThrough;
+
+   private volatile ByteBufferPool bytesPool;
 
    public NIOSequentialFileFactory(final File journalDir, final int maxIO) {
       this(journalDir, null, maxIO);
@@ -75,9 +101,71 @@ public class NIOSequentialFileFactory extends AbstractSequentialFileFactory {
                                    final boolean logRates,
                                    final IOCriticalErrorListener listener,
                                    final CriticalAnalyzer analyzer) {
+      this(journalDir, buffered, bufferSize, bufferTimeout, maxIO, logRates, listener, analyzer, false);
+   }
+
+   public NIOSequentialFileFactory(final File journalDir,
+                                   final boolean buffered,
+                                   final int bufferSize,
+                                   final int bufferTimeout,
+                                   final int maxIO,
+                                   final boolean logRates,
+                                   final IOCriticalErrorListener listener,
+                                   final CriticalAnalyzer analyzer,
+                                   final boolean directIO) {
       super(journalDir, buffered, bufferSize, bufferTimeout, maxIO, logRates, listener, analyzer);
       this.bufferPooling = true;
-      this.bytesPool = ByteBufferPool.threadLocal(true);
+      this.directIO = directIO;
+      this.bytesPool = directIO ? null : ByteBufferPool.threadLocal(true);
+   }
+
+   /**
+    * @return {@code true} if the files of {@code journalDir} can be opened with {@link ExtendedOpenOption#DIRECT}
+    */
+   public static boolean isDirectIOSupported(File journalDir) {
+      final File testFile = new File(journalDir, DIRECT_IO_TEST_FILE);
+      try {
+         journalDir.mkdirs();
+         final int alignment = calculateAlignment(journalDir);
+         try (FileChannel channel = FileChannel.open(testFile.toPath(), StandardOpenOption.CREATE, StandardOpenOption.WRITE, ExtendedOpenOption.DIRECT)) {
+            channel.write(ByteBufferPool.allocateAlignedDirect(alignment, alignment), 0);
+         }
+         return true;
+      } catch (Throwable e) {
+         logger.debug("Direct I/O is not supported on {}", journalDir, e);
+         return false;
+      } finally {
+         testFile.delete();
+      }
+   }
+
+   private static int calculateAlignment(File journalDir) throws IOException {
+      return (int) Files.getFileStore(journalDir.toPath()).getBlockSize();
+   }
+
+   public boolean isDirectIO() {
+      return directIO;
+   }
+
+   /**
+    * It has to be set before creating any file.
+    */
+   public NIOSequentialFileFactory setWriteThrough(boolean writeThrough) {
+      this.writeThrough = writeThrough;
+      return this;
+   }
+
+   /**
+    * @return {@code true} if the writes are synced by the file system as they complete, with no separate sync
+    */
+   public boolean isWriteThrough() {
+      return writeThrough && isDatasync();
+   }
+
+   @Override
+   public boolean isSyncSupported() {
+      // the TimedBuffer has to request the sync along with the write
+      return !isWriteThrough();
    }
 
    public static ByteBuffer allocateDirectByteBuffer(final int size) {
@@ -126,6 +214,11 @@ public class NIOSequentialFileFactory extends AbstractSequentialFileFactory {
 
    @Override
    public ByteBuffer allocateDirectBuffer(final int size) {
+      if (directIO) {
+         final ByteBuffer byteBuffer = ByteBufferPool.allocateAlignedDirect(calculateBlockSize(size), getAlignment());
+         byteBuffer.limit(size);
+         return byteBuffer;
+      }
       final int requiredCapacity = PowerOf2Util.align(size, DEFAULT_CAPACITY_ALIGNMENT);
       final ByteBuffer byteBuffer = ByteBuffer.allocateDirect(requiredCapacity);
       byteBuffer.limit(size);
@@ -134,7 +227,8 @@ public class NIOSequentialFileFactory extends AbstractSequentialFileFactory {
 
    @Override
    public void releaseDirectBuffer(ByteBuffer buffer) {
-      if (buffer.isDirect()) {
+      // the aligned buffers are slices, which can't be freed explicitly
+      if (buffer.isDirect() && !directIO) {
          PlatformDependent.freeDirectBuffer(buffer);
       }
    }
@@ -146,17 +240,21 @@ public class NIOSequentialFileFactory extends AbstractSequentialFileFactory {
 
    @Override
    public ByteBuffer newBuffer(int size, boolean zeroed) {
+      if (directIO) {
+         // as AIO, any buffer has to be a multiple of the alignment
+         size = calculateBlockSize(size);
+      }
       if (!this.bufferPooling) {
          return allocateDirectBuffer(size);
       } else {
-         return bytesPool.borrow(size, zeroed);
+         return bytesPool().borrow(size, zeroed);
       }
    }
 
    @Override
    public void releaseBuffer(ByteBuffer buffer) {
       if (this.bufferPooling) {
-         bytesPool.release(buffer);
+         bytesPool().release(buffer);
       } else {
          releaseDirectBuffer(buffer);
       }
@@ -173,17 +271,52 @@ public class NIOSequentialFileFactory extends AbstractSequentialFileFactory {
 
    @Override
    public ByteBuffer wrapBuffer(final byte[] bytes) {
+      if (directIO) {
+         final ByteBuffer buffer = newBuffer(bytes.length);
+         buffer.put(bytes);
+         buffer.flip();
+         return buffer;
+      }
       return ByteBuffer.wrap(bytes);
    }
 
    @Override
    public int getAlignment() {
-      return 1;
+      if (!directIO) {
+         return 1;
+      }
+      if (alignment < 0) {
+         try {
+            alignment = calculateAlignment(journalDir);
+         } catch (IOException e) {
+            logger.warn(e.getMessage(), e);
+            alignment = DEFAULT_CAPACITY_ALIGNMENT;
+         }
+      }
+      return alignment;
    }
 
    @Override
    public int calculateBlockSize(final int bytes) {
-      return bytes;
+      if (!directIO) {
+         return bytes;
+      }
+      return PowerOf2Util.align(bytes, getAlignment());
+   }
+
+   private ByteBufferPool bytesPool() {
+      ByteBufferPool pool = bytesPool;
+      if (pool == null) {
+         synchronized (this) {
+            pool = bytesPool;
+            if (pool == null) {
+               // the alignment is known only once the journal directory exists
+               pool = ByteBufferPool.threadLocalAligned(getAlignment());
+               bytesPool = pool;
+            }
+         }
+      }
+      return pool;
    }
 
 }
@@ -18,6 +18,8 @@ package org.apache.activemq.artemis.core.io.util;
 
 import java.nio.ByteBuffer;
 
+import org.apache.activemq.artemis.utils.PowerOf2Util;
+
 /**
  * Object Pool that allows to borrow and release {@link ByteBuffer}s according to a specific type (direct/heap).<br>
  * The suggested usage pattern is:
@@ -48,4 +50,25 @@ public interface ByteBufferPool {
       return new ThreadLocalByteBufferPool(direct);
    }
 
+   /**
+    * Factory method that creates a thread-local pool of capacity 1 of direct {@link ByteBuffer}s whose address is a
+    * multiple of {@code alignment}, as required by direct I/O.<br>
+    * The aligned buffers are slices of larger ones, hence they are not freed explicitly but left to the GC.
+    */
+   static ByteBufferPool threadLocalAligned(int alignment) {
+      if (!PowerOf2Util.isPowOf2(alignment)) {
+         throw new IllegalArgumentException("alignment must be a power of 2: " + alignment);
+      }
+      return new ThreadLocalByteBufferPool(true, alignment);
+   }
+
+   /**
+    * It allocates a direct {@link ByteBuffer} of {@code capacity} whose address is a multiple of {@code alignment}.
+    */
+   static ByteBuffer allocateAlignedDirect(int capacity, int alignment) {
+      final ByteBuffer buffer = ByteBuffer.allocateDirect(capacity + alignment - 1).alignedSlice(alignment);
+      buffer.limit(capacity);
+      return buffer.slice();
+   }
+
 }
@@ -28,19 +28,29 @@ final class ThreadLocalByteBufferPool implements ByteBufferPool {
 
    private final ThreadLocal<ByteBuffer> bytesPool;
    private final boolean direct;
+   private final int alignment;
 
    ThreadLocalByteBufferPool(boolean direct) {
+      this(direct, 0);
+   }
+
+   ThreadLocalByteBufferPool(boolean direct, int alignment) {
       this.bytesPool = new ThreadLocal<>();
       this.direct = direct;
+      this.alignment = alignment;
    }
 
    @Override
    public ByteBuffer borrow(final int size, boolean zeroed) {
-      final int requiredCapacity = PowerOf2Util.align(size, Env.osPageSize());
+      final int requiredCapacity = PowerOf2Util.align(size, Math.max(Env.osPageSize(), alignment));
       ByteBuffer byteBuffer = bytesPool.get();
       if (byteBuffer == null || requiredCapacity > byteBuffer.capacity()) {
          //do not free the old one (if any) until the new one will be released into the pool!
-         byteBuffer = direct ? ByteBuffer.allocateDirect(requiredCapacity) : ByteBuffer.allocate(requiredCapacity);
+         if (alignment > 0) {
+            byteBuffer = ByteBufferPool.allocateAlignedDirect(requiredCapacity, alignment);
+         } else {
+            byteBuffer = direct ? ByteBuffer.allocateDirect(requiredCapacity) : ByteBuffer.allocate(requiredCapacity);
+         }
       } else {
          bytesPool.set(null);
          if (zeroed) {
@@ -57,20 +67,21 @@ final class ThreadLocalByteBufferPool implements ByteBufferPool {
    public void release(ByteBuffer buffer) {
       Objects.requireNonNull(buffer);
       boolean directBuffer = buffer.isDirect();
-      if (directBuffer == direct && !buffer.isReadOnly()) {
+      //an aligned pool can't hand out the buffers it didn't allocate
+      if (directBuffer == direct && !buffer.isReadOnly() && (alignment == 0 || PowerOf2Util.isAligned(PlatformDependent.directBufferAddress(buffer), alignment))) {
          final ByteBuffer byteBuffer = bytesPool.get();
          if (byteBuffer != buffer) {
             //replace with the current pooled only if greater or null
             if (byteBuffer == null || buffer.capacity() > byteBuffer.capacity()) {
                if (byteBuffer != null) {
                   //free the smaller one
-                  if (directBuffer) {
+                  if (directBuffer && alignment == 0) {
                      PlatformDependent.freeDirectBuffer(byteBuffer);
                   }
                }
                bytesPool.set(buffer);
             } else {
-               if (directBuffer) {
+               if (directBuffer && alignment == 0) {
                   PlatformDependent.freeDirectBuffer(buffer);
                }
             }
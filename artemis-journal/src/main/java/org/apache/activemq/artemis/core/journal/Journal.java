@@ -361,6 +361,13 @@ public interface Journal extends ActiveMQComponent {
     */
    void scheduleCompactAndBlock(int timeout) throws Exception;
 
+   /**
+    * Returns the statistics of the compactions of this journal, or {@code null} if it is never compacted.
+    */
+   default JournalCompactStatistics getCompactStatistics() {
+      return null;
+   }
+
    /**
     * Stops any operation that may delete or modify old (stale) data.
     * <p>
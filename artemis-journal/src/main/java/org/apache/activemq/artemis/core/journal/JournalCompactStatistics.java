@@ -0,0 +1,111 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.activemq.artemis.core.journal;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Statistics of the compactions of a journal.
+ * <p>
+ * A pause is the time during which a compaction holds the journal lock, blocking any append: the pauses are counted on
+ * a histogram whose buckets are bounded by {@link #PAUSE_BUCKETS_MILLIS}, plus a last bucket for the longer ones.
+ */
+public final class JournalCompactStatistics {
+
+   private static final long[] PAUSE_BUCKETS_MILLIS = {1, 5, 10, 50, 100, 500, 1000, 5000};
+
+   private final AtomicLong compactCount = new AtomicLong();
+
+   private final AtomicLong bytesReclaimed = new AtomicLong();
+
+   private final AtomicLong maxPauseNanos = new AtomicLong();
+
+   private final AtomicLongArray pauseCounts = new AtomicLongArray(PAUSE_BUCKETS_MILLIS.length + 1);
+
+   /**
+    * Accounts a completed compaction.
+    *
+    * @param bytesReclaimed the size of the data files released by the compaction
+    */
+   public void compacted(long bytesReclaimed) {
+      compactCount.incrementAndGet();
+      this.bytesReclaimed.addAndGet(bytesReclaimed);
+   }
+
+   /**
+    * Accounts a pause of a compaction.
+    */
+   public void paused(long pauseNanos) {
+      final long pauseMillis = TimeUnit.NANOSECONDS.toMillis(pauseNanos);
+      int bucket = 0;
+      while (bucket < PAUSE_BUCKETS_MILLIS.length && pauseMillis >= PAUSE_BUCKETS_MILLIS[bucket]) {
+         bucket++;
+      }
+      pauseCounts.incrementAndGet(bucket);
+      maxPauseNanos.accumulateAndGet(pauseNanos, Math::max);
+   }
+
+   /**
+    * Accounts the compactions of another journal as well, to sum up the statistics of several journals.
+    */
+   public void add(JournalCompactStatistics other) {
+      compactCount.addAndGet(other.getCompactCount());
+      bytesReclaimed.addAndGet(other.getBytesReclaimed());
+      maxPauseNanos.accumulateAndGet(other.maxPauseNanos.get(), Math::max);
+      for (int i = 0; i < pauseCounts.length(); i++) {
+         pauseCounts.addAndGet(i, other.pauseCounts.get(i));
+      }
+   }
+
+   public long getCompactCount() {
+      return compactCount.get();
+   }
+
+   public long getBytesReclaimed() {
+      return bytesReclaimed.get();
+   }
+
+   public long getMaxPauseMillis() {
+      return TimeUnit.NANOSECONDS.toMillis(maxPauseNanos.get());
+   }
+
+   /**
+    * @return the exclusive upper bound, in milliseconds, of each bucket of {@link #getPauseCounts()} but the last one
+    */
+   public long[] getPauseBucketsMillis() {
+      return PAUSE_BUCKETS_MILLIS.clone();
+   }
+
+   /**
+    * @return the number of pauses of each bucket, the last one counting the pauses longer than any bound
+    */
+   public long[] getPauseCounts() {
+      final long[] counts = new long[pauseCounts.length()];
+      for (int i = 0; i < counts.length; i++) {
+         counts[i] = pauseCounts.get(i);
+      }
+      return counts;
+   }
+
+   @Override
+   public String toString() {
+      return "JournalCompactStatistics{compactCount=" + getCompactCount() + ", bytesReclaimed=" + getBytesReclaimed() +
+         ", maxPauseMillis=" + getMaxPauseMillis() + "}";
+   }
+}
@@ -31,6 +31,7 @@ import org.apache.activemq.artemis.core.journal.RecordInfo;
 import org.apache.activemq.artemis.core.journal.impl.dataformat.ByteArrayEncoding;
 import org.apache.activemq.artemis.core.journal.impl.dataformat.JournalAddRecord;
 import org.apache.activemq.artemis.core.journal.impl.dataformat.JournalInternalRecord;
+import org.apache.activemq.artemis.utils.collections.ConcurrentLongHashMap;
 import org.apache.activemq.artemis.utils.collections.ConcurrentLongHashSet;
 
 /**
@@ -56,7 +57,11 @@ public abstract class AbstractJournalUpdateTask implements JournalReaderCallback
 
    private ByteBuffer bufferWrite;
 
-   private final ConcurrentLongHashSet recordsSnapshot;
+   private final ConcurrentLongHashSet recordsSnapshot = new ConcurrentLongHashSet();
+
+   // The records of the journal when the task was created, detached from the journal and no longer updated: they are
+   // looked up as part of the snapshot until their IDs are copied by releaseDetachedRecords
+   private volatile ConcurrentLongHashMap<JournalRecord> detachedRecords;
 
    protected final List<JournalFile> newDataFiles = new ArrayList<>();
 
@@ -64,14 +69,14 @@ public abstract class AbstractJournalUpdateTask implements JournalReaderCallback
    protected AbstractJournalUpdateTask(final SequentialFileFactory fileFactory,
                                        final JournalImpl journal,
                                        final JournalFilesRepository filesRepository,
-                                       final ConcurrentLongHashSet recordsSnapshot,
+                                       final ConcurrentLongHashMap<JournalRecord> detachedRecords,
                                        final long nextOrderingID) {
       super();
       this.journal = journal;
       this.filesRepository = filesRepository;
       this.fileFactory = fileFactory;
       this.nextOrderingID = nextOrderingID;
-      this.recordsSnapshot = recordsSnapshot;
+      this.detachedRecords = detachedRecords;
    }
 
 
@@ -244,7 +249,24 @@ public abstract class AbstractJournalUpdateTask implements JournalReaderCallback
    }
 
    public boolean containsRecord(final long id) {
-      return recordsSnapshot.contains(id);
+      if (recordsSnapshot.contains(id)) {
+         return true;
+      }
+      final ConcurrentLongHashMap<JournalRecord> detachedRecords = this.detachedRecords;
+      return detachedRecords != null && detachedRecords.containsKey(id);
+   }
+
+   /**
+    * Copies the IDs of the detached records into the snapshot, so the records themselves are no longer retained.
+    * <p>
+    * This is meant to be called by the task itself, outside of any journal lock.
+    */
+   protected void releaseDetachedRecords() {
+      final ConcurrentLongHashMap<JournalRecord> detachedRecords = this.detachedRecords;
+      if (detachedRecords != null) {
+         detachedRecords.forEach((id, record) -> recordsSnapshot.add(id));
+         this.detachedRecords = null;
+      }
    }
 
 
@@ -37,7 +37,6 @@ import org.apache.activemq.artemis.core.journal.impl.dataformat.JournalRollbackR
 import org.apache.activemq.artemis.journal.ActiveMQJournalLogger;
 import org.apache.activemq.artemis.utils.RunnableEx;
 import org.apache.activemq.artemis.utils.collections.ConcurrentLongHashMap;
-import org.apache.activemq.artemis.utils.collections.ConcurrentLongHashSet;
 import org.slf4j.LoggerFactory;
 import java.lang.invoke.MethodHandles;
 import org.slf4j.Logger;
@@ -86,9 +85,9 @@ public class JournalCompactor extends AbstractJournalUpdateTask implements Journ
    public JournalCompactor(final SequentialFileFactory fileFactory,
                            final JournalImpl journal,
                            final JournalFilesRepository filesRepository,
-                           final ConcurrentLongHashSet recordsSnapshot,
+                           final ConcurrentLongHashMap<JournalRecord> detachedRecords,
                            final long firstFileID) {
-      super(fileFactory, journal, filesRepository, recordsSnapshot, firstFileID);
+      super(fileFactory, journal, filesRepository, detachedRecords, firstFileID);
    }
 
    /**
@@ -0,0 +1,328 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.activemq.artemis.core.journal.impl;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicReference;
+
+import io.netty.util.collection.ByteObjectHashMap;
+import org.apache.activemq.artemis.core.io.SequentialFileFactory;
+import org.apache.activemq.artemis.core.journal.RecordInfo;
+import org.apache.activemq.artemis.journal.ActiveMQJournalLogger;
+import org.apache.activemq.artemis.utils.ExecutorFactory;
+
+/**
+ * Reads the journal files to be loaded, in order.
+ * <p>
+ * With a parallelism greater than 1 the files are read and parsed ahead on several executors, recording the callbacks
+ * of {@link JournalImpl#readJournalFile} instead of delivering them. The recorded callbacks are then replayed file by
+ * file, in the order of the files: the loader gets exactly the same sequence of callbacks it would get reading the
+ * files one after the other, while the next files are being read and parsed.
+ * <p>
+ * At most {@code parallelism + 1} files are parsed ahead of the one being replayed, and each executor reuses its own
+ * read buffer. This class is not thread-safe: it is meant to be used by the loading thread only.
+ */
+final class JournalFilesReader implements AutoCloseable {
+
+   private final SequentialFileFactory fileFactory;
+
+   private List<JournalFile> files;
+
+   private final ByteObjectHashMap<Boolean> replaceableRecords;
+
+   private final AtomicReference<ByteBuffer> wholeFileBufferRef;
+
+   private final Executor[] executors;
+
+   // AtomicReference is used only as a reference, not as an Atomic value: each one is used by a single executor
+   private final AtomicReference<ByteBuffer>[] executorBuffers;
+
+   private final List<CompletableFuture<ParsedFile>> parsedFiles = new ArrayList<>();
+
+   private int next;
+
+   @SuppressWarnings("unchecked")
+   JournalFilesReader(SequentialFileFactory fileFactory,
+                      ExecutorFactory executorFactory,
+                      int parallelism,
+                      ByteObjectHashMap<Boolean> replaceableRecords,
+                      AtomicReference<ByteBuffer> wholeFileBufferRef) {
+      this.fileFactory = fileFactory;
+      this.replaceableRecords = replaceableRecords;
+      this.wholeFileBufferRef = wholeFileBufferRef;
+      if (parallelism > 1 && executorFactory != null) {
+         executors = new Executor[parallelism];
+         executorBuffers = new AtomicReference[parallelism];
+         for (int i = 0; i < parallelism; i++) {
+            executors[i] = executorFactory.getExecutor();
+            executorBuffers[i] = new AtomicReference<>();
+         }
+      } else {
+         executors = null;
+         executorBuffers = null;
+      }
+   }
+
+   /**
+    * Sets the files to be read, in the order {@link #read} will be called with.
+    */
+   void readAhead(List<JournalFile> files) {
+      this.files = files;
+      this.next = 0;
+      this.parsedFiles.clear();
+   }
+
+   /**
+    * Reads {@code file}, which must be the next one set by {@link #readAhead}, delivering its records to
+    * {@code reader}.
+    *
+    * @return what {@link JournalImpl#readJournalFile} returns for the file
+    */
+   int read(JournalFile file, JournalReaderCallback reader) throws Exception {
+      if (executors == null || files.size() < 2) {
+         return JournalImpl.readJournalFile(fileFactory, file, reader, wholeFileBufferRef, false, replaceableRecords);
+      }
+      final int index = next++;
+      if (files.get(index) != file) {
+         throw new IllegalStateException("Expected to read " + files.get(index).getFile().getFileName() + " instead of " + file.getFile().getFileName());
+      }
+      submitUpTo(index + executors.length + 1);
+      final CompletableFuture<ParsedFile> parsedFile = parsedFiles.get(index);
+      final ParsedFile parsed;
+      try {
+         parsed = parsedFile.get();
+      } catch (ExecutionException e) {
+         final Throwable cause = e.getCause();
+         throw cause instanceof Exception ? (Exception) cause : new Exception(cause.getMessage(), cause);
+      }
+      // the records are retained until replayed only
+      parsedFiles.set(index, null);
+      try {
+         return parsed.replay(reader);
+      } catch (Throwable e) {
+         ActiveMQJournalLogger.LOGGER.errorReadingFile(e);
+         throw new Exception(e.getMessage(), e);
+      }
+   }
+
+   private void submitUpTo(int limit) {
+      for (int index = parsedFiles.size(); index < Math.min(limit, files.size()); index++) {
+         final JournalFile file = files.get(index);
+         final int executorIndex = index % executors.length;
+         final CompletableFuture<ParsedFile> parsedFile = new CompletableFuture<>();
+         parsedFiles.add(parsedFile);
+         executors[executorIndex].execute(() -> {
+            try {
+               final ParsedFile parsed = new ParsedFile();
+               parsed.lastDataPos = JournalImpl.readJournalFile(fileFactory, file, parsed, executorBuffers[executorIndex], false, replaceableRecords);
+               parsedFile.complete(parsed);
+            } catch (Throwable e) {
+               parsedFile.completeExceptionally(e);
+            }
+         });
+      }
+   }
+
+   /**
+    * Waits for any file still being read and releases the read buffers.
+    */
+   @Override
+   public void close() {
+      if (executors == null) {
+         return;
+      }
+      for (CompletableFuture<ParsedFile> parsedFile : parsedFiles) {
+         if (parsedFile != null) {
+            try {
+               parsedFile.join();
+            } catch (Throwable ignored) {
+               // already reported to the loader, if it got there
+            }
+         }
+      }
+      parsedFiles.clear();
+      for (AtomicReference<ByteBuffer> executorBuffer : executorBuffers) {
+         final ByteBuffer buffer = executorBuffer.getAndSet(null);
+         if (buffer != null) {
+            fileFactory.releaseDirectBuffer(buffer);
+         }
+      }
+   }
+
+   private static final byte MARK_AS_DATA_FILE = 0;
+
+   private static final byte DONE = 1;
+
+   /**
+    * The callbacks of a file, in the order they happened. {@link #markAsDataFile} is always called with the file being
+    * read, hence it is kept once.
+    */
+   private static final class ParsedFile implements JournalReaderCallback {
+
+      private final ArrayList<Callback> callbacks = new ArrayList<>();
+
+      private JournalFile file;
+
+      private int lastDataPos;
+
+      private void record(byte type, long id, RecordInfo info) {
+         callbacks.add(new Callback(type, id, info));
+      }
+
+      @Override
+      public void onReadEventRecord(RecordInfo info) {
+         record(JournalImpl.EVENT_RECORD, 0, info);
+      }
+
+      @Override
+      public void onReadAddRecord(RecordInfo info) {
+         record(JournalImpl.ADD_RECORD, 0, info);
+      }
+
+      @Override
+      public void onReadUpdateRecord(RecordInfo info) {
+         record(JournalImpl.UPDATE_RECORD, 0, info);
+      }
+
+      @Override
+      public void onReadDeleteRecord(long recordID) {
+         record(JournalImpl.DELETE_RECORD, recordID, null);
+      }
+
+      @Override
+      public void onReadAddRecordTX(long transactionID, RecordInfo info) {
+         record(JournalImpl.ADD_RECORD_TX, transactionID, info);
+      }
+
+      @Override
+      public void onReadUpdateRecordTX(long transactionID, RecordInfo info) {
+         record(JournalImpl.UPDATE_RECORD_TX, transactionID, info);
+      }
+
+      @Override
+      public void onReadDeleteRecordTX(long transactionID, RecordInfo info) {
+         record(JournalImpl.DELETE_RECORD_TX, transactionID, info);
+      }
+
+      @Override
+      public void onReadPrepareRecord(long transactionID, byte[] extraData, int numberOfRecords) {
+         callbacks.add(new Callback(JournalImpl.PREPARE_RECORD, transactionID, extraData, numberOfRecords));
+      }
+
+      @Override
+      public void onReadCommitRecord(long transactionID, int numberOfRecords) {
+         callbacks.add(new Callback(JournalImpl.COMMIT_RECORD, transactionID, null, numberOfRecords));
+      }
+
+      @Override
+      public void onReadRollbackRecord(long transactionID) {
+         record(JournalImpl.ROLLBACK_RECORD, transactionID, null);
+      }
+
+      @Override
+      public void markAsDataFile(JournalFile file) {
+         this.file = file;
+         record(MARK_AS_DATA_FILE, 0, null);
+      }
+
+      @Override
+      public void done() {
+         record(DONE, 0, null);
+      }
+
+      int replay(JournalReaderCallback reader) throws Exception {
+         for (Callback callback : callbacks) {
+            switch (callback.type) {
+               case JournalImpl.EVENT_RECORD:
+                  reader.onReadEventRecord(callback.info);
+                  break;
+               case JournalImpl.ADD_RECORD:
+                  reader.onReadAddRecord(callback.info);
+                  break;
+               case JournalImpl.UPDATE_RECORD:
+                  reader.onReadUpdateRecord(callback.info);
+                  break;
+               case JournalImpl.DELETE_RECORD:
+                  reader.onReadDeleteRecord(callback.id);
+                  break;
+               case JournalImpl.ADD_RECORD_TX:
+                  reader.onReadAddRecordTX(callback.id, callback.info);
+                  break;
+               case JournalImpl.UPDATE_RECORD_TX:
+                  reader.onReadUpdateRecordTX(callback.id, callback.info);
+                  break;
+               case JournalImpl.DELETE_RECORD_TX:
+                  reader.onReadDeleteRecordTX(callback.id, callback.info);
+                  break;
+               case JournalImpl.PREPARE_RECORD:
+                  reader.onReadPrepareRecord(callback.id, callback.extraData, callback.numberOfRecords);
+                  break;
+               case JournalImpl.COMMIT_RECORD:
+                  reader.onReadCommitRecord(callback.id, callback.numberOfRecords);
+                  break;
+               case JournalImpl.ROLLBACK_RECORD:
+                  reader.onReadRollbackRecord(callback.id);
+                  break;
+               case MARK_AS_DATA_FILE:
+                  reader.markAsDataFile(file);
+                  break;
+               case DONE:
+                  reader.done();
+                  break;
+               default:
+                  throw new IllegalStateException("Unexpected callback type " + callback.type);
+            }
+         }
+         return lastDataPos;
+      }
+   }
+
+   private static final class Callback {
+
+      final byte type;
+
+      // the record ID of a delete, the transaction ID otherwise
+      final long id;
+
+      final RecordInfo info;
+
+      final byte[] extraData;
+
+      final int numberOfRecords;
+
+      Callback(byte type, long id, RecordInfo info) {
+         this.type = type;
+         this.id = id;
+         this.info = info;
+         this.extraData = null;
+         this.numberOfRecords = 0;
+      }
+
+      Callback(byte type, long id, byte[] extraData, int numberOfRecords) {
+         this.type = type;
+         this.id = id;
+         this.info = null;
+         this.extraData = extraData;
+         this.numberOfRecords = numberOfRecords;
+      }
+   }
+}
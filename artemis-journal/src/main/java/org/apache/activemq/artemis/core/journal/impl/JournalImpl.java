@@ -49,6 +49,7 @@ import java.util.concurrent.atomic.AtomicReference;
 import java.util.concurrent.locks.ReadWriteLock;
 import java.util.concurrent.locks.ReentrantReadWriteLock;
 import java.util.function.Predicate;
+import java.util.zip.CRC32C;
 
 import io.netty.util.collection.ByteObjectHashMap;
 import org.apache.activemq.artemis.api.core.ActiveMQBuffer;
@@ -64,6 +65,7 @@ import org.apache.activemq.artemis.core.io.SequentialFile;
 import org.apache.activemq.artemis.core.io.SequentialFileFactory;
 import org.apache.activemq.artemis.core.journal.EncodingSupport;
 import org.apache.activemq.artemis.core.journal.IOCompletion;
+import org.apache.activemq.artemis.core.journal.JournalCompactStatistics;
 import org.apache.activemq.artemis.core.journal.JournalLoadInformation;
 import org.apache.activemq.artemis.core.journal.JournalUpdateCallback;
 import org.apache.activemq.artemis.core.journal.LoaderCallback;
@@ -143,6 +145,12 @@ public class JournalImpl extends JournalBase implements TestableJournal, Journal
       UPDATE_FACTOR = value;
    }
 
+   /**
+    * The default number of journal files read and parsed in parallel while loading, see {@link JournalFilesReader}.
+    * Every file being parsed ahead is retained in memory until loaded: 1 reads the files one after the other.
+    */
+   public static final int DEFAULT_LOAD_PARALLELISM = Integer.getInteger(JournalImpl.class.getName() + ".LOAD_PARALLELISM", Math.min(4, Runtime.getRuntime().availableProcessors()));
+
    public static final int FORMAT_VERSION = 2;
 
    private static final int[] COMPATIBLE_VERSIONS = new int[]{1};
@@ -204,6 +212,11 @@ public class JournalImpl extends JournalBase implements TestableJournal, Journal
 
    public static final byte ROLLBACK_RECORD = 19;
 
+   // Written by the TimedBuffer ahead of each batch when checksums are enabled: marker, batch length and CRC32C
+   public static final int SIZE_CHECKSUM_RECORD = DataConstants.SIZE_BYTE + DataConstants.SIZE_INT + DataConstants.SIZE_INT;
+
+   public static final byte CHECKSUM_RECORD = 20;
+
    protected static final byte FILL_CHARACTER = (byte) 'J';
 
 
@@ -295,7 +308,7 @@ public class JournalImpl extends JournalBase implements TestableJournal, Journal
 
 
    // Compacting may replace this structure
-   private final ConcurrentLongHashMap<JournalRecord> records = new ConcurrentLongHashMap<>();
+   private volatile ConcurrentLongHashMap<JournalRecord> records = new ConcurrentLongHashMap<>();
 
    // Compacting may replace this structure
    private final ConcurrentLongHashMap<JournalTransaction> transactions = new ConcurrentLongHashMap<>();
@@ -305,8 +318,12 @@ public class JournalImpl extends JournalBase implements TestableJournal, Journal
 
    private final AtomicBoolean compactorRunning = new AtomicBoolean();
 
+   private final JournalCompactStatistics compactStatistics = new JournalCompactStatistics();
+
    private Executor filesExecutor = null;
 
+   private volatile int loadParallelism = DEFAULT_LOAD_PARALLELISM;
+
    private Executor compactorExecutor = null;
 
    private Executor appendExecutor = null;
@@ -501,11 +518,29 @@ public class JournalImpl extends JournalBase implements TestableJournal, Journal
       return this;
    }
 
+   /**
+    * @param loadParallelism the number of journal files read and parsed in parallel while loading, 1 reads the files
+    *                        one after the other
+    */
+   public JournalImpl setLoadParallelism(int loadParallelism) {
+      this.loadParallelism = loadParallelism;
+      return this;
+   }
+
+   public int getLoadParallelism() {
+      return loadParallelism;
+   }
+
    @Override
    public ConcurrentLongHashMap<JournalRecord> getRecords() {
       return records;
    }
 
+   @Override
+   public JournalCompactStatistics getCompactStatistics() {
+      return compactStatistics;
+   }
+
    @Override
    public JournalFile getCurrentFile() {
       return currentFile;
@@ -613,11 +648,26 @@ public class JournalImpl extends JournalBase implements TestableJournal, Journal
 
          int lastDataPos = JournalImpl.SIZE_HEADER;
 
+         CRC32C checksumCalculator = null;
+
          while (wholeFileBuffer.hasRemaining()) {
             final int pos = wholeFileBuffer.position();
 
             byte recordType = wholeFileBuffer.get();
 
+            if (recordType == JournalImpl.CHECKSUM_RECORD) {
+               if (checksumCalculator == null) {
+                  checksumCalculator = new CRC32C();
+               }
+               final int nextPos = readChecksumRecord(wholeFileBuffer, journalFileSize, pos, file, reclaimed, checksumCalculator);
+               if (nextPos > pos + JournalImpl.SIZE_CHECKSUM_RECORD) {
+                  // a torn batch: none of its records are loaded
+                  reader.markAsDataFile(file);
+               }
+               wholeFileBuffer.position(nextPos);
+               continue;
+            }
+
             if (recordType < JournalImpl.EVENT_RECORD || recordType > JournalImpl.ROLLBACK_RECORD) {
                // I - We scan for any valid record on the file. If a hole
                // happened on the middle of the file we keep looking until all
@@ -1775,6 +1825,9 @@ public class JournalImpl extends JournalBase implements TestableJournal, Journal
 
             Collections.sort(dataFilesToProcess, JOURNAL_FILE_COMPARATOR);
 
+            // The records detached from the journal are no longer needed, their IDs are enough
+            compactor.releaseDetachedRecords();
+
             // This is where most of the work is done, taking most of the time of the compacting routine.
             // Notice there are no locks while this is being done.
 
@@ -1812,6 +1865,7 @@ public class JournalImpl extends JournalBase implements TestableJournal, Journal
 
             SequentialFile controlFile = createControlFile(dataFilesToProcess, compactor.getNewDataFiles(), null);
 
+            final long pauseStart = System.nanoTime();
             journalLock.writeLock().lock();
             try {
                // Need to clear the compactor here, or the replay commands will send commands back (infinite loop)
@@ -1821,10 +1875,11 @@ public class JournalImpl extends JournalBase implements TestableJournal, Journal
 
                newDatafiles = localCompactor.getNewDataFiles();
 
-               // Restore newRecords created during compacting
-               localCompactor.getNewRecords().forEach((id, newRecord) -> {
-                  records.put(id, newRecord);
-               });
+               // Restore newRecords created during compacting: the records of the journal are only the ones added
+               // while compacting, hence these are moved into the compacted ones, which replace them
+               final ConcurrentLongHashMap<JournalRecord> newRecords = localCompactor.getNewRecords();
+               records.forEach(newRecords::putIfAbsent);
+               records = newRecords;
 
                // Restore compacted dataFiles
                for (int i = newDatafiles.size() - 1; i >= 0; i--) {
@@ -1862,6 +1917,7 @@ public class JournalImpl extends JournalBase implements TestableJournal, Journal
                return;
             } finally {
                journalLock.writeLock().unlock();
+               compactStatistics.paused(System.nanoTime() - pauseStart);
             }
 
             // At this point the journal is unlocked. We keep renaming files while the journal is already operational
@@ -1872,7 +1928,9 @@ public class JournalImpl extends JournalBase implements TestableJournal, Journal
 
             setAutoReclaim(previousReclaimValue);
 
-            logger.debug("Finished compacting on journal {}", this);
+            compactStatistics.compacted(Math.max(0L, (long) (dataFilesToProcess.size() - newDatafiles.size()) * fileSize));
+
+            logger.debug("Finished compacting on journal {}: {}", this, compactStatistics);
 
          } catch (Throwable e) {
             fileFactory.onIOError(e, e.getMessage());
@@ -1892,6 +1950,7 @@ public class JournalImpl extends JournalBase implements TestableJournal, Journal
       List<JournalFile> dataFilesToProcess = new ArrayList<>(filesRepository.getDataFilesCount());
       // We need to guarantee that the journal is frozen for this short time
       // We don't freeze the journal as we compact, only for the short time where we replace records
+      final long pauseStart = System.nanoTime();
       journalLock.writeLock().lock();
       try {
          if (state != JournalState.LOADED) {
@@ -1916,7 +1975,11 @@ public class JournalImpl extends JournalBase implements TestableJournal, Journal
             return null;
          }
 
-         compactor = new JournalCompactor(fileFactory, this, filesRepository, records.keysLongHashSet(), dataFilesToProcess.get(0).getFileID());
+         // We will calculate the new records during compacting, what will take the position the records will take
+         // after compacting: the current ones are detached from the journal to be looked up by the compactor only
+         compactor = new JournalCompactor(fileFactory, this, filesRepository, records, dataFilesToProcess.get(0).getFileID());
+
+         records = new ConcurrentLongHashMap<>();
 
          if (replaceableRecords != null) {
             replaceableRecords.forEach((k, v) -> compactor.replaceableRecord(k));
@@ -1926,12 +1989,9 @@ public class JournalImpl extends JournalBase implements TestableJournal, Journal
             compactor.addPendingTransaction(id, pendingTransaction.getPositiveArray());
             pendingTransaction.setCompacting();
          });
-
-         // We will calculate the new records during compacting, what will take the position the records will take
-         // after compacting
-         records.clear();
       } finally {
          journalLock.writeLock().unlock();
+         compactStatistics.paused(System.nanoTime() - pauseStart);
       }
 
       processBackup();
@@ -1987,7 +2047,8 @@ public class JournalImpl extends JournalBase implements TestableJournal, Journal
    private synchronized JournalLoadInformation load(final LoaderCallback loadManager,
                                                     final boolean changeData,
                                                     final JournalState replicationSync,
-                                                    final AtomicReference<ByteBuffer> wholeFileBufferRef) throws Exception {
+                                                    final AtomicReference<ByteBuffer> wholeFileBufferRef,
+                                                    final JournalFilesReader filesReader) throws Exception {
       JournalState state;
       assert (state = this.state) != JournalState.STOPPED &&
          state != JournalState.LOADED &&
@@ -2013,12 +2074,14 @@ public class JournalImpl extends JournalBase implements TestableJournal, Journal
       // AtomicLong is used only as a reference, not as an Atomic value
       final AtomicLong maxID = new AtomicLong(-1);
 
+      filesReader.readAhead(orderedFiles);
+
       for (final JournalFile file : orderedFiles) {
          logger.trace("Loading file {}", file.getFile().getFileName());
 
          final AtomicBoolean hasData = new AtomicBoolean(false);
 
-         int resultLastPost = JournalImpl.readJournalFile(fileFactory, file, new JournalReaderCallback() {
+         int resultLastPost = filesReader.read(file, new JournalReaderCallback() {
 
             private void checkID(final long id) {
                if (id > maxID.longValue()) {
@@ -2240,7 +2303,7 @@ public class JournalImpl extends JournalBase implements TestableJournal, Journal
                hasData.lazySet(true);
             }
 
-         }, wholeFileBufferRef, false, this.replaceableRecords);
+         });
 
          if (hasData.get()) {
             lastDataPos = resultLastPost;
@@ -2310,9 +2373,11 @@ public class JournalImpl extends JournalBase implements TestableJournal, Journal
       }
       // AtomicReference is used only as a reference, not as an Atomic value
       final AtomicReference<ByteBuffer> wholeFileBufferRef = new AtomicReference<>();
+      final JournalFilesReader filesReader = new JournalFilesReader(fileFactory, ioExecutorFactory, loadParallelism, replaceableRecords, wholeFileBufferRef);
       try {
-         return load(loadManager, changeData, replicationSync, wholeFileBufferRef);
+         return load(loadManager, changeData, replicationSync, wholeFileBufferRef, filesReader);
       } finally {
+         filesReader.close();
          final ByteBuffer wholeFileBuffer = wholeFileBufferRef.get();
          if (wholeFileBuffer != null) {
             fileFactory.releaseDirectBuffer(wholeFileBuffer);
@@ -3351,6 +3416,48 @@ public class JournalImpl extends JournalBase implements TestableJournal, Journal
       }
    }
 
+   /**
+    * Verifies the batch following the checksum record found at {@code pos}.
+    * <p>
+    * A checksum record written by a previous usage of the file cannot be told apart from a torn batch by its checksum
+    * alone: a batch is considered torn only if its first record belongs to this file, because the head of a batch is
+    * its first part to hit the disk.
+    *
+    * @return where to continue reading: right after the checksum record if the batch is intact or if the checksum
+    * record is not a valid one (in which case the records are validated one by one as usual), or the end of the batch
+    * if it was torn
+    */
+   private static int readChecksumRecord(final ByteBuffer wholeFileBuffer,
+                                         final int fileSize,
+                                         final int pos,
+                                         final JournalFile file,
+                                         final boolean reclaimed,
+                                         final CRC32C checksumCalculator) {
+      final int batchPos = pos + JournalImpl.SIZE_CHECKSUM_RECORD;
+      if (JournalImpl.isInvalidSize(fileSize, pos, JournalImpl.SIZE_CHECKSUM_RECORD)) {
+         return pos + 1;
+      }
+      final int batchLength = wholeFileBuffer.getInt(pos + DataConstants.SIZE_BYTE);
+      if (batchLength <= JournalImpl.BASIC_SIZE || JournalImpl.isInvalidSize(fileSize, batchPos, batchLength)) {
+         return pos + 1;
+      }
+      final int checksum = wholeFileBuffer.getInt(pos + DataConstants.SIZE_BYTE + DataConstants.SIZE_INT);
+      final ByteBuffer batch = wholeFileBuffer.duplicate();
+      batch.limit(batchPos + batchLength).position(batchPos);
+      checksumCalculator.reset();
+      checksumCalculator.update(batch);
+      if ((int) checksumCalculator.getValue() == checksum) {
+         return batchPos;
+      }
+      final byte firstRecordType = wholeFileBuffer.get(batchPos);
+      if (firstRecordType < JournalImpl.EVENT_RECORD || firstRecordType > JournalImpl.ROLLBACK_RECORD ||
+         (!reclaimed && wholeFileBuffer.getInt(batchPos + DataConstants.SIZE_BYTE) != file.getRecordID())) {
+         return pos + 1;
+      }
+      ActiveMQJournalLogger.LOGGER.tornBatch(batchLength, pos, file.getFile().getFileName());
+      return batchPos + batchLength;
+   }
+
    private static boolean isInvalidSize(final int fileSize, final int bufferPos, final int size) {
       if (size < 0) {
          return true;
@@ -3466,8 +3573,8 @@ public class JournalImpl extends JournalBase implements TestableJournal, Journal
     */
    protected JournalFile switchFileIfNecessary(int size) throws Exception {
 
-      // We take into account the fileID used on the Header
-      if (size > fileSize - currentFile.getFile().calculateBlockStart(JournalImpl.SIZE_HEADER)) {
+      // We take into account the fileID used on the Header and the checksum record preceding the record, if any
+      if (size > fileSize - currentFile.getFile().calculateBlockStart(JournalImpl.SIZE_HEADER) - (fileFactory.isChecksum() ? JournalImpl.SIZE_CHECKSUM_RECORD : 0)) {
          throw new IllegalArgumentException("Record is too large to store " + size + " bytes");
       }
 
@@ -0,0 +1,888 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.activemq.artemis.core.journal.impl;
+
+import java.lang.invoke.MethodHandles;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.LongConsumer;
+
+import org.apache.activemq.artemis.api.core.ActiveMQBuffer;
+import org.apache.activemq.artemis.api.core.ActiveMQBuffers;
+import org.apache.activemq.artemis.api.core.ActiveMQExceptionType;
+import org.apache.activemq.artemis.core.io.IOCriticalErrorListener;
+import org.apache.activemq.artemis.core.io.SequentialFileFactory;
+import org.apache.activemq.artemis.core.journal.EncodingSupport;
+import org.apache.activemq.artemis.core.journal.IOCompletion;
+import org.apache.activemq.artemis.core.journal.Journal;
+import org.apache.activemq.artemis.core.journal.JournalCompactStatistics;
+import org.apache.activemq.artemis.core.journal.JournalLoadInformation;
+import org.apache.activemq.artemis.core.journal.JournalUpdateCallback;
+import org.apache.activemq.artemis.core.journal.LoaderCallback;
+import org.apache.activemq.artemis.core.journal.PreparedTransactionInfo;
+import org.apache.activemq.artemis.core.journal.RecordInfo;
+import org.apache.activemq.artemis.core.journal.TransactionFailureCallback;
+import org.apache.activemq.artemis.core.journal.impl.dataformat.ByteArrayEncoding;
+import org.apache.activemq.artemis.core.persistence.Persister;
+import org.apache.activemq.artemis.utils.collections.ConcurrentLongHashMap;
+import org.apache.activemq.artemis.utils.collections.LongHashSet;
+import org.apache.activemq.artemis.utils.collections.SparseArrayLinkedList;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * A journal striped across several journals, usually each one on its own directory and device, so that the stripes
+ * append and sync in parallel, each one with its own files, buffer and executor.
+ * <p>
+ * Each record is appended to the stripe selected by the hash of its id: all the records of a message (its add,
+ * references, acknowledgements and delete) share the same stripe, while the messages of any queue are spread across
+ * all of them.
+ * <p>
+ * The records of a transaction can span several stripes. A transaction on a single stripe is committed by it as usual,
+ * otherwise the commit is made atomic by appending a prepare record to each stripe involved, then the decision to
+ * commit to the coordinator journal and only then the commit records, each step started by the completion of the
+ * previous one: the callback of the commit is completed once the stripes have all committed. On load, a transaction prepared on the stripes is
+ * committed if its decision was recorded and rolled back otherwise, unless it was prepared by the user on every stripe
+ * involved: in that case its parts are merged and reported as a single prepared transaction.
+ * <p>
+ * Replication, journal synchronization with a backup and retention are not supported, hence the broker refuses a
+ * configuration striping the journal with any of them.
+ */
+public final class StripedJournal extends JournalBase {
+
+   private static final Logger logger = LoggerFactory.getLogger(MethodHandles.lookup().lookupClass());
+
+   public static final int MAX_STRIPES = Long.SIZE;
+
+   // the prepare records of the stripes start with the kind of prepare and the stripes of the transaction
+   private static final int PREPARE_HEADER_SIZE = Byte.BYTES + Long.BYTES;
+
+   private static final byte STRIPES_PREPARE = 0;
+
+   private static final byte USER_PREPARE = 1;
+
+   private static final byte DECISION_RECORD = 1;
+
+   private static final EncodingSupport DECISION_DATA = new ByteArrayEncoding(new byte[0]);
+
+   private final Journal coordinator;
+
+   private final Journal[] stripes;
+
+   private final long allStripes;
+
+   private final ConcurrentLongHashMap<StripedTransaction> transactions = new ConcurrentLongHashMap<>();
+
+   // the records loaded from a stripe other than the one selected by their id, i.e. after changing the stripes
+   private final ConcurrentLongHashMap<Integer> relocatedRecords = new ConcurrentLongHashMap<>();
+
+   /**
+    * @param coordinator the journal recording the decisions to commit the transactions spanning several stripes
+    * @param stripes     the journals storing the records, that must be always configured in the same order
+    */
+   public StripedJournal(Journal coordinator, Journal... stripes) {
+      super(checkStripes(stripes)[0].getFileFactory().isSupportsCallbacks(), stripes[0].getFileSize());
+      this.coordinator = coordinator;
+      this.stripes = stripes.clone();
+      this.allStripes = stripes.length == MAX_STRIPES ? -1L : (1L << stripes.length) - 1;
+   }
+
+   private static Journal[] checkStripes(Journal[] stripes) {
+      if (stripes.length == 0 || stripes.length > MAX_STRIPES) {
+         throw new IllegalArgumentException("The stripes must be between 1 and " + MAX_STRIPES + ", found " + stripes.length);
+      }
+      return stripes;
+   }
+
+   public int getStripesCount() {
+      return stripes.length;
+   }
+
+   private int hashStripe(long id) {
+      // the high bits of a Fibonacci hash: ids allocated with any stride are still evenly spread
+      return (int) ((((id * 0x9E3779B97F4A7C15L) >>> 32) * stripes.length) >>> 32);
+   }
+
+   private int stripeOf(long id) {
+      if (!relocatedRecords.isEmpty()) {
+         final Integer stripe = relocatedRecords.get(id);
+         if (stripe != null) {
+            return stripe;
+         }
+      }
+      return hashStripe(id);
+   }
+
+   private void locate(long id, int stripe) {
+      if (hashStripe(id) != stripe) {
+         relocatedRecords.put(id, stripe);
+      }
+   }
+
+   private void deleted(long id) {
+      if (!relocatedRecords.isEmpty()) {
+         relocatedRecords.remove(id);
+      }
+   }
+
+   private int enlist(long txID, long id) {
+      final int stripe = stripeOf(id);
+      transactions.computeIfAbsent(txID, key -> new StripedTransaction()).enlist(stripe);
+      return stripe;
+   }
+
+   private void forgetDeletes(StripedTransaction tx) {
+      if (tx != null) {
+         tx.forEachRelocatedDelete(this::deleted);
+      }
+   }
+
+   private long transactionStripes(StripedTransaction tx, long txID) {
+      final long txStripes = tx == null ? 0 : tx.stripes.get();
+      return txStripes == 0 ? 1L << hashStripe(txID) : txStripes;
+   }
+
+   private static boolean isSingleStripe(long txStripes) {
+      return Long.bitCount(txStripes) == 1;
+   }
+
+   private static int firstStripe(long txStripes) {
+      return Long.numberOfTrailingZeros(txStripes);
+   }
+
+   @Override
+   public void setRemoveExtraFilesOnLoad(boolean setting) {
+      super.setRemoveExtraFilesOnLoad(setting);
+      coordinator.setRemoveExtraFilesOnLoad(setting);
+      for (Journal stripe : stripes) {
+         stripe.setRemoveExtraFilesOnLoad(setting);
+      }
+   }
+
+   @Override
+   public void replaceableRecord(byte recordType) {
+      for (Journal stripe : stripes) {
+         stripe.replaceableRecord(recordType);
+      }
+   }
+
+   @Override
+   public IOCriticalErrorListener getCriticalErrorListener() {
+      return stripes[0].getCriticalErrorListener();
+   }
+
+   @Override
+   public Journal setCriticalErrorListener(IOCriticalErrorListener criticalErrorListener) {
+      coordinator.setCriticalErrorListener(criticalErrorListener);
+      for (Journal stripe : stripes) {
+         stripe.setCriticalErrorListener(criticalErrorListener);
+      }
+      return this;
+   }
+
+   // Non transactional operations
+
+   @Override
+   public void appendAddRecord(long id,
+                               byte recordType,
+                               Persister persister,
+                               Object record,
+                               boolean sync,
+                               IOCompletion callback) throws Exception {
+      stripes[stripeOf(id)].appendAddRecord(id, recordType, persister, record, sync, callback);
+   }
+
+   @Override
+   public void appendAddEvent(long id,
+                              byte recordType,
+                              Persister persister,
+                              Object record,
+                              boolean sync,
+                              IOCompletion callback) throws Exception {
+      stripes[stripeOf(id)].appendAddEvent(id, recordType, persister, record, sync, callback);
+   }
+
+   @Override
+   public void appendUpdateRecord(long id,
+                                  byte recordType,
+                                  Persister persister,
+                                  Object record,
+                                  boolean sync,
+                                  IOCompletion callback) throws Exception {
+      stripes[stripeOf(id)].appendUpdateRecord(id, recordType, persister, record, sync, callback);
+   }
+
+   @Override
+   public void tryAppendUpdateRecord(long id,
+                                     byte recordType,
+                                     Persister persister,
+                                     Object record,
+                                     boolean sync,
+                                     boolean replaceableUpdate,
+                                     JournalUpdateCallback updateCallback,
+                                     IOCompletion callback) throws Exception {
+      stripes[stripeOf(id)].tryAppendUpdateRecord(id, recordType, persister, record, sync, replaceableUpdate, updateCallback, callback);
+   }
+
+   @Override
+   public void appendDeleteRecord(long id, boolean sync, IOCompletion callback) throws Exception {
+      stripes[stripeOf(id)].appendDeleteRecord(id, sync, callback);
+      deleted(id);
+   }
+
+   @Override
+   public void tryAppendDeleteRecord(long id,
+                                     boolean sync,
+                                     JournalUpdateCallback updateCallback,
+                                     IOCompletion callback) throws Exception {
+      stripes[stripeOf(id)].tryAppendDeleteRecord(id, sync, updateCallback, callback);
+      deleted(id);
+   }
+
+   // Transactional operations
+
+   @Override
+   public void appendAddRecordTransactional(long txID,
+                                            long id,
+                                            byte recordType,
+                                            Persister persister,
+                                            Object record) throws Exception {
+      stripes[enlist(txID, id)].appendAddRecordTransactional(txID, id, recordType, persister, record);
+   }
+
+   @Override
+   public void appendUpdateRecordTransactional(long txID,
+                                               long id,
+                                               byte recordType,
+                                               Persister persister,
+                                               Object record) throws Exception {
+      stripes[enlist(txID, id)].appendUpdateRecordTransactional(txID, id, recordType, persister, record);
+   }
+
+   @Override
+   public void appendDeleteRecordTransactional(long txID, long id, EncodingSupport record) throws Exception {
+      final int stripe = stripeOf(id);
+      final StripedTransaction tx = transactions.computeIfAbsent(txID, key -> new StripedTransaction());
+      tx.enlist(stripe);
+      stripes[stripe].appendDeleteRecordTransactional(txID, id, record);
+      if (hashStripe(id) != stripe) {
+         tx.deleteRelocated(id);
+      }
+   }
+
+   @Override
+   public void appendCommitRecord(long txID, boolean sync, IOCompletion callback, boolean lineUpContext) throws Exception {
+      final StripedTransaction tx = transactions.remove(txID);
+      final long txStripes = transactionStripes(tx, txID);
+      if (isSingleStripe(txStripes)) {
+         stripes[firstStripe(txStripes)].appendCommitRecord(txID, sync, callback, lineUpContext);
+         forgetDeletes(tx);
+         return;
+      }
+      if (lineUpContext && callback != null) {
+         callback.storeLineUp();
+      }
+      // without a callback the caller expects the transaction to be committed on return, as JournalImpl does
+      final SimpleWaitIOCallback committed = callback == null ? new SimpleWaitIOCallback() : null;
+      final StripedCommit commit = new StripedCommit(txID, tx, txStripes, sync, callback == null ? committed : callback);
+      if (tx.prepared) {
+         commit.done();
+      } else {
+         appendPrepareRecords(txID, txStripes, encodePrepare(STRIPES_PREPARE, txStripes, null), true, new StripesCompletion(txStripes, commit, null));
+      }
+      if (committed != null) {
+         committed.waitCompletion();
+      }
+   }
+
+   private void deleteDecision(long txID) {
+      try {
+         coordinator.appendDeleteRecord(txID, false);
+      } catch (Exception e) {
+         // it will be deleted on the next load
+         logger.warn("Unable to delete the commit decision of the transaction {}: {}", txID, e.getMessage(), e);
+      }
+   }
+
+   @Override
+   public void appendPrepareRecord(long txID,
+                                   EncodingSupport transactionData,
+                                   boolean sync,
+                                   IOCompletion callback) throws Exception {
+      final StripedTransaction tx = transactions.computeIfAbsent(txID, key -> new StripedTransaction());
+      tx.prepared = true;
+      final long txStripes = transactionStripes(tx, txID);
+      tx.stripes.set(txStripes);
+      final ByteArrayEncoding data = encodePrepare(USER_PREPARE, txStripes, transactionData);
+      if (isSingleStripe(txStripes)) {
+         stripes[firstStripe(txStripes)].appendPrepareRecord(txID, data, sync, callback);
+         return;
+      }
+      appendPrepareRecords(txID, txStripes, data, sync, new StripesCompletion(txStripes, callback, null));
+   }
+
+   private void appendPrepareRecords(long txID,
+                                     long txStripes,
+                                     ByteArrayEncoding data,
+                                     boolean sync,
+                                     StripesCompletion completion) throws Exception {
+      for (long remaining = txStripes; remaining != 0; remaining &= remaining - 1) {
+         stripes[firstStripe(remaining)].appendPrepareRecord(txID, data, sync, completion);
+      }
+   }
+
+   @Override
+   public void appendRollbackRecord(long txID, boolean sync, IOCompletion callback) throws Exception {
+      final StripedTransaction tx = transactions.remove(txID);
+      final long txStripes = transactionStripes(tx, txID);
+      if (isSingleStripe(txStripes)) {
+         stripes[firstStripe(txStripes)].appendRollbackRecord(txID, sync, callback);
+         return;
+      }
+      final StripesCompletion completion = new StripesCompletion(txStripes, callback, null);
+      for (long remaining = txStripes; remaining != 0; remaining &= remaining - 1) {
+         stripes[firstStripe(remaining)].appendRollbackRecord(txID, sync, completion);
+      }
+   }
+
+   private static ByteArrayEncoding encodePrepare(byte kind, long txStripes, EncodingSupport transactionData) {
+      final byte[] data = new byte[PREPARE_HEADER_SIZE + (transactionData == null ? 0 : transactionData.getEncodeSize())];
+      final ActiveMQBuffer buffer = ActiveMQBuffers.wrappedBuffer(data);
+      buffer.clear();
+      buffer.writeByte(kind);
+      buffer.writeLong(txStripes);
+      if (transactionData != null) {
+         transactionData.encode(buffer);
+      }
+      return new ByteArrayEncoding(data);
+   }
+
+   @Override
+   public void lineUpContext(IOCompletion callback) {
+      if (callback == null) {
+         return;
+      }
+      final StripesCompletion completion = new StripesCompletion(allStripes, callback, null);
+      for (Journal stripe : stripes) {
+         stripe.lineUpContext(completion);
+      }
+   }
+
+   // Load
+
+   @Override
+   public JournalLoadInformation load(LoaderCallback reloadManager) throws Exception {
+      final SparseArrayLinkedList<RecordInfo> records = new SparseArrayLinkedList<>();
+      final List<PreparedTransactionInfo> preparedTransactions = new ArrayList<>();
+      final JournalLoadInformation info = load(records, preparedTransactions, reloadManager, true);
+      records.clear(record -> {
+         if (record.isUpdate) {
+            reloadManager.updateRecord(record);
+         } else {
+            reloadManager.addRecord(record);
+         }
+      });
+      preparedTransactions.forEach(reloadManager::addPreparedTransaction);
+      return info;
+   }
+
+   @Override
+   public JournalLoadInformation loadInternalOnly() throws Exception {
+      return load(new SparseArrayLinkedList<>(), new ArrayList<>(), null, true);
+   }
+
+   @Override
+   public JournalLoadInformation loadSyncOnly(JournalState state) throws Exception {
+      // only a backup loads a synchronized journal, and a replicated broker refuses to stripe its journal
+      throw new UnsupportedOperationException("Journal synchronization is not supported by a striped journal");
+   }
+
+   @Override
+   public JournalLoadInformation load(List<RecordInfo> committedRecords,
+                                      List<PreparedTransactionInfo> preparedTransactions,
+                                      TransactionFailureCallback transactionFailure,
+                                      boolean fixBadTx) throws Exception {
+      final SparseArrayLinkedList<RecordInfo> records = new SparseArrayLinkedList<>();
+      final JournalLoadInformation info = load(records, preparedTransactions, transactionFailure, fixBadTx);
+      if (committedRecords instanceof ArrayList list) {
+         final long survivedRecordsCount = records.size();
+         if (survivedRecordsCount <= Integer.MAX_VALUE) {
+            list.ensureCapacity((int) survivedRecordsCount);
+         }
+      }
+      records.clear(committedRecords::add);
+      return info;
+   }
+
+   @Override
+   public synchronized JournalLoadInformation load(SparseArrayLinkedList<RecordInfo> committedRecords,
+                                                   List<PreparedTransactionInfo> preparedTransactions,
+                                                   TransactionFailureCallback failureCallback,
+                                                   boolean fixBadTx) throws Exception {
+      final List<RecordInfo> decisions = new ArrayList<>();
+      final JournalLoadInformation coordinatorInfo = coordinator.load(decisions, new ArrayList<>(), null, fixBadTx);
+      final LongHashSet committedTransactions = new LongHashSet(decisions.size());
+      for (RecordInfo decision : decisions) {
+         committedTransactions.add(decision.id);
+      }
+
+      int numberOfRecords = 0;
+      long maxID = coordinatorInfo.getMaxID();
+      final Map<Long, List<PreparedPart>> preparedParts = new LinkedHashMap<>();
+      final List<List<RecordInfo>> stripesRecords = new ArrayList<>(stripes.length);
+      for (int i = 0; i < stripes.length; i++) {
+         final int stripe = i;
+         final SparseArrayLinkedList<RecordInfo> records = new SparseArrayLinkedList<>();
+         final List<PreparedTransactionInfo> prepared = new ArrayList<>();
+         final JournalLoadInformation info = stripes[stripe].load(records, prepared, failureCallback, fixBadTx);
+         numberOfRecords += info.getNumberOfRecords();
+         maxID = Math.max(maxID, info.getMaxID());
+         final List<RecordInfo> stripeRecords = new ArrayList<>((int) Math.min(records.size(), Integer.MAX_VALUE));
+         records.clear(record -> {
+            locate(record.id, stripe);
+            stripeRecords.add(record);
+         });
+         stripesRecords.add(stripeRecords);
+         for (PreparedTransactionInfo preparedTransaction : prepared) {
+            preparedParts.computeIfAbsent(preparedTransaction.getId(), key -> new ArrayList<>()).add(new PreparedPart(stripe, preparedTransaction));
+         }
+      }
+      mergeById(stripesRecords, committedRecords);
+
+      final LongHashSet deletedRecords = new LongHashSet();
+      for (Map.Entry<Long, List<PreparedPart>> parts : preparedParts.entrySet()) {
+         resolve(parts.getKey(), parts.getValue(), committedTransactions.contains(parts.getKey()), committedRecords, deletedRecords, preparedTransactions, failureCallback);
+      }
+      if (!deletedRecords.isEmpty()) {
+         committedRecords.remove(record -> deletedRecords.contains(record.id));
+      }
+      for (RecordInfo decision : decisions) {
+         deleteDecision(decision.id);
+      }
+      return new JournalLoadInformation(numberOfRecords, maxID);
+   }
+
+   /**
+    * Merges the records of the stripes by id, keeping the order of each stripe: ids are allocated in sequence, so the
+    * records are loaded close to the order they were appended in, e.g. the messages of a queue are in the order sent.
+    */
+   private static void mergeById(List<List<RecordInfo>> stripesRecords, SparseArrayLinkedList<RecordInfo> committedRecords) {
+      final int[] positions = new int[stripesRecords.size()];
+      final PriorityQueue<Integer> heads = new PriorityQueue<>(Math.max(1, positions.length), Comparator.comparingLong((Integer stripe) -> stripesRecords.get(stripe).get(positions[stripe]).id).thenComparingInt(stripe -> stripe));
+      for (int stripe = 0; stripe < positions.length; stripe++) {
+         if (!stripesRecords.get(stripe).isEmpty()) {
+            heads.add(stripe);
+         }
+      }
+      Integer stripe;
+      while ((stripe = heads.poll()) != null) {
+         final List<RecordInfo> stripeRecords = stripesRecords.get(stripe);
+         committedRecords.add(stripeRecords.get(positions[stripe]));
+         if (++positions[stripe] < stripeRecords.size()) {
+            heads.add(stripe);
+         }
+      }
+   }
+
+   private void resolve(long txID,
+                        List<PreparedPart> parts,
+                        boolean committed,
+                        SparseArrayLinkedList<RecordInfo> committedRecords,
+                        LongHashSet deletedRecords,
+                        List<PreparedTransactionInfo> preparedTransactions,
+                        TransactionFailureCallback failureCallback) throws Exception {
+      final ByteBuffer header = ByteBuffer.wrap(parts.get(0).info.getExtraData());
+      final byte kind = header.get();
+      final long txStripes = header.getLong();
+      long preparedStripes = 0;
+      for (PreparedPart part : parts) {
+         preparedStripes |= 1L << part.stripe;
+      }
+
+      if (committed) {
+         logger.debug("Committing the transaction {} prepared on the stripes {}", txID, preparedStripes);
+         for (PreparedPart part : parts) {
+            stripes[part.stripe].appendCommitRecord(txID, true);
+            for (RecordInfo record : part.info.getRecords()) {
+               locate(record.id, part.stripe);
+               committedRecords.add(record);
+            }
+            for (RecordInfo record : part.info.getRecordsToDelete()) {
+               deletedRecords.add(record.id);
+               deleted(record.id);
+            }
+         }
+      } else if (kind == USER_PREPARE && preparedStripes == txStripes) {
+         final byte[] transactionData = Arrays.copyOfRange(header.array(), PREPARE_HEADER_SIZE, header.capacity());
+         final PreparedTransactionInfo preparedTransaction = new PreparedTransactionInfo(txID, transactionData);
+         final StripedTransaction tx = new StripedTransaction();
+         for (PreparedPart part : parts) {
+            for (RecordInfo record : part.info.getRecords()) {
+               locate(record.id, part.stripe);
+            }
+            for (RecordInfo record : part.info.getRecordsToDelete()) {
+               if (hashStripe(record.id) != part.stripe) {
+                  tx.deleteRelocated(record.id);
+               }
+            }
+            preparedTransaction.getRecords().addAll(part.info.getRecords());
+            preparedTransaction.getRecordsToDelete().addAll(part.info.getRecordsToDelete());
+         }
+         preparedTransactions.add(preparedTransaction);
+         tx.stripes.set(txStripes);
+         tx.prepared = true;
+         transactions.put(txID, tx);
+      } else {
+         logger.debug("Rolling back the transaction {} prepared on the stripes {} of {}", txID, preparedStripes, txStripes);
+         final List<RecordInfo> records = new ArrayList<>();
+         final List<RecordInfo> recordsToDelete = new ArrayList<>();
+         for (PreparedPart part : parts) {
+            stripes[part.stripe].appendRollbackRecord(txID, true);
+            records.addAll(part.info.getRecords());
+            recordsToDelete.addAll(part.info.getRecordsToDelete());
+         }
+         if (failureCallback != null) {
+            failureCallback.failedTransaction(txID, records, recordsToDelete);
+         }
+      }
+   }
+
+   // Maintenance
+
+   @Override
+   public int getAlignment() throws Exception {
+      return stripes[0].getAlignment();
+   }
+
+   @Override
+   public int getNumberOfRecords() {
+      int numberOfRecords = 0;
+      for (Journal stripe : stripes) {
+         numberOfRecords += stripe.getNumberOfRecords();
+      }
+      return numberOfRecords;
+   }
+
+   @Override
+   public int getUserVersion() {
+      return stripes[0].getUserVersion();
+   }
+
+   @Override
+   public Map<Long, JournalFile> createFilesForBackupSync(long[] fileIds) throws Exception {
+      // the ids of the files of the stripes overlap, and a replicated broker refuses to stripe its journal
+      throw new UnsupportedOperationException("Journal synchronization is not supported by a striped journal");
+   }
+
+   @Override
+   public void synchronizationLock() {
+      for (Journal stripe : stripes) {
+         stripe.synchronizationLock();
+      }
+   }
+
+   @Override
+   public void synchronizationUnlock() {
+      for (int i = stripes.length - 1; i >= 0; i--) {
+         stripes[i].synchronizationUnlock();
+      }
+   }
+
+   @Override
+   public void forceMoveNextFile() throws Exception {
+      for (Journal stripe : stripes) {
+         stripe.forceMoveNextFile();
+      }
+   }
+
+   @Override
+   public JournalFile[] getDataFiles() {
+      final List<JournalFile> dataFiles = new ArrayList<>();
+      for (Journal stripe : stripes) {
+         dataFiles.addAll(Arrays.asList(stripe.getDataFiles()));
+      }
+      return dataFiles.toArray(new JournalFile[0]);
+   }
+
+   @Override
+   public SequentialFileFactory getFileFactory() {
+      return stripes[0].getFileFactory();
+   }
+
+   @Override
+   public void scheduleCompactAndBlock(int timeout) throws Exception {
+      for (Journal stripe : stripes) {
+         stripe.scheduleCompactAndBlock(timeout);
+      }
+   }
+
+   @Override
+   public JournalCompactStatistics getCompactStatistics() {
+      JournalCompactStatistics statistics = null;
+      for (Journal stripe : stripes) {
+         final JournalCompactStatistics stripeStatistics = stripe.getCompactStatistics();
+         if (stripeStatistics != null) {
+            if (statistics == null) {
+               statistics = new JournalCompactStatistics();
+            }
+            statistics.add(stripeStatistics);
+         }
+      }
+      return statistics;
+   }
+
+   @Override
+   public void replicationSyncPreserveOldFiles() {
+      for (Journal stripe : stripes) {
+         stripe.replicationSyncPreserveOldFiles();
+      }
+   }
+
+   @Override
+   public void replicationSyncFinished() {
+      for (Journal stripe : stripes) {
+         stripe.replicationSyncFinished();
+      }
+   }
+
+   @Override
+   public void flush() throws Exception {
+      for (Journal stripe : stripes) {
+         stripe.flush();
+      }
+      coordinator.flush();
+   }
+
+   @Override
+   public long getMaxRecordSize() {
+      return stripes[0].getMaxRecordSize();
+   }
+
+   @Override
+   public long getWarningRecordSize() {
+      return stripes[0].getWarningRecordSize();
+   }
+
+   @Override
+   void scheduleReclaim() {
+      // each stripe reclaims its own files
+   }
+
+   // ActiveMQComponent implementation
+
+   @Override
+   public synchronized void start() throws Exception {
+      coordinator.start();
+      for (Journal stripe : stripes) {
+         stripe.start();
+      }
+   }
+
+   @Override
+   public synchronized void stop() throws Exception {
+      for (Journal stripe : stripes) {
+         stripe.stop();
+      }
+      coordinator.stop();
+   }
+
+   @Override
+   public synchronized boolean isStarted() {
+      return coordinator.isStarted();
+   }
+
+   @Override
+   public String toString() {
+      return "StripedJournal{stripes=" + Arrays.toString(stripes) + "}";
+   }
+
+   private static final class StripedTransaction {
+
+      // the stripes with records of the transaction, one bit each
+      final AtomicLong stripes = new AtomicLong();
+
+      volatile boolean prepared;
+
+      // the records deleted by the transaction from a stripe other than the one selected by their id
+      private LongHashSet relocatedDeletes;
+
+      void enlist(int stripe) {
+         final long bit = 1L << stripe;
+         if ((stripes.get() & bit) == 0) {
+            stripes.accumulateAndGet(bit, (txStripes, stripeBit) -> txStripes | stripeBit);
+         }
+      }
+
+      synchronized void deleteRelocated(long id) {
+         if (relocatedDeletes == null) {
+            relocatedDeletes = new LongHashSet();
+         }
+         relocatedDeletes.add(id);
+      }
+
+      synchronized void forEachRelocatedDelete(LongConsumer action) {
+         if (relocatedDeletes != null) {
+            for (Long id : relocatedDeletes) {
+               action.accept(id);
+            }
+         }
+      }
+   }
+
+   /**
+    * Commits a transaction spanning several stripes without blocking: it is completed once with the prepare records
+    * appended to the stripes, to record the decision to commit, and once again with the decision recorded, to append
+    * the commit records.
+    */
+   private final class StripedCommit implements IOCompletion {
+
+      private final long txID;
+
+      private final StripedTransaction tx;
+
+      private final long txStripes;
+
+      private final boolean sync;
+
+      private final IOCompletion callback;
+
+      private volatile boolean decided;
+
+      StripedCommit(long txID, StripedTransaction tx, long txStripes, boolean sync, IOCompletion callback) {
+         this.txID = txID;
+         this.tx = tx;
+         this.txStripes = txStripes;
+         this.sync = sync;
+         this.callback = callback;
+      }
+
+      @Override
+      public void storeLineUp() {
+         // the callback has been lined up by appendCommitRecord
+      }
+
+      @Override
+      public void done() {
+         if (!decided) {
+            decided = true;
+            try {
+               // from now on the transaction is committed, even if the stripes fail to append their commit records
+               coordinator.appendAddRecord(txID, DECISION_RECORD, DECISION_DATA, true, this);
+            } catch (Throwable e) {
+               logger.warn("Unable to record the decision to commit the transaction {}: {}", txID, e.getMessage(), e);
+               decided = false;
+               onError(ActiveMQExceptionType.IO_ERROR.getCode(), e.getMessage());
+            }
+            return;
+         }
+         final StripesCompletion completion = new StripesCompletion(txStripes, callback, () -> {
+            deleteDecision(txID);
+            forgetDeletes(tx);
+         });
+         for (long remaining = txStripes; remaining != 0; remaining &= remaining - 1) {
+            try {
+               stripes[firstStripe(remaining)].appendCommitRecord(txID, sync, completion, false);
+            } catch (Throwable e) {
+               logger.warn("Unable to commit the transaction {} on the stripe {}: {}", txID, firstStripe(remaining), e.getMessage(), e);
+               completion.onError(ActiveMQExceptionType.IO_ERROR.getCode(), e.getMessage());
+            }
+         }
+      }
+
+      @Override
+      public void onError(int errorCode, String errorMessage) {
+         if (!decided) {
+            // not prepared on every stripe: a rollback must still reach all of them
+            transactions.putIfAbsent(txID, tx);
+         }
+         if (callback != null) {
+            callback.onError(errorCode, errorMessage);
+         }
+      }
+   }
+
+   private static final class PreparedPart {
+
+      final int stripe;
+
+      final PreparedTransactionInfo info;
+
+      PreparedPart(int stripe, PreparedTransactionInfo info) {
+         this.stripe = stripe;
+         this.info = info;
+      }
+   }
+
+   /**
+    * Completes a callback once, when the stripes of a transaction have all completed their appends.
+    */
+   private static final class StripesCompletion implements IOCompletion {
+
+      private final AtomicInteger pending;
+
+      private final AtomicBoolean failed = new AtomicBoolean();
+
+      private final AtomicBoolean linedUp = new AtomicBoolean();
+
+      private final IOCompletion callback;
+
+      private final Runnable onCompletion;
+
+      StripesCompletion(long txStripes, IOCompletion callback, Runnable onCompletion) {
+         this.pending = new AtomicInteger(Long.bitCount(txStripes));
+         this.callback = callback;
+         this.onCompletion = onCompletion;
+      }
+
+      @Override
+      public void storeLineUp() {
+         // the callback is lined up once for all the stripes
+         if (callback != null && linedUp.compareAndSet(false, true)) {
+            callback.storeLineUp();
+         }
+      }
+
+      @Override
+      public void done() {
+         if (pending.decrementAndGet() == 0 && !failed.get()) {
+            if (onCompletion != null) {
+               onCompletion.run();
+            }
+            if (callback != null) {
+               callback.done();
+            }
+         }
+      }
+
+      @Override
+      public void onError(int errorCode, String errorMessage) {
+         if (failed.compareAndSet(false, true) && callback != null) {
+            callback.onError(errorCode, errorMessage);
+         }
+         pending.decrementAndGet();
+      }
+   }
+}
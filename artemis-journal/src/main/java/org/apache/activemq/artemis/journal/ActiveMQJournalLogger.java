@@ -164,4 +164,7 @@ public interface ActiveMQJournalLogger {
 
    @LogMessage(id = 144012, value = "Journal Record sized at {}, which is too close to the max record Size at {}. Record = {}. Internal broker operations such as redistribution and DLQ may be compromised. Move large headers into the body of messages.", level = LogMessage.Level.WARN)
    void largeHeaderWarning(long recordSize, long maxRecordSize, Object originalData);
+
+   @LogMessage(id = 144013, value = "Ignoring a torn batch of {} bytes at position {} of the journal file {}: its checksum doesn't match", level = LogMessage.Level.WARN)
+   void tornBatch(int batchLength, int position, String fileName);
 }
@@ -77,10 +77,16 @@ public abstract class ComparisonExpression extends BinaryExpression implements B
 
       Pattern likePattern;
 
+      final String like;
+
+      final int escape;
+
       /**
        */
       LikeExpression(Expression right, String like, int escape) {
          super(right);
+         this.like = like;
+         this.escape = escape;
 
          StringBuffer regexp = new StringBuffer(like.length() * 2);
          regexp.append("\\A"); // The beginning of the input
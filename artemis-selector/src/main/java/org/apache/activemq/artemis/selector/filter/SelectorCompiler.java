@@ -0,0 +1,717 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.activemq.artemis.selector.filter;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Turns a parsed selector into an equivalent tree of specialized expressions, cheaper to evaluate.
+ * <p>
+ * The sub-expressions without any property are folded into constants, {@code AND}/{@code OR} chains are flattened
+ * into arrays, comparisons of a property with a numeric literal compare unboxed primitives, comparisons with a string
+ * literal use {@link String#equals} and {@code LIKE} patterns without {@code _} are matched as prefix, suffix,
+ * contains or equality tests instead of regular expressions.
+ * <p>
+ * Each specialized expression keeps the interpreted one it replaces and falls back to it for the values it doesn't
+ * handle (e.g. a string property compared to a number with {@code convert_string_expressions}), hence the result of
+ * both {@link Expression#evaluate} and {@link BooleanExpression#matches} is always the same as the interpreter's. The
+ * expressions without a specialized version are kept, only their operands are compiled.
+ * <p>
+ * The compiled expressions are stateless, so they can be shared by many threads as the interpreted ones.
+ */
+public final class SelectorCompiler {
+
+   private static final int EQUAL = 0;
+   private static final int GREATER_THAN = 1;
+   private static final int GREATER_THAN_EQUAL = 2;
+   private static final int LESS_THAN = 3;
+   private static final int LESS_THAN_EQUAL = 4;
+
+   private SelectorCompiler() {
+   }
+
+   /**
+    * Compiles {@code expression}, which is modified in place: it must not be used afterwards.
+    */
+   public static BooleanExpression compile(BooleanExpression expression) {
+      return compileBoolean(expression);
+   }
+
+   /**
+    * The values some properties must have for {@code expression} to match, e.g. {@code region -> [EU, US]} for
+    * {@code (region = 'EU' OR region = 'US') AND priority > 4}: a message whose property is missing or isn't one of
+    * these strings doesn't match. Only {@code =} with a string literal and {@code IN} are taken into account, in the
+    * {@code AND}/{@code OR} chains at the top of the expression, compiled or not.
+    */
+   public static Map<String, Set<String>> requiredStringValues(BooleanExpression expression) {
+      final Map<String, Set<String>> values = collectRequiredValues(expression);
+      return values == null ? Collections.emptyMap() : values;
+   }
+
+   // returns null if there isn't any required value
+   private static Map<String, Set<String>> collectRequiredValues(Expression expression) {
+      if (expression instanceof AndExpression and) {
+         return intersectRequiredValues(Arrays.asList(and.operands));
+      }
+      if (expression instanceof OrExpression or) {
+         return unionRequiredValues(Arrays.asList(or.operands));
+      }
+      if (expression instanceof LogicExpression logic) {
+         return "AND".equals(logic.getExpressionSymbol()) ? intersectRequiredValues(logic.expressions) : unionRequiredValues(logic.expressions);
+      }
+      if (expression instanceof StringEqualsExpression equals) {
+         if (equals.original instanceof ComparisonExpression comparison && !comparison.convertStringExpressions) {
+            return requiredValues(equals.property, Collections.singleton(equals.value));
+         }
+         return null;
+      }
+      if (expression instanceof ComparisonExpression comparison) {
+         if (!"=".equals(comparison.getExpressionSymbol()) || comparison.convertStringExpressions) {
+            return null;
+         }
+         if (comparison.getLeft() instanceof PropertyExpression property && comparison.getRight() instanceof ConstantExpression constant && constant.getValue() instanceof String value) {
+            return requiredValues(property, Collections.singleton(value));
+         }
+         if (comparison.getLeft() instanceof ConstantExpression constant && comparison.getRight() instanceof PropertyExpression property && constant.getValue() instanceof String value) {
+            return requiredValues(property, Collections.singleton(value));
+         }
+         return null;
+      }
+      if (expression instanceof UnaryExpression.InExpression in && !in.not && in.getRight() instanceof PropertyExpression property) {
+         final Set<String> values = new HashSet<>();
+         for (Object value : in.inList) {
+            // only strings are matched
+            if (value instanceof String string) {
+               values.add(string);
+            }
+         }
+         return requiredValues(property, values);
+      }
+      return null;
+   }
+
+   private static Map<String, Set<String>> requiredValues(PropertyExpression property, Set<String> values) {
+      final Map<String, Set<String>> requiredValues = new HashMap<>();
+      requiredValues.put(property.getName(), new HashSet<>(values));
+      return requiredValues;
+   }
+
+   private static Map<String, Set<String>> intersectRequiredValues(List<? extends BooleanExpression> operands) {
+      final Map<String, Set<String>> requiredValues = new HashMap<>();
+      for (BooleanExpression operand : operands) {
+         final Map<String, Set<String>> operandValues = collectRequiredValues(operand);
+         if (operandValues != null) {
+            operandValues.forEach((name, values) -> requiredValues.merge(name, values, (previous, next) -> {
+               previous.retainAll(next);
+               return previous;
+            }));
+         }
+      }
+      return requiredValues.isEmpty() ? null : requiredValues;
+   }
+
+   private static Map<String, Set<String>> unionRequiredValues(List<? extends BooleanExpression> operands) {
+      Map<String, Set<String>> requiredValues = null;
+      for (BooleanExpression operand : operands) {
+         final Map<String, Set<String>> operandValues = collectRequiredValues(operand);
+         // an operand without required values can match anything
+         if (operandValues == null) {
+            return null;
+         }
+         if (requiredValues == null) {
+            requiredValues = operandValues;
+         } else {
+            requiredValues.keySet().retainAll(operandValues.keySet());
+            requiredValues.forEach((name, values) -> values.addAll(operandValues.get(name)));
+            if (requiredValues.isEmpty()) {
+               return null;
+            }
+         }
+      }
+      return requiredValues;
+   }
+
+   private static BooleanExpression compileBoolean(BooleanExpression expression) {
+      final Expression compiled = compileExpression(expression);
+      return compiled instanceof BooleanExpression booleanExpression ? booleanExpression : expression;
+   }
+
+   private static Expression compileExpression(Expression expression) {
+      if (expression instanceof ConstantExpression || expression instanceof PropertyExpression) {
+         return expression;
+      }
+      if (isConstant(expression)) {
+         final Expression folded = fold(expression);
+         if (folded != null) {
+            return folded;
+         }
+      }
+      if (expression instanceof LogicExpression logic) {
+         return compileLogic(logic);
+      }
+      if (expression instanceof ComparisonExpression comparison) {
+         return compileComparison(comparison);
+      }
+      if (expression instanceof ComparisonExpression.LikeExpression like) {
+         return compileLike(like);
+      }
+      if (expression instanceof BinaryExpression binary) {
+         binary.setLeft(compileExpression(binary.getLeft()));
+         binary.setRight(compileExpression(binary.getRight()));
+         return binary;
+      }
+      if (expression instanceof UnaryExpression unary) {
+         final Expression operand = compileExpression(unary.getRight());
+         unary.setRight(operand);
+         if (unary instanceof BooleanExpression not && "NOT".equals(unary.getExpressionSymbol()) && operand instanceof BooleanExpression booleanOperand) {
+            return new NotExpression(booleanOperand, not);
+         }
+         return unary;
+      }
+      return expression;
+   }
+
+   private static boolean isConstant(Expression expression) {
+      if (expression instanceof ConstantExpression) {
+         return true;
+      }
+      if (expression instanceof BinaryExpression binary) {
+         return isConstant(binary.getLeft()) && isConstant(binary.getRight());
+      }
+      if (expression instanceof UnaryExpression unary) {
+         return isConstant(unary.getRight());
+      }
+      if (expression instanceof LogicExpression logic) {
+         for (BooleanExpression operand : logic.expressions) {
+            if (!isConstant(operand)) {
+               return false;
+            }
+         }
+         return true;
+      }
+      return false;
+   }
+
+   /**
+    * Evaluates once an expression without any property, or returns {@code null} if it fails: it is left to fail
+    * while matching messages, as it would have.
+    */
+   private static Expression fold(Expression expression) {
+      try {
+         final Object value = expression.evaluate(null);
+         if (expression instanceof BooleanExpression booleanExpression) {
+            return new FoldedExpression(value, booleanExpression.matches(null), booleanExpression);
+         }
+         return new FoldedConstantExpression(value, expression);
+      } catch (FilterException | RuntimeException e) {
+         return null;
+      }
+   }
+
+   private static Expression compileLogic(LogicExpression logic) {
+      final BooleanExpression[] operands = new BooleanExpression[logic.expressions.size()];
+      for (int i = 0; i < operands.length; i++) {
+         operands[i] = compileBoolean(logic.expressions.get(i));
+      }
+      return "AND".equals(logic.getExpressionSymbol()) ? new AndExpression(operands, logic) : new OrExpression(operands, logic);
+   }
+
+   private static Expression compileComparison(ComparisonExpression comparison) {
+      final Expression left = compileExpression(comparison.getLeft());
+      final Expression right = compileExpression(comparison.getRight());
+      comparison.setLeft(left);
+      comparison.setRight(right);
+      BooleanExpression compiled = null;
+      if (left instanceof PropertyExpression property && right instanceof ConstantExpression constant) {
+         compiled = compileComparison(comparison, property, constant.getValue(), false);
+      } else if (left instanceof ConstantExpression constant && right instanceof PropertyExpression property) {
+         compiled = compileComparison(comparison, property, constant.getValue(), true);
+      }
+      return compiled != null ? compiled : comparison;
+   }
+
+   private static BooleanExpression compileComparison(ComparisonExpression comparison,
+                                                      PropertyExpression property,
+                                                      Object value,
+                                                      boolean reversed) {
+      final int operator = operatorOf(comparison.getExpressionSymbol(), reversed);
+      if (operator < 0) {
+         return null;
+      }
+      if (operator == EQUAL) {
+         if (value == null) {
+            return reversed ? null : new IsNullExpression(property, comparison);
+         }
+         if (value.getClass() == String.class) {
+            return new StringEqualsExpression(property, (String) value, reversed, comparison);
+         }
+      }
+      final int type = NumericComparisonExpression.typeOf(value);
+      if (type < 0) {
+         return null;
+      }
+      return new NumericComparisonExpression(property, (Number) value, type, operator, reversed, comparison);
+   }
+
+   /**
+    * The operator applied to the property, i.e. mirrored if the property is on the right side.
+    */
+   private static int operatorOf(String symbol, boolean reversed) {
+      switch (symbol) {
+         case "=":
+            return EQUAL;
+         case ">":
+            return reversed ? LESS_THAN : GREATER_THAN;
+         case ">=":
+            return reversed ? LESS_THAN_EQUAL : GREATER_THAN_EQUAL;
+         case "<":
+            return reversed ? GREATER_THAN : LESS_THAN;
+         case "<=":
+            return reversed ? GREATER_THAN_EQUAL : LESS_THAN_EQUAL;
+         default:
+            return -1;
+      }
+   }
+
+   private static Expression compileLike(ComparisonExpression.LikeExpression like) {
+      final Expression operand = compileExpression(like.getRight());
+      like.setRight(operand);
+      final String pattern = like.like;
+      if (pattern.indexOf('_') >= 0 || like.escape >= 0 && pattern.indexOf((char) like.escape) >= 0) {
+         return like;
+      }
+      final boolean leading = pattern.startsWith("%");
+      final int start = leading ? 1 : 0;
+      final boolean trailing = pattern.length() > start && pattern.endsWith("%");
+      final String literal = pattern.substring(start, trailing ? pattern.length() - 1 : pattern.length());
+      if (literal.indexOf('%') >= 0) {
+         return like;
+      }
+      final int kind;
+      if (leading) {
+         kind = trailing ? LikeExpression.CONTAINS : LikeExpression.SUFFIX;
+      } else {
+         kind = trailing ? LikeExpression.PREFIX : LikeExpression.EXACT;
+      }
+      return new LikeExpression(operand, kind, literal, like);
+   }
+
+   private abstract static class CompiledExpression implements BooleanExpression {
+
+      protected final BooleanExpression original;
+
+      CompiledExpression(BooleanExpression original) {
+         this.original = original;
+      }
+
+      @Override
+      public String toString() {
+         return original.toString();
+      }
+   }
+
+   private static final class FoldedExpression extends CompiledExpression {
+
+      private final Object value;
+
+      private final boolean matches;
+
+      FoldedExpression(Object value, boolean matches, BooleanExpression original) {
+         super(original);
+         this.value = value;
+         this.matches = matches;
+      }
+
+      @Override
+      public Object evaluate(Filterable message) {
+         return value;
+      }
+
+      @Override
+      public boolean matches(Filterable message) {
+         return matches;
+      }
+   }
+
+   private static final class FoldedConstantExpression extends ConstantExpression {
+
+      private final Expression original;
+
+      FoldedConstantExpression(Object value, Expression original) {
+         super(value);
+         this.original = original;
+      }
+
+      @Override
+      public String toString() {
+         return original.toString();
+      }
+   }
+
+   private static final class AndExpression extends CompiledExpression {
+
+      private final BooleanExpression[] operands;
+
+      AndExpression(BooleanExpression[] operands, BooleanExpression original) {
+         super(original);
+         this.operands = operands;
+      }
+
+      @Override
+      public Object evaluate(Filterable message) throws FilterException {
+         boolean someNulls = false;
+         for (BooleanExpression operand : operands) {
+            final Boolean value = (Boolean) operand.evaluate(message);
+            if (value == null) {
+               someNulls = true;
+            } else if (!value) {
+               return Boolean.FALSE;
+            }
+         }
+         return someNulls ? null : Boolean.TRUE;
+      }
+
+      @Override
+      public boolean matches(Filterable message) throws FilterException {
+         for (BooleanExpression operand : operands) {
+            if (!operand.matches(message)) {
+               return false;
+            }
+         }
+         return true;
+      }
+   }
+
+   private static final class OrExpression extends CompiledExpression {
+
+      private final BooleanExpression[] operands;
+
+      OrExpression(BooleanExpression[] operands, BooleanExpression original) {
+         super(original);
+         this.operands = operands;
+      }
+
+      @Override
+      public Object evaluate(Filterable message) throws FilterException {
+         boolean someNulls = false;
+         for (BooleanExpression operand : operands) {
+            final Boolean value = (Boolean) operand.evaluate(message);
+            if (value == null) {
+               someNulls = true;
+            } else if (value) {
+               return Boolean.TRUE;
+            }
+         }
+         return someNulls ? null : Boolean.FALSE;
+      }
+
+      @Override
+      public boolean matches(Filterable message) throws FilterException {
+         for (BooleanExpression operand : operands) {
+            if (operand.matches(message)) {
+               return true;
+            }
+         }
+         return false;
+      }
+   }
+
+   private static final class NotExpression extends CompiledExpression {
+
+      private final BooleanExpression operand;
+
+      NotExpression(BooleanExpression operand, BooleanExpression original) {
+         super(original);
+         this.operand = operand;
+      }
+
+      @Override
+      public Object evaluate(Filterable message) throws FilterException {
+         final Boolean value = (Boolean) operand.evaluate(message);
+         return value == null ? null : !value;
+      }
+
+      @Override
+      public boolean matches(Filterable message) throws FilterException {
+         final Boolean value = (Boolean) operand.evaluate(message);
+         // NOT NULL returns NULL that eventually fails the selector
+         return value != null && !value;
+      }
+   }
+
+   private static final class IsNullExpression extends CompiledExpression {
+
+      private final PropertyExpression property;
+
+      IsNullExpression(PropertyExpression property, BooleanExpression original) {
+         super(original);
+         this.property = property;
+      }
+
+      @Override
+      public Object evaluate(Filterable message) throws FilterException {
+         return property.evaluate(message) == null ? Boolean.TRUE : Boolean.FALSE;
+      }
+
+      @Override
+      public boolean matches(Filterable message) throws FilterException {
+         return property.evaluate(message) == null;
+      }
+   }
+
+   private static final class StringEqualsExpression extends CompiledExpression {
+
+      private final PropertyExpression property;
+
+      private final String value;
+
+      // a literal on the left of '=' evaluates to FALSE (instead of NULL) against a missing property
+      private final boolean reversed;
+
+      StringEqualsExpression(PropertyExpression property, String value, boolean reversed, BooleanExpression original) {
+         super(original);
+         this.property = property;
+         this.value = value;
+         this.reversed = reversed;
+      }
+
+      @Override
+      public Object evaluate(Filterable message) throws FilterException {
+         final Object propertyValue = property.evaluate(message);
+         if (propertyValue == null) {
+            return reversed ? Boolean.FALSE : null;
+         }
+         if (propertyValue.getClass() != String.class) {
+            return original.evaluate(message);
+         }
+         return value.equals(propertyValue) ? Boolean.TRUE : Boolean.FALSE;
+      }
+
+      @Override
+      public boolean matches(Filterable message) throws FilterException {
+         final Object propertyValue = property.evaluate(message);
+         if (propertyValue == null) {
+            return false;
+         }
+         if (propertyValue.getClass() != String.class) {
+            return original.matches(message);
+         }
+         return value.equals(propertyValue);
+      }
+   }
+
+   /**
+    * Compares a property to a numeric literal, applying the same widening rules as
+    * {@link ComparisonExpression#compare}.
+    */
+   private static final class NumericComparisonExpression extends CompiledExpression {
+
+      private static final int INTEGER = 0;
+      private static final int LONG = 1;
+      private static final int DOUBLE = 2;
+
+      // none of Integer/Long/Float/Double.compare can return it
+      private static final int UNSUPPORTED = Integer.MIN_VALUE;
+
+      private final PropertyExpression property;
+
+      private final int type;
+
+      private final int intValue;
+
+      private final long longValue;
+
+      private final double doubleValue;
+
+      private final int operator;
+
+      // the literal is on the left side: bytes and shorts aren't widened then
+      private final boolean reversed;
+
+      NumericComparisonExpression(PropertyExpression property,
+                                  Number value,
+                                  int type,
+                                  int operator,
+                                  boolean reversed,
+                                  BooleanExpression original) {
+         super(original);
+         this.property = property;
+         this.type = type;
+         this.intValue = value.intValue();
+         this.longValue = value.longValue();
+         this.doubleValue = value.doubleValue();
+         this.operator = operator;
+         this.reversed = reversed;
+      }
+
+      static int typeOf(Object value) {
+         if (value == null) {
+            return -1;
+         }
+         final Class<?> clazz = value.getClass();
+         if (clazz == Integer.class) {
+            return INTEGER;
+         } else if (clazz == Long.class) {
+            return LONG;
+         } else if (clazz == Double.class) {
+            return DOUBLE;
+         }
+         return -1;
+      }
+
+      private int compareTo(Object value) {
+         final Class<?> clazz = value.getClass();
+         switch (type) {
+            case INTEGER:
+               if (clazz == Integer.class) {
+                  return Integer.compare((Integer) value, intValue);
+               } else if (clazz == Long.class) {
+                  return Long.compare((Long) value, intValue);
+               } else if (clazz == Double.class) {
+                  return Double.compare((Double) value, intValue);
+               } else if (clazz == Float.class) {
+                  return Float.compare((Float) value, intValue);
+               } else if (!reversed && (clazz == Short.class || clazz == Byte.class)) {
+                  return Integer.compare(((Number) value).intValue(), intValue);
+               }
+               return UNSUPPORTED;
+            case LONG:
+               if (clazz == Long.class) {
+                  return Long.compare((Long) value, longValue);
+               } else if (clazz == Integer.class) {
+                  return Long.compare((Integer) value, longValue);
+               } else if (clazz == Double.class) {
+                  return Double.compare((Double) value, longValue);
+               } else if (clazz == Float.class) {
+                  return Float.compare((Float) value, longValue);
+               } else if (!reversed && (clazz == Short.class || clazz == Byte.class)) {
+                  return Long.compare(((Number) value).longValue(), longValue);
+               }
+               return UNSUPPORTED;
+            default:
+               if (clazz == Double.class) {
+                  return Double.compare((Double) value, doubleValue);
+               } else if (clazz == Integer.class || clazz == Long.class || clazz == Float.class) {
+                  return Double.compare(((Number) value).doubleValue(), doubleValue);
+               } else if (!reversed && (clazz == Short.class || clazz == Byte.class)) {
+                  return Double.compare(((Number) value).doubleValue(), doubleValue);
+               }
+               return UNSUPPORTED;
+         }
+      }
+
+      private boolean test(int comparison) {
+         switch (operator) {
+            case EQUAL:
+               return comparison == 0;
+            case GREATER_THAN:
+               return comparison > 0;
+            case GREATER_THAN_EQUAL:
+               return comparison >= 0;
+            case LESS_THAN:
+               return comparison < 0;
+            default:
+               return comparison <= 0;
+         }
+      }
+
+      @Override
+      public Object evaluate(Filterable message) throws FilterException {
+         final Object value = property.evaluate(message);
+         if (value == null) {
+            // a literal on the left of '=' evaluates to FALSE (instead of NULL) against a missing property
+            return reversed && operator == EQUAL ? Boolean.FALSE : null;
+         }
+         final int comparison = compareTo(value);
+         if (comparison == UNSUPPORTED) {
+            return original.evaluate(message);
+         }
+         return test(comparison) ? Boolean.TRUE : Boolean.FALSE;
+      }
+
+      @Override
+      public boolean matches(Filterable message) throws FilterException {
+         final Object value = property.evaluate(message);
+         if (value == null) {
+            return false;
+         }
+         final int comparison = compareTo(value);
+         if (comparison == UNSUPPORTED) {
+            return original.matches(message);
+         }
+         return test(comparison);
+      }
+   }
+
+   private static final class LikeExpression extends CompiledExpression {
+
+      static final int EXACT = 0;
+      static final int PREFIX = 1;
+      static final int SUFFIX = 2;
+      static final int CONTAINS = 3;
+
+      private final Expression operand;
+
+      private final int kind;
+
+      private final String literal;
+
+      LikeExpression(Expression operand, int kind, String literal, BooleanExpression original) {
+         super(original);
+         this.operand = operand;
+         this.kind = kind;
+         this.literal = literal;
+      }
+
+      private boolean test(String value) {
+         switch (kind) {
+            case EXACT:
+               return value.equals(literal);
+            case PREFIX:
+               return value.startsWith(literal);
+            case SUFFIX:
+               return value.endsWith(literal);
+            default:
+               return value.contains(literal);
+         }
+      }
+
+      @Override
+      public Object evaluate(Filterable message) throws FilterException {
+         final Object value = operand.evaluate(message);
+         if (value == null) {
+            return null;
+         }
+         if (!(value instanceof String string)) {
+            return Boolean.FALSE;
+         }
+         return test(string) ? Boolean.TRUE : Boolean.FALSE;
+      }
+
+      @Override
+      public boolean matches(Filterable message) throws FilterException {
+         final Object value = operand.evaluate(message);
+         return value instanceof String string && test(string);
+      }
+   }
+}
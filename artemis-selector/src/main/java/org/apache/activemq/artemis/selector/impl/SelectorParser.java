@@ -21,6 +21,7 @@ import java.io.StringReader;
 import org.apache.activemq.artemis.selector.filter.BooleanExpression;
 import org.apache.activemq.artemis.selector.filter.ComparisonExpression;
 import org.apache.activemq.artemis.selector.filter.FilterException;
+import org.apache.activemq.artemis.selector.filter.SelectorCompiler;
 import org.apache.activemq.artemis.selector.hyphenated.HyphenatedParser;
 import org.apache.activemq.artemis.selector.strict.StrictParser;
 
@@ -32,6 +33,13 @@ public class SelectorParser {
    private static final String NO_HYPHENATED_PROPS_PREFIX = "no_hyphenated_props:";
 
    public static BooleanExpression parse(String sql) throws FilterException {
+      return parse(sql, false);
+   }
+
+   /**
+    * @param compile whether the selector is compiled by {@link SelectorCompiler}, to be cheaper to evaluate
+    */
+   public static BooleanExpression parse(String sql, boolean compile) throws FilterException {
       String actual = sql;
       boolean convertStringExpressions = false;
       boolean hyphenatedProps = false;
@@ -71,7 +79,7 @@ public class SelectorParser {
             StrictParser parser = new StrictParser(new StringReader(actual));
             e = parser.JmsSelector();
          }
-         return e;
+         return compile ? SelectorCompiler.compile(e) : e;
       } catch (Throwable e) {
          FilterException fe = new FilterException(actual, e);
          throw fe;
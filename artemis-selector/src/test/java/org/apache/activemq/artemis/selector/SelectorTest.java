@@ -405,6 +405,7 @@ public class SelectorTest {
       assertNotNull(selector, "Created a valid selector");
       boolean value = selector.matches(message);
       assertEquals(expected, value, "Selector for: " + text);
+      assertEquals(expected, SelectorParser.parse(text, true).matches(message), "Compiled selector for: " + text);
    }
 
    protected MockMessage createMessage(String subject) {
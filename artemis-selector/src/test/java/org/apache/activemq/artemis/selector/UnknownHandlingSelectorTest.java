@@ -169,6 +169,7 @@ public class UnknownHandlingSelectorTest {
       assertNotNull(selector, "Created a valid selector");
       boolean value = selector.matches(message);
       assertEquals(expected, value, "Selector for: " + text);
+      assertEquals(expected, SelectorParser.parse(text, true).matches(message), "Compiled selector for: " + text);
    }
 
    private static String not(String selector) {
@@ -0,0 +1,128 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.activemq.artemis.selector.filter;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.apache.activemq.artemis.selector.MockMessage;
+import org.apache.activemq.artemis.selector.impl.SelectorParser;
+import org.junit.jupiter.api.Test;
+
+public class SelectorCompilerTest {
+
+   private static final String[] SELECTORS = {
+      "x = 5", "x > 5", "x >= 5", "x < 5", "x <= 5",
+      "5 = x", "5 > x", "5 >= x", "5 < x", "5 <= x",
+      "x = 5000000000", "x > 5000000000", "5000000000 <= x",
+      "x = 5.0", "x > 4.5", "4.5 < x", "x <= 5.5",
+      "x = 'abc'", "'abc' = x", "x <> 'abc'",
+      "x IS NULL", "x IS NOT NULL",
+      "x LIKE 'abc'", "x LIKE 'ab%'", "x LIKE '%bc'", "x LIKE '%b%'", "x LIKE '%'", "x LIKE 'a_c'", "x LIKE 'a%c'",
+      "x LIKE 'a!%%' ESCAPE '!'", "x NOT LIKE 'ab%'",
+      "NOT (x = 5)", "NOT (5 = x)", "NOT (x LIKE '%b%')",
+      "x = 5 AND y = 'abc'", "x = 5 OR y = 'abc'", "x > 1 AND x < 10 AND y LIKE 'a%'",
+      "x = 5 OR y = 'abc' OR NOT (x < 3)",
+      "x = 2 + 3", "x > 10 / 2", "1 = 1 AND x = 5", "1 = 2 OR x = 5", "NOT (1 = 2) AND x = 5",
+      "x IN ('abc', 'def')",
+      "convert_string_expressions:x = 5", "convert_string_expressions:x > 4.5", "convert_string_expressions:x = 'abc'",
+   };
+
+   private static List<MockMessage> messages() {
+      final List<MockMessage> messages = new ArrayList<>();
+      messages.add(new MockMessage());
+      for (String value : new String[] {"abc", "ab", "bc", "a%c", "5", "5.0", "4"}) {
+         final MockMessage message = new MockMessage();
+         message.setStringProperty("x", value);
+         message.setStringProperty("y", "abc");
+         messages.add(message);
+      }
+      for (int value : new int[] {4, 5, 6}) {
+         MockMessage message = new MockMessage();
+         message.setIntProperty("x", value);
+         messages.add(message);
+         message = new MockMessage();
+         message.setLongProperty("x", value);
+         message.setStringProperty("y", "abc");
+         messages.add(message);
+         message = new MockMessage();
+         message.setShortProperty("x", (short) value);
+         messages.add(message);
+         message = new MockMessage();
+         message.setByteProperty("x", (byte) value);
+         messages.add(message);
+         message = new MockMessage();
+         message.setFloatProperty("x", value + 0.5f);
+         messages.add(message);
+         message = new MockMessage();
+         message.setDoubleProperty("x", value);
+         messages.add(message);
+      }
+      final MockMessage message = new MockMessage();
+      message.setLongProperty("x", 5000000000L);
+      messages.add(message);
+      final MockMessage booleanMessage = new MockMessage();
+      booleanMessage.setBooleanProperty("x", true);
+      messages.add(booleanMessage);
+      return messages;
+   }
+
+   @Test
+   public void testSameResultAsInterpreter() throws Exception {
+      final List<MockMessage> messages = messages();
+      for (String text : SELECTORS) {
+         final BooleanExpression interpreted = SelectorParser.parse(text);
+         final BooleanExpression compiled = SelectorParser.parse(text, true);
+         assertEquals(interpreted.toString(), compiled.toString(), text);
+         for (int i = 0; i < messages.size(); i++) {
+            final MockMessage message = messages.get(i);
+            final String description = text + " on message " + i;
+            assertEquals(interpreted.evaluate(message), compiled.evaluate(message), description);
+            assertEquals(interpreted.matches(message), compiled.matches(message), description);
+         }
+      }
+   }
+
+   @Test
+   public void testConstantFolding() throws Exception {
+      final BooleanExpression compiled = SelectorParser.parse("1 + 1 = 2", true);
+      assertFalse(compiled instanceof ComparisonExpression);
+      assertTrue(compiled.matches(new MockMessage()));
+      assertEquals(Boolean.TRUE, compiled.evaluate(null));
+
+      final BooleanExpression operand = SelectorParser.parse("x = 2 * 3", true);
+      final MockMessage message = new MockMessage();
+      message.setIntProperty("x", 6);
+      assertTrue(operand.matches(message));
+   }
+
+   @Test
+   public void testLikeShortcuts() throws Exception {
+      for (String pattern : new String[] {"abc", "ab%", "%bc", "%b%", "%", "%%"}) {
+         final BooleanExpression compiled = SelectorParser.parse("x LIKE '" + pattern + "'", true);
+         assertFalse(compiled instanceof ComparisonExpression.LikeExpression, pattern);
+      }
+      for (String pattern : new String[] {"a_c", "a%c", "%a%c%"}) {
+         final BooleanExpression compiled = SelectorParser.parse("x LIKE '" + pattern + "'", true);
+         assertTrue(compiled instanceof ComparisonExpression.LikeExpression, pattern);
+      }
+   }
+}
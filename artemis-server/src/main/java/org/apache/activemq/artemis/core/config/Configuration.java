@@ -163,6 +163,54 @@ public interface Configuration {
     */
    Configuration setJournalDatasync(boolean enable);
 
+   /**
+    * Should precede each batch of records written on the journal by its CRC32C checksum, so that torn writes are
+    * detected and skipped while loading.
+    *
+    * @return a boolean
+    */
+   boolean isJournalChecksum();
+
+   /**
+    * documented at {@link #isJournalChecksum()}
+    *
+    * @param enable
+    * @return this
+    */
+   Configuration setJournalChecksum(boolean enable);
+
+   /**
+    * Should tune the journal buffer timeout online, following the sync latency of the device and the number of
+    * concurrent syncs, instead of using the configured one as a fixed value.
+    *
+    * @return a boolean
+    */
+   boolean isJournalAdaptiveBufferTimeout();
+
+   /**
+    * documented at {@link #isJournalAdaptiveBufferTimeout()}
+    *
+    * @param enable
+    * @return this
+    */
+   Configuration setJournalAdaptiveBufferTimeout(boolean enable);
+
+   /**
+    * Should open the files of the NIO journals with {@code O_DSYNC}, so that each batch of records is written and synced
+    * by a single system call, instead of a write followed by a separate sync.
+    *
+    * @return a boolean
+    */
+   boolean isJournalWriteThrough();
+
+   /**
+    * documented at {@link #isJournalWriteThrough()}
+    *
+    * @param enable
+    * @return this
+    */
+   Configuration setJournalWriteThrough(boolean enable);
+
    /**
     * @return usernames mapped to ResourceLimitSettings
     */
@@ -638,6 +686,18 @@ public interface Configuration {
     */
    Configuration setPersistIDCache(boolean persist);
 
+   /**
+    * Returns whether the duplicate ID caches keep their ids in primitive arrays, indexed by their fingerprints, instead
+    * of maps. <br>
+    * Default value is {@link org.apache.activemq.artemis.api.config.ActiveMQDefaultConfiguration#DEFAULT_COMPACT_ID_CACHE}.
+    */
+   boolean isCompactIDCache();
+
+   /**
+    * Sets whether the duplicate ID caches keep their ids in primitive arrays.
+    */
+   Configuration setCompactIDCache(boolean compact);
+
    // Journal related attributes ------------------------------------------------------------
 
    /**
@@ -681,6 +741,53 @@ public interface Configuration {
     */
    Configuration setReadWholePage(boolean read);
 
+   /**
+    * Returns the max size (in bytes) of the page files kept decoded in memory, once no longer used by any subscription,
+    * so they can be reused by lagging subscriptions without reading them again. <br>
+    * Default value is {@link org.apache.activemq.artemis.api.config.ActiveMQDefaultConfiguration#DEFAULT_SHARED_PAGE_CACHE_MAX_SIZE}.
+    */
+   long getSharedPageCacheMaxSize();
+
+   /**
+    * Sets the max size (in bytes) of the page files kept decoded in memory, {@code -1} disables the cache.
+    */
+   Configuration setSharedPageCacheMaxSize(long maxSize);
+
+   /**
+    * Returns the max number of threads reading the page files to rebuild the page counters on start. <br>
+    * Default value is {@link org.apache.activemq.artemis.api.config.ActiveMQDefaultConfiguration#DEFAULT_PAGE_COUNTER_REBUILD_PARALLELISM}.
+    */
+   int getPageCounterRebuildParallelism();
+
+   /**
+    * Sets the max number of threads reading the page files to rebuild the page counters on start, {@code -1} means
+    * the number of available processors.
+    */
+   Configuration setPageCounterRebuildParallelism(int parallelism);
+
+   /**
+    * Returns the period (in milliseconds) of the checks for page files whose messages are mostly acknowledged, which
+    * are rewritten with only the messages still to be delivered. <br>
+    * Default value is {@link org.apache.activemq.artemis.api.config.ActiveMQDefaultConfiguration#DEFAULT_PAGE_COMPACT_PERIOD}.
+    */
+   long getPageCompactPeriod();
+
+   /**
+    * Sets the period (in milliseconds) of the checks for page files to compact, {@code -1} disables the compaction.
+    */
+   Configuration setPageCompactPeriod(long period);
+
+   /**
+    * Returns the percentage of acknowledged messages a page file needs to be compacted. <br>
+    * Default value is {@link org.apache.activemq.artemis.api.config.ActiveMQDefaultConfiguration#DEFAULT_PAGE_COMPACT_THRESHOLD}.
+    */
+   int getPageCompactThreshold();
+
+   /**
+    * Sets the percentage of acknowledged messages a page file needs to be compacted.
+    */
+   Configuration setPageCompactThreshold(int threshold);
+
    /**
     * Returns the file system directory used to store journal log. <br>
     * Default value is {@link org.apache.activemq.artemis.api.config.ActiveMQDefaultConfiguration#DEFAULT_JOURNAL_DIR}.
@@ -724,6 +831,27 @@ public interface Configuration {
 
    File getJournalRetentionLocation();
 
+   /**
+    * The directories of the additional stripes of the message journal: when not empty the message journal is striped
+    * across the journal directory and these ones, usually each one on its own device.
+    *
+    * @return the directories of the additional stripes, never {@code null}
+    */
+   List<String> getJournalStripeDirectories();
+
+   /**
+    * documented at {@link #getJournalStripeDirectories()}
+    *
+    * @param dirs
+    * @return this
+    */
+   Configuration setJournalStripeDirectories(List<String> dirs);
+
+   /**
+    * The locations of the additional stripes of the message journal related to artemis.instance.
+    */
+   File[] getJournalStripeLocations();
+
    /** The retention period for the journal in milliseconds (always in milliseconds, a conversion is performed on set) */
    long getJournalRetentionPeriod();
 
@@ -17,7 +17,9 @@
 package org.apache.activemq.artemis.core.config;
 
 import java.net.URI;
+import java.util.EnumSet;
 import java.util.List;
+import java.util.Set;
 
 import org.apache.activemq.artemis.api.config.ActiveMQDefaultConfiguration;
 import org.apache.activemq.artemis.api.core.ActiveMQIllegalStateException;
@@ -49,6 +51,8 @@ import org.apache.activemq.artemis.uri.ConnectorTransportConfigurationParser;
 
 public final class ConfigurationUtils {
 
+   private static final Set<HAPolicyConfiguration.TYPE> REPLICATION_POLICIES = EnumSet.of(HAPolicyConfiguration.TYPE.REPLICATION_PRIMARY_QUORUM_VOTING, HAPolicyConfiguration.TYPE.REPLICATION_BACKUP_QUORUM_VOTING, HAPolicyConfiguration.TYPE.REPLICATION_PRIMARY_LOCK_MANAGER, HAPolicyConfiguration.TYPE.REPLICATION_BACKUP_LOCK_MANAGER, HAPolicyConfiguration.TYPE.COLOCATED);
+
    private ConfigurationUtils() {
       // Utility class
    }
@@ -147,6 +151,26 @@ public final class ConfigurationUtils {
    public static void validateConfiguration(Configuration configuration) {
       // Warn if connection-ttl-override/connection-ttl == check-period
       compareTTLWithCheckPeriod(configuration);
+
+      validateJournalStripes(configuration);
+   }
+
+   /**
+    * A striped message journal can't be replicated, synchronized with a backup or retained.
+    *
+    * @throws IllegalArgumentException if the journal-stripe-directories are configured along with any of them
+    */
+   public static void validateJournalStripes(Configuration configuration) {
+      if (configuration.getJournalStripeDirectories().isEmpty()) {
+         return;
+      }
+      if (configuration.getJournalRetentionLocation() != null) {
+         throw ActiveMQMessageBundle.BUNDLE.journalStripesNotSupported("journal-retention-directory");
+      }
+      final HAPolicyConfiguration haPolicy = configuration.getHAPolicyConfiguration();
+      if (haPolicy != null && REPLICATION_POLICIES.contains(haPolicy.getType())) {
+         throw ActiveMQMessageBundle.BUNDLE.journalStripesNotSupported(haPolicy.getType().getName());
+      }
    }
 
    public static List<TransportConfiguration> parseAcceptorURI(String name, String uri) {
@@ -155,6 +155,12 @@ public class ConfigurationImpl implements Configuration, Serializable {
 
    private boolean journalDatasync = ActiveMQDefaultConfiguration.isDefaultJournalDatasync();
 
+   private boolean journalChecksum = ActiveMQDefaultConfiguration.isDefaultJournalChecksum();
+
+   private boolean journalAdaptiveBufferTimeout = ActiveMQDefaultConfiguration.isDefaultJournalAdaptiveBufferTimeout();
+
+   private boolean journalWriteThrough = ActiveMQDefaultConfiguration.isDefaultJournalWriteThrough();
+
    protected long fileDeploymentScanPeriod = ActiveMQDefaultConfiguration.getDefaultFileDeployerScanPeriod();
 
    private boolean persistDeliveryCountBeforeDelivery = ActiveMQDefaultConfiguration.isDefaultPersistDeliveryCountBeforeDelivery();
@@ -195,6 +201,8 @@ public class ConfigurationImpl implements Configuration, Serializable {
 
    private boolean persistIDCache = ActiveMQDefaultConfiguration.isDefaultPersistIdCache();
 
+   private boolean compactIDCache = ActiveMQDefaultConfiguration.isDefaultCompactIdCache();
+
    private List<String> incomingInterceptorClassNames = new ArrayList<>();
 
    private List<String> outgoingInterceptorClassNames = new ArrayList<>();
@@ -235,6 +243,14 @@ public class ConfigurationImpl implements Configuration, Serializable {
 
    private boolean readWholePage = ActiveMQDefaultConfiguration.isDefaultReadWholePage();
 
+   private long sharedPageCacheMaxSize = ActiveMQDefaultConfiguration.getDefaultSharedPageCacheMaxSize();
+
+   private int pageCounterRebuildParallelism = ActiveMQDefaultConfiguration.getDefaultPageCounterRebuildParallelism();
+
+   private long pageCompactPeriod = ActiveMQDefaultConfiguration.getDefaultPageCompactPeriod();
+
+   private int pageCompactThreshold = ActiveMQDefaultConfiguration.getDefaultPageCompactThreshold();
+
    protected String largeMessagesDirectory = ActiveMQDefaultConfiguration.getDefaultLargeMessagesDir();
 
    protected String bindingsDirectory = ActiveMQDefaultConfiguration.getDefaultBindingsDirectory();
@@ -245,6 +261,8 @@ public class ConfigurationImpl implements Configuration, Serializable {
 
    protected String journalRetentionDirectory = null;
 
+   protected List<String> journalStripeDirectories = new ArrayList<>();
+
    protected long journalRetentionMaxBytes = 0;
 
    protected long journalRetentionPeriod;
@@ -490,6 +508,26 @@ public class ConfigurationImpl implements Configuration, Serializable {
       }
    }
 
+   @Override
+   public List<String> getJournalStripeDirectories() {
+      return journalStripeDirectories;
+   }
+
+   @Override
+   public ConfigurationImpl setJournalStripeDirectories(List<String> dirs) {
+      this.journalStripeDirectories = dirs == null ? new ArrayList<>() : dirs;
+      return this;
+   }
+
+   @Override
+   public File[] getJournalStripeLocations() {
+      final File[] locations = new File[journalStripeDirectories.size()];
+      for (int i = 0; i < locations.length; i++) {
+         locations[i] = subFolder(journalStripeDirectories.get(i));
+      }
+      return locations;
+   }
+
    @Override
    public long getJournalRetentionPeriod() {
       return this.journalRetentionPeriod;
@@ -1096,6 +1134,39 @@ public class ConfigurationImpl implements Configuration, Serializable {
       return this;
    }
 
+   @Override
+   public boolean isJournalChecksum() {
+      return journalChecksum;
+   }
+
+   @Override
+   public ConfigurationImpl setJournalChecksum(boolean enable) {
+      journalChecksum = enable;
+      return this;
+   }
+
+   @Override
+   public boolean isJournalAdaptiveBufferTimeout() {
+      return journalAdaptiveBufferTimeout;
+   }
+
+   @Override
+   public ConfigurationImpl setJournalAdaptiveBufferTimeout(boolean enable) {
+      journalAdaptiveBufferTimeout = enable;
+      return this;
+   }
+
+   @Override
+   public boolean isJournalWriteThrough() {
+      return journalWriteThrough;
+   }
+
+   @Override
+   public ConfigurationImpl setJournalWriteThrough(boolean enable) {
+      journalWriteThrough = enable;
+      return this;
+   }
+
    @Override
    public long getFileDeployerScanPeriod() {
       return fileDeploymentScanPeriod;
@@ -1544,6 +1615,17 @@ public class ConfigurationImpl implements Configuration, Serializable {
       return this;
    }
 
+   @Override
+   public boolean isCompactIDCache() {
+      return compactIDCache;
+   }
+
+   @Override
+   public ConfigurationImpl setCompactIDCache(final boolean compact) {
+      compactIDCache = compact;
+      return this;
+   }
+
    @Override
    public File getBindingsLocation() {
       return subFolder(getBindingsDirectory());
@@ -1582,6 +1664,50 @@ public class ConfigurationImpl implements Configuration, Serializable {
       return this;
    }
 
+   @Override
+   public long getSharedPageCacheMaxSize() {
+      return sharedPageCacheMaxSize;
+   }
+
+   @Override
+   public ConfigurationImpl setSharedPageCacheMaxSize(long maxSize) {
+      sharedPageCacheMaxSize = maxSize;
+      return this;
+   }
+
+   @Override
+   public int getPageCounterRebuildParallelism() {
+      return pageCounterRebuildParallelism;
+   }
+
+   @Override
+   public ConfigurationImpl setPageCounterRebuildParallelism(int parallelism) {
+      pageCounterRebuildParallelism = parallelism;
+      return this;
+   }
+
+   @Override
+   public long getPageCompactPeriod() {
+      return pageCompactPeriod;
+   }
+
+   @Override
+   public ConfigurationImpl setPageCompactPeriod(long period) {
+      pageCompactPeriod = period;
+      return this;
+   }
+
+   @Override
+   public int getPageCompactThreshold() {
+      return pageCompactThreshold;
+   }
+
+   @Override
+   public ConfigurationImpl setPageCompactThreshold(int threshold) {
+      pageCompactThreshold = threshold;
+      return this;
+   }
+
    @Override
    public File getJournalLocation() {
       return subFolder(getJournalDirectory());
@@ -2704,6 +2830,10 @@ public class ConfigurationImpl implements Configuration, Serializable {
       result = prime * result + ((managementNotificationAddress == null) ? 0 : managementNotificationAddress.hashCode());
       result = prime * result + (maskPassword == null ? 0 : maskPassword.hashCode());
       result = prime * result + maxConcurrentPageIO;
+      result = prime * result + (int) (sharedPageCacheMaxSize ^ (sharedPageCacheMaxSize >>> 32));
+      result = prime * result + pageCounterRebuildParallelism;
+      result = prime * result + (int) (pageCompactPeriod ^ (pageCompactPeriod >>> 32));
+      result = prime * result + pageCompactThreshold;
       result = prime * result + (int) (memoryMeasureInterval ^ (memoryMeasureInterval >>> 32));
       result = prime * result + memoryWarningThreshold;
       result = prime * result + (messageCounterEnabled ? 1231 : 1237);
@@ -2716,6 +2846,7 @@ public class ConfigurationImpl implements Configuration, Serializable {
       result = prime * result + ((pagingDirectory == null) ? 0 : pagingDirectory.hashCode());
       result = prime * result + (persistDeliveryCountBeforeDelivery ? 1231 : 1237);
       result = prime * result + (persistIDCache ? 1231 : 1237);
+      result = prime * result + (compactIDCache ? 1231 : 1237);
       result = prime * result + (persistenceEnabled ? 1231 : 1237);
 //      result = prime * result + ((queueConfigurations == null) ? 0 : queueConfigurations.hashCode());
       result = prime * result + scheduledThreadPoolMaxSize;
@@ -2896,6 +3027,14 @@ public class ConfigurationImpl implements Configuration, Serializable {
 
       if (maxConcurrentPageIO != other.maxConcurrentPageIO)
          return false;
+      if (sharedPageCacheMaxSize != other.sharedPageCacheMaxSize)
+         return false;
+      if (pageCounterRebuildParallelism != other.pageCounterRebuildParallelism)
+         return false;
+      if (pageCompactPeriod != other.pageCompactPeriod)
+         return false;
+      if (pageCompactThreshold != other.pageCompactThreshold)
+         return false;
       if (memoryMeasureInterval != other.memoryMeasureInterval)
          return false;
       if (memoryWarningThreshold != other.memoryWarningThreshold)
@@ -2929,6 +3068,8 @@ public class ConfigurationImpl implements Configuration, Serializable {
          return false;
       if (persistIDCache != other.persistIDCache)
          return false;
+      if (compactIDCache != other.compactIDCache)
+         return false;
       if (persistenceEnabled != other.persistenceEnabled)
          return false;
 //      if (queueConfigurations == null) {
@@ -2971,6 +3112,18 @@ public class ConfigurationImpl implements Configuration, Serializable {
       if (journalDatasync != other.journalDatasync) {
          return false;
       }
+      if (journalChecksum != other.journalChecksum) {
+         return false;
+      }
+      if (journalAdaptiveBufferTimeout != other.journalAdaptiveBufferTimeout) {
+         return false;
+      }
+      if (journalWriteThrough != other.journalWriteThrough) {
+         return false;
+      }
+      if (!journalStripeDirectories.equals(other.journalStripeDirectories)) {
+         return false;
+      }
 
       if (globalMaxSize != null && !globalMaxSize.equals(other.globalMaxSize)) {
          return false;
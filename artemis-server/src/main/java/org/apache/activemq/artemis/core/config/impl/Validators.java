@@ -27,6 +27,8 @@ import org.apache.activemq.artemis.core.server.cluster.impl.MessageLoadBalancing
 import org.apache.activemq.artemis.core.settings.impl.AddressFullMessagePolicy;
 import org.apache.activemq.artemis.core.settings.impl.DeletionPolicy;
 import org.apache.activemq.artemis.core.settings.impl.PageFullMessagePolicy;
+import org.apache.activemq.artemis.core.settings.impl.ReferenceStorePolicy;
+import org.apache.activemq.artemis.core.settings.impl.ScheduledDeliveryPolicy;
 import org.apache.activemq.artemis.core.settings.impl.SlowConsumerPolicy;
 import org.apache.activemq.artemis.core.settings.impl.SlowConsumerThresholdMeasurementUnit;
 
@@ -175,6 +177,20 @@ public final class Validators {
       return value;
    };
 
+   public static final Validator<String> SCHEDULED_DELIVERY_POLICY_TYPE = (name, value) -> {
+      if (value == null || !value.equals(ScheduledDeliveryPolicy.SORTED.toString()) && !value.equals(ScheduledDeliveryPolicy.TIMER_WHEEL.toString())) {
+         throw ActiveMQMessageBundle.BUNDLE.invalidScheduledDeliveryPolicyType(value);
+      }
+      return value;
+   };
+
+   public static final Validator<String> REFERENCE_STORE_POLICY_TYPE = (name, value) -> {
+      if (value == null || !value.equals(ReferenceStorePolicy.LINKED.toString()) && !value.equals(ReferenceStorePolicy.PACKED.toString())) {
+         throw ActiveMQMessageBundle.BUNDLE.invalidReferenceStorePolicyType(value);
+      }
+      return value;
+   };
+
    public static final Validator<String> DELETION_POLICY_TYPE = (name, value) -> {
       if (value == null || !value.equals(DeletionPolicy.OFF.toString()) && !value.equals(DeletionPolicy.FORCE.toString())) {
          throw ActiveMQMessageBundle.BUNDLE.invalidDeletionPolicyType(value);
@@ -67,6 +67,10 @@ public class DatabaseStorageConfiguration implements StoreConfiguration {
 
    private long jdbcJournalSyncPeriodMillis = ActiveMQDefaultConfiguration.getDefaultJdbcJournalSyncPeriodMillis();
 
+   private boolean jdbcJournalPipelined = ActiveMQDefaultConfiguration.isDefaultJdbcJournalPipelined();
+
+   private int jdbcJournalMaxBatchSize = ActiveMQDefaultConfiguration.getDefaultJdbcJournalMaxBatchSize();
+
    private long jdbcAllowedTimeDiff = ActiveMQDefaultConfiguration.getDefaultJdbcAllowedTimeDiffMillis();
 
    private int maxPageSizeBytes = ActiveMQDefaultConfiguration.getDefaultJdbcMaxPageSizeBytes();
@@ -318,6 +322,22 @@ public class DatabaseStorageConfiguration implements StoreConfiguration {
       this.jdbcJournalSyncPeriodMillis = jdbcJournalSyncPeriodMillis;
    }
 
+   public boolean isJdbcJournalPipelined() {
+      return jdbcJournalPipelined;
+   }
+
+   public void setJdbcJournalPipelined(boolean jdbcJournalPipelined) {
+      this.jdbcJournalPipelined = jdbcJournalPipelined;
+   }
+
+   public int getJdbcJournalMaxBatchSize() {
+      return jdbcJournalMaxBatchSize;
+   }
+
+   public void setJdbcJournalMaxBatchSize(int jdbcJournalMaxBatchSize) {
+      this.jdbcJournalMaxBatchSize = jdbcJournalMaxBatchSize;
+   }
+
    public void setJdbcAllowedTimeDiff(long jdbcAllowedTimeDiff) {
       this.jdbcAllowedTimeDiff = jdbcAllowedTimeDiff;
    }
@@ -103,7 +103,9 @@ import org.apache.activemq.artemis.core.settings.impl.AddressFullMessagePolicy;
 import org.apache.activemq.artemis.core.settings.impl.AddressSettings;
 import org.apache.activemq.artemis.core.settings.impl.DeletionPolicy;
 import org.apache.activemq.artemis.core.settings.impl.PageFullMessagePolicy;
+import org.apache.activemq.artemis.core.settings.impl.ReferenceStorePolicy;
 import org.apache.activemq.artemis.core.settings.impl.ResourceLimitSettings;
+import org.apache.activemq.artemis.core.settings.impl.ScheduledDeliveryPolicy;
 import org.apache.activemq.artemis.core.settings.impl.SlowConsumerPolicy;
 import org.apache.activemq.artemis.core.settings.impl.SlowConsumerThresholdMeasurementUnit;
 import org.apache.activemq.artemis.utils.ByteUtil;
@@ -142,7 +144,9 @@ import static org.apache.activemq.artemis.core.config.impl.Validators.PERCENTAGE
 import static org.apache.activemq.artemis.core.config.impl.Validators.PERCENTAGE_OR_MINUS_ONE;
 import static org.apache.activemq.artemis.core.config.impl.Validators.POSITIVE_INT;
 import static org.apache.activemq.artemis.core.config.impl.Validators.POSITIVE_POWER_OF_TWO;
+import static org.apache.activemq.artemis.core.config.impl.Validators.REFERENCE_STORE_POLICY_TYPE;
 import static org.apache.activemq.artemis.core.config.impl.Validators.ROUTING_TYPE;
+import static org.apache.activemq.artemis.core.config.impl.Validators.SCHEDULED_DELIVERY_POLICY_TYPE;
 import static org.apache.activemq.artemis.core.config.impl.Validators.SLOW_CONSUMER_POLICY_TYPE;
 import static org.apache.activemq.artemis.core.config.impl.Validators.SLOW_CONSUMER_THRESHOLD_MEASUREMENT_UNIT;
 
@@ -394,6 +398,10 @@ public final class FileConfigurationParser extends XMLConfigurationUtil {
 
    private static final String INITIAL_QUEUE_BUFFER_SIZE = "initial-queue-buffer-size";
 
+   private static final String SCHEDULED_DELIVERY_POLICY = "scheduled-delivery-policy";
+
+   private static final String REFERENCE_STORE_POLICY = "reference-store-policy";
+
    private boolean validateAIO = false;
 
    private boolean printPageMaxSizeUsed = false;
@@ -489,6 +497,8 @@ public final class FileConfigurationParser extends XMLConfigurationUtil {
 
       config.setPersistIDCache(getBoolean(e, "persist-id-cache", config.isPersistIDCache()));
 
+      config.setCompactIDCache(getBoolean(e, "compact-id-cache", config.isCompactIDCache()));
+
       config.setManagementAddress(SimpleString.of(getString(e, "management-address", config.getManagementAddress().toString(), NOT_NULL_OR_EMPTY)));
 
       config.setManagementNotificationAddress(SimpleString.of(getString(e, "management-notification-address", config.getManagementNotificationAddress().toString(), NOT_NULL_OR_EMPTY)));
@@ -740,12 +750,22 @@ public final class FileConfigurationParser extends XMLConfigurationUtil {
 
       parseJournalRetention(e, config);
 
+      parseJournalStripes(e, config);
+
       config.setNodeManagerLockDirectory(getString(e, "node-manager-lock-directory", null, NO_CHECK));
 
       config.setPageMaxConcurrentIO(getInteger(e, "page-max-concurrent-io", config.getPageMaxConcurrentIO(), MINUS_ONE_OR_GT_ZERO));
 
       config.setReadWholePage(getBoolean(e, "read-whole-page", config.isReadWholePage()));
 
+      config.setSharedPageCacheMaxSize(getTextBytesAsLongBytes(e, "shared-page-cache-max-size", config.getSharedPageCacheMaxSize(), MINUS_ONE_OR_GT_ZERO));
+
+      config.setPageCounterRebuildParallelism(getInteger(e, "page-counter-rebuild-parallelism", config.getPageCounterRebuildParallelism(), MINUS_ONE_OR_GT_ZERO));
+
+      config.setPageCompactPeriod(getLong(e, "page-compact-period", config.getPageCompactPeriod(), MINUS_ONE_OR_GT_ZERO));
+
+      config.setPageCompactThreshold(getInteger(e, "page-compact-threshold", config.getPageCompactThreshold(), PERCENTAGE));
+
       config.setPagingDirectory(getString(e, "paging-directory", config.getPagingDirectory(), NOT_NULL_OR_EMPTY));
 
       config.setCreateJournalDir(getBoolean(e, "create-journal-dir", config.isCreateJournalDir()));
@@ -771,6 +791,12 @@ public final class FileConfigurationParser extends XMLConfigurationUtil {
 
       config.setJournalDatasync(getBoolean(e, "journal-datasync", config.isJournalDatasync()));
 
+      config.setJournalChecksum(getBoolean(e, "journal-checksum", config.isJournalChecksum()));
+
+      config.setJournalAdaptiveBufferTimeout(getBoolean(e, "journal-adaptive-buffer-timeout", config.isJournalAdaptiveBufferTimeout()));
+
+      config.setJournalWriteThrough(getBoolean(e, "journal-write-through", config.isJournalWriteThrough()));
+
       config.setJournalSyncTransactional(getBoolean(e, "journal-sync-transactional", config.isJournalSyncTransactional()));
 
       config.setJournalSyncNonTransactional(getBoolean(e, "journal-sync-non-transactional", config.isJournalSyncNonTransactional()));
@@ -907,6 +933,27 @@ public final class FileConfigurationParser extends XMLConfigurationUtil {
    }
 
 
+   private void parseJournalStripes(final Element e, final Configuration config) {
+      NodeList stripesNodes = e.getElementsByTagName("journal-stripe-directories");
+
+      if (stripesNodes.getLength() > 0) {
+         List<String> directories = new ArrayList<>();
+         NodeList stripes = stripesNodes.item(0).getChildNodes();
+
+         for (int i = 0; i < stripes.getLength(); i++) {
+            if ("directory".equalsIgnoreCase(stripes.item(i).getNodeName())) {
+               String directory = getTrimmedTextContent(stripes.item(i));
+
+               if (directory.isEmpty()) {
+                  throw new IllegalArgumentException("journal-stripe-directories/directory=null");
+               }
+               directories.add(directory);
+            }
+         }
+         config.setJournalStripeDirectories(directories);
+      }
+   }
+
    private void parseJournalRetention(final Element e, final Configuration config) {
       NodeList retention = e.getElementsByTagName("journal-retention-directory");
 
@@ -1484,6 +1531,10 @@ public final class FileConfigurationParser extends XMLConfigurationUtil {
             addressSettings.setIDCacheSize(GE_ZERO.validate(ID_CACHE_SIZE, XMLUtil.parseInt(child)).intValue());
          } else if (INITIAL_QUEUE_BUFFER_SIZE.equalsIgnoreCase(name)) {
             addressSettings.setInitialQueueBufferSize(POSITIVE_POWER_OF_TWO.validate(INITIAL_QUEUE_BUFFER_SIZE, XMLUtil.parseInt(child)).intValue());
+         } else if (SCHEDULED_DELIVERY_POLICY.equalsIgnoreCase(name)) {
+            addressSettings.setScheduledDeliveryPolicy(Enum.valueOf(ScheduledDeliveryPolicy.class, SCHEDULED_DELIVERY_POLICY_TYPE.validate(SCHEDULED_DELIVERY_POLICY, getTrimmedTextContent(child))));
+         } else if (REFERENCE_STORE_POLICY.equalsIgnoreCase(name)) {
+            addressSettings.setReferenceStorePolicy(Enum.valueOf(ReferenceStorePolicy.class, REFERENCE_STORE_POLICY_TYPE.validate(REFERENCE_STORE_POLICY, getTrimmedTextContent(child))));
          }
       }
       return setting;
@@ -2031,6 +2082,8 @@ public final class FileConfigurationParser extends XMLConfigurationUtil {
       conf.setJdbcLockRenewPeriodMillis(getLong(storeNode, "jdbc-lock-renew-period", conf.getJdbcLockRenewPeriodMillis(), NO_CHECK));
       conf.setJdbcLockExpirationMillis(getLong(storeNode, "jdbc-lock-expiration", conf.getJdbcLockExpirationMillis(), NO_CHECK));
       conf.setJdbcJournalSyncPeriodMillis(getLong(storeNode, "jdbc-journal-sync-period", conf.getJdbcJournalSyncPeriodMillis(), NO_CHECK));
+      conf.setJdbcJournalPipelined(getBoolean(storeNode, "jdbc-journal-pipelined", conf.isJdbcJournalPipelined()));
+      conf.setJdbcJournalMaxBatchSize(getInteger(storeNode, "jdbc-journal-max-batch-size", conf.getJdbcJournalMaxBatchSize(), GT_ZERO));
       conf.setJdbcAllowedTimeDiff(getLong(storeNode, "jdbc-allowed-time-diff", conf.getJdbcAllowedTimeDiff(), NO_CHECK));
       conf.setMaxPageSizeBytes(getTextBytesAsIntBytes(storeNode, "jdbc-max-page-size-bytes", conf.getMaxPageSizeBytes(), NO_CHECK));
       String jdbcUser = getString(storeNode, "jdbc-user", conf.getJdbcUser(), NO_CHECK);
@@ -16,7 +16,10 @@
  */
 package org.apache.activemq.artemis.core.filter;
 
+import java.util.Collections;
 import java.util.Map;
+import java.util.Set;
+
 import org.apache.activemq.artemis.api.core.Message;
 import org.apache.activemq.artemis.api.core.SimpleString;
 import org.apache.activemq.artemis.selector.filter.Filterable;
@@ -41,6 +44,15 @@ public interface Filter {
 
    SimpleString getFilterString();
 
+   /**
+    * The values some properties of a message must have for this filter to match, e.g. {@code region -> [EU]} for
+    * {@code region = 'EU' AND priority > 4}. Used to index the filters while routing: a message whose property is
+    * missing or isn't one of these strings is known not to match without evaluating the filter.
+    */
+   default Map<SimpleString, Set<String>> getRequiredPropertyValues() {
+      return Collections.emptyMap();
+   }
+
    static SimpleString toFilterString(Filter filter) {
       return filter == null ? null : filter.getFilterString();
    }
@@ -16,7 +16,9 @@
  */
 package org.apache.activemq.artemis.core.filter.impl;
 
+import java.util.HashMap;
 import java.util.Map;
+import java.util.Set;
 
 import org.apache.activemq.artemis.api.core.ActiveMQException;
 import org.apache.activemq.artemis.api.core.FilterConstants;
@@ -29,6 +31,7 @@ import org.apache.activemq.artemis.core.server.federation.address.FederatedAddre
 import org.apache.activemq.artemis.selector.filter.BooleanExpression;
 import org.apache.activemq.artemis.selector.filter.FilterException;
 import org.apache.activemq.artemis.selector.filter.Filterable;
+import org.apache.activemq.artemis.selector.filter.SelectorCompiler;
 import org.apache.activemq.artemis.selector.impl.SelectorParser;
 import org.apache.activemq.artemis.utils.ByteUtil;
 import org.slf4j.Logger;
@@ -59,10 +62,16 @@ public class FilterImpl implements Filter {
 
    private static final Logger logger = LoggerFactory.getLogger(MethodHandles.lookup().lookupClass());
 
+   public static final String COMPILE_SELECTORS_PROPERTY_NAME = "org.apache.activemq.artemis.core.filter.compileSelectors";
+
+   // whether the filters are compiled into specialized expressions, see SelectorCompiler
+   private static final boolean COMPILE_SELECTORS = Boolean.parseBoolean(System.getProperty(COMPILE_SELECTORS_PROPERTY_NAME, "false"));
+
    private final SimpleString sfilterString;
 
    private final BooleanExpression booleanExpression;
 
+   private final Map<SimpleString, Set<String>> requiredPropertyValues;
 
    /**
     * @return null if <code>filterStr</code> is null or an empty String and a valid filter else
@@ -83,7 +92,7 @@ public class FilterImpl implements Filter {
 
       BooleanExpression booleanExpression;
       try {
-         booleanExpression = SelectorParser.parse(filterStr.toString());
+         booleanExpression = SelectorParser.parse(filterStr.toString(), COMPILE_SELECTORS);
       } catch (Throwable e) {
          ActiveMQServerLogger.LOGGER.invalidFilter(filterStr);
          logger.debug("Invalid filter", e);
@@ -95,6 +104,9 @@ public class FilterImpl implements Filter {
    private FilterImpl(final SimpleString str, final BooleanExpression expression) {
       sfilterString = str;
       this.booleanExpression = expression;
+      final Map<String, Set<String>> requiredValues = SelectorCompiler.requiredStringValues(expression);
+      this.requiredPropertyValues = new HashMap<>(requiredValues.size());
+      requiredValues.forEach((name, values) -> requiredPropertyValues.put(SimpleString.of(name), values));
    }
 
    // Filter implementation ---------------------------------------------------------------------
@@ -104,6 +116,34 @@ public class FilterImpl implements Filter {
       return sfilterString;
    }
 
+   @Override
+   public Map<SimpleString, Set<String>> getRequiredPropertyValues() {
+      return requiredPropertyValues;
+   }
+
+   /**
+    * The value of the property {@code id} of {@code message}, as seen by the filters.
+    */
+   public static Object getPropertyValue(final Message message, final SimpleString id) {
+      Object result = null;
+      if (id.startsWith(FilterConstants.ACTIVEMQ_PREFIX)) {
+         result = getHeaderFieldValue(message, id);
+      }
+      if (id.startsWith(FederatedAddress.HDR_HOPS)) {
+         byte[] bytes = message.getExtraBytesProperty(FederatedAddress.HDR_HOPS);
+         result = bytes == null ? null : ByteUtil.bytesToInt(bytes);
+      }
+      if (result == null) {
+         result = message.getObjectPropertyForFilter(id);
+      }
+      if (result != null) {
+         if (result.getClass() == SimpleString.class) {
+            result = result.toString();
+         }
+      }
+      return result;
+   }
+
    @Override
    public boolean match(final Message message) {
       return match(new FilterableServerMessage(message));
@@ -229,23 +269,7 @@ public class FilterImpl implements Filter {
 
       @Override
       public Object getProperty(SimpleString id) {
-         Object result = null;
-         if (id.startsWith(FilterConstants.ACTIVEMQ_PREFIX)) {
-            result = getHeaderFieldValue(message, id);
-         }
-         if (id.startsWith(FederatedAddress.HDR_HOPS)) {
-            byte[] bytes = message.getExtraBytesProperty(FederatedAddress.HDR_HOPS);
-            result = bytes == null ? null : ByteUtil.bytesToInt(bytes);
-         }
-         if (result == null) {
-            result = message.getObjectPropertyForFilter(id);
-         }
-         if (result != null) {
-            if (result.getClass() == SimpleString.class) {
-               result = result.toString();
-            }
-         }
-         return result;
+         return getPropertyValue(message, id);
       }
 
       @Override
@@ -78,6 +78,8 @@ import org.apache.activemq.artemis.core.config.DivertConfiguration;
 import org.apache.activemq.artemis.core.config.HAPolicyConfiguration;
 import org.apache.activemq.artemis.core.config.TransformerConfiguration;
 import org.apache.activemq.artemis.core.filter.Filter;
+import org.apache.activemq.artemis.core.journal.Journal;
+import org.apache.activemq.artemis.core.journal.JournalCompactStatistics;
 import org.apache.activemq.artemis.core.management.impl.view.AddressView;
 import org.apache.activemq.artemis.core.management.impl.view.ConnectionView;
 import org.apache.activemq.artemis.core.management.impl.view.ConsumerField;
@@ -542,6 +544,55 @@ public class ActiveMQServerControlImpl extends AbstractControl implements Active
       }
    }
 
+   @Override
+   public long getJournalCompactCount() {
+      if (AuditLogger.isBaseLoggingEnabled()) {
+         AuditLogger.getJournalCompactCount(this.server);
+      }
+      checkStarted();
+
+      final JournalCompactStatistics statistics = getJournalCompactStatistics();
+      return statistics == null ? 0 : statistics.getCompactCount();
+   }
+
+   @Override
+   public long getJournalCompactBytesReclaimed() {
+      if (AuditLogger.isBaseLoggingEnabled()) {
+         AuditLogger.getJournalCompactBytesReclaimed(this.server);
+      }
+      checkStarted();
+
+      final JournalCompactStatistics statistics = getJournalCompactStatistics();
+      return statistics == null ? 0 : statistics.getBytesReclaimed();
+   }
+
+   @Override
+   public String getJournalCompactPauseHistogram() {
+      if (AuditLogger.isBaseLoggingEnabled()) {
+         AuditLogger.getJournalCompactPauseHistogram(this.server);
+      }
+      checkStarted();
+
+      final JournalCompactStatistics statistics = getJournalCompactStatistics();
+      final JsonObjectBuilder histogram = JsonLoader.createObjectBuilder();
+      if (statistics != null) {
+         final long[] bounds = statistics.getPauseBucketsMillis();
+         final long[] counts = statistics.getPauseCounts();
+         final JsonObjectBuilder pauses = JsonLoader.createObjectBuilder();
+         for (int i = 0; i < counts.length; i++) {
+            pauses.add(i < bounds.length ? String.valueOf(bounds[i]) : "+Inf", counts[i]);
+         }
+         histogram.add("maxPauseMillis", statistics.getMaxPauseMillis()).add("pauses", pauses);
+      }
+      return histogram.build().toString();
+   }
+
+   private JournalCompactStatistics getJournalCompactStatistics() {
+      final StorageManager storageManager = server.getStorageManager();
+      final Journal journal = storageManager == null ? null : storageManager.getMessageJournal();
+      return journal == null ? null : journal.getCompactStatistics();
+   }
+
    @Override
    public boolean isPersistenceEnabled() {
       if (AuditLogger.isBaseLoggingEnabled()) {
@@ -22,6 +22,8 @@ import java.util.concurrent.Future;
 import java.util.function.BiConsumer;
 
 import org.apache.activemq.artemis.api.core.SimpleString;
+import org.apache.activemq.artemis.core.paging.impl.PageCompactor;
+import org.apache.activemq.artemis.core.paging.impl.SharedPageCache;
 import org.apache.activemq.artemis.core.server.ActiveMQComponent;
 import org.apache.activemq.artemis.core.server.files.FileStoreMonitor;
 import org.apache.activemq.artemis.core.settings.HierarchicalRepositoryChangeListener;
@@ -181,4 +183,18 @@ public interface PagingManager extends ActiveMQComponent, HierarchicalRepository
       return false;
    }
 
+   /**
+    * The cache of decoded pages shared by all the stores, or {@code null} if it isn't enabled.
+    */
+   default SharedPageCache getSharedPageCache() {
+      return null;
+   }
+
+   /**
+    * The compactor of the sparse page files, or {@code null} if it isn't enabled.
+    */
+   default PageCompactor getPageCompactor() {
+      return null;
+   }
+
 }
@@ -141,6 +141,24 @@ public interface PagingStore extends ActiveMQComponent, RefCountMessageListener
    Page usePage(long page, boolean create);
    Page usePage(long page, boolean createEntry, boolean createFile);
 
+   /**
+    * Reads a single message of a page, or returns {@code null} if the page doesn't contain it.
+    * <p>
+    * Implementations could read just the requested record when the page isn't already in use, instead of decoding the
+    * whole page.
+    */
+   default PagedMessage readMessage(long pageId, int messageNumber) throws Exception {
+      Page page = usePage(pageId);
+      if (page == null) {
+         return null;
+      }
+      try {
+         return page.getMessage(messageNumber);
+      } finally {
+         page.usageDown();
+      }
+   }
+
    Page newPageObject(long page) throws Exception;
 
    boolean checkPageFileExists(long page) throws Exception;
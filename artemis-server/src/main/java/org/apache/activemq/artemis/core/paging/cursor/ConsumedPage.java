@@ -28,6 +28,11 @@ public interface ConsumedPage {
 
    boolean isAck(int messageNumber);
 
+   /**
+    * The number of messages of the page acknowledged, or ignored, by the subscription.
+    */
+   int getNumberOfAcks();
+
    void forEachAck(BiConsumer<Integer, PagePosition> ackConsumer);
 
 }
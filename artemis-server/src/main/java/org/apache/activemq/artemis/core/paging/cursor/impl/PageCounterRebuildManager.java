@@ -29,6 +29,7 @@ import org.apache.activemq.artemis.core.paging.cursor.PageSubscription;
 import org.apache.activemq.artemis.core.paging.cursor.PageSubscriptionCounter;
 import org.apache.activemq.artemis.core.paging.impl.Page;
 import org.apache.activemq.artemis.core.persistence.StorageManager;
+import org.apache.activemq.artemis.core.server.ActiveMQServerLogger;
 import org.apache.activemq.artemis.core.transaction.Transaction;
 import org.apache.activemq.artemis.core.transaction.TransactionOperationAbstract;
 import org.apache.activemq.artemis.utils.collections.LinkedList;
@@ -37,17 +38,34 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.lang.invoke.MethodHandles;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.ForkJoinWorkerThread;
+import java.util.concurrent.RecursiveTask;
+import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicLong;
 import java.util.function.BiConsumer;
 
 /** this class will copy current data from the Subscriptions, count messages while the server is already active
- * performing other activity */
+ * performing other activity.
+ * The pages are counted in parallel (see {@link #rebuildAll(Collection, int)}): the copied data is only read while
+ * counting, and the counts are merged at the end. */
 public class PageCounterRebuildManager implements Runnable {
 
    private static final Logger logger = LoggerFactory.getLogger(MethodHandles.lookup().lookupClass());
 
+   private static final ForkJoinPool.ForkJoinWorkerThreadFactory THREAD_FACTORY = pool -> {
+      final ForkJoinWorkerThread thread = ForkJoinPool.defaultForkJoinWorkerThreadFactory.newThread(pool);
+      thread.setName("activemq-page-counter-rebuild-" + thread.getPoolIndex());
+      return thread;
+   };
+
    private final PagingStore pgStore;
    private final PagingManager pagingManager;
    private final StorageManager sm;
@@ -180,10 +198,33 @@ public class PageCounterRebuildManager implements Runnable {
 
    @Override
    public void run() {
+      rebuildAll(Collections.singletonList(this), 1);
+   }
+
+   /**
+    * Rebuilds the counters of several addresses on a dedicated fork-join pool: the pages of each address are split in
+    * ranges counted in parallel, whose counts are then merged into the subscriptions of the address.
+    * This method returns once every address is done.
+    */
+   public static void rebuildAll(Collection<PageCounterRebuildManager> rebuildManagers, int parallelism) {
+      if (rebuildManagers.isEmpty()) {
+         return;
+      }
+      final List<ForkJoinTask<?>> tasks = new ArrayList<>(rebuildManagers.size());
+      rebuildManagers.forEach(rebuildManager -> tasks.add(ForkJoinTask.adapt(() -> {
+         try {
+            rebuildManager.rebuild();
+         } catch (Exception e) {
+            logger.warn(e.getMessage(), e);
+         }
+      })));
+      final ForkJoinPool pool = new ForkJoinPool(parallelism, THREAD_FACTORY, null, false);
       try {
-         rebuild();
-      } catch (Exception e) {
-         logger.warn(e.getMessage(), e);
+         pool.invoke(ForkJoinTask.adapt(() -> {
+            ForkJoinTask.invokeAll(tasks);
+         }));
+      } finally {
+         pool.shutdown();
       }
    }
 
@@ -199,118 +240,208 @@ public class PageCounterRebuildManager implements Runnable {
 
       logger.debug("Rebuilding page counter for address {}", pgStore.getAddress());
 
-      for (long pgid = pgStore.getFirstPage(); pgid <= limitPageId; pgid++) {
-         if (logger.isTraceEnabled()) {
-            logger.trace("Rebuilding counter on messages from page {} on rebuildCounters for address {}", pgid, pgStore.getAddress());
-         }
-         logger.debug("{} reading paging {} of {}", pgStore.getAddress(), pgid, limitPageId);
-         Page page = pgStore.newPageObject(pgid);
+      final long start = System.nanoTime();
+      final long firstPageId = pgStore.getFirstPage();
 
-         if (!page.getFile().exists()) {
-            if (logger.isDebugEnabled()) {
-               logger.trace("Skipping page {} on store {}", pgid, pgStore.getAddress());
-            }
-            continue;
+      if (firstPageId <= limitPageId) {
+         final PageRangeCount count = new PageRangeCounter(firstPageId, limitPageId).invoke();
+
+         count.queues.forEach((queueID, queueCount) -> {
+            CopiedSubscription copiedSubscription = copiedSubscriptionMap.get(queueID);
+            copiedSubscription.empty = false;
+            copiedSubscription.addUp += queueCount.addUp;
+            copiedSubscription.sizeUp += queueCount.sizeUp;
+         });
+
+         ActiveMQServerLogger.LOGGER.pageCounterRebuilt(pgStore.getAddress(), TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start), count.pages);
+      }
+
+      logger.debug("Counter rebuilding done for address {}", pgStore.getAddress());
+
+      done();
+
+   }
+
+   /**
+    * Counts the messages of a single page, adding them to {@code count}.
+    */
+   private void countPage(long pgid, PageRangeCount count) throws Exception {
+      if (logger.isTraceEnabled()) {
+         logger.trace("Rebuilding counter on messages from page {} on rebuildCounters for address {}", pgid, pgStore.getAddress());
+      }
+      logger.debug("{} reading paging {} of {}", pgStore.getAddress(), pgid, limitPageId);
+      Page page = pgStore.newPageObject(pgid);
+
+      if (!page.getFile().exists()) {
+         if (logger.isDebugEnabled()) {
+            logger.trace("Skipping page {} on store {}", pgid, pgStore.getAddress());
          }
-         page.open(false);
-         LinkedList<PagedMessage> msgs = page.read(sm);
-         page.close(false, false);
-
-         try (LinkedListIterator<PagedMessage> iter = msgs.iterator()) {
-            while (iter.hasNext()) {
-               PagedMessage msg = iter.next();
-               if (storedLargeMessages != null && msg.getMessage().isLargeMessage()) {
-                  if (logger.isDebugEnabled()) {
-                     logger.trace("removing storedLargeMessage {}", msg.getMessage().getMessageID());
-                  }
+         return;
+      }
+      page.open(false);
+      LinkedList<PagedMessage> msgs = page.read(sm);
+      page.close(false, false);
+      count.pages++;
+
+      try (LinkedListIterator<PagedMessage> iter = msgs.iterator()) {
+         while (iter.hasNext()) {
+            PagedMessage msg = iter.next();
+            if (storedLargeMessages != null && msg.getMessage().isLargeMessage()) {
+               if (logger.isDebugEnabled()) {
+                  logger.trace("removing storedLargeMessage {}", msg.getMessage().getMessageID());
+               }
+               // shared by every address being rebuilt
+               synchronized (storedLargeMessages) {
                   storedLargeMessages.remove(msg.getMessage().getMessageID());
                }
-               if (limitPageId == pgid) {
-                  if (msg.getMessageNumber() >= limitMessageNr) {
-                     if (logger.isDebugEnabled()) {
-                        logger.trace("Rebuild counting on {} reached the last message at {}-{}", pgStore.getAddress(), limitPageId, limitMessageNr);
-                     }
-                     // this is the limit where we should count..
-                     // anything beyond this will be new data
-                     break;
+            }
+            if (limitPageId == pgid) {
+               if (msg.getMessageNumber() >= limitMessageNr) {
+                  if (logger.isDebugEnabled()) {
+                     logger.trace("Rebuild counting on {} reached the last message at {}-{}", pgStore.getAddress(), limitPageId, limitMessageNr);
                   }
+                  // this is the limit where we should count..
+                  // anything beyond this will be new data
+                  break;
                }
-               msg.initMessage(sm);
-               long[] routedQueues = msg.getQueueIDs();
+            }
+            msg.initMessage(sm);
+            long[] routedQueues = msg.getQueueIDs();
 
-               if (logger.isTraceEnabled()) {
-                  logger.trace("reading message for rebuild cursor on address={}, pg={}, messageNR={}, routedQueues={}, message={}, queueLIst={}", pgStore.getAddress(), msg.getPageNumber(), msg.getMessageNumber(), routedQueues, msg, routedQueues);
-               }
+            if (logger.isTraceEnabled()) {
+               logger.trace("reading message for rebuild cursor on address={}, pg={}, messageNR={}, routedQueues={}, message={}, queueLIst={}", pgStore.getAddress(), msg.getPageNumber(), msg.getMessageNumber(), routedQueues, msg, routedQueues);
+            }
 
-               PageTransactionInfo txInfo = null;
+            PageTransactionInfo txInfo = null;
 
-               if (msg.getTransactionID() > 0) {
-                  txInfo = transactions.get(msg.getTransactionID());
-                  if (txInfo != null) {
-                     txInfo.setOrphaned(false);
-                  }
+            if (msg.getTransactionID() > 0) {
+               txInfo = transactions.get(msg.getTransactionID());
+               if (txInfo != null) {
+                  txInfo.setOrphaned(false);
                }
+            }
 
-               Transaction preparedTX = txInfo == null ? null : txInfo.getPreparedTransaction();
+            Transaction preparedTX = txInfo == null ? null : txInfo.getPreparedTransaction();
 
-               if (logger.isTraceEnabled()) {
-                  logger.trace("lookup on {}, tx={}, preparedTX={}", msg.getTransactionID(), txInfo, preparedTX);
-               }
+            if (logger.isTraceEnabled()) {
+               logger.trace("lookup on {}, tx={}, preparedTX={}", msg.getTransactionID(), txInfo, preparedTX);
+            }
 
-               for (long queueID : routedQueues) {
-                  boolean ok = !isACK(queueID, msg.getPageNumber(), msg.getMessageNumber());
-
-                  // if the pageTransaction is in prepare state, we have to increment the counter after the commit
-                  // notice that there is a check if the commit is done in afterCommit
-                  if (preparedTX != null) {
-                     PageSubscription subscription = pgStore.getCursorProvider().getSubscription(queueID);
-                     preparedTX.addOperation(new TransactionOperationAbstract() {
-                        @Override
-                        public void afterCommit(Transaction tx) {
-                           // We use the pagingManager executor here, in case the commit happened while the rebuild manager is working
-                           // in that case the increment will wait any pending tasks on that executor to finish before this executor takes effect
-                           pagingManager.execute(() -> {
-                              try {
-                                 subscription.getCounter().increment(null, 1, msg.getStoredSize());
-                              } catch (Exception e) {
-                                 logger.warn(e.getMessage(), e);
-                              }
-                           });
-                        }
-                     });
+            for (long queueID : routedQueues) {
+               boolean ok = !isACK(queueID, msg.getPageNumber(), msg.getMessageNumber());
+
+               // if the pageTransaction is in prepare state, we have to increment the counter after the commit
+               // notice that there is a check if the commit is done in afterCommit
+               if (preparedTX != null) {
+                  PageSubscription subscription = pgStore.getCursorProvider().getSubscription(queueID);
+                  preparedTX.addOperation(new TransactionOperationAbstract() {
+                     @Override
+                     public void afterCommit(Transaction tx) {
+                        // We use the pagingManager executor here, in case the commit happened while the rebuild manager is working
+                        // in that case the increment will wait any pending tasks on that executor to finish before this executor takes effect
+                        pagingManager.execute(() -> {
+                           try {
+                              subscription.getCounter().increment(null, 1, msg.getStoredSize());
+                           } catch (Exception e) {
+                              logger.warn(e.getMessage(), e);
+                           }
+                        });
+                     }
+                  });
 
-                  } else {
-                     boolean txIncluded = msg.getTransactionID() <= 0 || transactions == null || txInfo != null;
+               } else {
+                  boolean txIncluded = msg.getTransactionID() <= 0 || transactions == null || txInfo != null;
 
-                     if (!txIncluded) {
-                        logger.trace("TX is not included for {}", msg);
-                     }
+                  if (!txIncluded) {
+                     logger.trace("TX is not included for {}", msg);
+                  }
 
-                     if (ok && txIncluded) { // not acked and TX is ok
-                        if (logger.isTraceEnabled()) {
-                           logger.trace("Message pageNumber={}/{} NOT acked on queue {}", msg.getPageNumber(), msg.getMessageNumber(), queueID);
-                        }
-                        CopiedSubscription copiedSubscription = copiedSubscriptionMap.get(queueID);
-                        if (copiedSubscription != null) {
-                           copiedSubscription.empty = false;
-                           copiedSubscription.addUp++;
-                           copiedSubscription.sizeUp += msg.getPersistentSize();
-                        }
-                     } else {
-                        if (logger.isTraceEnabled()) {
-                           logger.trace("Message pageNumber={}/{} IS acked on queue {}", msg.getPageNumber(), msg.getMessageNumber(), queueID);
-                        }
+                  if (ok && txIncluded) { // not acked and TX is ok
+                     if (logger.isTraceEnabled()) {
+                        logger.trace("Message pageNumber={}/{} NOT acked on queue {}", msg.getPageNumber(), msg.getMessageNumber(), queueID);
+                     }
+                     if (copiedSubscriptionMap.containsKey(queueID)) {
+                        count.add(queueID, msg.getPersistentSize());
+                     }
+                  } else {
+                     if (logger.isTraceEnabled()) {
+                        logger.trace("Message pageNumber={}/{} IS acked on queue {}", msg.getPageNumber(), msg.getMessageNumber(), queueID);
                      }
                   }
                }
             }
          }
       }
+   }
 
-      logger.debug("Counter rebuilding done for address {}", pgStore.getAddress());
+   /**
+    * Counts the pages from {@code firstPageId} to {@code lastPageId} (both included), splitting the range in halves
+    * until a single page is left.
+    */
+   private final class PageRangeCounter extends RecursiveTask<PageRangeCount> {
 
-      done();
+      private final long firstPageId;
+      private final long lastPageId;
+
+      PageRangeCounter(long firstPageId, long lastPageId) {
+         this.firstPageId = firstPageId;
+         this.lastPageId = lastPageId;
+      }
+
+      @Override
+      protected PageRangeCount compute() {
+         if (firstPageId == lastPageId) {
+            final PageRangeCount count = new PageRangeCount();
+            try {
+               countPage(firstPageId, count);
+            } catch (Exception e) {
+               throw new RuntimeException(e.getMessage(), e);
+            }
+            return count;
+         }
+         final long middlePageId = firstPageId + (lastPageId - firstPageId) / 2;
+         final PageRangeCounter first = new PageRangeCounter(firstPageId, middlePageId);
+         first.fork();
+         final PageRangeCount count = new PageRangeCounter(middlePageId + 1, lastPageId).compute();
+         return count.merge(first.join());
+      }
+   }
+
+   /**
+    * The messages not acked on each queue, found on a range of pages.
+    */
+   private static final class PageRangeCount {
+
+      final LongObjectHashMap<QueueCount> queues = new LongObjectHashMap<>();
 
+      int pages;
+
+      void add(long queueID, long persistentSize) {
+         QueueCount queueCount = queues.get(queueID);
+         if (queueCount == null) {
+            queueCount = new QueueCount();
+            queues.put(queueID, queueCount);
+         }
+         queueCount.addUp++;
+         queueCount.sizeUp += persistentSize;
+      }
+
+      PageRangeCount merge(PageRangeCount other) {
+         pages += other.pages;
+         other.queues.forEach((queueID, otherCount) -> {
+            final QueueCount queueCount = queues.putIfAbsent(queueID, otherCount);
+            if (queueCount != null) {
+               queueCount.addUp += otherCount.addUp;
+               queueCount.sizeUp += otherCount.sizeUp;
+            }
+         });
+         return this;
+      }
+   }
+
+   private static final class QueueCount {
+      int addUp;
+      long sizeUp;
    }
 
    private static class CopiedSubscription {
@@ -357,6 +488,11 @@ public class PageCounterRebuildManager implements Runnable {
          return done;
       }
 
+      @Override
+      public int getNumberOfAcks() {
+         throw new RuntimeException("method not implemented");
+      }
+
       @Override
       public boolean isAck(int messageNumber) {
          if (done) {
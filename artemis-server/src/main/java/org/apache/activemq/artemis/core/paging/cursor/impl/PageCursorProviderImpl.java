@@ -461,13 +461,16 @@ public class PageCursorProviderImpl implements PageCursorProvider {
       try {
          for (Page depagedPage : depagedPages) {
             LinkedList<PagedMessage> pgdMessagesList = null;
-            try {
-               depagedPage.open(false);
-               pgdMessagesList = depagedPage.read(storageManager, true);
-            } finally {
+            // the page is read only to find the large messages to delete: its index may tell there are none
+            if (depagedPage.mayContainLargeMessages()) {
                try {
-                  depagedPage.close(false, false);
-               } catch (Exception e) {
+                  depagedPage.open(false);
+                  pgdMessagesList = depagedPage.read(storageManager, true);
+               } finally {
+                  try {
+                     depagedPage.close(false, false);
+                  } catch (Exception e) {
+                  }
                }
             }
 
@@ -47,6 +47,7 @@ import org.apache.activemq.artemis.core.paging.cursor.PageSubscription;
 import org.apache.activemq.artemis.core.paging.cursor.PageSubscriptionCounter;
 import org.apache.activemq.artemis.core.paging.cursor.PagedReference;
 import org.apache.activemq.artemis.core.paging.cursor.PagedReferenceImpl;
+import org.apache.activemq.artemis.core.paging.impl.CompactedPageHeader;
 import org.apache.activemq.artemis.core.paging.impl.Page;
 import org.apache.activemq.artemis.core.persistence.StorageManager;
 import org.apache.activemq.artemis.core.server.ActiveMQServerLogger;
@@ -534,24 +535,7 @@ public final class PageSubscriptionImpl implements PageSubscription {
    @Override
    public PagedMessage queryMessage(PagePosition pos) {
       try {
-         Page page = pageStore.usePage(pos.getPageNr());
-
-         if (page == null) {
-            return null;
-         }
-
-         try {
-            org.apache.activemq.artemis.utils.collections.LinkedList<PagedMessage> messages = page.getMessages();
-            PagedMessage retMessage;
-            if (pos.getMessageNr() < messages.size()) {
-               retMessage = messages.get(pos.getMessageNr());
-            } else {
-               retMessage = null;
-            }
-            return retMessage;
-         } finally {
-            page.usageDown();
-         }
+         return pageStore.readMessage(pos.getPageNr(), pos.getMessageNr());
       } catch (Exception e) {
          store.criticalError(e);
          throw new RuntimeException(e.getMessage(), e);
@@ -853,6 +837,24 @@ public final class PageSubscriptionImpl implements PageSubscription {
 
    }
 
+   /**
+    * The messages removed from a compacted page had been acknowledged by every subscription, but the acks of the
+    * messages ignored by a subscription (e.g. not routed to it) aren't stored: they are ignored again here, as they
+    * would have been while iterating the original page.
+    */
+   private void ignoreCompactedMessages(Page page) {
+      final CompactedPageHeader header = page.getCompactedHeader();
+      if (header == null) {
+         return;
+      }
+      final PageCursorInfo info = getPageInfo(page.getPageId());
+      header.forEachRemoved(messageNumber -> {
+         if (!info.isAck(messageNumber)) {
+            positionIgnored(new PagePositionImpl(page.getPageId(), messageNumber));
+         }
+      });
+   }
+
    private PageTransactionInfo getPageTransaction(final PagedReference reference) throws ActiveMQException {
       if (reference.getTransactionID() >= 0) {
          return pageStore.getPagingManager().getTransaction(reference.getTransactionID());
@@ -917,6 +919,11 @@ public final class PageSubscriptionImpl implements PageSubscription {
          return completePage != null || acks != null && acks.get(messageNumber) != null;
       }
 
+      @Override
+      public int getNumberOfAcks() {
+         return confirmed.get();
+      }
+
       @Override
       public void forEachAck(BiConsumer<Integer, PagePosition> ackConsumer) {
          if (acks != null) {
@@ -1197,6 +1204,9 @@ public final class PageSubscriptionImpl implements PageSubscription {
             if (logger.isTraceEnabled()) {
                logger.trace("CursorIterator: getting page {} which will contain {}", page, currentPage.getNumberOfMessages());
             }
+            if (!browsing) {
+               ignoreCompactedMessages(currentPage);
+            }
             currentPageIterator = currentPage.iterator();
          } catch (Exception e) {
             store.criticalError(e);
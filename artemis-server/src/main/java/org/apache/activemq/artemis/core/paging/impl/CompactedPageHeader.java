@@ -0,0 +1,158 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.activemq.artemis.core.paging.impl;
+
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.function.IntConsumer;
+
+import org.apache.activemq.artemis.utils.DataConstants;
+
+/**
+ * The header of a page file rewritten by {@link PageCompactor}, which keeps only some of the records of the page.
+ * <p>
+ * The records keep their original message number, as acknowledgements and positions refer to it: the header holds
+ * the number of messages the page was written with, and which of them are still in the file (in the order they appear
+ * in it). The layout is:
+ * <pre>
+ * '[' | number of messages (int) | length of the bitmap (int) | bitmap of the retained messages | ']'
+ * </pre>
+ * A page file without this header has every message, numbered by its position in the file.
+ */
+public final class CompactedPageHeader {
+
+   static final byte START_BYTE = (byte) '[';
+
+   static final byte END_BYTE = (byte) ']';
+
+   // sizeOf(START_BYTE) + sizeOf(number of messages) + sizeOf(bitmap length)
+   static final int FIXED_SIZE = DataConstants.SIZE_BYTE + DataConstants.SIZE_INT + DataConstants.SIZE_INT;
+
+   private final int numberOfMessages;
+
+   private final byte[] bitmap;
+
+   // the message numbers of the records in the file, sorted
+   private final int[] messageNumbers;
+
+   public CompactedPageHeader(int numberOfMessages, BitSet retained) {
+      if (retained.length() > numberOfMessages) {
+         throw new IllegalArgumentException("retained message " + (retained.length() - 1) + " is beyond the number of messages " + numberOfMessages);
+      }
+      this.numberOfMessages = numberOfMessages;
+      this.bitmap = retained.toByteArray();
+      this.messageNumbers = retained.stream().toArray();
+   }
+
+   /**
+    * The number of messages the page was originally written with.
+    */
+   public int getNumberOfMessages() {
+      return numberOfMessages;
+   }
+
+   /**
+    * The number of records in the page file.
+    */
+   public int getNumberOfRecords() {
+      return messageNumbers.length;
+   }
+
+   /**
+    * The message number of the {@code record}-th record of the page file.
+    */
+   public int getMessageNumber(int record) {
+      return messageNumbers[record];
+   }
+
+   /**
+    * The position in the page file of the record of {@code messageNumber}, or {@code -1} if it was removed.
+    */
+   public int getRecord(int messageNumber) {
+      final int record = Arrays.binarySearch(messageNumbers, messageNumber);
+      return record < 0 ? -1 : record;
+   }
+
+   public boolean isRetained(int messageNumber) {
+      return getRecord(messageNumber) >= 0;
+   }
+
+   /**
+    * Calls {@code consumer} with the message number of each message removed from the page.
+    */
+   public void forEachRemoved(IntConsumer consumer) {
+      int record = 0;
+      for (int messageNumber = 0; messageNumber < numberOfMessages; messageNumber++) {
+         if (record < messageNumbers.length && messageNumbers[record] == messageNumber) {
+            record++;
+         } else {
+            consumer.accept(messageNumber);
+         }
+      }
+   }
+
+   public int getEncodeSize() {
+      return encodeSize(bitmap.length);
+   }
+
+   private static int encodeSize(int bitmapLength) {
+      return FIXED_SIZE + bitmapLength + DataConstants.SIZE_BYTE;
+   }
+
+   public void encode(ByteBuffer buffer) {
+      buffer.put(START_BYTE).putInt(numberOfMessages).putInt(bitmap.length).put(bitmap).put(END_BYTE);
+   }
+
+   /**
+    * The size of the header starting at {@code position}, given the first {@link #FIXED_SIZE} bytes of it, or
+    * {@code -1} if they don't belong to a valid header.
+    */
+   static int readEncodeSize(ByteBuffer buffer, int position) {
+      if (buffer.get(position) != START_BYTE) {
+         return -1;
+      }
+      final int bitmapLength = buffer.getInt(position + DataConstants.SIZE_BYTE + DataConstants.SIZE_INT);
+      return bitmapLength < 0 ? -1 : encodeSize(bitmapLength);
+   }
+
+   /**
+    * Decodes the header starting at {@code position}, or returns {@code null} if it isn't a valid one. The whole
+    * header, as sized by {@link #readEncodeSize}, must be readable.
+    */
+   static CompactedPageHeader decode(ByteBuffer buffer, int position) {
+      final int encodeSize = readEncodeSize(buffer, position);
+      if (encodeSize < 0 || buffer.get(position + encodeSize - 1) != END_BYTE) {
+         return null;
+      }
+      final int numberOfMessages = buffer.getInt(position + DataConstants.SIZE_BYTE);
+      final byte[] bitmap = new byte[encodeSize - FIXED_SIZE - DataConstants.SIZE_BYTE];
+      for (int i = 0; i < bitmap.length; i++) {
+         bitmap[i] = buffer.get(position + FIXED_SIZE + i);
+      }
+      final BitSet retained = BitSet.valueOf(bitmap);
+      if (numberOfMessages < 0 || retained.length() > numberOfMessages) {
+         return null;
+      }
+      return new CompactedPageHeader(numberOfMessages, retained);
+   }
+
+   @Override
+   public String toString() {
+      return "CompactedPageHeader{numberOfMessages=" + numberOfMessages + ", records=" + messageNumbers.length + '}';
+   }
+}
@@ -0,0 +1,260 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.activemq.artemis.core.paging.impl;
+
+import java.io.File;
+import java.io.IOException;
+import java.lang.invoke.MethodHandles;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+
+import io.netty.buffer.Unpooled;
+import io.netty.util.internal.PlatformDependent;
+import org.apache.activemq.artemis.core.buffers.impl.ChannelBufferWrapper;
+import org.apache.activemq.artemis.core.paging.PagedMessage;
+import org.apache.activemq.artemis.core.persistence.StorageManager;
+import org.apache.activemq.artemis.utils.DataConstants;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import static org.apache.activemq.artemis.core.paging.impl.PageReadWriter.END_BYTE;
+import static org.apache.activemq.artemis.core.paging.impl.PageReadWriter.HEADER_AND_TRAILER_SIZE;
+import static org.apache.activemq.artemis.core.paging.impl.PageReadWriter.START_BYTE;
+
+/**
+ * Reads single records of a page file through a read-only memory mapping.
+ * <p>
+ * Unlike {@link PageReadWriter#readFromSequentialFile} this doesn't decode the whole page: the records are indexed by
+ * walking their headers only, up to the message requested, and just that message is decoded. This is meant to be
+ * used to lookup a few messages of a page which isn't already loaded, e.g. while reloading paged references.
+ * <p>
+ * If the page has a valid {@link PageIndex} its offsets are used instead of walking the headers: each indexed record is
+ * still checked before being decoded and, should it be invalid, the reader falls back to walking the headers.
+ * <p>
+ * The records are validated the same way as {@link PageReadWriter#readFromSequentialFile} does: the index stops at the
+ * first invalid or incomplete record. The records of a compacted page are looked up through its
+ * {@link CompactedPageHeader}. This class is not thread-safe.
+ */
+public final class MappedPageReader implements AutoCloseable {
+
+   private static final Logger logger = LoggerFactory.getLogger(MethodHandles.lookup().lookupClass());
+
+   private static final int RECORD_HEADER_SIZE = DataConstants.SIZE_BYTE + DataConstants.SIZE_INT;
+
+   private final File file;
+
+   private final MappedByteBuffer mapped;
+
+   private final ChannelBufferWrapper wrapper;
+
+   private final int size;
+
+   private final CompactedPageHeader header;
+
+   // where the first record starts
+   private final int firstPosition;
+
+   private int[] offsets = new int[16];
+
+   private int indexed;
+
+   private int indexedPosition;
+
+   private boolean indexComplete;
+
+   private MappedPageReader(File file, MappedByteBuffer mapped, PageIndex index) {
+      this.file = file;
+      this.mapped = mapped;
+      this.size = mapped.capacity();
+      this.wrapper = new ChannelBufferWrapper(Unpooled.wrappedBuffer(mapped));
+      this.header = readHeader(mapped, size);
+      this.firstPosition = header == null ? 0 : header.getEncodeSize();
+      this.indexedPosition = firstPosition;
+      if (header == null && size > 0 && mapped.get(0) == CompactedPageHeader.START_BYTE) {
+         logger.debug("{} has an invalid compacted page header", file);
+         indexComplete = true;
+      } else if (index != null) {
+         offsets = new int[index.size()];
+         for (int i = 0; i < offsets.length; i++) {
+            offsets[i] = index.getOffset(i);
+         }
+         indexed = offsets.length;
+         indexedPosition = size;
+         indexComplete = true;
+      }
+   }
+
+   private static CompactedPageHeader readHeader(MappedByteBuffer mapped, int size) {
+      if (size < CompactedPageHeader.FIXED_SIZE) {
+         return null;
+      }
+      final int headerSize = CompactedPageHeader.readEncodeSize(mapped, 0);
+      return headerSize > 0 && headerSize <= size ? CompactedPageHeader.decode(mapped, 0) : null;
+   }
+
+   public static MappedPageReader map(File file) throws IOException {
+      try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ)) {
+         final long size = channel.size();
+         if (size > Integer.MAX_VALUE) {
+            throw new IOException(file + " is too big to be mapped: size = " + size);
+         }
+         // the mapping stays valid after the channel is closed
+         return new MappedPageReader(file, channel.map(FileChannel.MapMode.READ_ONLY, 0, size), PageIndex.load(file));
+      }
+   }
+
+   /**
+    * Indexes the records up to {@code record}, returning {@code false} if the page doesn't contain it.
+    */
+   private boolean indexUpTo(int record) {
+      while (indexed <= record) {
+         if (indexComplete) {
+            return false;
+         }
+         final int position = indexedPosition;
+         if (size - position < HEADER_AND_TRAILER_SIZE || mapped.get(position) != START_BYTE) {
+            indexComplete = true;
+            continue;
+         }
+         final int encodedSize = mapped.getInt(position + DataConstants.SIZE_BYTE);
+         final long nextPosition = (long) position + HEADER_AND_TRAILER_SIZE + encodedSize;
+         if (encodedSize < 0 || nextPosition > size || mapped.get((int) nextPosition - 1) != END_BYTE) {
+            if (logger.isDebugEnabled()) {
+               logger.debug("{} has an invalid record at position = {}: indexing stopped at message {}", file, position, indexed);
+            }
+            indexComplete = true;
+            continue;
+         }
+         if (indexed == offsets.length) {
+            offsets = Arrays.copyOf(offsets, offsets.length * 2);
+         }
+         offsets[indexed++] = position;
+         indexedPosition = (int) nextPosition;
+      }
+      return true;
+   }
+
+   private boolean isValidRecord(int position) {
+      if (position < 0 || size - position < HEADER_AND_TRAILER_SIZE || mapped.get(position) != START_BYTE) {
+         return false;
+      }
+      final int encodedSize = mapped.getInt(position + DataConstants.SIZE_BYTE);
+      final long nextPosition = (long) position + HEADER_AND_TRAILER_SIZE + encodedSize;
+      return encodedSize >= 0 && nextPosition <= size && mapped.get((int) nextPosition - 1) == END_BYTE;
+   }
+
+   private void resetIndex() {
+      indexed = 0;
+      indexedPosition = firstPosition;
+      indexComplete = false;
+   }
+
+   /**
+    * The number of messages of the page, including the ones removed if it was compacted.
+    */
+   public int getNumberOfMessages() {
+      return header == null ? getNumberOfRecords() : header.getNumberOfMessages();
+   }
+
+   /**
+    * The number of valid records in the page file.
+    */
+   public int getNumberOfRecords() {
+      indexUpTo(Integer.MAX_VALUE - 1);
+      for (int i = 0; i < indexed; i++) {
+         if (!isValidRecord(offsets[i])) {
+            logger.debug("{} has a stale index: walking the record headers instead", file);
+            resetIndex();
+            indexUpTo(Integer.MAX_VALUE - 1);
+            break;
+         }
+      }
+      return header == null ? indexed : Math.min(indexed, header.getNumberOfRecords());
+   }
+
+   /**
+    * The header of the page if it was compacted, {@code null} otherwise.
+    */
+   public CompactedPageHeader getCompactedHeader() {
+      return header;
+   }
+
+   /**
+    * The message number of the {@code record}-th record of the page file.
+    */
+   public int getMessageNumber(int record) {
+      return header == null ? record : header.getMessageNumber(record);
+   }
+
+   /**
+    * A read-only view of the {@code record}-th record, as stored in the page file: i.e. including its header and
+    * trailer. {@link #getNumberOfRecords()} must have been called first.
+    */
+   public ByteBuffer getRecord(int record) {
+      final int position = offsets[record];
+      final int encodedSize = mapped.getInt(position + DataConstants.SIZE_BYTE);
+      final ByteBuffer view = mapped.asReadOnlyBuffer();
+      view.limit(position + HEADER_AND_TRAILER_SIZE + encodedSize).position(position);
+      return view;
+   }
+
+   /**
+    * Whether the {@code record}-th record is a large message. {@link #getNumberOfRecords()} must have been called
+    * first.
+    */
+   public boolean isLargeMessage(int record) {
+      final int start = offsets[record] + RECORD_HEADER_SIZE;
+      wrapper.setIndex(start, start + mapped.getInt(offsets[record] + DataConstants.SIZE_BYTE));
+      return PagedMessageImpl.isLargeMessage(wrapper);
+   }
+
+   /**
+    * Decodes the message {@code messageNumber} of the page, or returns {@code null} if there is no such message.
+    */
+   public PagedMessage read(int messageNumber, long pageId, StorageManager storage) {
+      final int record = messageNumber < 0 || header == null ? messageNumber : header.getRecord(messageNumber);
+      if (record < 0 || !indexUpTo(record)) {
+         return null;
+      }
+      if (!isValidRecord(offsets[record])) {
+         logger.debug("{} has a stale index: walking the record headers instead", file);
+         resetIndex();
+         if (!indexUpTo(record)) {
+            return null;
+         }
+      }
+      final int position = offsets[record];
+      final int encodedSize = mapped.getInt(position + DataConstants.SIZE_BYTE);
+      final int start = position + RECORD_HEADER_SIZE;
+      wrapper.setIndex(start, start + encodedSize);
+      final PagedMessageImpl message = new PagedMessageImpl(encodedSize, storage);
+      // the decoded message copies what it needs, hence it never references the mapped memory
+      message.decode(wrapper);
+      message.initMessage(storage);
+      message.setPageNumber(pageId).setMessageNumber(messageNumber);
+      return message;
+   }
+
+   @Override
+   public void close() {
+      //unmap in a deterministic way: do not rely on GC to do it
+      PlatformDependent.freeDirectBuffer(mapped);
+   }
+}
@@ -16,9 +16,12 @@
  */
 package org.apache.activemq.artemis.core.paging.impl;
 
+import java.io.File;
 import java.io.IOException;
 import java.nio.ByteBuffer;
 import java.nio.channels.ClosedChannelException;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
 import java.util.concurrent.atomic.AtomicInteger;
 import java.util.function.Consumer;
 
@@ -81,6 +84,14 @@ public final class Page  {
 
    private volatile long size;
 
+   private volatile boolean deleted;
+
+   // the offsets of the records written since the beginning of the file, stored once the page is closed
+   private PageIndex index;
+
+   // set once read, if the page was rewritten by the PageCompactor
+   private volatile CompactedPageHeader compactedHeader;
+
    private final StorageManager storageManager;
 
    private final SimpleString storeName;
@@ -162,11 +173,35 @@ public final class Page  {
 
       final LinkedList<PagedMessage> messages = new LinkedListImpl<>();
 
-      numberOfMessages = PageReadWriter.readFromSequentialFile(storage, storeName, fileFactory, file, this.pageId, messages::addTail, onlyLargeMessages ? PageReadWriter.ONLY_LARGE : PageReadWriter.NO_SKIP, this::markFileAsSuspect, this::setSize);
+      compactedHeader = null;
+
+      numberOfMessages = PageReadWriter.readFromSequentialFile(storage, storeName, fileFactory, file, this.pageId, messages::addTail, onlyLargeMessages ? PageReadWriter.ONLY_LARGE : PageReadWriter.NO_SKIP, this::markFileAsSuspect, this::setSize, this::setCompactedHeader);
 
       return messages;
    }
 
+   /**
+    * Returns the message {@code messageNumber} of this page, or {@code null} if the page doesn't contain it, e.g.
+    * because it was removed by compaction.
+    */
+   public PagedMessage getMessage(int messageNumber) throws Exception {
+      final LinkedList<PagedMessage> messages = getMessages();
+      final CompactedPageHeader header = this.compactedHeader;
+      final int record = header == null ? messageNumber : header.getRecord(messageNumber);
+      return record >= 0 && record < messages.size() ? messages.get(record) : null;
+   }
+
+   /**
+    * The header of this page if it was compacted, {@code null} otherwise or if the page wasn't read yet.
+    */
+   public CompactedPageHeader getCompactedHeader() {
+      return compactedHeader;
+   }
+
+   private void setCompactedHeader(CompactedPageHeader compactedHeader) {
+      this.compactedHeader = compactedHeader;
+   }
+
    public String debugMessages() throws Exception {
       StringBuffer buffer = new StringBuffer();
       LinkedListIterator<PagedMessage> iter = getMessages().iterator();
@@ -189,11 +224,52 @@ public final class Page  {
       if (!file.isOpen()) {
          throw ActiveMQMessageBundle.BUNDLE.cannotWriteToClosedFile(file);
       }
+      final long offset = this.size;
       addMessage(message);
       this.size += PageReadWriter.writeMessage(message, fileFactory, file);
+      if (offset == 0) {
+         index = new PageIndex();
+      }
+      if (index != null) {
+         index.add(offset, message.getMessage().isLargeMessage());
+      }
       numberOfMessages++;
    }
 
+   /**
+    * The page file, if it is on a file system that can hold its index: {@code null} otherwise, e.g. with JDBC.
+    */
+   private File getIndexedFile() {
+      return fileFactory == null || fileFactory.getDirectory() == null ? null : file.getJavaFile();
+   }
+
+   private void storeIndex() {
+      final PageIndex index = this.index;
+      this.index = null;
+      final File pageFile = getIndexedFile();
+      if (index == null || index.size() != numberOfMessages || pageFile == null) {
+         return;
+      }
+      try {
+         index.store(pageFile);
+      } catch (IOException e) {
+         // the index is just an optimization: readers will scan the page instead
+         logger.debug("Unable to store the index of page {} on address {}", pageId, storeName, e);
+      }
+   }
+
+   /**
+    * Whether this page could contain large messages: it is {@code false} only if the page index proves otherwise.
+    */
+   public boolean mayContainLargeMessages() {
+      final File pageFile = getIndexedFile();
+      if (pageFile == null) {
+         return true;
+      }
+      final PageIndex index = PageIndex.load(pageFile);
+      return index == null || index.hasLargeMessages();
+   }
+
    public void sync() throws Exception {
       file.sync();
    }
@@ -240,6 +316,10 @@ public final class Page  {
     * While reading the cache we don't need (and shouldn't inform the backup
     */
    public synchronized void close(boolean sendReplicaClose, boolean waitSync) throws Exception {
+      if (index != null) {
+         storeIndex();
+      }
+
       if (readFileBuffer != null) {
          fileFactory.releaseDirectBuffer(readFileBuffer);
          readFileBuffer = null;
@@ -252,6 +332,8 @@ public final class Page  {
    }
 
    public boolean delete(final LinkedList<PagedMessage> messages) throws Exception {
+      deleted = true;
+
       if (storageManager != null) {
          storageManager.pageDeleted(storeName, pageId);
       }
@@ -278,11 +360,19 @@ public final class Page  {
          @Override
          public void done() {
             try {
-               if (suspiciousRecords) {
-                  ActiveMQServerLogger.LOGGER.pageInvalid(file.getFileName(), file.getFileName());
-                  file.renameTo(file.getFileName() + ".invalidPage");
-               } else {
-                  file.delete();
+               // the page file must not be replaced by a compacted copy once deleted
+               synchronized (getFileLock()) {
+                  if (suspiciousRecords) {
+                     ActiveMQServerLogger.LOGGER.pageInvalid(file.getFileName(), file.getFileName());
+                     file.renameTo(file.getFileName() + ".invalidPage");
+                  } else {
+                     file.delete();
+                  }
+               }
+               final File pageFile = getIndexedFile();
+               if (pageFile != null) {
+                  PageIndex.delete(pageFile);
+                  Files.deleteIfExists(compactionFile(pageFile).toPath());
                }
                referenceCounter.exhaust();
             } catch (Exception e) {
@@ -299,6 +389,37 @@ public final class Page  {
       return true;
    }
 
+   /**
+    * The file a compacted copy of {@code pageFile} is written to, before replacing it.
+    */
+   public static File compactionFile(File pageFile) {
+      return new File(pageFile.getParentFile(), pageFile.getName() + ".compacting");
+   }
+
+   // the pages of a store share its file factory
+   private Object getFileLock() {
+      return fileFactory != null ? fileFactory : file;
+   }
+
+   /**
+    * Atomically replaces the page file with its compacted copy, written to {@link #compactionFile}, unless the page
+    * was already deleted: in which case the copy is just removed.
+    *
+    * @return {@code true} if the page file was replaced
+    */
+   public boolean replaceWithCompacted() throws IOException {
+      final File pageFile = file.getJavaFile();
+      final File compacted = compactionFile(pageFile);
+      synchronized (getFileLock()) {
+         if (deleted || !pageFile.exists()) {
+            Files.deleteIfExists(compacted.toPath());
+            return false;
+         }
+         Files.move(compacted.toPath(), pageFile.toPath(), StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+      }
+      return true;
+   }
+
    public int readNumberOfMessages() throws Exception {
       boolean wasOpen = isOpen();
 
@@ -337,6 +458,17 @@ public final class Page  {
       return size;
    }
 
+   /**
+    * Whether the messages of this page have been already read and decoded.
+    */
+   public boolean isLoaded() {
+      return messages != null;
+   }
+
+   public boolean isDeleted() {
+      return deleted;
+   }
+
    private void setSize(long size) {
       this.size = size;
    }
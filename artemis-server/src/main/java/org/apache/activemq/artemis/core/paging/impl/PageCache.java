@@ -25,15 +25,25 @@ import org.slf4j.LoggerFactory;
 import java.lang.invoke.MethodHandles;
 
 /**
- * This is a simple cache where we keep Page objects only while they are being used. */
+ * This is a simple cache where we keep Page objects only while they are being used.
+ * <p>
+ * If a {@link SharedPageCache} is configured, pages which are not used anymore are handed over to it and can be
+ * {@link #reuse(long) reused} later on without reading their file again. */
 public class PageCache {
 
    private static final Logger logger = LoggerFactory.getLogger(MethodHandles.lookup().lookupClass());
 
    private final PagingStore owner;
 
+   private final SharedPageCache sharedCache;
+
    public PageCache(PagingStore owner) {
+      this(owner, null);
+   }
+
+   public PageCache(PagingStore owner, SharedPageCache sharedCache) {
       this.owner = owner;
+      this.sharedCache = sharedCache;
    }
 
    private final LongObjectHashMap<Page> usedPages = new LongObjectHashMap<>();
@@ -64,6 +74,42 @@ public class PageCache {
          if (logger.isDebugEnabled()) {
             logger.debug("--- Releasing page {} on UsedPages for destination {}", page.getPageId(), owner.getAddress());
          }
+         if (sharedCache != null) {
+            if (page.isDeleted()) {
+               sharedCache.remove(this, page.getPageId());
+            } else {
+               sharedCache.offer(this, page);
+            }
+         }
+      }
+   }
+
+   /**
+    * Returns a page previously released to the shared cache, or {@code null} if there is none. The page must be
+    * {@link #injectPage(Page) injected} back by the caller.
+    */
+   public synchronized Page reuse(long pageID) {
+      if (sharedCache == null) {
+         return null;
+      }
+      return sharedCache.take(this, pageID);
+   }
+
+   /**
+    * Drops the page from the shared cache, as its file is going to be deleted.
+    */
+   public void invalidate(long pageID) {
+      if (sharedCache != null) {
+         sharedCache.remove(this, pageID);
+      }
+   }
+
+   /**
+    * Drops every page of the owner from the shared cache.
+    */
+   public void invalidateAll() {
+      if (sharedCache != null) {
+         sharedCache.removeAll(this);
       }
    }
 
@@ -0,0 +1,304 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.activemq.artemis.core.paging.impl;
+
+import java.io.File;
+import java.io.IOException;
+import java.lang.invoke.MethodHandles;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+import io.netty.util.collection.LongObjectHashMap;
+import org.apache.activemq.artemis.api.core.SimpleString;
+import org.apache.activemq.artemis.core.paging.PagedMessage;
+import org.apache.activemq.artemis.core.paging.PagingManager;
+import org.apache.activemq.artemis.core.paging.PagingStore;
+import org.apache.activemq.artemis.core.paging.cursor.ConsumedPage;
+import org.apache.activemq.artemis.core.paging.cursor.PageCursorProvider;
+import org.apache.activemq.artemis.core.paging.cursor.PageSubscription;
+import org.apache.activemq.artemis.core.server.ActiveMQScheduledComponent;
+import org.apache.activemq.artemis.core.server.ActiveMQServerLogger;
+import org.apache.activemq.artemis.core.server.LargeServerMessage;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Rewrites the completed page files whose messages are mostly acknowledged, keeping only the records still needed by
+ * some subscription.
+ * <p>
+ * A page file can only be deleted once every subscription acknowledged all of its messages, hence a few messages left
+ * behind (e.g. by a selective consumer) are enough to keep whole pages on disk. Every {@code period} the compactor
+ * checks the pages of each paging store, on the executor of the store: a page is rewritten if at least
+ * {@code threshold} percent of its records are acknowledged by every subscription. The copy is written aside, synced
+ * and then atomically renamed over the page file.
+ * <p>
+ * The records kept don't change their message number (see {@link CompactedPageHeader}), so the acknowledgements and
+ * positions of the subscriptions and the page transactions are still valid: nothing has to be updated in the journal.
+ * The body of the large messages removed is deleted right away, as it would be on page deletion.
+ * <p>
+ * Only the page files on a file system are compacted. The compacted page is not replicated: a backup keeps the
+ * original one, which holds the same messages to deliver.
+ */
+public final class PageCompactor extends ActiveMQScheduledComponent {
+
+   private static final Logger logger = LoggerFactory.getLogger(MethodHandles.lookup().lookupClass());
+
+   private final PagingManager pagingManager;
+
+   private final int threshold;
+
+   // the stores whose compaction is still queued or in progress
+   private final AtomicInteger pendingStores = new AtomicInteger();
+
+   // the least number of acks of the subscriptions on each page, when last checked: confined to the store executor
+   private final Map<SimpleString, LongObjectHashMap<Integer>> checkedAcks = new ConcurrentHashMap<>();
+
+   private final LongAdder compactedPages = new LongAdder();
+
+   private final LongAdder bytesReclaimed = new LongAdder();
+
+   /**
+    * @param period    the period (in milliseconds) of the checks
+    * @param threshold the percentage of acknowledged records a page needs to be compacted
+    */
+   public PageCompactor(ScheduledExecutorService scheduledExecutor,
+                        Executor executor,
+                        PagingManager pagingManager,
+                        long period,
+                        int threshold) {
+      super(scheduledExecutor, executor, period, TimeUnit.MILLISECONDS, false);
+      this.pagingManager = pagingManager;
+      this.threshold = threshold;
+   }
+
+   public long getCompactedPages() {
+      return compactedPages.sum();
+   }
+
+   public long getBytesReclaimed() {
+      return bytesReclaimed.sum();
+   }
+
+   @Override
+   public synchronized void stop() {
+      super.stop();
+      checkedAcks.clear();
+   }
+
+   @Override
+   public void run() {
+      if (pendingStores.get() > 0) {
+         logger.debug("The previous page compaction is still in progress");
+         return;
+      }
+      for (SimpleString storeName : pagingManager.getStoreNames()) {
+         final PagingStore store;
+         try {
+            store = pagingManager.getPageStore(storeName);
+         } catch (Exception e) {
+            logger.debug("Unable to get the paging store {}", storeName, e);
+            continue;
+         }
+         if (store == null || !store.isPaging() || store.getFolder() == null) {
+            checkedAcks.remove(storeName);
+            continue;
+         }
+         pendingStores.incrementAndGet();
+         store.execute(() -> {
+            try {
+               compact(store);
+            } finally {
+               pendingStores.decrementAndGet();
+            }
+         });
+      }
+   }
+
+   /**
+    * Compacts the pages of {@code store}: to be called from its executor.
+    */
+   public void compact(PagingStore store) {
+      final PageCursorProvider cursorProvider = store.getCursorProvider();
+      if (!isStarted() || !store.isStarted() || !store.isPaging() || cursorProvider == null || !cursorProvider.isRebuildDone()) {
+         return;
+      }
+      final List<PageSubscription> subscriptions = new ArrayList<>();
+      cursorProvider.forEachSubscription(subscriptions::add);
+      if (subscriptions.isEmpty()) {
+         return;
+      }
+      final LongObjectHashMap<Integer> lastChecked = checkedAcks.getOrDefault(store.getStoreName(), new LongObjectHashMap<>());
+      final LongObjectHashMap<Integer> checked = new LongObjectHashMap<>();
+      final long currentWritingPage = store.getCurrentWritingPage();
+      for (long pageId = store.getFirstPage(); pageId < currentWritingPage; pageId++) {
+         if (!isStarted() || !store.isStarted()) {
+            return;
+         }
+         final ConsumedPage[] consumedPages = locateConsumedPages(subscriptions, pageId);
+         if (consumedPages == null) {
+            continue;
+         }
+         final int acks = leastNumberOfAcks(consumedPages);
+         final Integer lastAcks = lastChecked.get(pageId);
+         checked.put(pageId, Integer.valueOf(acks));
+         // no more messages acked since the last check
+         if (lastAcks != null && lastAcks >= acks) {
+            continue;
+         }
+         try {
+            compactPage(store, pageId, consumedPages);
+         } catch (Throwable e) {
+            ActiveMQServerLogger.LOGGER.problemCompactingPage(pageId, store.getAddress(), e);
+         }
+      }
+      checkedAcks.put(store.getStoreName(), checked);
+   }
+
+   /**
+    * The page info of every subscription, or {@code null} if the page is of no interest: because it is done for every
+    * subscription, so it will be deleted, or because some subscription didn't acknowledge anything on it yet.
+    */
+   private static ConsumedPage[] locateConsumedPages(List<PageSubscription> subscriptions, long pageId) {
+      final ConsumedPage[] consumedPages = new ConsumedPage[subscriptions.size()];
+      boolean done = true;
+      for (int i = 0; i < consumedPages.length; i++) {
+         final ConsumedPage consumedPage = subscriptions.get(i).locatePageInfo(pageId);
+         if (consumedPage == null) {
+            return null;
+         }
+         done &= consumedPage.isDone();
+         consumedPages[i] = consumedPage;
+      }
+      return done ? null : consumedPages;
+   }
+
+   private static int leastNumberOfAcks(ConsumedPage[] consumedPages) {
+      int acks = Integer.MAX_VALUE;
+      for (ConsumedPage consumedPage : consumedPages) {
+         if (!consumedPage.isDone()) {
+            acks = Math.min(acks, consumedPage.getNumberOfAcks());
+         }
+      }
+      return acks;
+   }
+
+   private static boolean isAckedByAll(ConsumedPage[] consumedPages, int messageNumber) {
+      for (ConsumedPage consumedPage : consumedPages) {
+         if (!consumedPage.isAck(messageNumber)) {
+            return false;
+         }
+      }
+      return true;
+   }
+
+   private void compactPage(PagingStore store, long pageId, ConsumedPage[] consumedPages) throws Exception {
+      final Page page = store.newPageObject(pageId);
+      final File pageFile = page.getFile().getJavaFile();
+      if (pageFile == null || !pageFile.exists()) {
+         return;
+      }
+      final long originalSize = pageFile.length();
+      final PageIndex index = new PageIndex();
+      final List<PagedMessage> removedLargeMessages = new ArrayList<>();
+      final long compactedSize;
+
+      try (MappedPageReader reader = MappedPageReader.map(pageFile)) {
+         final int records = reader.getNumberOfRecords();
+         // a damaged page is left as it is
+         if (records == 0 || reader.getRecord(records - 1).limit() != originalSize) {
+            return;
+         }
+         final BitSet retained = new BitSet(reader.getNumberOfMessages());
+         for (int record = 0; record < records; record++) {
+            final int messageNumber = reader.getMessageNumber(record);
+            if (!isAckedByAll(consumedPages, messageNumber)) {
+               retained.set(messageNumber);
+            }
+         }
+         final int removed = records - retained.cardinality();
+         // a page without records left is going to be deleted
+         if (removed == 0 || removed == records || removed * 100L < (long) threshold * records) {
+            return;
+         }
+
+         final CompactedPageHeader header = new CompactedPageHeader(reader.getNumberOfMessages(), retained);
+         final File compactionFile = Page.compactionFile(pageFile);
+         try (FileChannel channel = FileChannel.open(compactionFile.toPath(), StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+            final ByteBuffer headerBuffer = ByteBuffer.allocate(header.getEncodeSize());
+            header.encode(headerBuffer);
+            headerBuffer.flip();
+            writeFully(channel, headerBuffer);
+            for (int record = 0; record < records; record++) {
+               final int messageNumber = reader.getMessageNumber(record);
+               final boolean largeMessage = reader.isLargeMessage(record);
+               if (retained.get(messageNumber)) {
+                  index.add(channel.position(), largeMessage);
+                  writeFully(channel, reader.getRecord(record));
+               } else if (largeMessage) {
+                  removedLargeMessages.add(reader.read(messageNumber, pageId, store.getStorageManager()));
+               }
+            }
+            compactedSize = channel.position();
+            channel.force(true);
+         } catch (Throwable e) {
+            compactionFile.delete();
+            throw e;
+         }
+      }
+
+      // a stale index would be detected, but it is of no use anymore
+      PageIndex.delete(pageFile);
+      if (!page.replaceWithCompacted()) {
+         logger.debug("Page {} on address {} was deleted while being compacted", pageId, store.getAddress());
+         return;
+      }
+      try {
+         index.store(pageFile);
+      } catch (IOException e) {
+         logger.debug("Unable to store the index of compacted page {} on address {}", pageId, store.getAddress(), e);
+      }
+      for (PagedMessage message : removedLargeMessages) {
+         if (message != null) {
+            ((LargeServerMessage) message.getMessage()).deleteFile();
+            message.getMessage().usageDown();
+         }
+      }
+
+      compactedPages.increment();
+      bytesReclaimed.add(originalSize - compactedSize);
+      if (logger.isDebugEnabled()) {
+         logger.debug("Compacted page {} on address {} from {} to {} bytes, removing {} large messages", pageId, store.getAddress(), originalSize, compactedSize, removedLargeMessages.size());
+      }
+   }
+
+   private static void writeFully(FileChannel channel, ByteBuffer buffer) throws IOException {
+      while (buffer.hasRemaining()) {
+         channel.write(buffer);
+      }
+   }
+}
@@ -0,0 +1,182 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.activemq.artemis.core.paging.impl;
+
+import java.io.File;
+import java.io.IOException;
+import java.lang.invoke.MethodHandles;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.BitSet;
+
+import org.apache.activemq.artemis.utils.DataConstants;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * The offsets of the records of a page file, stored alongside it once the page is complete, i.e. when the store moves
+ * to the next page.
+ * <p>
+ * Each entry is the file offset of the record (an int) followed by a flag telling if the record is a large message
+ * (a byte): the message number is the position of the entry, unless the page was compacted, in which case its
+ * {@link CompactedPageHeader} maps the position to the message number. The index is just a hint to avoid scanning the
+ * page: it isn't synced nor replicated, hence its entries must be validated against the page file before being used.
+ */
+public final class PageIndex {
+
+   private static final Logger logger = LoggerFactory.getLogger(MethodHandles.lookup().lookupClass());
+
+   public static final String EXTENSION = "pindex";
+
+   static final int ENTRY_SIZE = DataConstants.SIZE_INT + DataConstants.SIZE_BYTE;
+
+   private static final byte LARGE_MESSAGE = 1;
+
+   private int[] offsets;
+
+   private final BitSet largeMessages = new BitSet();
+
+   private int size;
+
+   public PageIndex() {
+      this(16);
+   }
+
+   private PageIndex(int capacity) {
+      offsets = new int[capacity];
+   }
+
+   public static File indexFile(File pageFile) {
+      final String name = pageFile.getName();
+      final int dot = name.lastIndexOf('.');
+      return new File(pageFile.getParentFile(), (dot < 0 ? name : name.substring(0, dot)) + "." + EXTENSION);
+   }
+
+   public void add(long offset, boolean largeMessage) {
+      if (size == offsets.length) {
+         offsets = Arrays.copyOf(offsets, size * 2);
+      }
+      if (largeMessage) {
+         largeMessages.set(size);
+      }
+      offsets[size++] = (int) offset;
+   }
+
+   public int size() {
+      return size;
+   }
+
+   public int getOffset(int messageNumber) {
+      return offsets[messageNumber];
+   }
+
+   public boolean isLargeMessage(int messageNumber) {
+      return largeMessages.get(messageNumber);
+   }
+
+   public boolean hasLargeMessages() {
+      return !largeMessages.isEmpty();
+   }
+
+   /**
+    * Writes the index of {@code pageFile}, replacing any previous one.
+    */
+   public void store(File pageFile) throws IOException {
+      final ByteBuffer buffer = ByteBuffer.allocate(size * ENTRY_SIZE);
+      for (int i = 0; i < size; i++) {
+         buffer.putInt(offsets[i]).put(largeMessages.get(i) ? LARGE_MESSAGE : 0);
+      }
+      buffer.flip();
+      try (FileChannel channel = FileChannel.open(indexFile(pageFile).toPath(), StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+         while (buffer.hasRemaining()) {
+            channel.write(buffer);
+         }
+      }
+   }
+
+   /**
+    * Loads the index of {@code pageFile}, or returns {@code null} if there isn't a valid one.
+    * <p>
+    * An index is valid only if its last entry points to the last record of the page file.
+    */
+   public static PageIndex load(File pageFile) {
+      final File indexFile = indexFile(pageFile);
+      try {
+         if (!indexFile.exists()) {
+            return null;
+         }
+         final byte[] bytes = Files.readAllBytes(indexFile.toPath());
+         if (bytes.length % ENTRY_SIZE != 0) {
+            logger.debug("Ignoring {}: unexpected size {}", indexFile, bytes.length);
+            return null;
+         }
+         final int entries = bytes.length / ENTRY_SIZE;
+         if (entries == 0) {
+            return null;
+         }
+         final PageIndex index = new PageIndex(entries);
+         final ByteBuffer buffer = ByteBuffer.wrap(bytes);
+         for (int i = 0; i < entries; i++) {
+            index.add(buffer.getInt(), buffer.get() == LARGE_MESSAGE);
+         }
+         if (!isLastRecord(pageFile, index.getOffset(entries - 1))) {
+            logger.debug("Ignoring {}: it doesn't match {}", indexFile, pageFile);
+            return null;
+         }
+         return index;
+      } catch (IOException e) {
+         logger.debug("Unable to load {}", indexFile, e);
+         return null;
+      }
+   }
+
+   private static boolean isLastRecord(File pageFile, int offset) throws IOException {
+      try (FileChannel channel = FileChannel.open(pageFile.toPath(), StandardOpenOption.READ)) {
+         final ByteBuffer header = ByteBuffer.allocate(DataConstants.SIZE_BYTE + DataConstants.SIZE_INT);
+         if (!readFully(channel, header, offset) || header.get(0) != PageReadWriter.START_BYTE) {
+            return false;
+         }
+         final long end = (long) offset + PageReadWriter.HEADER_AND_TRAILER_SIZE + header.getInt(DataConstants.SIZE_BYTE);
+         if (end != channel.size()) {
+            return false;
+         }
+         final ByteBuffer trailer = ByteBuffer.allocate(DataConstants.SIZE_BYTE);
+         return readFully(channel, trailer, end - 1) && trailer.get(0) == PageReadWriter.END_BYTE;
+      }
+   }
+
+   private static boolean readFully(FileChannel channel, ByteBuffer buffer, long position) throws IOException {
+      while (buffer.hasRemaining()) {
+         final int read = channel.read(buffer, position + buffer.position());
+         if (read < 0) {
+            return false;
+         }
+      }
+      return true;
+   }
+
+   public static void delete(File pageFile) {
+      try {
+         Files.deleteIfExists(indexFile(pageFile).toPath());
+      } catch (IOException e) {
+         logger.debug("Unable to delete the index of {}", pageFile, e);
+      }
+   }
+}
@@ -44,12 +44,12 @@ public class PageReadWriter {
 
    public static final int SIZE_RECORD = DataConstants.SIZE_BYTE + DataConstants.SIZE_INT + DataConstants.SIZE_BYTE;
 
-   private static final byte START_BYTE = (byte) '{';
+   static final byte START_BYTE = (byte) '{';
 
-   private static final byte END_BYTE = (byte) '}';
+   static final byte END_BYTE = (byte) '}';
 
    //sizeOf(START_BYTE) + sizeOf(MESSAGE LENGTH) + sizeOf(END_BYTE)
-   private static final int HEADER_AND_TRAILER_SIZE = DataConstants.SIZE_INT + 2;
+   static final int HEADER_AND_TRAILER_SIZE = DataConstants.SIZE_INT + 2;
    private static final int MINIMUM_MSG_PERSISTENT_SIZE = HEADER_AND_TRAILER_SIZE;
    private static final int MIN_CHUNK_SIZE = Env.osPageSize();
 
@@ -126,12 +126,30 @@ public class PageReadWriter {
                                              PageRecordFilter skipRecord,
                                              SuspectFileCallback suspectFileCallback,
                                              ReadCallback readCallback) throws Exception {
+      return readFromSequentialFile(storage, storeName, fileFactory, file, pageId, messages, skipRecord, suspectFileCallback, readCallback, null);
+   }
+
+   /**
+    * @param headerCallback called with the {@link CompactedPageHeader} of the page, if it was compacted
+    * @return the number of messages of the page, including the ones removed by compaction
+    */
+   public static int readFromSequentialFile(StorageManager storage,
+                                             SimpleString storeName,
+                                             SequentialFileFactory fileFactory,
+                                             SequentialFile file,
+                                             long pageId,
+                                             Consumer<PagedMessage> messages,
+                                             PageRecordFilter skipRecord,
+                                             SuspectFileCallback suspectFileCallback,
+                                             ReadCallback readCallback,
+                                             Consumer<CompactedPageHeader> headerCallback) throws Exception {
       final int fileSize = (int) file.size();
       file.position(0);
       int processedBytes = 0;
       ByteBuffer fileBuffer = null;
       ChannelBufferWrapper fileBufferWrapper;
       int totalMessageCount = 0;
+      CompactedPageHeader header = null;
 
       try {
 
@@ -144,7 +162,35 @@ public class PageReadWriter {
             //no content is being added yet
             fileBuffer.limit(0);
 
-            do {
+            fileBuffer = readIntoFileBufferIfNecessary(fileFactory, file, fileBuffer, MINIMUM_MSG_PERSISTENT_SIZE, false);
+
+            // a compacted page starts with a header telling the message numbers of its records
+            if (fileBuffer.get(0) == CompactedPageHeader.START_BYTE) {
+               int headerSize = -1;
+               if (remainingBytes >= CompactedPageHeader.FIXED_SIZE) {
+                  fileBuffer = readIntoFileBufferIfNecessary(fileFactory, file, fileBuffer, CompactedPageHeader.FIXED_SIZE, false);
+                  headerSize = CompactedPageHeader.readEncodeSize(fileBuffer, 0);
+               }
+               if (headerSize > 0 && headerSize <= fileSize) {
+                  fileBuffer = readIntoFileBufferIfNecessary(fileFactory, file, fileBuffer, headerSize, false);
+                  header = CompactedPageHeader.decode(fileBuffer, 0);
+               }
+               if (header == null) {
+                  if (suspectFileCallback != null) {
+                     suspectFileCallback.onSuspect(file.getFileName(), processedBytes, totalMessageCount + 1);
+                  }
+                  return 0;
+               }
+               if (headerCallback != null) {
+                  headerCallback.accept(header);
+               }
+               fileBuffer.position(headerSize);
+               processedBytes = headerSize;
+               remainingBytes = fileSize - processedBytes;
+            }
+            fileBufferWrapper = wrapWhole(fileBuffer);
+
+            while (remainingBytes >= MINIMUM_MSG_PERSISTENT_SIZE) {
 
                final ByteBuffer oldFileBuffer = fileBuffer;
 
@@ -173,7 +219,9 @@ public class PageReadWriter {
                      final int endPosition = fileBuffer.position() + encodedSize;
 
                      //this check must be performed upfront decoding
-                     if (fileBuffer.remaining() >= (encodedSize + 1) && fileBuffer.get(endPosition) == END_BYTE) {
+                     if (fileBuffer.remaining() >= (encodedSize + 1) && fileBuffer.get(endPosition) == END_BYTE && (header == null || totalMessageCount < header.getNumberOfRecords())) {
+
+                        final int messageNumber = header == null ? totalMessageCount : header.getMessageNumber(totalMessageCount);
 
                         fileBufferWrapper.setIndex(fileBuffer.position(), endPosition);
 
@@ -197,7 +245,7 @@ public class PageReadWriter {
                               messages.accept(msg);
                            }
 
-                           msg.setPageNumber(pageId).setMessageNumber(totalMessageCount);
+                           msg.setPageNumber(pageId).setMessageNumber(messageNumber);
                         }
 
                         totalMessageCount++;
@@ -210,7 +258,7 @@ public class PageReadWriter {
                            suspectFileCallback.onSuspect(file.getFileName(), processedBytes, totalMessageCount + 1);
                         }
 
-                        return totalMessageCount;
+                        return numberOfMessages(header, totalMessageCount);
 
                      }
                   } else {
@@ -219,7 +267,7 @@ public class PageReadWriter {
                         suspectFileCallback.onSuspect(file.getFileName(), processedBytes, totalMessageCount + 1);
                      }
 
-                     return totalMessageCount;
+                     return numberOfMessages(header, totalMessageCount);
                   }
                } else {
 
@@ -227,13 +275,12 @@ public class PageReadWriter {
                      suspectFileCallback.onSuspect(file.getFileName(), processedBytes, totalMessageCount + 1);
                   }
 
-                  return totalMessageCount;
+                  return numberOfMessages(header, totalMessageCount);
                }
 
                remainingBytes = fileSize - processedBytes;
 
             }
-            while (remainingBytes >= MINIMUM_MSG_PERSISTENT_SIZE);
          }
 
          //ignore incomplete messages at the end of the file
@@ -241,7 +288,7 @@ public class PageReadWriter {
             logger.trace("{} has {} bytes of unknown data at position = {}", file.getFileName(), remainingBytes, processedBytes);
          }
 
-         return totalMessageCount;
+         return numberOfMessages(header, totalMessageCount);
       } finally {
          if (fileBuffer != null) {
             fileFactory.releaseBuffer(fileBuffer);
@@ -255,6 +302,10 @@ public class PageReadWriter {
       }
    }
 
+   private static int numberOfMessages(CompactedPageHeader header, int records) {
+      return header == null ? records : header.getNumberOfMessages();
+   }
+
    private static ByteBuffer readIntoFileBufferIfNecessary(SequentialFileFactory fileFactory, SequentialFile file, ByteBuffer fileBuffer, int requiredBytes, boolean direct) throws Exception {
 
       final int remaining = fileBuffer.remaining();
@@ -17,6 +17,7 @@
 package org.apache.activemq.artemis.core.paging.impl;
 
 import java.lang.invoke.MethodHandles;
+import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
@@ -35,6 +36,7 @@ import java.util.concurrent.locks.ReentrantReadWriteLock;
 import java.util.function.BiConsumer;
 
 import io.netty.util.collection.LongObjectHashMap;
+import org.apache.activemq.artemis.api.config.ActiveMQDefaultConfiguration;
 import org.apache.activemq.artemis.api.core.SimpleString;
 import org.apache.activemq.artemis.core.paging.PageTransactionInfo;
 import org.apache.activemq.artemis.core.paging.PagingManager;
@@ -119,6 +121,12 @@ public final class PagingManagerImpl implements PagingManager {
 
    private final SimpleString managementAddress;
 
+   private final SharedPageCache sharedPageCache;
+
+   private volatile int pageCounterRebuildParallelism = ActiveMQDefaultConfiguration.getDefaultPageCounterRebuildParallelism();
+
+   private PageCompactor pageCompactor;
+
    // for tests.. not part of the API
    public void replacePageStoreFactory(PagingStoreFactory factory) {
       this.pagingStoreFactory = factory;
@@ -135,6 +143,16 @@ public final class PagingManagerImpl implements PagingManager {
                             final long maxMessages,
                             final SimpleString managementAddress,
                             final ActiveMQServer server) {
+      this(pagingSPI, addressSettingsRepository, maxSize, maxMessages, -1, managementAddress, server);
+   }
+
+   public PagingManagerImpl(final PagingStoreFactory pagingSPI,
+                            final HierarchicalRepository<AddressSettings> addressSettingsRepository,
+                            final long maxSize,
+                            final long maxMessages,
+                            final long sharedPageCacheMaxSize,
+                            final SimpleString managementAddress,
+                            final ActiveMQServer server) {
       pagingStoreFactory = pagingSPI;
       this.addressSettingsRepository = addressSettingsRepository;
       addressSettingsRepository.registerListener(this);
@@ -146,6 +164,26 @@ public final class PagingManagerImpl implements PagingManager {
       this.managerExecutor = pagingSPI.newExecutor();
       this.managementAddress = managementAddress;
       this.server = server;
+      this.sharedPageCache = sharedPageCacheMaxSize > 0 ? new SharedPageCache(sharedPageCacheMaxSize) : null;
+   }
+
+   /**
+    * @param parallelism the max number of threads rebuilding the page counters, {@code -1} means the number of
+    *                    available processors
+    */
+   public PagingManagerImpl setPageCounterRebuildParallelism(int parallelism) {
+      this.pageCounterRebuildParallelism = parallelism;
+      return this;
+   }
+
+   /**
+    * @param period    the period (in milliseconds) of the checks for sparse pages to compact, {@code -1} disables the
+    *                  compaction
+    * @param threshold the percentage of acknowledged records a page needs to be compacted
+    */
+   public PagingManagerImpl setPageCompaction(long period, int threshold) {
+      this.pageCompactor = period > 0 ? new PageCompactor(pagingStoreFactory.getScheduledExecutor(), pagingStoreFactory.newExecutor(), this, period, threshold) : null;
+      return this;
    }
 
    SizeAwareMetric getSizeAwareMetric() {
@@ -161,6 +199,16 @@ public final class PagingManagerImpl implements PagingManager {
       this.globalSizeMetric.setMax(maxSize, maxSize, maxMessages, maxMessages);
    }
 
+   @Override
+   public SharedPageCache getSharedPageCache() {
+      return sharedPageCache;
+   }
+
+   @Override
+   public PageCompactor getPageCompactor() {
+      return pageCompactor;
+   }
+
    @Override
    public long getMaxSize() {
       return maxSize;
@@ -516,6 +564,10 @@ public final class PagingManagerImpl implements PagingManager {
 
          }
 
+         if (pageCompactor != null) {
+            pageCompactor.start();
+         }
+
          started = true;
 
       } finally {
@@ -542,6 +594,10 @@ public final class PagingManagerImpl implements PagingManager {
          this.snapshotUpdater = null;
       }
 
+      if (pageCompactor != null) {
+         pageCompactor.stop();
+      }
+
       lock();
       try {
 
@@ -617,12 +673,17 @@ public final class PagingManagerImpl implements PagingManager {
          transactionsSet.forEach((a, b) -> logger.debug("{} = {}", a, b));
       }
 
+      List<PageCounterRebuildManager> rebuildManagers = new ArrayList<>(currentStoreMap.size());
       currentStoreMap.forEach((address, pgStore) -> {
          PageCounterRebuildManager rebuildManager = new PageCounterRebuildManager(this, pgStore, transactionsSet, storedLargeMessages, minLargeMessageID);
          logger.debug("Setting destination {} to rebuild counters", address);
-         managerExecutor.execute(rebuildManager);
+         rebuildManagers.add(rebuildManager);
       });
 
+      final int parallelism = pageCounterRebuildParallelism > 0 ? pageCounterRebuildParallelism : Runtime.getRuntime().availableProcessors();
+      // the manager executor waits for the rebuild, so that any increment scheduled meanwhile happens after it
+      managerExecutor.execute(() -> PageCounterRebuildManager.rebuildAll(rebuildManagers, parallelism));
+
       managerExecutor.execute(() -> cleanupPageTransactions(transactionsSet, currentStoreMap));
 
       FutureTask<Object> task = new FutureTask<>(() -> null);
@@ -17,6 +17,7 @@
 package org.apache.activemq.artemis.core.paging.impl;
 
 import java.io.File;
+import java.io.IOException;
 import java.text.DecimalFormat;
 import java.util.ArrayList;
 import java.util.Collection;
@@ -83,7 +84,7 @@ public class PagingStoreImpl implements PagingStore {
 
    private final DecimalFormat format = new DecimalFormat("000000000");
 
-   private final PageCache usedPages = new PageCache(this);
+   private final PageCache usedPages;
 
    //it's being guarded by lock.writeLock().lock() and never read concurrently
    private long currentPageSize = 0;
@@ -183,6 +184,8 @@ public class PagingStoreImpl implements PagingStore {
          throw new IllegalStateException("Paging Manager can't be null");
       }
 
+      this.usedPages = new PageCache(this, pagingManager.getSharedPageCache());
+
       this.address = address;
 
       this.storageManager = storageManager;
@@ -593,6 +596,8 @@ public class PagingStoreImpl implements PagingStore {
          page.close(true);
          currentPage = null;
       }
+
+      usedPages.invalidateAll();
    }
 
    @Override
@@ -850,13 +855,18 @@ public class PagingStoreImpl implements PagingStore {
          try {
             Page page = usedPages.get(pageId);
             if (createEntry && page == null) {
-               page = newPageObject(pageId);
-               if (page.getFile().exists()) {
-                  page.getMessages();
+               page = usedPages.reuse(pageId);
+               if (page != null) {
                   injectPage(page);
                } else {
-                  if (!createFile) {
-                     page = null;
+                  page = newPageObject(pageId);
+                  if (page.getFile().exists()) {
+                     page.getMessages();
+                     injectPage(page);
+                  } else {
+                     if (!createFile) {
+                        page = null;
+                     }
                   }
                }
             }
@@ -878,6 +888,33 @@ public class PagingStoreImpl implements PagingStore {
    }
 
 
+   @Override
+   public PagedMessage readMessage(final long pageId, final int messageNumber) throws Exception {
+      final Page page = usePage(pageId, false);
+      if (page != null) {
+         // already decoded by some other user of the page
+         try {
+            return page.getMessage(messageNumber);
+         } finally {
+            page.usageDown();
+         }
+      }
+      final SequentialFileFactory factory = checkFileFactory();
+      // only files on a file system can be mapped
+      final File file = factory.getDirectory() == null ? null : factory.createSequentialFile(createFileName(pageId)).getJavaFile();
+      if (file != null) {
+         if (!file.exists()) {
+            return null;
+         }
+         try (MappedPageReader reader = MappedPageReader.map(file)) {
+            return reader.read(messageNumber, pageId, storageManager);
+         } catch (IOException e) {
+            logger.debug("Unable to map {}, reading the whole page instead", file, e);
+         }
+      }
+      return PagingStore.super.readMessage(pageId, messageNumber);
+   }
+
    protected SequentialFileFactory getFileFactory() throws Exception {
       checkFileFactory();
       return fileFactory;
@@ -941,6 +978,8 @@ public class PagingStoreImpl implements PagingStore {
                numberOfPages--;
             }
 
+            usedPages.invalidate(pageId);
+
             if (logger.isTraceEnabled()) {
                logger.trace("Removing page {}, now containing numberOfPages={}", pageId, numberOfPages);
             }
@@ -1038,6 +1077,7 @@ public class PagingStoreImpl implements PagingStore {
                } else {
                   returnPage = usedPage;
                }
+               usedPages.invalidate(pageNR);
             }
 
             if (!returnPage.getFile().exists()) {
@@ -0,0 +1,279 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.activemq.artemis.core.paging.impl;
+
+import java.lang.invoke.MethodHandles;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * A cache of decoded {@link Page}s shared by every {@link PagingStoreImpl} of a {@link PagingManagerImpl}.
+ * <p>
+ * A page is only offered here once no cursor is using it anymore (i.e. when it leaves its store {@link PageCache}),
+ * so lagging subscriptions which move into the page afterwards reuse the already decoded messages instead of reading
+ * the page file again. The cache is bounded by the size of the page files it retains and the least recently used pages
+ * are evicted first.
+ * <p>
+ * Lookups are striped to reduce contention between stores: each stripe is a LRU ordered map guarded by its own lock,
+ * while the size bound is global, evicting the eldest page among the ones at the head of each stripe.
+ */
+public class SharedPageCache {
+
+   private static final Logger logger = LoggerFactory.getLogger(MethodHandles.lookup().lookupClass());
+
+   private static final int STRIPES = 16;
+
+   private final Stripe[] stripes;
+
+   private final long maxSize;
+
+   private final AtomicLong size = new AtomicLong();
+
+   private final AtomicLong sequence = new AtomicLong();
+
+   private final LongAdder pages = new LongAdder();
+
+   private final LongAdder hits = new LongAdder();
+
+   private final LongAdder misses = new LongAdder();
+
+   private final LongAdder evictions = new LongAdder();
+
+   public SharedPageCache(long maxSize) {
+      if (maxSize <= 0) {
+         throw new IllegalArgumentException("maxSize must be > 0");
+      }
+      this.maxSize = maxSize;
+      this.stripes = new Stripe[STRIPES];
+      for (int i = 0; i < STRIPES; i++) {
+         stripes[i] = new Stripe();
+      }
+   }
+
+   private Stripe stripe(Key key) {
+      return stripes[key.hashCode() & (STRIPES - 1)];
+   }
+
+   /**
+    * Removes and returns the page cached for {@code owner}, or {@code null} if there is none.
+    */
+   public Page take(PageCache owner, long pageId) {
+      final Key key = new Key(owner, pageId);
+      final Stripe stripe = stripe(key);
+      final Entry entry;
+      synchronized (stripe) {
+         entry = stripe.remove(key);
+      }
+      if (entry == null) {
+         misses.increment();
+         return null;
+      }
+      released(entry);
+      hits.increment();
+      return entry.page;
+   }
+
+   /**
+    * Retains a page which isn't used anymore by its store: only pages with their messages already decoded are worth
+    * retaining and the ones bigger than the whole cache are ignored.
+    */
+   public void offer(PageCache owner, Page page) {
+      final long pageSize = page.getSize();
+      if (!page.isLoaded() || pageSize > maxSize) {
+         return;
+      }
+      final Key key = new Key(owner, page.getPageId());
+      final Stripe stripe = stripe(key);
+      final Entry previous;
+      synchronized (stripe) {
+         previous = stripe.put(key, new Entry(page, pageSize, sequence.incrementAndGet()));
+      }
+      if (previous != null) {
+         released(previous);
+      }
+      pages.increment();
+      if (size.addAndGet(pageSize) > maxSize) {
+         evict();
+      }
+   }
+
+   /**
+    * Drops the cached page, if any, e.g. because its file is going to be deleted.
+    */
+   public void remove(PageCache owner, long pageId) {
+      final Key key = new Key(owner, pageId);
+      final Stripe stripe = stripe(key);
+      final Entry entry;
+      synchronized (stripe) {
+         entry = stripe.remove(key);
+      }
+      if (entry != null) {
+         released(entry);
+      }
+   }
+
+   /**
+    * Drops every page cached for {@code owner}, e.g. because its store is stopping.
+    */
+   public void removeAll(PageCache owner) {
+      for (Stripe stripe : stripes) {
+         synchronized (stripe) {
+            final Iterator<Map.Entry<Key, Entry>> entries = stripe.entrySet().iterator();
+            while (entries.hasNext()) {
+               final Map.Entry<Key, Entry> entry = entries.next();
+               if (entry.getKey().owner == owner) {
+                  entries.remove();
+                  released(entry.getValue());
+               }
+            }
+         }
+      }
+   }
+
+   private void released(Entry entry) {
+      pages.decrement();
+      // the size the page had when offered, as it may have changed since
+      size.addAndGet(-entry.size);
+   }
+
+   private void evict() {
+      while (size.get() > maxSize) {
+         // the eldest entry of each stripe is its least recently used one: pick the eldest among them
+         Stripe eldestStripe = null;
+         long eldestSequence = Long.MAX_VALUE;
+         for (Stripe stripe : stripes) {
+            synchronized (stripe) {
+               final Iterator<Entry> entries = stripe.values().iterator();
+               if (entries.hasNext()) {
+                  final Entry entry = entries.next();
+                  if (entry.sequence < eldestSequence) {
+                     eldestSequence = entry.sequence;
+                     eldestStripe = stripe;
+                  }
+               }
+            }
+         }
+         if (eldestStripe == null) {
+            return;
+         }
+         final Entry evicted;
+         synchronized (eldestStripe) {
+            final Iterator<Entry> entries = eldestStripe.values().iterator();
+            if (!entries.hasNext()) {
+               // taken or evicted concurrently: try again
+               continue;
+            }
+            evicted = entries.next();
+            entries.remove();
+         }
+         released(evicted);
+         evictions.increment();
+         if (logger.isDebugEnabled()) {
+            logger.debug("Evicted page {} of size {} from the shared page cache", evicted.page.getPageId(), evicted.size);
+         }
+      }
+   }
+
+   public long getMaxSize() {
+      return maxSize;
+   }
+
+   /**
+    * The sum of the sizes of the page files currently retained.
+    */
+   public long getSize() {
+      return size.get();
+   }
+
+   public long getPageCount() {
+      return pages.sum();
+   }
+
+   public long getHitCount() {
+      return hits.sum();
+   }
+
+   public long getMissCount() {
+      return misses.sum();
+   }
+
+   public long getEvictionCount() {
+      return evictions.sum();
+   }
+
+   @Override
+   public String toString() {
+      return "SharedPageCache{maxSize=" + maxSize + ", size=" + getSize() + ", pages=" + getPageCount() + ", hits=" + getHitCount() + ", misses=" + getMissCount() + ", evictions=" + getEvictionCount() + "}";
+   }
+
+   // pages are removed as soon as they are used again: in insertion order, the eldest entry is the least recently used
+   private static final class Stripe extends LinkedHashMap<Key, Entry> {
+   }
+
+   private static final class Entry {
+
+      private final Page page;
+
+      // the size accounted for the page
+      private final long size;
+
+      // used to compare the age of entries of different stripes
+      private final long sequence;
+
+      Entry(Page page, long size, long sequence) {
+         this.page = page;
+         this.size = size;
+         this.sequence = sequence;
+      }
+   }
+
+   private static final class Key {
+
+      private final PageCache owner;
+
+      private final long pageId;
+
+      Key(PageCache owner, long pageId) {
+         this.owner = owner;
+         this.pageId = pageId;
+      }
+
+      @Override
+      public boolean equals(Object o) {
+         if (this == o) {
+            return true;
+         }
+         if (!(o instanceof Key other)) {
+            return false;
+         }
+         return owner == other.owner && pageId == other.pageId;
+      }
+
+      @Override
+      public int hashCode() {
+         final int h = 31 * System.identityHashCode(owner) + (int) (pageId ^ (pageId >>> 32));
+         // spread the bits, as the stripe is selected using the lowest ones
+         return h ^ (h >>> 16);
+      }
+   }
+}
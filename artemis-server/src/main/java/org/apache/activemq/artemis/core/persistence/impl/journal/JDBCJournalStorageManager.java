@@ -85,6 +85,10 @@ public class JDBCJournalStorageManager extends JournalStorageManager {
                  scheduledExecutorService, executorFactory.getExecutor(),
                  criticalErrorListener,
                  dbConf.getJdbcJournalSyncPeriodMillis());
+         if (dbConf.isJdbcJournalPipelined()) {
+            bindingsJournal.setPipelined(ioExecutorFactory, dbConf.getJdbcJournalMaxBatchSize());
+            messageJournal.setPipelined(ioExecutorFactory, dbConf.getJdbcJournalMaxBatchSize());
+         }
          largeMessagesFactory = new JDBCSequentialFileFactory(
                  connectionProvider,
                  sqlProviderFactory.create(dbConf.getLargeMessageTableName(), SQLProvider.DatabaseStoreType.LARGE_MESSAGE),
@@ -37,6 +37,7 @@ import org.apache.activemq.artemis.api.core.Message;
 import org.apache.activemq.artemis.api.core.Pair;
 import org.apache.activemq.artemis.api.core.SimpleString;
 import org.apache.activemq.artemis.core.config.Configuration;
+import org.apache.activemq.artemis.core.config.ConfigurationUtils;
 import org.apache.activemq.artemis.core.io.IOCallback;
 import org.apache.activemq.artemis.core.io.IOCriticalErrorListener;
 import org.apache.activemq.artemis.core.io.SequentialFile;
@@ -49,6 +50,7 @@ import org.apache.activemq.artemis.core.journal.EncodingSupport;
 import org.apache.activemq.artemis.core.journal.Journal;
 import org.apache.activemq.artemis.core.journal.impl.JournalFile;
 import org.apache.activemq.artemis.core.journal.impl.JournalImpl;
+import org.apache.activemq.artemis.core.journal.impl.StripedJournal;
 import org.apache.activemq.artemis.core.paging.PagedMessage;
 import org.apache.activemq.artemis.core.paging.PagingManager;
 import org.apache.activemq.artemis.core.paging.PagingStore;
@@ -76,6 +78,8 @@ public class JournalStorageManager extends AbstractJournalStorageManager {
    private static final Logger logger = LoggerFactory.getLogger(MethodHandles.lookup().lookupClass());
    public static final String ACTIVEMQ_DATA = "activemq-data";
 
+   public static final String ACTIVEMQ_STRIPES = "activemq-stripes";
+
    protected SequentialFileFactory journalFF;
 
    protected SequentialFileFactory bindingsFF;
@@ -133,6 +137,7 @@ public class JournalStorageManager extends AbstractJournalStorageManager {
 
       bindingsFF = new NIOSequentialFileFactory(config.getBindingsLocation(), criticalErrorListener, config.getJournalMaxIO_NIO());
       bindingsFF.setDatasync(config.isJournalDatasync());
+      bindingsFF.setChecksum(config.isJournalChecksum());
 
       Journal localBindings = new JournalImpl(ioExecutorFactory, 1024 * 1024, 2, config.getJournalPoolFiles(), config.getJournalCompactMinFiles(), config.getJournalCompactPercentage(), config.getJournalFileOpenTimeout(), bindingsFF, "activemq-bindings", "bindings", 1, 0, criticalErrorListener, config.getJournalMaxAtticFiles());
 
@@ -145,33 +150,30 @@ public class JournalStorageManager extends AbstractJournalStorageManager {
             if (criticalErrorListener != null) {
                ActiveMQServerLogger.LOGGER.journalUseNIO();
             }
-            journalFF = new NIOSequentialFileFactory(config.getJournalLocation(), true, config.getJournalBufferSize_NIO(), config.getJournalBufferTimeout_NIO(), config.getJournalMaxIO_NIO(), config.isLogJournalWriteRate(), criticalErrorListener, getCriticalAnalyzer());
             break;
          case ASYNCIO:
             if (criticalErrorListener != null) {
                ActiveMQServerLogger.LOGGER.journalUseAIO();
             }
-            journalFF = new AIOSequentialFileFactory(config.getJournalLocation(), config.getJournalBufferSize_AIO(), config.getJournalBufferTimeout_AIO(), config.getJournalMaxIO_AIO(), config.isLogJournalWriteRate(), criticalErrorListener, getCriticalAnalyzer());
-
-            if (config.getJournalDeviceBlockSize() != null) {
-               journalFF.setAlignment(config.getJournalDeviceBlockSize());
-            }
             break;
          case MAPPED:
             if (criticalErrorListener != null) {
                ActiveMQServerLogger.LOGGER.journalUseMAPPED();
             }
-            journalFF = new MappedSequentialFileFactory(config.getJournalLocation(), config.getJournalFileSize(), true, config.getJournalBufferSize_NIO(), config.getJournalBufferTimeout_NIO(), criticalErrorListener);
+            break;
+         case NIO_DIRECT:
+            if (criticalErrorListener != null) {
+               ActiveMQServerLogger.LOGGER.journalUseNIODirect();
+            }
             break;
          default:
             throw ActiveMQMessageBundle.BUNDLE.invalidJournalType2(config.getJournalType());
       }
 
-      journalFF.setDatasync(config.isJournalDatasync());
-
+      journalFF = createJournalFactory(config, config.getJournalLocation(), criticalErrorListener);
 
       int fileSize = fixJournalFileSize(config.getJournalFileSize(), journalFF.getAlignment());
-      Journal localMessage = createMessageJournal(config, criticalErrorListener, fileSize);
+      Journal localMessage = stripeMessageJournal(config, criticalErrorListener, fileSize, createMessageJournal(config, criticalErrorListener, fileSize));
 
       messageJournal = localMessage;
       messageJournal.replaceableRecord(JournalRecordIds.UPDATE_DELIVERY_COUNT);
@@ -184,6 +186,70 @@ public class JournalStorageManager extends AbstractJournalStorageManager {
       largeMessagesFactory = new NIOSequentialFileFactory(config.getLargeMessagesLocation(), false, criticalErrorListener, 1);
    }
 
+   private SequentialFileFactory createJournalFactory(Configuration config,
+                                                      File location,
+                                                      IOCriticalErrorListener criticalErrorListener) {
+      final SequentialFileFactory factory;
+      switch (config.getJournalType()) {
+         case NIO:
+            factory = new NIOSequentialFileFactory(location, true, config.getJournalBufferSize_NIO(), config.getJournalBufferTimeout_NIO(), config.getJournalMaxIO_NIO(), config.isLogJournalWriteRate(), criticalErrorListener, getCriticalAnalyzer())
+               .setWriteThrough(config.isJournalWriteThrough());
+            break;
+         case ASYNCIO:
+            factory = new AIOSequentialFileFactory(location, config.getJournalBufferSize_AIO(), config.getJournalBufferTimeout_AIO(), config.getJournalMaxIO_AIO(), config.isLogJournalWriteRate(), criticalErrorListener, getCriticalAnalyzer());
+
+            if (config.getJournalDeviceBlockSize() != null) {
+               factory.setAlignment(config.getJournalDeviceBlockSize());
+            }
+            break;
+         case MAPPED:
+            factory = new MappedSequentialFileFactory(location, config.getJournalFileSize(), true, config.getJournalBufferSize_NIO(), config.getJournalBufferTimeout_NIO(), criticalErrorListener);
+            break;
+         case NIO_DIRECT:
+            // the JDK requires direct I/O to be aligned to the block size of the file store, whatever the device is
+            factory = new NIOSequentialFileFactory(location, true, config.getJournalBufferSize_NIO(), config.getJournalBufferTimeout_NIO(), config.getJournalMaxIO_NIO(), config.isLogJournalWriteRate(), criticalErrorListener, getCriticalAnalyzer(), true)
+               .setWriteThrough(config.isJournalWriteThrough());
+            break;
+         default:
+            throw ActiveMQMessageBundle.BUNDLE.invalidJournalType2(config.getJournalType());
+      }
+
+      factory.setDatasync(config.isJournalDatasync());
+      factory.setChecksum(config.isJournalChecksum());
+      factory.setAdaptiveBufferTimeout(config.isJournalAdaptiveBufferTimeout());
+      return factory;
+   }
+
+   /**
+    * Stripes the message journal across the journal directory and the journal stripe directories, each stripe with
+    * its own file factory. The decisions to commit the transactions spanning several stripes are recorded by a small
+    * coordinator journal in the journal directory.
+    */
+   protected Journal stripeMessageJournal(Configuration config,
+                                          IOCriticalErrorListener criticalErrorListener,
+                                          int fileSize,
+                                          Journal messageJournal) {
+      final File[] stripeLocations = config.getJournalStripeLocations();
+      if (stripeLocations.length == 0) {
+         return messageJournal;
+      }
+      // the configuration may have changed since the broker validated it
+      ConfigurationUtils.validateJournalStripes(config);
+
+      final Journal[] stripes = new Journal[stripeLocations.length + 1];
+      stripes[0] = messageJournal;
+      for (int i = 0; i < stripeLocations.length; i++) {
+         final SequentialFileFactory stripeFF = createJournalFactory(config, stripeLocations[i], criticalErrorListener);
+         stripes[i + 1] = new JournalImpl(ioExecutorFactory, fileSize, config.getJournalMinFiles(), config.getJournalPoolFiles(), config.getJournalCompactMinFiles(), config.getJournalCompactPercentage(), config.getJournalFileOpenTimeout(), stripeFF, ACTIVEMQ_DATA, "amq", stripeFF.getMaxIO(), 0, criticalErrorListener, config.getJournalMaxAtticFiles());
+      }
+
+      final SequentialFileFactory coordinatorFF = new NIOSequentialFileFactory(config.getJournalLocation(), criticalErrorListener, 1);
+      coordinatorFF.setDatasync(config.isJournalDatasync());
+      final Journal coordinator = new JournalImpl(ioExecutorFactory, 1024 * 1024, 2, config.getJournalPoolFiles(), config.getJournalCompactMinFiles(), config.getJournalCompactPercentage(), config.getJournalFileOpenTimeout(), coordinatorFF, ACTIVEMQ_STRIPES, "stripes", 1, 0, criticalErrorListener, config.getJournalMaxAtticFiles());
+
+      return new StripedJournal(coordinator, stripes);
+   }
+
    /**
     * We need to correct the file size if its not a multiple of the alignement
     * @param fileSize : the configured file size.
@@ -218,6 +284,11 @@ public class JournalStorageManager extends AbstractJournalStorageManager {
    protected void beforeStart() throws Exception {
       checkAndCreateDir(config.getBindingsLocation(), config.isCreateBindingsDir());
       checkAndCreateDir(config.getJournalLocation(), config.isCreateJournalDir());
+      if (originalMessageJournal instanceof StripedJournal) {
+         for (File stripeLocation : config.getJournalStripeLocations()) {
+            checkAndCreateDir(stripeLocation, config.isCreateJournalDir());
+         }
+      }
       checkAndCreateDir(config.getLargeMessagesLocation(), config.isCreateJournalDir());
       cleanupIncompleteFiles();
    }
@@ -871,6 +942,11 @@ public class JournalStorageManager extends AbstractJournalStorageManager {
       if (journalFF != null) {
          monitor.addStore(journalFF.getDirectory());
       }
+      if (originalMessageJournal instanceof StripedJournal) {
+         for (File stripeLocation : config.getJournalStripeLocations()) {
+            monitor.addStore(stripeLocation);
+         }
+      }
       if (largeMessagesFactory != null) {
          monitor.addStore(largeMessagesFactory.getDirectory());
       }
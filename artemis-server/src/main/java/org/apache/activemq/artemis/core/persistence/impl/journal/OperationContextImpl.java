@@ -16,7 +16,8 @@
  */
 package org.apache.activemq.artemis.core.persistence.impl.journal;
 
-import java.util.LinkedList;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
 import java.util.concurrent.Executor;
 import java.util.concurrent.atomic.AtomicIntegerFieldUpdater;
 import java.util.concurrent.atomic.AtomicLongFieldUpdater;
@@ -43,6 +44,10 @@ import org.apache.commons.collections.buffer.CircularFifoBuffer;
  *
  * So, if you are doing operations that are not dependent on IO (e.g NonPersistentMessages) you wouldn't have any context switch.
  *
+ * No lock is taken: the line-up and completion counters are atomic, the pending tasks sit on lock-free queues, and
+ * whichever thread reports a completion (or registers a task) checks the queues. Only one thread checks them at a time,
+ * any other thread arriving meanwhile just asks it for another pass, so tasks are still executed in order.
+ *
  * If you need to track store operations you can set the system property "ARTEMIS_OPCONTEXT_MAX_DEBUG_TRACKERS"
  * with the max number of trackers that you want to keep in memory.
  */
@@ -75,13 +80,25 @@ public class OperationContextImpl implements OperationContext {
       OperationContextImpl.threadLocalContext.set(context);
    }
 
-   LinkedList<TaskHolder> tasks;
-   LinkedList<IgnoreReplicationTaskHolder> ignoreReplicationTasks;
-   LinkedList<StoreOnlyTaskHolder> storeOnlyTasks;
+   final Queue<TaskHolder> tasks = new ConcurrentLinkedQueue<>();
+   final Queue<IgnoreReplicationTaskHolder> ignoreReplicationTasks = new ConcurrentLinkedQueue<>();
+   final Queue<StoreOnlyTaskHolder> storeOnlyTasks = new ConcurrentLinkedQueue<>();
 
    static final AtomicIntegerFieldUpdater<OperationContextImpl> EXECUTORS_PENDING_UPDATER = AtomicIntegerFieldUpdater
       .newUpdater(OperationContextImpl.class, "executorsPendingField");
 
+   static final AtomicIntegerFieldUpdater<OperationContextImpl> CHECK_TASKS_UPDATER = AtomicIntegerFieldUpdater
+      .newUpdater(OperationContextImpl.class, "checkTasksField");
+
+   static final AtomicLongFieldUpdater<OperationContextImpl> STORED_UPDATER = AtomicLongFieldUpdater
+      .newUpdater(OperationContextImpl.class, "stored");
+
+   static final AtomicLongFieldUpdater<OperationContextImpl> REPLICATED_UPDATER = AtomicLongFieldUpdater
+      .newUpdater(OperationContextImpl.class, "replicated");
+
+   static final AtomicLongFieldUpdater<OperationContextImpl> PAGED_UPDATER = AtomicLongFieldUpdater
+      .newUpdater(OperationContextImpl.class, "paged");
+
    static final AtomicLongFieldUpdater<OperationContextImpl> STORE_LINEUP_UPDATER = AtomicLongFieldUpdater
       .newUpdater(OperationContextImpl.class, "storeLineUpField");
 
@@ -120,13 +137,16 @@ public class OperationContextImpl implements OperationContext {
    volatile long replicationLineUpField = 0;
    volatile long pageLineUpField = 0;
 
-   long stored = 0;
-   long replicated = 0;
-   long paged = 0;
+   volatile long stored = 0;
+   volatile long replicated = 0;
+   volatile long paged = 0;
+
+   // number of requests to check the pending tasks, the thread moving it from 0 does the checking
+   private volatile int checkTasksField = 0;
 
-   private int errorCode = -1;
+   private volatile int errorCode = -1;
 
-   private String errorMessage = null;
+   private volatile String errorMessage = null;
 
    private final Executor executor;
 
@@ -159,8 +179,8 @@ public class OperationContextImpl implements OperationContext {
    }
 
    @Override
-   public synchronized void pageSyncDone() {
-      paged++;
+   public void pageSyncDone() {
+      PAGED_UPDATER.incrementAndGet(this);
       checkTasks();
    }
 
@@ -178,8 +198,8 @@ public class OperationContextImpl implements OperationContext {
    }
 
    @Override
-   public synchronized void replicationDone() {
-      replicated++;
+   public void replicationDone() {
+      REPLICATED_UPDATER.incrementAndGet(this);
       checkTasks();
    }
 
@@ -190,82 +210,63 @@ public class OperationContextImpl implements OperationContext {
 
    @Override
    public void executeOnCompletion(final IOCallback completion, final OperationConsistencyLevel consistencyLevel) {
-      boolean executeNow = false;
-
-      synchronized (this) {
-         if (errorCode == -1) {
-            final long storeLined = STORE_LINEUP_UPDATER.get(this);
-            final long pageLined = PAGE_LINEUP_UPDATER.get(this);
-            final long replicationLined = REPLICATION_LINEUP_UPDATER.get(this);
-            switch (consistencyLevel) {
-               case STORAGE:
-                  if (storeOnlyTasks == null) {
-                     storeOnlyTasks = new LinkedList<>();
-                  }
-                  if (storeLined == stored) {
-                     if (hasNoPendingExecution()) {
-                        // setting executeNow = true will make the completion to be called within the same thread here
-                        // without using an executor
-                        executeNow = true;
-                     } else {
-                        execute(completion);
-                     }
-                  } else {
-                     storeOnlyTasks.add(new StoreOnlyTaskHolder(completion, storeLined));
-                  }
-                  break;
-
-               case IGNORE_REPLICATION:
-                  if (ignoreReplicationTasks == null) {
-                     ignoreReplicationTasks = new LinkedList<>();
-                  }
-
-                  if (storeLined == stored && pageLined == paged) {
-                     if (hasNoPendingExecution()) {
-                        // setting executeNow = true will make the completion to be called within the same thread here
-                        // without using an executor
-                        executeNow = true;
-                     } else {
-                        execute(completion);
-                     }
-                  } else {
-                     ignoreReplicationTasks.add(new IgnoreReplicationTaskHolder(completion, storeLined, pageLined));
-                  }
-
-                  break;
-
-               case FULL:
-                  if (tasks == null) {
-                     tasks = new LinkedList<>();
-                  }
-
-                  if (replicationLined == replicated && storeLined == stored && pageLined == paged) {
-                     // We want to avoid the executor if everything is complete...
-                     // However, we can't execute the context if there are executions pending
-                     // We need to use the executor on this case
-                     if (hasNoPendingExecution()) {
-                        // setting executeNow = true will make the completion to be called within the same thread here
-                        // without using an executor
-                        executeNow = true;
-                     } else {
-                        execute(completion);
-                     }
-                  } else {
-                     tasks.add(new TaskHolder(completion, storeLined, replicationLined, pageLined));
-                  }
-
-                  break;
+      final int errorCode = this.errorCode;
+      if (errorCode != -1) {
+         completion.onError(errorCode, errorMessage);
+         return;
+      }
+
+      final long storeLined = STORE_LINEUP_UPDATER.get(this);
+      final long pageLined = PAGE_LINEUP_UPDATER.get(this);
+      final long replicationLined = REPLICATION_LINEUP_UPDATER.get(this);
+      switch (consistencyLevel) {
+         case STORAGE:
+            // a queued task may be complete but not yet executed: this one can't overtake it
+            if (storeOnlyTasks.isEmpty() && storeLined == stored) {
+               executeCompleted(completion);
+               return;
             }
-         }
+            storeOnlyTasks.add(new StoreOnlyTaskHolder(completion, storeLined));
+            break;
+
+         case IGNORE_REPLICATION:
+            if (ignoreReplicationTasks.isEmpty() && storeLined == stored && pageLined == paged) {
+               executeCompleted(completion);
+               return;
+            }
+            ignoreReplicationTasks.add(new IgnoreReplicationTaskHolder(completion, storeLined, pageLined));
+            break;
+
+         case FULL:
+            if (tasks.isEmpty() && replicationLined == replicated && storeLined == stored && pageLined == paged) {
+               executeCompleted(completion);
+               return;
+            }
+            tasks.add(new TaskHolder(completion, storeLined, replicationLined, pageLined));
+            break;
       }
 
-      // Executing outside of any locks
+      // the operations (or an error) may have completed while the task was being queued
+      checkTasks();
+   }
+
+   private void executeCompleted(final IOCallback completion) {
+      // onError publishes the error before the failed operation is counted as done: an error raised after the
+      // first check can only be seen here, once the completed counters have been read
+      final int errorCode = this.errorCode;
       if (errorCode != -1) {
          completion.onError(errorCode, errorMessage);
-      } else if (executeNow) {
+         return;
+      }
+      // We want to avoid the executor if everything is complete...
+      // However, we can't execute the context if there are executions pending
+      // We need to use the executor on this case
+      if (hasNoPendingExecution()) {
+         // the completion is called within the same thread here without using an executor
          completion.done();
+      } else {
+         execute(completion);
       }
-
    }
 
    private boolean hasNoPendingExecution() {
@@ -273,8 +274,8 @@ public class OperationContextImpl implements OperationContext {
    }
 
    @Override
-   public synchronized void done() {
-      this.stored++;
+   public void done() {
+      final long stored = STORED_UPDATER.incrementAndGet(this);
 
       if (debugTrackers != null) {
          debugTrackers.add(new Exception("<" + stored));
@@ -284,15 +285,10 @@ public class OperationContextImpl implements OperationContext {
    }
 
    private void checkStoreTasks() {
-      final LinkedList<StoreOnlyTaskHolder> storeOnlyTasks = this.storeOnlyTasks;
-      assert storeOnlyTasks != null;
-      final int size = storeOnlyTasks.size();
-      if (size == 0) {
-         return;
-      }
+      final Queue<StoreOnlyTaskHolder> storeOnlyTasks = this.storeOnlyTasks;
       final long stored = this.stored;
-      for (int i = 0; i < size; i++) {
-         final StoreOnlyTaskHolder holder = storeOnlyTasks.peek();
+      StoreOnlyTaskHolder holder;
+      while ((holder = storeOnlyTasks.peek()) != null) {
          if (stored < holder.storeLined) {
             // fail fast: storeOnlyTasks are ordered by storeLined, there is no need to continue
             return;
@@ -305,15 +301,12 @@ public class OperationContextImpl implements OperationContext {
    }
 
    private void checkRegularCompletion() {
-      final LinkedList<TaskHolder> tasks = this.tasks;
-      assert tasks != null;
-      final int size = this.tasks.size();
-      if (size == 0) {
-         return;
-      }
-      // no need to use an iterator here, we can save that cost
-      for (int i = 0; i < size; i++) {
-         final TaskHolder holder = tasks.peek();
+      final Queue<TaskHolder> tasks = this.tasks;
+      final long stored = this.stored;
+      final long replicated = this.replicated;
+      final long paged = this.paged;
+      TaskHolder holder;
+      while ((holder = tasks.peek()) != null) {
          if (stored < holder.storeLined || replicated < holder.replicationLined || paged < holder.pageLined) {
             // End of list here. No other task will be completed after this
             return;
@@ -325,14 +318,11 @@ public class OperationContextImpl implements OperationContext {
    }
 
    private void checkIgnoreReplicationCompletion() {
-      final LinkedList<IgnoreReplicationTaskHolder> tasks = this.ignoreReplicationTasks;
-      assert tasks != null;
-      final int size = tasks.size();
-      if (size == 0) {
-         return;
-      }
-      for (int i = 0; i < size; i++) {
-         final IgnoreReplicationTaskHolder holder = tasks.peek();
+      final Queue<IgnoreReplicationTaskHolder> tasks = this.ignoreReplicationTasks;
+      final long stored = this.stored;
+      final long paged = this.paged;
+      IgnoreReplicationTaskHolder holder;
+      while ((holder = tasks.peek()) != null) {
          if (stored < holder.storeLined || paged < holder.pageLined) {
             // End of list here. No other task will be completed after this
             return;
@@ -343,19 +333,34 @@ public class OperationContextImpl implements OperationContext {
       }
    }
 
+   private void failTasks(final int errorCode, final String errorMessage) {
+      TaskHolder holder;
+      while ((holder = tasks.poll()) != null) {
+         holder.task.onError(errorCode, errorMessage);
+      }
+   }
+
    private void checkTasks() {
+      if (CHECK_TASKS_UPDATER.getAndIncrement(this) != 0) {
+         // another thread is checking the tasks, it will do one more pass on our behalf
+         return;
+      }
+      int missed = 1;
+      do {
+         final int errorCode = this.errorCode;
+         if (errorCode != -1) {
+            failTasks(errorCode, errorMessage);
+         }
 
-      if (storeOnlyTasks != null && !storeOnlyTasks.isEmpty()) {
          checkStoreTasks();
-      }
 
-      if (tasks != null && !tasks.isEmpty()) {
          checkRegularCompletion();
-      }
 
-      if (ignoreReplicationTasks != null && !ignoreReplicationTasks.isEmpty()) {
          checkIgnoreReplicationCompletion();
+
+         missed = CHECK_TASKS_UPDATER.addAndGet(this, -missed);
       }
+      while (missed != 0);
    }
 
    /**
@@ -388,18 +393,12 @@ public class OperationContextImpl implements OperationContext {
    }
 
    @Override
-   public synchronized void onError(final int errorCode, final String errorMessage) {
-      this.errorCode = errorCode;
+   public void onError(final int errorCode, final String errorMessage) {
+      // the message goes first, so whoever sees the error code also sees its message
       this.errorMessage = errorMessage;
+      this.errorCode = errorCode;
 
-      if (tasks != null) {
-         // it's saving the Iterator allocation cost
-         final int size = tasks.size();
-         for (int i = 0; i < size; i++) {
-            final TaskHolder holder = tasks.poll();
-            holder.task.onError(errorCode, errorMessage);
-         }
-      }
+      checkTasks();
    }
 
    static final class TaskHolder {
@@ -519,7 +518,7 @@ public class OperationContextImpl implements OperationContext {
    }
 
    @Override
-   public synchronized void reset() {
+   public void reset() {
       stored = 0;
       storeLineUpField = 0;
       replicated = 0;
@@ -530,12 +529,8 @@ public class OperationContextImpl implements OperationContext {
       errorMessage = null;
       executorsPendingField = 0;
 
-      if (tasks != null) {
-         tasks.clear();
-      }
+      tasks.clear();
 
-      if (storeOnlyTasks != null) {
-         storeOnlyTasks.clear();
-      }
+      storeOnlyTasks.clear();
    }
 }
\ No newline at end of file
@@ -186,6 +186,21 @@ public interface PostOffice extends ActiveMQComponent {
                        boolean rejectDuplicates,
                        Binding binding) throws Exception;
 
+   /**
+    * Routes {@code messages} in order, as {@link #route(Message, RoutingContext, boolean, boolean, Binding)} would one
+    * after the other, but resolving the settings and the bindings of their address once for the consecutive messages
+    * sent to the same address.
+    * <p>
+    * If {@code context} has no transaction the messages are routed in a single one, so that they're stored with a
+    * single commit: either all of them are routed, or none.
+    *
+    * @return the routing status of each message
+    */
+   List<RoutingStatus> route(List<? extends Message> messages,
+                             RoutingContext context,
+                             boolean direct,
+                             boolean rejectDuplicates) throws Exception;
+
    /**
     * This method was renamed as reload, use the new method instead
     * @param message
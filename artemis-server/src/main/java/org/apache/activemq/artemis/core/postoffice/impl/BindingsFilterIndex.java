@@ -0,0 +1,160 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.activemq.artemis.core.postoffice.impl;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import org.apache.activemq.artemis.api.core.Message;
+import org.apache.activemq.artemis.api.core.SimpleString;
+import org.apache.activemq.artemis.core.filter.Filter;
+import org.apache.activemq.artemis.core.filter.impl.FilterImpl;
+import org.apache.activemq.artemis.core.postoffice.Binding;
+
+/**
+ * An immutable index of the filters of some bindings, by the values their properties must have (see
+ * {@link Filter#getRequiredPropertyValues()}).
+ * <p>
+ * Each indexed filter is put in the buckets of one of its properties, one bucket per allowed value. While routing,
+ * the values of the indexed properties of the message select the buckets whose filters may match: any other indexed
+ * filter is known not to match, hence it isn't evaluated. The filters without required values are always evaluated.
+ * <p>
+ * The index is built for a version of the bindings and replaced when they change.
+ */
+final class BindingsFilterIndex {
+
+   private final int version;
+
+   // the position of each indexed filter in the candidates bits
+   private final IdentityHashMap<Filter, Integer> positions;
+
+   private final Map<SimpleString, Map<String, int[]>> buckets;
+
+   private BindingsFilterIndex(int version, IdentityHashMap<Filter, Integer> positions, Map<SimpleString, Map<String, int[]>> buckets) {
+      this.version = version;
+      this.positions = positions;
+      this.buckets = buckets;
+   }
+
+   int getVersion() {
+      return version;
+   }
+
+   /**
+    * The number of indexed filters.
+    */
+   int size() {
+      return positions.size();
+   }
+
+   /**
+    * Indexes the filters of {@code bindings}, or returns an empty index if less than {@code threshold} of them can be
+    * indexed.
+    */
+   static BindingsFilterIndex build(int version, Iterable<Binding> bindings, int threshold) {
+      final IdentityHashMap<Filter, Integer> positions = new IdentityHashMap<>();
+      final Map<SimpleString, Map<String, List<Integer>>> buckets = new HashMap<>();
+      for (Binding binding : bindings) {
+         final Filter filter = binding.getFilter();
+         if (filter == null || positions.containsKey(filter)) {
+            continue;
+         }
+         final Map<SimpleString, Set<String>> requiredValues = filter.getRequiredPropertyValues();
+         if (requiredValues.isEmpty()) {
+            continue;
+         }
+         // the most selective property
+         SimpleString property = null;
+         Set<String> values = null;
+         for (Map.Entry<SimpleString, Set<String>> entry : requiredValues.entrySet()) {
+            if (values == null || entry.getValue().size() < values.size()) {
+               property = entry.getKey();
+               values = entry.getValue();
+            }
+         }
+         final int position = positions.size();
+         positions.put(filter, position);
+         final Map<String, List<Integer>> propertyBuckets = buckets.computeIfAbsent(property, p -> new HashMap<>());
+         for (String value : values) {
+            propertyBuckets.computeIfAbsent(value, v -> new ArrayList<>()).add(position);
+         }
+      }
+      if (positions.isEmpty() || positions.size() < threshold) {
+         return new BindingsFilterIndex(version, new IdentityHashMap<>(), new HashMap<>());
+      }
+      final Map<SimpleString, Map<String, int[]>> indexBuckets = new HashMap<>(buckets.size());
+      buckets.forEach((property, propertyBuckets) -> {
+         final Map<String, int[]> indexPropertyBuckets = new HashMap<>(propertyBuckets.size());
+         propertyBuckets.forEach((value, filters) -> indexPropertyBuckets.put(value, filters.stream().mapToInt(Integer::intValue).toArray()));
+         indexBuckets.put(property, indexPropertyBuckets);
+      });
+      return new BindingsFilterIndex(version, positions, indexBuckets);
+   }
+
+   /**
+    * The indexed filters {@code message} may match, or {@code null} if nothing is indexed.
+    */
+   Candidates candidates(Message message) {
+      if (positions.isEmpty()) {
+         return null;
+      }
+      final long[] bits = new long[(positions.size() + Long.SIZE - 1) / Long.SIZE];
+      for (Map.Entry<SimpleString, Map<String, int[]>> entry : buckets.entrySet()) {
+         final Object value;
+         try {
+            value = FilterImpl.getPropertyValue(message, entry.getKey());
+         } catch (RuntimeException e) {
+            // let the filters deal with it
+            return null;
+         }
+         // the filters only match strings
+         if (value instanceof String) {
+            final int[] filters = entry.getValue().get(value);
+            if (filters != null) {
+               for (int position : filters) {
+                  bits[position >>> 6] |= 1L << position;
+               }
+            }
+         }
+      }
+      return new Candidates(bits);
+   }
+
+   final class Candidates {
+
+      private final long[] bits;
+
+      private Candidates(long[] bits) {
+         this.bits = bits;
+      }
+
+      /**
+       * {@code true} if {@code filter} is known not to match the message, {@code false} if it has to be evaluated.
+       */
+      boolean excludes(Filter filter) {
+         final Integer position = positions.get(filter);
+         if (position == null) {
+            return false;
+         }
+         return (bits[position >>> 6] & (1L << position)) == 0;
+      }
+   }
+}
@@ -94,6 +94,16 @@ public final class BindingsImpl implements Bindings {
 
    private volatile boolean hasLocal;
 
+   public static final String FILTER_INDEX_THRESHOLD_PROPERTY_NAME = "org.apache.activemq.artemis.core.postoffice.filterIndexThreshold";
+
+   // the least number of filters with required property values to index them while routing: negative to disable it
+   private static final int DEFAULT_FILTER_INDEX_THRESHOLD = Integer.getInteger(FILTER_INDEX_THRESHOLD_PROPERTY_NAME, 32);
+
+   private volatile int filterIndexThreshold = DEFAULT_FILTER_INDEX_THRESHOLD;
+
+   // rebuilt on routing once the bindings changed
+   private volatile BindingsFilterIndex filterIndex;
+
    public BindingsImpl(final SimpleString name, final GroupingHandler groupingHandler, StorageManager storageManager) {
       this.groupingHandler = groupingHandler;
       this.storageManager = storageManager;
@@ -224,6 +234,31 @@ public final class BindingsImpl implements Bindings {
    }
 
 
+   /**
+    * Sets the least number of filters with required property values (e.g. {@code region = 'EU'}) for the bindings to
+    * index them, so that routing only evaluates the filters which may match. A negative value disables the index.
+    */
+   public void setFilterIndexThreshold(int filterIndexThreshold) {
+      this.filterIndexThreshold = filterIndexThreshold;
+      this.filterIndex = null;
+   }
+
+   /**
+    * The indexed filters which may match {@code message}, or {@code null} if the filters aren't indexed.
+    */
+   private BindingsFilterIndex.Candidates filterCandidates(final Message message, final int currentVersion) {
+      final int threshold = filterIndexThreshold;
+      if (threshold < 0) {
+         return null;
+      }
+      BindingsFilterIndex index = filterIndex;
+      if (index == null || index.getVersion() != currentVersion) {
+         index = BindingsFilterIndex.build(currentVersion, bindingsNameMap.values(), threshold);
+         filterIndex = index;
+      }
+      return index.candidates(message);
+   }
+
    @Override
    public Message redistribute(final Message message,
                                final Queue originatingQueue,
@@ -407,8 +442,10 @@ public final class BindingsImpl implements Bindings {
          logger.trace("Routing message {} on binding={} current context::{}", message, this, context);
       }
 
+      final BindingsFilterIndex.Candidates candidates = filterCandidates(message, currentVersion);
+
       routingNameBindingMap.forEachBindings((bindings, nextPosition) -> {
-         final Binding nextBinding = getNextBinding(message, bindings, nextPosition, getMessageLoadBalancingType(context));
+         final Binding nextBinding = getNextBinding(message, bindings, nextPosition, getMessageLoadBalancingType(context), candidates);
          if (nextBinding != null && nextBinding.getFilter() == null && nextBinding.isLocal() && bindings.length == 1) {
             context.setReusable(true, currentVersion);
          } else {
@@ -440,7 +477,8 @@ public final class BindingsImpl implements Bindings {
    private Binding getNextBinding(final Message message,
                                   final Binding[] bindings,
                                   final CopyOnWriteBindings.BindingIndex bindingIndex,
-                                  final MessageLoadBalancingType loadBalancingType) {
+                                  final MessageLoadBalancingType loadBalancingType,
+                                  final BindingsFilterIndex.Candidates candidates) {
       int nextPosition = bindingIndex.getIndex();
 
       final int bindingsCount = bindings.length;
@@ -454,7 +492,7 @@ public final class BindingsImpl implements Bindings {
 
       for (int i = 0; i < bindingsCount; i++) {
          final Binding binding = bindings[nextPosition];
-         if (matchBinding(message, binding, loadBalancingType)) {
+         if (matchBinding(message, binding, loadBalancingType, candidates)) {
             // bindings.length == 1 ==> only a local queue so we don't check for matching consumers (it's an
             // unnecessary overhead)
             if (bindingsCount == 1 || (binding.isConnected() && (loadBalancingType.equals(MessageLoadBalancingType.STRICT) || binding.isHighAcceptPriority(message)))) {
@@ -485,7 +523,8 @@ public final class BindingsImpl implements Bindings {
 
    private static boolean matchBinding(final Message message,
                                        final Binding binding,
-                                       final MessageLoadBalancingType loadBalancingType) {
+                                       final MessageLoadBalancingType loadBalancingType,
+                                       final BindingsFilterIndex.Candidates candidates) {
       if (loadBalancingType.equals(MessageLoadBalancingType.OFF) || loadBalancingType.equals(MessageLoadBalancingType.OFF_WITH_REDISTRIBUTION)) {
          if (!Objects.equals(message.getRoutingType(), RoutingType.MULTICAST) && binding instanceof RemoteQueueBinding) {
             return false;
@@ -498,10 +537,13 @@ public final class BindingsImpl implements Bindings {
 
       final Filter filter = binding.getFilter();
 
-      if (filter == null || filter.match(message)) {
+      if (filter == null) {
          return true;
       }
-      return false;
+      if (candidates != null && candidates.excludes(filter)) {
+         return false;
+      }
+      return filter.match(message);
    }
 
    private void routeUsingStrictOrdering(final Message message,
@@ -520,7 +562,7 @@ public final class BindingsImpl implements Bindings {
 
          if (resp == null) {
             // ok let's find the next binding to propose
-            Binding theBinding = getNextBinding(message, bindings, nextPosition, getMessageLoadBalancingType(context));
+            Binding theBinding = getNextBinding(message, bindings, nextPosition, getMessageLoadBalancingType(context), null);
             if (theBinding == null) {
                return;
             }
@@ -0,0 +1,585 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.activemq.artemis.core.postoffice.impl;
+
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.nio.ByteOrder;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.locks.StampedLock;
+
+import org.apache.activemq.artemis.api.core.ActiveMQDuplicateIdException;
+import org.apache.activemq.artemis.api.core.Pair;
+import org.apache.activemq.artemis.api.core.SimpleString;
+import org.apache.activemq.artemis.core.persistence.StorageManager;
+import org.apache.activemq.artemis.core.postoffice.DuplicateIDCache;
+import org.apache.activemq.artemis.core.server.ActiveMQServerLogger;
+import org.apache.activemq.artemis.core.server.MessageReference;
+import org.apache.activemq.artemis.core.transaction.Transaction;
+import org.apache.activemq.artemis.core.transaction.TransactionOperationAbstract;
+import org.apache.activemq.artemis.utils.ByteUtil;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import static org.apache.activemq.artemis.api.core.ObjLongPair.NIL;
+
+/**
+ * {@link DuplicateIDCache} keeping its entries in a few primitive arrays instead of a {@code ConcurrentHashMap} and a
+ * ring of wrapper objects.<br>
+ * The ids are kept in a FIFO ring, as {@link InMemoryDuplicateIDCache} and {@link PersistentDuplicateIDCache} do, next
+ * to a {@code long[]} slab with the 128-bit fingerprint (and the record ID, if persisted) of each ring position. They
+ * are indexed by an open addressing table of ring positions: a lookup compares fingerprints only and touches the id
+ * bytes just to confirm a match. Lookups don't take any lock, unless they race with a writer.<br>
+ * The arrays grow with the cache, up to its size. A {@code null} {@link StorageManager} means that the ids aren't
+ * persisted: no record IDs are kept and no storage operations happen.
+ */
+final class CompactDuplicateIDCache implements DuplicateIDCache {
+
+   private static final Logger logger = LoggerFactory.getLogger(MethodHandles.lookup().lookupClass());
+
+   private static final VarHandle LONG_VIEW = MethodHandles.byteArrayViewVarHandle(long[].class, ByteOrder.LITTLE_ENDIAN);
+
+   private static final int INITIAL_CAPACITY = 64;
+
+   private static final long HIGH_SEED = 0x9E3779B97F4A7C15L;
+
+   private static final long LOW_SEED = 0xC2B2AE3D27D4EB4FL;
+
+   private final SimpleString address;
+
+   private final int cacheSize;
+
+   private final StorageManager storageManager;
+
+   // writers are serialized by the monitor of the cache: the lock just let the lock-free readers validate what they read
+   private final StampedLock lock = new StampedLock();
+
+   // ring of the ids: an entry is null if never used or explicitly deleted
+   private byte[][] ids;
+
+   // fingerprint of ids[i] is (fingerprints[2 * i], fingerprints[2 * i + 1])
+   private long[] fingerprints;
+
+   // record ID of ids[i], null if the ids aren't persisted
+   private long[] recordIDs;
+
+   // linear probing table of (ring position + 1), 0 being an empty slot: it's kept at least twice the ring capacity
+   private int[] index;
+
+   private int indexed;
+
+   private int used;
+
+   private int pos;
+
+   CompactDuplicateIDCache(final SimpleString address, final int size, final StorageManager storageManager) {
+      if (size <= 0) {
+         throw new IllegalArgumentException("size must be > 0");
+      }
+      this.address = address;
+
+      cacheSize = size;
+
+      this.storageManager = storageManager;
+
+      reset();
+   }
+
+   private void reset() {
+      final int capacity = Math.min(cacheSize, INITIAL_CAPACITY);
+      ids = new byte[capacity][];
+      fingerprints = new long[capacity * 2];
+      recordIDs = storageManager == null ? null : new long[capacity];
+      index = new int[indexLength(capacity)];
+      indexed = 0;
+      used = 0;
+      pos = 0;
+   }
+
+   private static int indexLength(final int capacity) {
+      return Integer.highestOneBit(capacity * 2 - 1) << 1;
+   }
+
+   private static long fingerprint(final byte[] bytes, final long seed) {
+      // a single lane of MurmurHash3 x64: 2 lanes with different seeds give the 128-bit fingerprint
+      final int length = bytes.length;
+      long h = seed;
+      int i = 0;
+      for (final int blocks = length & ~7; i < blocks; i += 8) {
+         h ^= mixK((long) LONG_VIEW.get(bytes, i));
+         h = Long.rotateLeft(h, 27) * 5 + 0x52dce729;
+      }
+      if (i < length) {
+         final long k;
+         if (length >= Long.BYTES) {
+            // the last 8 bytes, overlapping the last block, save a loop over the remaining ones
+            k = (long) LONG_VIEW.get(bytes, length - Long.BYTES);
+         } else {
+            long tail = 0;
+            for (int shift = 0; i < length; i++, shift += 8) {
+               tail |= (bytes[i] & 0xFFL) << shift;
+            }
+            k = tail;
+         }
+         h ^= mixK(k);
+      }
+      return fmix(h ^ length);
+   }
+
+   private static long mixK(long k) {
+      k *= 0x87c37b91114253d5L;
+      k = Long.rotateLeft(k, 31);
+      return k * 0x4cf5ad432745937fL;
+   }
+
+   private static long fmix(long h) {
+      h ^= h >>> 33;
+      h *= 0xff51afd7ed558ccdL;
+      h ^= h >>> 33;
+      h *= 0xc4ceb9fe1a85ec53L;
+      return h ^ (h >>> 33);
+   }
+
+   /**
+    * Returns the slot of {@code index} pointing to {@code duplID} or {@code -1} if not found.<br>
+    * The low half of the fingerprint is computed only if the high one matches, ie almost never for missing ids.<br>
+    * It can be called without holding any lock: it doesn't fail on inconsistent reads, whose results are discarded
+    * by the caller.
+    */
+   private int find(final byte[] duplID, final long high) {
+      final int[] index = this.index;
+      final long[] fingerprints = this.fingerprints;
+      final byte[][] ids = this.ids;
+      final int mask = index.length - 1;
+      int slot = (int) high & mask;
+      boolean hasLow = false;
+      long low = 0;
+      for (int probes = 0; probes <= mask; probes++) {
+         final int entry = index[slot];
+         if (entry == 0) {
+            return -1;
+         }
+         final int position = entry - 1;
+         if (position < ids.length && 2 * position + 1 < fingerprints.length && fingerprints[2 * position] == high) {
+            if (!hasLow) {
+               low = fingerprint(duplID, LOW_SEED);
+               hasLow = true;
+            }
+            if (fingerprints[2 * position + 1] == low && Arrays.equals(ids[position], duplID)) {
+               return slot;
+            }
+         }
+         slot = (slot + 1) & mask;
+      }
+      return -1;
+   }
+
+   private int slotOf(final int position) {
+      final int[] index = this.index;
+      final int mask = index.length - 1;
+      final int entry = position + 1;
+      int slot = (int) fingerprints[2 * position] & mask;
+      while (index[slot] != 0) {
+         if (index[slot] == entry) {
+            return slot;
+         }
+         slot = (slot + 1) & mask;
+      }
+      return -1;
+   }
+
+   private static void insert(final int[] index, final long high, final int position) {
+      final int mask = index.length - 1;
+      int slot = (int) high & mask;
+      while (index[slot] != 0) {
+         slot = (slot + 1) & mask;
+      }
+      index[slot] = position + 1;
+   }
+
+   private void unindex(final int slot) {
+      // backward shift deletion: no tombstones are left behind
+      final int[] index = this.index;
+      final int mask = index.length - 1;
+      int hole = slot;
+      int next = (hole + 1) & mask;
+      int entry;
+      while ((entry = index[next]) != 0) {
+         final int home = (int) fingerprints[2 * (entry - 1)] & mask;
+         if (((next - home) & mask) >= ((next - hole) & mask)) {
+            index[hole] = entry;
+            hole = next;
+         }
+         next = (next + 1) & mask;
+      }
+      index[hole] = 0;
+      indexed--;
+   }
+
+   private void grow() {
+      final int capacity = Math.min(cacheSize, ids.length * 2);
+      ids = Arrays.copyOf(ids, capacity);
+      fingerprints = Arrays.copyOf(fingerprints, capacity * 2);
+      if (recordIDs != null) {
+         recordIDs = Arrays.copyOf(recordIDs, capacity);
+      }
+      final int[] oldIndex = index;
+      final int[] newIndex = new int[indexLength(capacity)];
+      for (int entry : oldIndex) {
+         if (entry != 0) {
+            insert(newIndex, fingerprints[2 * (entry - 1)], entry - 1);
+         }
+      }
+      index = newIndex;
+   }
+
+   @Override
+   public synchronized void load(final List<Pair<byte[], Long>> ids) throws Exception {
+      if (storageManager == null) {
+         logger.debug("address = {} ignore loading ids: in memory cache won't load previously stored ids", address);
+         return;
+      }
+      if (indexed != 0) {
+         throw new IllegalStateException("load is valid only on empty cache");
+      }
+      // load only ids that fit this cache:
+      // - in term of remaining capacity
+      // - ignoring (and reporting) ids unpaired with record ID
+      // Then, delete the exceeding ones.
+
+      long txID = -1;
+
+      int toNotBeAdded = ids.size() - cacheSize;
+      if (toNotBeAdded < 0) {
+         toNotBeAdded = 0;
+      }
+
+      for (Pair<byte[], Long> id : ids) {
+         if (id.getB() == null) {
+            if (logger.isTraceEnabled()) {
+               logger.trace("ignoring id = {} because without record ID", describeID(id.getA()));
+            }
+            if (toNotBeAdded > 0) {
+               toNotBeAdded--;
+            }
+            continue;
+         }
+         assert id.getB() != null && id.getB().longValue() != NIL;
+         if (toNotBeAdded > 0) {
+            if (txID == -1) {
+               txID = storageManager.generateID();
+            }
+            if (logger.isTraceEnabled()) {
+               logger.trace("deleting id = {}", describeID(id.getA(), id.getB()));
+            }
+
+            storageManager.deleteDuplicateIDTransactional(txID, id.getB());
+            toNotBeAdded--;
+         } else {
+            if (logger.isTraceEnabled()) {
+               logger.trace("loading id = {}", describeID(id.getA(), id.getB()));
+            }
+            addToCacheInMemory(id.getA(), id.getB());
+         }
+      }
+
+      if (txID != -1) {
+         storageManager.commit(txID);
+      }
+   }
+
+   @Override
+   public synchronized void deleteFromCache(final byte[] duplicateID) throws Exception {
+      if (logger.isTraceEnabled()) {
+         logger.trace("deleting id = {}", describeID(duplicateID));
+      }
+
+      final long high = fingerprint(duplicateID, HIGH_SEED);
+      final long recordID;
+      final long stamp = lock.writeLock();
+      try {
+         final int slot = find(duplicateID, high);
+         if (slot < 0) {
+            return;
+         }
+         final int position = index[slot] - 1;
+         unindex(slot);
+         ids[position] = null;
+         if (recordIDs != null) {
+            recordID = recordIDs[position];
+            recordIDs[position] = NIL;
+         } else {
+            recordID = NIL;
+         }
+      } finally {
+         lock.unlockWrite(stamp);
+      }
+
+      if (logger.isTraceEnabled()) {
+         logger.trace("address = {} deleting id = {}", address, describeID(duplicateID, recordID));
+      }
+      if (storageManager != null) {
+         storageManager.deleteDuplicateID(recordID);
+      }
+   }
+
+   private static String describeID(byte[] duplicateID) {
+      return ByteUtil.bytesToHex(duplicateID, 4) + ", simpleString=" + ByteUtil.toSimpleString(duplicateID);
+   }
+
+   private static String describeID(byte[] duplicateID, long id) {
+      return ByteUtil.bytesToHex(duplicateID, 4) + ", simpleString=" + ByteUtil.toSimpleString(duplicateID) + ", id=" + id;
+   }
+
+   @Override
+   public boolean contains(final byte[] duplID) {
+      final long high = fingerprint(duplID, HIGH_SEED);
+      long stamp = lock.tryOptimisticRead();
+      boolean contains = stamp != 0 && find(duplID, high) >= 0;
+      if (stamp == 0 || !lock.validate(stamp)) {
+         stamp = lock.readLock();
+         try {
+            contains = find(duplID, high) >= 0;
+         } finally {
+            lock.unlockRead(stamp);
+         }
+      }
+
+      if (contains) {
+         if (logger.isTraceEnabled()) {
+            logger.trace("address = {} found a duplicate {}", address, describeID(duplID));
+         }
+      }
+      return contains;
+   }
+
+   @Override
+   public void addToCache(final byte[] duplID) throws Exception {
+      addToCache(duplID, null, false);
+   }
+
+   @Override
+   public void addToCache(final byte[] duplID, final Transaction tx) throws Exception {
+      addToCache(duplID, tx, false);
+   }
+
+   @Override
+   public synchronized boolean atomicVerify(final byte[] duplID, final Transaction tx) throws Exception {
+      if (contains(duplID)) {
+         if (tx != null) {
+            tx.markAsRollbackOnly(new ActiveMQDuplicateIdException());
+         }
+         return false;
+      }
+      addToCache(duplID, tx, true);
+      return true;
+   }
+
+   @Override
+   public synchronized void addToCache(final byte[] duplID, final Transaction tx, boolean instantAdd) throws Exception {
+      final long recordID;
+      if (storageManager == null) {
+         recordID = NIL;
+      } else {
+         recordID = storageManager.generateID();
+         if (tx == null) {
+            storageManager.storeDuplicateID(address, duplID, recordID);
+         } else {
+            storageManager.storeDuplicateIDTransactional(tx.getID(), address, duplID, recordID);
+
+            tx.setContainsPersistent();
+         }
+      }
+      if (tx == null) {
+         addToCacheInMemory(duplID, recordID);
+      } else {
+         if (logger.isTraceEnabled()) {
+            logger.trace("address = {} adding duplicateID TX operation for {}, tx = {}", address,
+                          describeID(duplID, recordID), tx);
+         }
+
+         if (instantAdd) {
+            addToCacheInMemory(duplID, recordID);
+            tx.addOperation(new AddDuplicateIDOperation(duplID, recordID, false));
+         } else {
+            // For a tx, it's important that the entry is not added to the cache until commit
+            // since if the client fails then resends them tx we don't want it to get rejected
+            tx.afterStore(new AddDuplicateIDOperation(duplID, recordID, true));
+         }
+      }
+   }
+
+   @Override
+   public void load(final Transaction tx, final byte[] duplID) {
+      tx.addOperation(new AddDuplicateIDOperation(duplID, storageManager == null ? NIL : tx.getID(), true));
+   }
+
+   private synchronized void addToCacheInMemory(final byte[] duplID, final long recordID) {
+      Objects.requireNonNull(duplID, "duplID must be not null");
+      if (storageManager != null && recordID < 0) {
+         throw new IllegalArgumentException("recordID must be >= 0");
+      }
+      if (logger.isTraceEnabled()) {
+         logger.trace("address = {} adding {}", address, describeID(duplID, recordID));
+      }
+
+      final long high = fingerprint(duplID, HIGH_SEED);
+      final long low = fingerprint(duplID, LOW_SEED);
+      final byte[] evicted;
+      final long evictedRecordID;
+      final long stamp = lock.writeLock();
+      try {
+         if (pos == ids.length) {
+            grow();
+         }
+         // The id here might be null if it was explicit deleted
+         evicted = ids[pos];
+         if (evicted != null) {
+            // the evicted id could have been added again later: its index slot would point to the newer position
+            final int evictedSlot = slotOf(pos);
+            if (evictedSlot >= 0) {
+               unindex(evictedSlot);
+            }
+            evictedRecordID = recordIDs == null ? NIL : recordIDs[pos];
+         } else {
+            evictedRecordID = NIL;
+         }
+         final int slot = find(duplID, high);
+         ids[pos] = duplID;
+         fingerprints[2 * pos] = high;
+         fingerprints[2 * pos + 1] = low;
+         if (recordIDs != null) {
+            recordIDs[pos] = recordID;
+         }
+         if (slot >= 0) {
+            index[slot] = pos + 1;
+         } else {
+            insert(index, high, pos);
+            indexed++;
+         }
+         if (pos == used) {
+            used++;
+         }
+         if (pos++ == cacheSize - 1) {
+            pos = 0;
+         }
+      } finally {
+         lock.unlockWrite(stamp);
+      }
+
+      if (evicted != null) {
+         if (logger.isTraceEnabled()) {
+            logger.trace("address = {} removing excess duplicateDetection {}", address, describeID(evicted, evictedRecordID));
+         }
+         if (storageManager != null) {
+            assert evictedRecordID != NIL;
+            try {
+               storageManager.deleteDuplicateID(evictedRecordID);
+            } catch (Exception e) {
+               ActiveMQServerLogger.LOGGER.errorDeletingDuplicateCache(e);
+            }
+         }
+      }
+   }
+
+   @Override
+   public synchronized void clear() throws Exception {
+      logger.debug("address = {} removing duplicate ID data", address);
+      if (storageManager != null && indexed > 0) {
+         long tx = storageManager.generateID();
+         for (int i = 0; i < used; i++) {
+            if (ids[i] != null) {
+               assert recordIDs[i] != NIL;
+               storageManager.deleteDuplicateIDTransactional(tx, recordIDs[i]);
+            }
+         }
+         storageManager.commit(tx);
+      }
+
+      final long stamp = lock.writeLock();
+      try {
+         reset();
+      } finally {
+         lock.unlockWrite(stamp);
+      }
+   }
+
+   @Override
+   public synchronized List<Pair<byte[], Long>> getMap() {
+      List<Pair<byte[], Long>> copy = new ArrayList<>(used);
+      for (int i = 0; i < used; i++) {
+         final byte[] id = ids[i];
+         // in case the id has been removed
+         if (id != null) {
+            copy.add(new Pair<>(id, recordIDs == null ? null : recordIDs[i]));
+         }
+      }
+      return copy;
+   }
+
+   private final class AddDuplicateIDOperation extends TransactionOperationAbstract {
+
+      final byte[] duplID;
+
+      final long recordID;
+
+      volatile boolean done;
+
+      private final boolean afterCommit;
+
+      AddDuplicateIDOperation(final byte[] duplID, final long recordID, boolean afterCommit) {
+         this.duplID = duplID;
+         this.recordID = recordID;
+         this.afterCommit = afterCommit;
+      }
+
+      private void process() {
+         if (!done) {
+            addToCacheInMemory(duplID, recordID);
+
+            done = true;
+         }
+      }
+
+      @Override
+      public void afterCommit(final Transaction tx) {
+         if (afterCommit) {
+            process();
+         }
+      }
+
+      @Override
+      public void beforeRollback(Transaction tx) throws Exception {
+         if (!afterCommit) {
+            deleteFromCache(duplID);
+         }
+      }
+
+      @Override
+      public List<MessageReference> getRelatedMessageReferences() {
+         return null;
+      }
+   }
+
+   @Override
+   public int getSize() {
+      return cacheSize;
+   }
+}
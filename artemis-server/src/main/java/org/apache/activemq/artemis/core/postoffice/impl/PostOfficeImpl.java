@@ -150,6 +150,8 @@ public class PostOfficeImpl implements PostOffice, NotificationListener, Binding
 
    private final boolean persistIDCache;
 
+   private final boolean compactIDCache;
+
    private final Map<SimpleString, QueueInfo> queueInfos = new HashMap<>();
 
    private final Object notificationLock = new Object();
@@ -170,6 +172,7 @@ public class PostOfficeImpl implements PostOffice, NotificationListener, Binding
                          final WildcardConfiguration wildcardConfiguration,
                          final int idCacheSize,
                          final boolean persistIDCache,
+                         final boolean compactIDCache,
                          final HierarchicalRepository<AddressSettings> addressSettingsRepository) {
       this.storageManager = storageManager;
 
@@ -193,6 +196,8 @@ public class PostOfficeImpl implements PostOffice, NotificationListener, Binding
 
       this.persistIDCache = persistIDCache;
 
+      this.compactIDCache = compactIDCache;
+
       this.addressSettingsRepository = addressSettingsRepository;
 
       this.server = server;
@@ -1132,7 +1137,7 @@ public class PostOfficeImpl implements PostOffice, NotificationListener, Binding
    public RoutingStatus route(final Message message,
                               final RoutingContext context,
                               final boolean direct) throws Exception {
-      return route(message, context, direct, true, null, false);
+      return route(message, context, direct, true, null, false, null);
    }
 
    @Override
@@ -1142,7 +1147,86 @@ public class PostOfficeImpl implements PostOffice, NotificationListener, Binding
                               boolean rejectDuplicates,
                               final Binding bindingMove) throws Exception {
 
-      return route(message, context, direct, rejectDuplicates, bindingMove, false);
+      return route(message, context, direct, rejectDuplicates, bindingMove, false, null);
+   }
+
+   @Override
+   public List<RoutingStatus> route(final List<? extends Message> messages,
+                                    final RoutingContext context,
+                                    final boolean direct,
+                                    final boolean rejectDuplicates) throws Exception {
+      final List<RoutingStatus> statuses = new ArrayList<>(messages.size());
+      if (messages.isEmpty()) {
+         return statuses;
+      }
+      // a single commit for all the messages
+      final Transaction tx = context.getTransaction() == null && messages.size() > 1 ? new TransactionImpl(storageManager) : null;
+      final boolean addressPerMessage = context.getAddress() == null;
+      final RouteBatch batch = new RouteBatch(tx != null);
+      if (tx != null) {
+         context.setTransaction(tx);
+      }
+      try {
+         for (Message message : messages) {
+            if (addressPerMessage) {
+               // the context is cleared if the address changes, else its routes can be reused
+               context.setAddress(message.getAddressSimpleString());
+            }
+            statuses.add(route(message, context, direct, rejectDuplicates, null, false, batch));
+            if (!context.isReusable()) {
+               context.clear();
+            }
+         }
+      } catch (Exception e) {
+         if (tx != null) {
+            tx.rollback();
+         }
+         throw e;
+      } finally {
+         if (tx != null) {
+            context.setTransaction(null);
+         }
+         if (addressPerMessage) {
+            context.setAddress(null);
+         }
+      }
+      if (tx != null) {
+         tx.commit();
+      }
+      return statuses;
+   }
+
+   /**
+    * The lookups of the last address routed to by a batch, shared by the next messages sent to the same address.
+    */
+   private static final class RouteBatch {
+
+      private SimpleString address;
+
+      private AddressSettings settings;
+
+      private AddressInfo addressInfo;
+
+      // the duplicate IDs routed by the transaction started by the batch, which are only added to the caches on commit
+      private final Map<SimpleString, Set<ByteArray>> duplicateIDs;
+
+      private RouteBatch(boolean startedTX) {
+         duplicateIDs = startedTX ? new HashMap<>() : null;
+      }
+
+      private boolean containsDuplicateID(SimpleString address, byte[] duplicateIDBytes) {
+         if (duplicateIDs == null) {
+            return false;
+         }
+         final Set<ByteArray> addressDuplicateIDs = duplicateIDs.get(address);
+         return addressDuplicateIDs != null && addressDuplicateIDs.contains(new ByteArray(duplicateIDBytes));
+      }
+
+      private void addDuplicateID(SimpleString address, byte[] duplicateIDBytes) {
+         if (duplicateIDs != null) {
+            duplicateIDs.computeIfAbsent(address, k -> new HashSet<>()).add(new ByteArray(duplicateIDBytes));
+         }
+      }
    }
 
 
@@ -1155,7 +1239,8 @@ public class PostOfficeImpl implements PostOffice, NotificationListener, Binding
                                final boolean direct,
                                final boolean rejectDuplicates,
                                final Binding bindingMove,
-                               final boolean sendToDLA) throws Exception {
+                               final boolean sendToDLA,
+                               final RouteBatch batch) throws Exception {
 
       // Sanity check
       if (message.getRefCount() > 0) {
@@ -1163,14 +1248,15 @@ public class PostOfficeImpl implements PostOffice, NotificationListener, Binding
       }
 
       final SimpleString address = context.getAddress(message);
-      final AddressSettings settings = addressSettingsRepository.getMatch(address.toString());
+      final boolean sameAddress = batch != null && address.equals(batch.address);
+      final AddressSettings settings = sameAddress ? batch.settings : addressSettingsRepository.getMatch(address.toString());
       if (settings != null) {
          applyExpiryDelay(message, settings);
       }
 
       final boolean startedTX;
       if (context.isDuplicateDetection()) {
-         final DuplicateCheckResult duplicateCheckResult = checkDuplicateID(message, context, rejectDuplicates);
+         final DuplicateCheckResult duplicateCheckResult = checkDuplicateID(message, context, rejectDuplicates, batch);
          switch (duplicateCheckResult) {
 
             case DuplicateNotStartedTX:
@@ -1193,7 +1279,12 @@ public class PostOfficeImpl implements PostOffice, NotificationListener, Binding
       }
       message.clearInternalProperties();
       Bindings bindings;
-      final AddressInfo addressInfo = checkAddress(context, address);
+      final AddressInfo addressInfo = sameAddress && batch.addressInfo != null ? batch.addressInfo : checkAddress(context, address);
+      if (batch != null) {
+         batch.address = address;
+         batch.settings = settings;
+         batch.addressInfo = addressInfo;
+      }
 
       final RoutingStatus status;
       if (bindingMove != null) {
@@ -1341,7 +1432,7 @@ public class PostOfficeImpl implements PostOffice, NotificationListener, Binding
 
             message.reencode();
 
-            route(message, new RoutingContextImpl(context.getTransaction()), false, true, null, true);
+            route(message, new RoutingContextImpl(context.getTransaction()), false, true, null, true, null);
             status = RoutingStatus.NO_BINDINGS_DLA;
          }
       } else {
@@ -1475,9 +1566,9 @@ public class PostOfficeImpl implements PostOffice, NotificationListener, Binding
             if (allowRegistration) {
                registerCacheSize(address, cacheSizeToUse);
             }
-            cache = DuplicateIDCaches.persistent(address, cacheSizeToUse, storageManager);
+            cache = DuplicateIDCaches.persistent(address, cacheSizeToUse, storageManager, compactIDCache);
          } else {
-            cache = DuplicateIDCaches.inMemory(address, cacheSizeToUse);
+            cache = DuplicateIDCaches.inMemory(address, cacheSizeToUse, compactIDCache);
          }
 
          DuplicateIDCache oldCache = duplicateIDCaches.putIfAbsent(address, cache);
@@ -1850,7 +1941,8 @@ public class PostOfficeImpl implements PostOffice, NotificationListener, Binding
 
    private DuplicateCheckResult checkDuplicateID(final Message message,
                                                  final RoutingContext context,
-                                                 final boolean rejectDuplicates) throws Exception {
+                                                 final boolean rejectDuplicates,
+                                                 final RouteBatch batch) throws Exception {
       // Check the DuplicateCache for the Bridge first
       final Object bridgeDup = message.removeExtraBytesProperty(Message.HDR_BRIDGE_DUPLICATE_ID);
       if (bridgeDup != null) {
@@ -1862,16 +1954,18 @@ public class PostOfficeImpl implements PostOffice, NotificationListener, Binding
       if (duplicateIDBytes == null) {
          return DuplicateCheckResult.NoDuplicateNotStartedTX;
       }
-      return checkNotBridgeDuplicateID(message, context, rejectDuplicates, duplicateIDBytes);
+      return checkNotBridgeDuplicateID(message, context, rejectDuplicates, duplicateIDBytes, batch);
    }
 
    private DuplicateCheckResult checkNotBridgeDuplicateID(final Message message,
                                                           final RoutingContext context,
                                                           final boolean rejectDuplicates,
-                                                          final byte[] duplicateIDBytes) throws Exception {
+                                                          final byte[] duplicateIDBytes,
+                                                          final RouteBatch batch) throws Exception {
       assert duplicateIDBytes != null && Arrays.equals(message.getDuplicateIDBytes(), duplicateIDBytes);
-      final DuplicateIDCache cache = getDuplicateIDCache(context.getAddress(message));
-      final boolean isDuplicate = cache.contains(duplicateIDBytes);
+      final SimpleString address = context.getAddress(message);
+      final DuplicateIDCache cache = getDuplicateIDCache(address);
+      final boolean isDuplicate = cache.contains(duplicateIDBytes) || batch != null && batch.containsDuplicateID(address, duplicateIDBytes);
       if (rejectDuplicates && isDuplicate) {
          ActiveMQServerLogger.LOGGER.duplicateMessageDetected(message);
          if (context.getTransaction() != null) {
@@ -1894,6 +1988,9 @@ public class PostOfficeImpl implements PostOffice, NotificationListener, Binding
          startedTX = false;
       }
       cache.addToCache(duplicateIDBytes, context.getTransaction(), startedTX);
+      if (batch != null) {
+         batch.addDuplicateID(address, duplicateIDBytes);
+      }
       return startedTX ? DuplicateCheckResult.NoDuplicateStartedTX : DuplicateCheckResult.NoDuplicateNotStartedTX;
    }
 
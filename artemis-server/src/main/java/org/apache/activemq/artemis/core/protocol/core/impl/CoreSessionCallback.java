@@ -16,6 +16,8 @@
  */
 package org.apache.activemq.artemis.core.protocol.core.impl;
 
+import java.io.File;
+
 import org.apache.activemq.artemis.api.core.SimpleString;
 import org.apache.activemq.artemis.core.persistence.CoreMessageObjectPools;
 import org.apache.activemq.artemis.core.protocol.core.Channel;
@@ -111,6 +113,22 @@ public final class CoreSessionCallback implements SessionCallback {
       return packet.getPacketSize();
    }
 
+   @Override
+   public int sendLargeMessageContinuation(ServerConsumer consumer,
+                                           File file,
+                                           long position,
+                                           int count,
+                                           boolean continues,
+                                           Runnable onSent) {
+      SessionReceiveContinuationMessage packet = new SessionReceiveContinuationMessage(consumer.getID(), null, continues, false);
+
+      if (!channel.sendFileRegion(packet, file, position, count, onSent == null ? null : future -> onSent.run())) {
+         return -1;
+      }
+
+      return packet.getPacketSize();
+   }
+
    @Override
    public int sendMessage(MessageReference ref, ServerConsumer consumer, int deliveryCount)  {
 
@@ -23,6 +23,7 @@ import org.apache.activemq.artemis.core.io.SequentialFileFactory;
 import org.apache.activemq.artemis.core.journal.EncodingSupport;
 import org.apache.activemq.artemis.core.journal.IOCompletion;
 import org.apache.activemq.artemis.core.journal.Journal;
+import org.apache.activemq.artemis.core.journal.JournalCompactStatistics;
 import org.apache.activemq.artemis.core.journal.JournalLoadInformation;
 import org.apache.activemq.artemis.core.journal.JournalUpdateCallback;
 import org.apache.activemq.artemis.core.journal.LoaderCallback;
@@ -654,6 +655,11 @@ public class ReplicatedJournal implements Journal {
       localJournal.scheduleCompactAndBlock(timeout);
    }
 
+   @Override
+   public JournalCompactStatistics getCompactStatistics() {
+      return localJournal.getCompactStatistics();
+   }
+
    @Override
    public void replicationSyncPreserveOldFiles() {
       throw new UnsupportedOperationException("should never get called");
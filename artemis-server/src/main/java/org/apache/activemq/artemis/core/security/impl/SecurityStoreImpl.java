@@ -24,7 +24,9 @@ import java.security.AccessController;
 import java.security.MessageDigest;
 import java.security.NoSuchAlgorithmException;
 import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.concurrent.atomic.AtomicLongFieldUpdater;
 
 import com.github.benmanes.caffeine.cache.Cache;
@@ -55,7 +57,6 @@ import org.apache.activemq.artemis.spi.core.security.ActiveMQSecurityManager5;
 import org.apache.activemq.artemis.spi.core.security.jaas.NoCacheLoginException;
 import org.apache.activemq.artemis.utils.ByteUtil;
 import org.apache.activemq.artemis.utils.CompositeAddress;
-import org.apache.activemq.artemis.utils.collections.ConcurrentHashSet;
 import org.apache.activemq.artemis.utils.collections.TypedProperties;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -71,7 +72,11 @@ public class SecurityStoreImpl implements SecurityStore, HierarchicalRepositoryC
 
    private final ActiveMQSecurityManager securityManager;
 
-   private final Cache<String, ConcurrentHashSet<SimpleString>> authorizationCache;
+   /**
+    * The permissions granted to each user, by address (or FQQN): a bitmap of the {@link CheckType} ordinals, so that a
+    * cached authorization is a lookup and a bit test.
+    */
+   private final Cache<String, ConcurrentHashMap<SimpleString, AtomicInteger>> authorizationCache;
 
    private final Cache<String, Pair<Boolean, Subject>> authenticationCache;
 
@@ -91,6 +96,10 @@ public class SecurityStoreImpl implements SecurityStore, HierarchicalRepositoryC
    private volatile long authorizationSuccessCount;
    private static final AtomicLongFieldUpdater<SecurityStoreImpl> AUTHORIZATION_FAILURE_COUNT_UPDATER = AtomicLongFieldUpdater.newUpdater(SecurityStoreImpl.class, "authorizationFailureCount");
    private volatile long authorizationFailureCount;
+   private static final AtomicLongFieldUpdater<SecurityStoreImpl> AUTHORIZATION_CACHE_HIT_COUNT_UPDATER = AtomicLongFieldUpdater.newUpdater(SecurityStoreImpl.class, "authorizationCacheHitCount");
+   private volatile long authorizationCacheHitCount;
+   private static final AtomicLongFieldUpdater<SecurityStoreImpl> AUTHORIZATION_CACHE_MISS_COUNT_UPDATER = AtomicLongFieldUpdater.newUpdater(SecurityStoreImpl.class, "authorizationCacheMissCount");
+   private volatile long authorizationCacheMissCount;
 
 
    /**
@@ -283,22 +292,20 @@ public class SecurityStoreImpl implements SecurityStore, HierarchicalRepositoryC
             return;
          }
 
+         final SimpleString fqqn = bareQueue != null ? CompositeAddress.toFullyQualified(bareAddress, bareQueue) : null;
+
+         if (checkAuthorizationCache(fqqn != null  ? fqqn : bareAddress, user, checkType)) {
+            AUTHORIZATION_SUCCESS_COUNT_UPDATER.incrementAndGet(this);
+            return;
+         }
+
          Set<Role> roles = securityRepository.getMatch(bareAddress.toString());
 
          /*
           * If a valid queue is passed in and there's an exact match for the FQQN then use the FQQN instead of the address
           */
-         SimpleString fqqn = null;
-         if (bareQueue != null) {
-            fqqn = CompositeAddress.toFullyQualified(bareAddress, bareQueue);
-            if (securityRepository.containsExactMatch(fqqn.toString())) {
-               roles = securityRepository.getMatch(fqqn.toString());
-            }
-         }
-
-         if (checkAuthorizationCache(fqqn != null  ? fqqn : bareAddress, user, checkType)) {
-            AUTHORIZATION_SUCCESS_COUNT_UPDATER.incrementAndGet(this);
-            return;
+         if (fqqn != null && securityRepository.containsExactMatch(fqqn.toString())) {
+            roles = securityRepository.getMatch(fqqn.toString());
          }
 
          final Boolean validated;
@@ -362,16 +369,7 @@ public class SecurityStoreImpl implements SecurityStore, HierarchicalRepositoryC
             return;
          }
 
-         ConcurrentHashSet<SimpleString> set;
-         String key = createAuthorizationCacheKey(user, checkType);
-         ConcurrentHashSet<SimpleString> act = getAuthorizationCacheEntry(key);
-         if (act != null) {
-            set = act;
-         } else {
-            set = new ConcurrentHashSet<>();
-            putAuthorizationCacheEntry(set, key);
-         }
-         set.add(fqqn != null ? fqqn : bareAddress);
+         putAuthorizationCacheEntry(user, fqqn != null ? fqqn : bareAddress, checkType);
       }
    }
 
@@ -491,23 +489,28 @@ public class SecurityStoreImpl implements SecurityStore, HierarchicalRepositoryC
       }
    }
 
-   private void putAuthorizationCacheEntry(ConcurrentHashSet<SimpleString> value, String key) {
+   private void putAuthorizationCacheEntry(String user, SimpleString dest, CheckType checkType) {
       if (authorizationCache != null) {
-         authorizationCache.put(key, value);
-         logger.trace("Put into authz cache; key: {}; value: {}", key, value);
+         final ConcurrentHashMap<SimpleString, AtomicInteger> permissions = authorizationCache.get(user, key -> new ConcurrentHashMap<>());
+         final int granted = permissions.computeIfAbsent(dest, key -> new AtomicInteger()).accumulateAndGet(permissionBit(checkType), (bits, bit) -> bits | bit);
+         logger.trace("Put into authz cache; key: {}; dest: {}; permissions: {}", user, dest, granted);
       }
    }
 
-   private ConcurrentHashSet<SimpleString> getAuthorizationCacheEntry(String key) {
+   private ConcurrentHashMap<SimpleString, AtomicInteger> getAuthorizationCacheEntry(String user) {
       if (authorizationCache == null) {
          return null;
       } else {
-         ConcurrentHashSet<SimpleString> value = authorizationCache.getIfPresent(key);
-         logger.trace("Get from authz cache; key: {}; value: {}", key, value);
+         ConcurrentHashMap<SimpleString, AtomicInteger> value = authorizationCache.getIfPresent(user);
+         logger.trace("Get from authz cache; key: {}; value: {}", user, value);
          return value;
       }
    }
 
+   private static int permissionBit(CheckType checkType) {
+      return 1 << checkType.ordinal();
+   }
+
    public void invalidateAuthorizationCache() {
       if (authorizationCache != null) {
          authorizationCache.invalidateAll();
@@ -539,13 +542,24 @@ public class SecurityStoreImpl implements SecurityStore, HierarchicalRepositoryC
    }
 
    private boolean checkAuthorizationCache(final SimpleString dest, final String user, final CheckType checkType) {
+      if (authorizationCache == null) {
+         return false;
+      }
+
       boolean granted = false;
 
-      ConcurrentHashSet<SimpleString> act = getAuthorizationCacheEntry(createAuthorizationCacheKey(user, checkType));
+      // the permissions of unknown users aren't cached
+      ConcurrentHashMap<SimpleString, AtomicInteger> act = user == null ? null : getAuthorizationCacheEntry(user);
       if (act != null) {
-         granted = act.contains(dest);
+         AtomicInteger permissions = act.get(dest);
+         granted = permissions != null && (permissions.get() & permissionBit(checkType)) != 0;
       }
 
+      if (granted) {
+         AUTHORIZATION_CACHE_HIT_COUNT_UPDATER.incrementAndGet(this);
+      } else {
+         AUTHORIZATION_CACHE_MISS_COUNT_UPDATER.incrementAndGet(this);
+      }
       return granted;
    }
 
@@ -557,15 +571,11 @@ public class SecurityStoreImpl implements SecurityStore, HierarchicalRepositoryC
       }
    }
 
-   private String createAuthorizationCacheKey(String user, CheckType checkType) {
-      return user + "." + checkType.name();
-   }
-
    public Cache<String, Pair<Boolean, Subject>> getAuthenticationCache() {
       return authenticationCache;
    }
 
-   public Cache<String, ConcurrentHashSet<SimpleString>> getAuthorizationCache() {
+   public Cache<String, ConcurrentHashMap<SimpleString, AtomicInteger>> getAuthorizationCache() {
       return authorizationCache;
    }
 
@@ -588,4 +598,18 @@ public class SecurityStoreImpl implements SecurityStore, HierarchicalRepositoryC
    public long getAuthorizationFailureCount() {
       return authorizationFailureCount;
    }
+
+   /**
+    * The authorizations granted by the authorization cache, without consulting the security manager.
+    */
+   public long getAuthorizationCacheHitCount() {
+      return authorizationCacheHitCount;
+   }
+
+   /**
+    * The authorizations missing from the authorization cache, left to the security manager.
+    */
+   public long getAuthorizationCacheMissCount() {
+      return authorizationCacheMissCount;
+   }
 }
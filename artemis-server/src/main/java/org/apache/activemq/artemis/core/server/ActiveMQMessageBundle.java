@@ -519,4 +519,13 @@ public interface ActiveMQMessageBundle {
 
    @Message(id = 229256, value = "{} must be a positive power of 2 (actual value: {})")
    IllegalArgumentException positivePowerOfTwo(String name, Number val);
+
+   @Message(id = 229257, value = "Invalid scheduled delivery policy type {}")
+   IllegalArgumentException invalidScheduledDeliveryPolicyType(String val);
+
+   @Message(id = 229258, value = "The message journal can't be striped across the journal-stripe-directories with {}")
+   IllegalArgumentException journalStripesNotSupported(String feature);
+
+   @Message(id = 229259, value = "Invalid reference store policy type {}")
+   IllegalArgumentException invalidReferenceStorePolicyType(String val);
 }
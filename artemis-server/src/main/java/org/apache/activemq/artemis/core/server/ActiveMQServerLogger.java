@@ -324,6 +324,15 @@ public interface ActiveMQServerLogger {
    @LogMessage(id = 221086, value = "Cannot route {}", level = LogMessage.Level.INFO)
    void cannotRouteClientConnection(Connection connection);
 
+   @LogMessage(id = 221087, value = "Page counters of address {} rebuilt in {} milliseconds after reading {} page files", level = LogMessage.Level.INFO)
+   void pageCounterRebuilt(SimpleString address, long elapsedMillis, int pages);
+
+   @LogMessage(id = 221088, value = "Using NIO Journal with direct I/O", level = LogMessage.Level.INFO)
+   void journalUseNIODirect();
+
+   @LogMessage(id = 221089, value = "The filesystem does not support direct I/O. Switching the configuration into NIO. Journal path: {}", level = LogMessage.Level.INFO)
+   void switchingNIOonDirectIOPath(String journalPath);
+
    @LogMessage(id = 222000, value = "ActiveMQServer is being finalized and has not been stopped. Please remember to stop the server before letting it go out of scope", level = LogMessage.Level.WARN)
    void serverFinalisedWIthoutBeingSTopped();
 
@@ -1103,6 +1112,9 @@ public interface ActiveMQServerLogger {
    @LogMessage(id = 222310, value = "Trying to add a producer with ID {} that already exists to session {} on Connection {}.", level = LogMessage.Level.WARN)
    void producerAlreadyExists(int id, String session, String remoteAddress);
 
+   @LogMessage(id = 222312, value = "Problem compacting page {} on address {}", level = LogMessage.Level.WARN)
+   void problemCompactingPage(long pageId, SimpleString address, Throwable e);
+
    @LogMessage(id = 224000, value = "Failure in initialisation", level = LogMessage.Level.ERROR)
    void initializationError(Throwable e);
 
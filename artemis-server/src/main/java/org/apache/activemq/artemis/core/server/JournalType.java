@@ -18,7 +18,7 @@ package org.apache.activemq.artemis.core.server;
 
 
 public enum JournalType {
-   NIO, ASYNCIO, MAPPED;
+   NIO, ASYNCIO, MAPPED, NIO_DIRECT;
 
    public static final String validValues;
 
@@ -41,6 +41,7 @@ public enum JournalType {
          case "NIO": return NIO;
          case "ASYNCIO" : return ASYNCIO;
          case "MAPPED" : return MAPPED;
+         case "NIO_DIRECT" : return NIO_DIRECT;
          default: throw new IllegalStateException("Invalid JournalType:" + type + " valid Types: " + validValues);
       }
    }
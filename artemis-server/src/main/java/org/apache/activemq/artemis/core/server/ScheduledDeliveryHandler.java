@@ -26,6 +26,8 @@ public interface ScheduledDeliveryHandler {
 
    boolean checkAndSchedule(MessageReference ref, boolean tail);
 
+   void addInPlace(long deliveryTime, MessageReference ref, boolean tail);
+
    int getScheduledCount();
 
    int getNonPagedScheduledCount();
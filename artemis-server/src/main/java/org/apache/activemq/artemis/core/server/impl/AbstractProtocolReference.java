@@ -48,6 +48,10 @@ public abstract class AbstractProtocolReference extends LinkedListImpl.Node<Mess
       protocolDataMap.put(classType, protocolData);
    }
 
+   boolean hasProtocolData() {
+      return protocolDataMap != null;
+   }
+
    @Override
    public long getSequence() {
       return sequence;
@@ -114,6 +114,23 @@ public class MessageReferenceImpl extends AbstractProtocolReference implements M
 
    }
 
+   /**
+    * Whether this reference holds no state besides its message, queue, sequence and delivery count, so that
+    * {@link PackedReferenceList} can keep those values only and {@link #unpack} an equivalent reference later.
+    */
+   boolean isPackable(Queue queue) {
+      return getClass() == MessageReferenceImpl.class && this.queue == queue && scheduledDeliveryTime == 0 &&
+         persistedCount == getDeliveryCount() && !hasConsumerID && !alreadyAcked && !deliveredDirectly &&
+         onDelivery == null && !hasProtocolData();
+   }
+
+   static MessageReferenceImpl unpack(Message message, Queue queue, long sequence, int deliveryCount) {
+      MessageReferenceImpl reference = new MessageReferenceImpl(message, queue);
+      reference.sequence = sequence;
+      reference.setDeliveryCount(deliveryCount);
+      return reference;
+   }
+
    // MessageReference implementation -------------------------------
 
    @Override
@@ -0,0 +1,637 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.activemq.artemis.core.server.impl;
+
+import java.util.Arrays;
+import java.util.NoSuchElementException;
+import java.util.function.Consumer;
+
+import org.apache.activemq.artemis.api.core.Message;
+import org.apache.activemq.artemis.core.server.MessageReference;
+import org.apache.activemq.artemis.core.server.Queue;
+import org.apache.activemq.artemis.core.settings.impl.ReferenceStorePolicy;
+import org.apache.activemq.artemis.utils.collections.LinkedList;
+import org.apache.activemq.artemis.utils.collections.LinkedListImpl;
+import org.apache.activemq.artemis.utils.collections.LinkedListIterator;
+import org.apache.activemq.artemis.utils.collections.NodeStore;
+
+/**
+ * The references of a priority level of a queue configured with {@link ReferenceStorePolicy#PACKED}.
+ * <p>
+ * The references are kept in order on segments of parallel arrays. A reference that holds no state besides its
+ * message, sequence and delivery count (see {@link MessageReferenceImpl#isPackable(Queue)}), as most references routed
+ * to a queue do, is packed as those three values: 16 bytes instead of a {@link MessageReferenceImpl} and its list node.
+ * The consumer ID and the persistent size are not packed, since a packed reference was not delivered yet and its
+ * persistent size is the one of its message. Any other reference is kept as it is.
+ * <p>
+ * A packed reference is rebuilt the first time it is returned by {@link #peek()}, {@link #get(int)} or an iterator,
+ * and that instance is kept from then on: callers can rely on its identity as they would with {@link LinkedListImpl}.
+ * Removing a reference leaves a hole in its segment until the segment has no references left.
+ * <p>
+ * References can only be removed by ID once {@link #setNodeStore(NodeStore)} is called, which unpacks every reference
+ * and stops packing new ones, since the node store keeps the references themselves. Finding the position of such a
+ * reference scans the list from its head.
+ * <p>
+ * Like {@link LinkedListImpl}, this class is not thread safe and its iterators see any reference added or removed while
+ * they are open.
+ */
+public final class PackedReferenceList implements LinkedList<MessageReference> {
+
+   static final int SEGMENT_SIZE = 256;
+
+   private static final int INITIAL_ITERATOR_ARRAY_SIZE = 10;
+
+   // the states of the last reference returned by an iterator
+   private static final int NONE = 0;
+   private static final int LAST = 1;
+   private static final int REMOVED = 2;
+
+   private final Queue queue;
+
+   // every segment of a non-empty list holds references: a segment is unlinked once its last reference is removed, but
+   // the last one, which is kept to not allocate a new one for each reference of a queue that is mostly empty
+   private Segment head;
+
+   private Segment tail;
+
+   private int size;
+
+   private Iterator[] iters = new Iterator[INITIAL_ITERATOR_ARRAY_SIZE];
+
+   private int numIters;
+
+   private NodeStore<MessageReference> nodeStore;
+
+   public PackedReferenceList(Queue queue) {
+      this.queue = queue;
+   }
+
+   private static final class Segment {
+
+      // the message of a packed reference, a reference that can't be packed or null for an empty slot
+      final Object[] slots = new Object[SEGMENT_SIZE];
+
+      final long[] sequences = new long[SEGMENT_SIZE];
+
+      final int[] deliveryCounts = new int[SEGMENT_SIZE];
+
+      // the slots in use are in [start, end): the first and the last of them are never empty
+      int start;
+
+      int end;
+
+      int references;
+
+      // the number of iterators positioned on this segment
+      int iterators;
+
+      Segment prev;
+
+      Segment next;
+
+      Segment(int index) {
+         start = index;
+         end = index;
+      }
+
+      void trim() {
+         while (start < end && slots[start] == null) {
+            start++;
+         }
+         while (end > start && slots[end - 1] == null) {
+            end--;
+         }
+      }
+   }
+
+   private void set(Segment segment, int index, MessageReference reference) {
+      if (nodeStore == null && reference instanceof MessageReferenceImpl impl && impl.isPackable(queue)) {
+         segment.slots[index] = impl.getMessage();
+         segment.sequences[index] = impl.getSequence();
+         segment.deliveryCounts[index] = impl.getDeliveryCount();
+      } else {
+         segment.slots[index] = reference;
+         if (nodeStore != null) {
+            storeNode(reference);
+         }
+      }
+      segment.references++;
+      size++;
+   }
+
+   private MessageReference get(Segment segment, int index) {
+      final Object slot = segment.slots[index];
+      if (slot instanceof MessageReference reference) {
+         return reference;
+      }
+      final MessageReference reference = MessageReferenceImpl.unpack((Message) slot, queue, segment.sequences[index], segment.deliveryCounts[index]);
+      segment.slots[index] = reference;
+      return reference;
+   }
+
+   private static long sequence(Segment segment, int index) {
+      final Object slot = segment.slots[index];
+      return slot instanceof MessageReference reference ? reference.getSequence() : segment.sequences[index];
+   }
+
+   private MessageReference remove(Segment segment, int index) {
+      final Object slot = segment.slots[index];
+      final MessageReference reference;
+      if (slot instanceof MessageReference unpacked) {
+         reference = unpacked;
+         if (nodeStore != null) {
+            removeNode(reference);
+         }
+      } else {
+         reference = MessageReferenceImpl.unpack((Message) slot, queue, segment.sequences[index], segment.deliveryCounts[index]);
+      }
+      segment.slots[index] = null;
+      segment.references--;
+      size--;
+      if (segment.iterators != 0) {
+         nudgeIterators(segment, index);
+      }
+      if (segment.references != 0) {
+         segment.trim();
+      } else if (segment == head && segment == tail) {
+         segment.start = SEGMENT_SIZE / 2;
+         segment.end = SEGMENT_SIZE / 2;
+      } else {
+         unlink(segment);
+      }
+      return reference;
+   }
+
+   private void linkFirst(Segment segment) {
+      segment.next = head;
+      if (head == null) {
+         tail = segment;
+      } else {
+         head.prev = segment;
+      }
+      head = segment;
+   }
+
+   private void linkLast(Segment segment) {
+      segment.prev = tail;
+      if (tail == null) {
+         head = segment;
+      } else {
+         tail.next = segment;
+      }
+      tail = segment;
+   }
+
+   private void linkAfter(Segment segment, Segment newSegment) {
+      newSegment.prev = segment;
+      newSegment.next = segment.next;
+      if (segment.next == null) {
+         tail = newSegment;
+      } else {
+         segment.next.prev = newSegment;
+      }
+      segment.next = newSegment;
+   }
+
+   private void unlink(Segment segment) {
+      if (segment.prev == null) {
+         head = segment.next;
+      } else {
+         segment.prev.next = segment.next;
+      }
+      if (segment.next == null) {
+         tail = segment.prev;
+      } else {
+         segment.next.prev = segment.prev;
+      }
+      segment.prev = segment.next = null;
+   }
+
+   @Override
+   public void addHead(MessageReference e) {
+      if (head == null || head.start == 0) {
+         linkFirst(new Segment(head == null ? SEGMENT_SIZE / 2 : SEGMENT_SIZE));
+      }
+      set(head, --head.start, e);
+   }
+
+   @Override
+   public void addTail(MessageReference e) {
+      if (tail == null || tail.end == SEGMENT_SIZE) {
+         linkLast(new Segment(tail == null ? SEGMENT_SIZE / 2 : 0));
+      }
+      set(tail, tail.end++, e);
+   }
+
+   /**
+    * Same order as {@link LinkedListImpl#addSorted(Object)} with {@link MessageReferenceImpl#getSequenceComparator()}.
+    */
+   @Override
+   public void addSorted(MessageReference e) {
+      if (size == 0) {
+         addHead(e);
+         return;
+      }
+      final long sequence = e.getSequence();
+      if (sequence - sequence(head, head.start) < 0) {
+         addHead(e);
+         return;
+      }
+      if (sequence - sequence(tail, tail.end - 1) >= 0) {
+         addTail(e);
+         return;
+      }
+      Segment segment = head;
+      int index = head.start + 1;
+      while (segment != null) {
+         for (; index < segment.end; index++) {
+            if (segment.slots[index] != null && sequence - sequence(segment, index) <= 0) {
+               insertBefore(segment, index, e);
+               return;
+            }
+         }
+         segment = segment.next;
+         if (segment != null) {
+            index = segment.start;
+         }
+      }
+      // the tail was compared before scanning
+      throw new IllegalStateException("Cannot find a suitable place for your element, there was concurrent access on the queue");
+   }
+
+   private void insertBefore(Segment segment, int index, MessageReference e) {
+      if (index > 0 && segment.slots[index - 1] == null) {
+         // a hole or a slot before the start: no iterator can be positioned there
+         if (index - 1 < segment.start) {
+            segment.start = index - 1;
+         }
+         set(segment, index - 1, e);
+      } else if (segment.end < SEGMENT_SIZE) {
+         shift(segment, index, segment.end, 1);
+         segment.end++;
+         set(segment, index, e);
+      } else if (segment.start > 0) {
+         shift(segment, segment.start, index, -1);
+         segment.start--;
+         set(segment, index - 1, e);
+      } else {
+         final int middle = SEGMENT_SIZE / 2;
+         final Segment upper = split(segment, middle);
+         if (index < middle) {
+            insertBefore(segment, index, e);
+         } else {
+            insertBefore(upper, index - middle, e);
+         }
+      }
+   }
+
+   private void shift(Segment segment, int from, int to, int distance) {
+      System.arraycopy(segment.slots, from, segment.slots, from + distance, to - from);
+      System.arraycopy(segment.sequences, from, segment.sequences, from + distance, to - from);
+      System.arraycopy(segment.deliveryCounts, from, segment.deliveryCounts, from + distance, to - from);
+      if (segment.iterators != 0) {
+         moveIterators(segment, from, to, segment, distance);
+      }
+   }
+
+   private Segment split(Segment segment, int middle) {
+      final Segment upper = new Segment(0);
+      final int moved = segment.end - middle;
+      System.arraycopy(segment.slots, middle, upper.slots, 0, moved);
+      System.arraycopy(segment.sequences, middle, upper.sequences, 0, moved);
+      System.arraycopy(segment.deliveryCounts, middle, upper.deliveryCounts, 0, moved);
+      Arrays.fill(segment.slots, middle, segment.end, null);
+      upper.end = moved;
+      for (int i = 0; i < moved; i++) {
+         if (upper.slots[i] != null) {
+            upper.references++;
+         }
+      }
+      segment.references -= upper.references;
+      segment.end = middle;
+      segment.trim();
+      upper.trim();
+      linkAfter(segment, upper);
+      if (segment.iterators != 0) {
+         moveIterators(segment, middle, middle + moved, upper, -middle);
+      }
+      return upper;
+   }
+
+   @Override
+   public MessageReference get(int position) {
+      int remaining = position;
+      for (Segment segment = head; segment != null; segment = segment.next) {
+         for (int index = segment.start; index < segment.end; index++) {
+            if (segment.slots[index] != null && remaining-- == 0) {
+               return get(segment, index);
+            }
+         }
+      }
+      throw new IndexOutOfBoundsException(position + " > " + size());
+   }
+
+   @Override
+   public MessageReference poll() {
+      if (size == 0) {
+         return null;
+      }
+      return remove(head, head.start);
+   }
+
+   @Override
+   public MessageReference peek() {
+      if (size == 0) {
+         return null;
+      }
+      return get(head, head.start);
+   }
+
+   @Override
+   public LinkedListIterator<MessageReference> iterator() {
+      return new Iterator();
+   }
+
+   @Override
+   public void clear() {
+      while (poll() != null) {
+      }
+   }
+
+   @Override
+   public int size() {
+      return size;
+   }
+
+   @Override
+   public void clearID() {
+      if (nodeStore != null) {
+         nodeStore.clear();
+      }
+      nodeStore = null;
+   }
+
+   @Override
+   public void setNodeStore(NodeStore<MessageReference> store) {
+      this.nodeStore = store;
+
+      for (Segment segment = head; segment != null; segment = segment.next) {
+         for (int index = segment.start; index < segment.end; index++) {
+            if (segment.slots[index] != null) {
+               storeNode(get(segment, index));
+            }
+         }
+      }
+   }
+
+   // the references of a queue are their own nodes, see AbstractProtocolReference
+   @SuppressWarnings("unchecked")
+   private void storeNode(MessageReference reference) {
+      if (reference instanceof LinkedListImpl.Node node) {
+         nodeStore.storeNode(reference, node);
+      }
+   }
+
+   @SuppressWarnings("unchecked")
+   private void removeNode(MessageReference reference) {
+      if (reference instanceof LinkedListImpl.Node node) {
+         nodeStore.removeNode(reference, node);
+      }
+   }
+
+   @Override
+   public synchronized MessageReference removeWithID(String listID, long id) {
+      assert nodeStore != null; // it is assumed the code will call setNodeStore before calling removeWithID
+
+      final LinkedListImpl.Node<MessageReference> node = nodeStore.getNode(listID, id);
+
+      if (node == null) {
+         return null;
+      }
+
+      for (Segment segment = head; segment != null; segment = segment.next) {
+         for (int index = segment.start; index < segment.end; index++) {
+            if (segment.slots[index] == node) {
+               return remove(segment, index);
+            }
+         }
+      }
+
+      return null;
+   }
+
+   @Override
+   public void forEach(Consumer<MessageReference> consumer) {
+      try (LinkedListIterator<MessageReference> iter = iterator()) {
+         while (iter.hasNext()) {
+            consumer.accept(iter.next());
+         }
+      }
+   }
+
+   private synchronized void addIter(Iterator iter) {
+      if (numIters == iters.length) {
+         iters = Arrays.copyOf(iters, numIters * 2);
+      }
+      iters[numIters++] = iter;
+   }
+
+   private synchronized void removeIter(Iterator iter) {
+      for (int i = 0; i < numIters; i++) {
+         if (iters[i] == iter) {
+            System.arraycopy(iters, i + 1, iters, i, numIters - i - 1);
+            iters[--numIters] = null;
+            return;
+         }
+      }
+
+      throw new IllegalStateException("Cannot find iter to remove");
+   }
+
+   private synchronized void nudgeIterators(Segment segment, int index) {
+      for (int i = 0; i < numIters; i++) {
+         final Iterator iter = iters[i];
+         if (iter.segment == segment && iter.index == index) {
+            iter.nudged();
+         }
+      }
+   }
+
+   private synchronized void moveIterators(Segment segment, int from, int to, Segment target, int distance) {
+      for (int i = 0; i < numIters; i++) {
+         final Iterator iter = iters[i];
+         if (iter.segment == segment && iter.index >= from && iter.index < to) {
+            iter.moveTo(target, iter.index + distance);
+         }
+      }
+   }
+
+   private final class Iterator implements LinkedListIterator<MessageReference> {
+
+      // the position of the iterator on a reference, or a null segment before the head of the list
+      Segment segment;
+
+      int index;
+
+      // whether the reference at the position was returned already
+      boolean visited;
+
+      boolean repeat;
+
+      int last = NONE;
+
+      boolean closed;
+
+      Iterator() {
+         synchronized (PackedReferenceList.this) {
+            addIter(this);
+            // like LinkedListImpl, the iterator starts on the head of the list
+            seekNext(true);
+         }
+      }
+
+      void moveTo(Segment newSegment, int newIndex) {
+         if (segment != null) {
+            segment.iterators--;
+         }
+         segment = newSegment;
+         index = newIndex;
+         if (newSegment != null) {
+            newSegment.iterators++;
+         }
+      }
+
+      private boolean seekNext(boolean move) {
+         Segment nextSegment = segment == null ? head : segment;
+         int nextIndex = segment == null ? (head == null ? 0 : head.start) : index + 1;
+         while (nextSegment != null) {
+            for (; nextIndex < nextSegment.end; nextIndex++) {
+               if (nextSegment.slots[nextIndex] != null) {
+                  if (move) {
+                     moveTo(nextSegment, nextIndex);
+                  }
+                  return true;
+               }
+            }
+            nextSegment = nextSegment.next;
+            if (nextSegment != null) {
+               nextIndex = nextSegment.start;
+            }
+         }
+         return false;
+      }
+
+      private boolean seekPrevious() {
+         Segment prevSegment = segment;
+         int prevIndex = index - 1;
+         while (prevSegment != null) {
+            for (; prevIndex >= prevSegment.start; prevIndex--) {
+               if (prevSegment.slots[prevIndex] != null) {
+                  moveTo(prevSegment, prevIndex);
+                  return true;
+               }
+            }
+            prevSegment = prevSegment.prev;
+            if (prevSegment != null) {
+               prevIndex = prevSegment.end - 1;
+            }
+         }
+         return false;
+      }
+
+      // the reference at the position was removed
+      void nudged() {
+         if (last == LAST) {
+            last = REMOVED;
+         }
+         if (seekNext(true)) {
+            visited = false;
+         } else if (seekPrevious()) {
+            visited = true;
+         } else {
+            moveTo(null, 0);
+            visited = false;
+         }
+      }
+
+      @Override
+      public void repeat() {
+         repeat = true;
+      }
+
+      @Override
+      public boolean hasNext() {
+         synchronized (PackedReferenceList.this) {
+            if (segment == null) {
+               // like LinkedListImpl, the iterator is positioned on the reference it will return next
+               visited = false;
+               return seekNext(true);
+            }
+            if (!visited || repeat) {
+               return true;
+            }
+            return seekNext(false);
+         }
+      }
+
+      @Override
+      public MessageReference next() {
+         synchronized (PackedReferenceList.this) {
+            if (segment == null || visited && !repeat) {
+               if (!seekNext(true)) {
+                  throw new NoSuchElementException();
+               }
+            }
+            repeat = false;
+            visited = true;
+            last = LAST;
+            return get(segment, index);
+         }
+      }
+
+      @Override
+      public void remove() {
+         removeLastElement();
+      }
+
+      @Override
+      public MessageReference removeLastElement() {
+         synchronized (PackedReferenceList.this) {
+            if (last == NONE) {
+               throw new NoSuchElementException();
+            }
+            if (last == REMOVED) {
+               last = NONE;
+               return null;
+            }
+            last = NONE;
+            return PackedReferenceList.this.remove(segment, index);
+         }
+      }
+
+      @Override
+      public void close() {
+         synchronized (PackedReferenceList.this) {
+            if (!closed) {
+               closed = true;
+               moveTo(null, 0);
+               removeIter(this);
+            }
+         }
+      }
+   }
+}
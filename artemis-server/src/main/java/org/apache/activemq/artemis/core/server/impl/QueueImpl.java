@@ -97,6 +97,8 @@ import org.apache.activemq.artemis.core.server.management.Notification;
 import org.apache.activemq.artemis.core.settings.HierarchicalRepository;
 import org.apache.activemq.artemis.core.settings.HierarchicalRepositoryChangeListener;
 import org.apache.activemq.artemis.core.settings.impl.AddressSettings;
+import org.apache.activemq.artemis.core.settings.impl.ReferenceStorePolicy;
+import org.apache.activemq.artemis.core.settings.impl.ScheduledDeliveryPolicy;
 import org.apache.activemq.artemis.core.settings.impl.SlowConsumerPolicy;
 import org.apache.activemq.artemis.core.settings.impl.SlowConsumerThresholdMeasurementUnit;
 import org.apache.activemq.artemis.core.transaction.Transaction;
@@ -216,7 +218,7 @@ public class QueueImpl extends CriticalComponentImpl implements Queue {
    private final MpscUnboundedArrayQueue<MessageReference> intermediateMessageReferences;
 
    // This is where messages are stored
-   protected final PriorityLinkedList<MessageReference> messageReferences = new PriorityLinkedListImpl<>(QueueImpl.NUM_PRIORITIES, MessageReferenceImpl.getSequenceComparator());
+   protected final PriorityLinkedList<MessageReference> messageReferences;
 
    private NodeStoreFactory<MessageReference> nodeStoreFactory;
 
@@ -728,8 +730,6 @@ public class QueueImpl extends CriticalComponentImpl implements Queue {
 
       this.internalQueue = queueConfiguration.isInternal();
 
-      scheduledDeliveryHandler = new ScheduledDeliveryHandlerImpl(scheduledExecutor, this);
-
       if (addressSettingsRepository != null) {
          addressSettingsRepositoryListener = new AddressSettingsRepositoryListener(addressSettingsRepository);
          addressSettingsRepository.registerListener(addressSettingsRepositoryListener);
@@ -738,6 +738,19 @@ public class QueueImpl extends CriticalComponentImpl implements Queue {
          this.cachedAddressSettings = new AddressSettings();
       }
 
+      // last value queues keep track of the identity of their references, which packing would not preserve
+      if (this.cachedAddressSettings.getReferenceStorePolicy() == ReferenceStorePolicy.PACKED && !isLastValue()) {
+         messageReferences = new PriorityLinkedListImpl<>(QueueImpl.NUM_PRIORITIES, priority -> new PackedReferenceList(this));
+      } else {
+         messageReferences = new PriorityLinkedListImpl<>(QueueImpl.NUM_PRIORITIES, MessageReferenceImpl.getSequenceComparator());
+      }
+
+      if (this.cachedAddressSettings.getScheduledDeliveryPolicy() == ScheduledDeliveryPolicy.TIMER_WHEEL) {
+         scheduledDeliveryHandler = new TimerWheelScheduledDeliveryHandler(scheduledExecutor, this);
+      } else {
+         scheduledDeliveryHandler = new ScheduledDeliveryHandlerImpl(scheduledExecutor, this);
+      }
+
       if (pageSubscription != null) {
          pageSubscription.setQueue(this);
          this.pageIterator = pageSubscription.iterator();
@@ -83,6 +83,7 @@ public class ScheduledDeliveryHandlerImpl implements ScheduledDeliveryHandler {
       return false;
    }
 
+   @Override
    public void addInPlace(final long deliveryTime, final MessageReference ref, final boolean tail) {
       synchronized (scheduledReferences) {
          scheduledReferences.add(new RefScheduled(ref, tail));
@@ -16,6 +16,7 @@
  */
 package org.apache.activemq.artemis.core.server.impl;
 
+import java.io.File;
 import java.math.BigDecimal;
 import java.nio.ByteBuffer;
 import java.util.ArrayDeque;
@@ -1284,6 +1285,11 @@ public class ServerConsumerImpl implements ServerConsumer, ReadyListener {
 
       private ByteBuffer chunkBytes;
 
+      /**
+       * Whether the body can be sent as regions of its file, until the transport or the body reader refuse to
+       */
+      private boolean fileRegions = true;
+
       private CoreLargeMessageDeliverer(final MessageReference ref) {
          this.ref = ref;
 
@@ -1312,6 +1318,42 @@ public class ServerConsumerImpl implements ServerConsumer, ReadyListener {
          this.chunkBytes = null;
       }
 
+      /**
+       * Hands the next chunk of the body to the transport as a region of the body file, without reading it.
+       *
+       * @return the size of the packet sent, or {@code -1} if the chunk has to be read and sent from the heap
+       */
+      private int sendFileRegion(int chunkLen, boolean continues) throws ActiveMQException {
+         final File file = fileRegions ? context.getFile() : null;
+         if (file == null) {
+            fileRegions = false;
+            return -1;
+         }
+
+         final Message message = largeMessage.toMessage();
+         Runnable onSent = null;
+         if (!continues) {
+            // the transport reads the file after this deliverer is finished: the file mustn't be deleted before the
+            // last region is written
+            message.usageUp();
+            onSent = () -> messageQueue.getExecutor().execute(message::usageDown);
+         }
+
+         final int packetSize = callback.sendLargeMessageContinuation(ServerConsumerImpl.this, file, positionPendingLargeMessage, chunkLen, continues, onSent);
+
+         if (packetSize < 0) {
+            if (!continues) {
+               message.usageDown();
+            }
+            fileRegions = false;
+            return -1;
+         }
+
+         context.position(positionPendingLargeMessage + chunkLen);
+
+         return packetSize;
+      }
+
       public boolean deliver() throws Exception {
          pendingDelivery.countUp();
          try {
@@ -1370,26 +1412,32 @@ public class ServerConsumerImpl implements ServerConsumer, ReadyListener {
 
                final int localChunkLen = (int) Math.min(sizePendingLargeMessage - positionPendingLargeMessage, minLargeMessageSize);
 
-               final ByteBuffer bodyBuffer = acquireHeapBodyBuffer(localChunkLen);
+               final boolean continues = positionPendingLargeMessage + localChunkLen < sizePendingLargeMessage;
+
+               int packetSize = sendFileRegion(localChunkLen, continues);
 
-               assert bodyBuffer.remaining() == localChunkLen;
+               if (packetSize < 0) {
+                  final ByteBuffer bodyBuffer = acquireHeapBodyBuffer(localChunkLen);
 
-               final int readBytes = context.readInto(bodyBuffer);
+                  assert bodyBuffer.remaining() == localChunkLen;
 
-               assert readBytes == localChunkLen : "readBytes = " + readBytes + ", localChunkLen=" + localChunkLen + " on large message " + largeMessage.getMessageID() + ", hash = " + System.identityHashCode(largeMessage);
+                  final int readBytes = context.readInto(bodyBuffer);
 
+                  assert readBytes == localChunkLen : "readBytes = " + readBytes + ", localChunkLen=" + localChunkLen + " on large message " + largeMessage.getMessageID() + ", hash = " + System.identityHashCode(largeMessage);
 
-               final byte[] body = bodyBuffer.array();
 
-               assert body.length == readBytes;
+                  final byte[] body = bodyBuffer.array();
 
-               //It is possible to recycle the same heap body buffer because it won't be cached by sendLargeMessageContinuation
-               //given that requiresResponse is false: ChannelImpl::send will use the resend cache only if
-               //resendCache != null && packet.isRequiresConfirmations()
+                  assert body.length == readBytes;
 
-               int packetSize = callback.sendLargeMessageContinuation(ServerConsumerImpl.this, body, positionPendingLargeMessage + localChunkLen < sizePendingLargeMessage, false);
+                  //It is possible to recycle the same heap body buffer because it won't be cached by sendLargeMessageContinuation
+                  //given that requiresResponse is false: ChannelImpl::send will use the resend cache only if
+                  //resendCache != null && packet.isRequiresConfirmations()
+
+                  packetSize = callback.sendLargeMessageContinuation(ServerConsumerImpl.this, body, continues, false);
+               }
 
-               int chunkLen = body.length;
+               int chunkLen = localChunkLen;
 
                if (availableCredits != null) {
                   final int credits = availableCredits.addAndGet(-packetSize);
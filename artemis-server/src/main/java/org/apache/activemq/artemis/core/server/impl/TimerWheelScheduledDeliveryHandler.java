@@ -0,0 +1,658 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.activemq.artemis.core.server.impl;
+
+import java.lang.invoke.MethodHandles;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Predicate;
+
+import org.apache.activemq.artemis.api.core.ActiveMQException;
+import org.apache.activemq.artemis.core.server.MessageReference;
+import org.apache.activemq.artemis.core.server.Queue;
+import org.apache.activemq.artemis.core.server.ScheduledDeliveryHandler;
+import org.apache.activemq.artemis.core.transaction.Transaction;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Handles scheduling deliveries to a queue at the correct time using a hierarchical timing wheel.
+ * <p>
+ * References are hashed into one of {@link #LEVELS} wheels of {@link #WHEEL_SIZE} buckets, where each level has
+ * buckets {@link #WHEEL_SIZE} times wider than the previous one (the first level has 1 millisecond buckets). Adding a
+ * reference is O(1) regardless of how many are already scheduled, and a single timer is kept on the scheduled executor
+ * for the next bucket to expire. When the wheel time crosses a bucket its references are either handed back to the
+ * queue, in batch, or cascaded down to a finer level.
+ * <p>
+ * Buckets keep references and their ordering information on plain arrays which are reused while cascading, so
+ * scheduling millions of messages doesn't create millions of wrapper or tree node objects.
+ * <p>
+ * References due at the same time are delivered in the same order as {@link ScheduledDeliveryHandlerImpl} would.
+ */
+public class TimerWheelScheduledDeliveryHandler implements ScheduledDeliveryHandler {
+
+   private static final Logger logger = LoggerFactory.getLogger(MethodHandles.lookup().lookupClass());
+
+   static final int WHEEL_BITS = 6;
+
+   static final int WHEEL_SIZE = 1 << WHEEL_BITS;
+
+   private static final int WHEEL_MASK = WHEEL_SIZE - 1;
+
+   // 64^6 ms is around 2 years: anything scheduled further than that waits on the last level and gets re-hashed there
+   static final int LEVELS = 6;
+
+   private static final long HORIZON = 1L << (LEVELS * WHEEL_BITS);
+
+   private final ScheduledExecutorService scheduledExecutor;
+
+   private final QueueMessageMetrics metrics;
+
+   // Everything below is guarded by this
+
+   private final Bucket[][] wheels = new Bucket[LEVELS][WHEEL_SIZE];
+
+   // one bit per non empty bucket on each level
+   private final long[] occupied = new long[LEVELS];
+
+   // references whose delivery time has already been reached
+   private Bucket expired = new Bucket();
+
+   // an empty bucket swapped in place of the one being cascaded
+   private Bucket spare = new Bucket();
+
+   private long wheelTime;
+
+   private long sequence;
+
+   private int size;
+
+   private DeliveryRunnable nextDelivery;
+
+   // Oldest by timestamp, not by scheduled delivery time
+   private MessageReference oldestMessage = null;
+
+   public TimerWheelScheduledDeliveryHandler(final ScheduledExecutorService scheduledExecutor, final Queue queue) {
+      this.scheduledExecutor = scheduledExecutor;
+      this.metrics = new QueueMessageMetrics(queue, "scheduled");
+      for (Bucket[] wheel : wheels) {
+         for (int i = 0; i < WHEEL_SIZE; i++) {
+            wheel[i] = new Bucket();
+         }
+      }
+      this.wheelTime = System.currentTimeMillis();
+   }
+
+   @Override
+   public boolean checkAndSchedule(final MessageReference ref, final boolean tail) {
+      long deliveryTime = ref.getScheduledDeliveryTime();
+
+      if (deliveryTime > 0 && scheduledExecutor != null) {
+         if (logger.isTraceEnabled()) {
+            logger.trace("Scheduling delivery for {} to occur at {}", ref, deliveryTime);
+         }
+
+         addInPlace(deliveryTime, ref, tail);
+
+         scheduleDelivery(deliveryTime);
+
+         return true;
+      }
+      return false;
+   }
+
+   @Override
+   public void addInPlace(final long deliveryTime, final MessageReference ref, final boolean tail) {
+      synchronized (this) {
+         place(deliveryTime, ref, (sequence++ << 1) | (tail ? 1 : 0));
+         size++;
+         oldestMessage = null;
+      }
+      metrics.incrementMetrics(ref);
+   }
+
+   @Override
+   public int getScheduledCount() {
+      return metrics.getMessageCount();
+   }
+
+   @Override
+   public int getNonPagedScheduledCount() {
+      return metrics.getNonPagedMessageCount();
+   }
+
+   @Override
+   public int getDurableScheduledCount() {
+      return metrics.getDurableMessageCount();
+   }
+
+   @Override
+   public int getNonPagedDurableScheduledCount() {
+      return metrics.getNonPagedDurableMessageCount();
+   }
+
+   @Override
+   public long getScheduledSize() {
+      return metrics.getPersistentSize();
+   }
+
+   @Override
+   public long getNonPagedScheduledSize() {
+      return metrics.getNonPagedPersistentSize();
+   }
+
+   @Override
+   public long getDurableScheduledSize() {
+      return metrics.getDurablePersistentSize();
+   }
+
+   @Override
+   public long getNonPagedDurableScheduledSize() {
+      return metrics.getNonPagedPersistentSize();
+   }
+
+   @Override
+   public List<MessageReference> getScheduledReferences() {
+      List<MessageReference> refs = new LinkedList<>();
+
+      synchronized (this) {
+         Bucket all = new Bucket();
+         all.addAll(expired);
+         for (int level = 0; level < LEVELS; level++) {
+            for (int index = 0; index < WHEEL_SIZE; index++) {
+               all.addAll(wheels[level][index]);
+            }
+         }
+         all.sort();
+         for (int i = 0; i < all.size; i++) {
+            refs.add(all.refs[i]);
+         }
+      }
+      return refs;
+   }
+
+   @Override
+   public List<MessageReference> cancel(Predicate<MessageReference> predicate) throws ActiveMQException {
+      List<MessageReference> refs = new ArrayList<>();
+
+      synchronized (this) {
+         Bucket cancelled = new Bucket();
+         expired.removeIf(predicate, cancelled);
+         for (int level = 0; level < LEVELS; level++) {
+            for (int index = 0; index < WHEEL_SIZE; index++) {
+               if (wheels[level][index].removeIf(predicate, cancelled) && wheels[level][index].size == 0) {
+                  occupied[level] &= ~(1L << index);
+               }
+            }
+         }
+         if (cancelled.size > 0) {
+            size -= cancelled.size;
+            oldestMessage = null;
+            cancelled.sort();
+            for (int i = 0; i < cancelled.size; i++) {
+               MessageReference ref = cancelled.refs[i];
+               metrics.decrementMetrics(ref);
+               refs.add(ref);
+            }
+         }
+      }
+      return refs;
+   }
+
+   @Override
+   public MessageReference removeReferenceWithID(final long id) throws Exception {
+      return removeReferenceWithID(id, null);
+   }
+
+   @Override
+   public MessageReference removeReferenceWithID(final long id, Transaction tx) throws Exception {
+      synchronized (this) {
+         MessageReference ref = removeReferenceWithID(expired, id);
+         for (int level = 0; ref == null && level < LEVELS; level++) {
+            for (int index = 0; ref == null && index < WHEEL_SIZE; index++) {
+               ref = removeReferenceWithID(wheels[level][index], id);
+               if (ref != null && wheels[level][index].size == 0) {
+                  occupied[level] &= ~(1L << index);
+               }
+            }
+         }
+         if (ref != null) {
+            ref.acknowledge(tx, AckReason.NORMAL, null, false);
+            size--;
+            oldestMessage = null;
+            metrics.decrementMetrics(ref);
+         }
+         return ref;
+      }
+   }
+
+   private static MessageReference removeReferenceWithID(Bucket bucket, long id) {
+      for (int i = 0; i < bucket.size; i++) {
+         MessageReference ref = bucket.refs[i];
+         if (ref.getMessage().getMessageID() == id) {
+            bucket.remove(i);
+            return ref;
+         }
+      }
+      return null;
+   }
+
+   @Override
+   public MessageReference peekFirstScheduledMessage() {
+      synchronized (this) {
+         if (size == 0) {
+            return null;
+         }
+         if (oldestMessage != null) {
+            return oldestMessage;
+         }
+         MessageReference result = oldest(expired, null);
+         for (int level = 0; level < LEVELS; level++) {
+            for (int index = 0; index < WHEEL_SIZE; index++) {
+               result = oldest(wheels[level][index], result);
+            }
+         }
+         oldestMessage = result;
+         return result;
+      }
+   }
+
+   private static MessageReference oldest(Bucket bucket, MessageReference oldest) {
+      long oldestTimestamp = oldest == null ? Long.MAX_VALUE : oldest.getMessage().getTimestamp();
+      for (int i = 0; i < bucket.size; i++) {
+         MessageReference ref = bucket.refs[i];
+         long refTimestamp = ref.getMessage().getTimestamp();
+         if (refTimestamp < oldestTimestamp) {
+            oldestTimestamp = refTimestamp;
+            oldest = ref;
+         }
+      }
+      return oldest;
+   }
+
+   private void scheduleDelivery(final long deliveryTime) {
+      synchronized (this) {
+         if (nextDelivery != null) {
+            if (nextDelivery.deliveryTime <= deliveryTime) {
+               if (logger.isTraceEnabled()) {
+                  logger.trace("Couldn't make another scheduler as {} is covered by {}", deliveryTime, nextDelivery.deliveryTime);
+               }
+               return;
+            }
+            nextDelivery.cancel();
+         }
+
+         final long delay = Math.max(0, deliveryTime - System.currentTimeMillis());
+
+         if (logger.isTraceEnabled()) {
+            logger.trace("Setting up scheduler for {} with a delay of {}", deliveryTime, delay);
+         }
+
+         nextDelivery = new DeliveryRunnable(deliveryTime);
+         nextDelivery.future = scheduledExecutor.schedule(nextDelivery, delay, TimeUnit.MILLISECONDS);
+      }
+   }
+
+   private void place(final long deliveryTime, final MessageReference ref, final long entry) {
+      final long delay = deliveryTime - wheelTime;
+
+      if (delay <= 0) {
+         expired.add(ref, entry);
+         return;
+      }
+
+      final int level = Math.min(LEVELS - 1, (63 - Long.numberOfLeadingZeros(delay)) / WHEEL_BITS);
+      final long time = delay < HORIZON ? deliveryTime : wheelTime + HORIZON - 1;
+      final int index = (int) ((time >>> (level * WHEEL_BITS)) & WHEEL_MASK);
+
+      wheels[level][index].add(ref, entry);
+      occupied[level] |= 1L << index;
+   }
+
+   /**
+    * Moves the wheel time forward, cascading every bucket crossed in the meantime: their references either become
+    * {@link #expired} or move to a finer level.
+    */
+   private void advance(final long now) {
+      final long previous = wheelTime;
+
+      if (now <= previous) {
+         return;
+      }
+
+      wheelTime = now;
+
+      for (int level = 0; level < LEVELS; level++) {
+         final int shift = level * WHEEL_BITS;
+         final long previousTicks = previous >>> shift;
+         final long elapsedTicks = (now >>> shift) - previousTicks;
+
+         if (elapsedTicks <= 0) {
+            break;
+         }
+
+         final int buckets = (int) Math.min(elapsedTicks, WHEEL_SIZE);
+
+         for (int i = 1; i <= buckets; i++) {
+            final int index = (int) ((previousTicks + i) & WHEEL_MASK);
+
+            if ((occupied[level] & (1L << index)) != 0) {
+               cascade(level, index);
+            }
+         }
+      }
+   }
+
+   private void cascade(final int level, final int index) {
+      final Bucket bucket = wheels[level][index];
+
+      // references landing back on this same bucket must wait for its next turn
+      wheels[level][index] = spare;
+      occupied[level] &= ~(1L << index);
+
+      for (int i = 0; i < bucket.size; i++) {
+         final MessageReference ref = bucket.refs[i];
+         place(ref.getScheduledDeliveryTime(), ref, bucket.entries[i]);
+      }
+
+      bucket.clear();
+      spare = bucket;
+   }
+
+   /**
+    * @return the time when the next non-empty bucket will be crossed, or {@link Long#MAX_VALUE} if there's none
+    */
+   private long nextBucketTime() {
+      if (expired.size > 0) {
+         return wheelTime;
+      }
+
+      long next = Long.MAX_VALUE;
+
+      for (int level = 0; level < LEVELS; level++) {
+         if (occupied[level] == 0) {
+            continue;
+         }
+         final int shift = level * WHEEL_BITS;
+         final long ticks = (wheelTime >>> shift) + 1;
+         final long rotated = Long.rotateRight(occupied[level], (int) (ticks & WHEEL_MASK));
+         next = Math.min(next, (ticks + Long.numberOfTrailingZeros(rotated)) << shift);
+      }
+
+      return next;
+   }
+
+   private Map<Queue, List<MessageReference>> drainExpired() {
+      final Bucket due = expired;
+
+      if (due.size == 0) {
+         return null;
+      }
+
+      expired = spare;
+      spare = due;
+
+      due.sort();
+
+      final Map<Queue, List<MessageReference>> refs = new HashMap<>();
+
+      // Queue::addHead places each reference before the previous one, so they need to be handed over in reverse
+      for (int i = due.size - 1; i >= 0; i--) {
+         final MessageReference reference = due.refs[i];
+
+         metrics.decrementMetrics(reference);
+
+         reference.setScheduledDeliveryTime(0);
+
+         if (logger.isTraceEnabled()) {
+            logger.trace("sending message {} to delivery", reference);
+         }
+
+         refs.computeIfAbsent(reference.getQueue(), queue -> new ArrayList<>()).add(reference);
+      }
+
+      size -= due.size;
+      oldestMessage = null;
+      due.clear();
+
+      return refs;
+   }
+
+   private class DeliveryRunnable implements Runnable {
+
+      private final long deliveryTime;
+
+      private ScheduledFuture<?> future;
+
+      private DeliveryRunnable(final long deliveryTime) {
+         this.deliveryTime = deliveryTime;
+      }
+
+      private void cancel() {
+         if (future != null) {
+            future.cancel(false);
+         }
+      }
+
+      @Override
+      public void run() {
+         final Map<Queue, List<MessageReference>> refs;
+         final long nextTime;
+
+         synchronized (TimerWheelScheduledDeliveryHandler.this) {
+            if (nextDelivery == this) {
+               nextDelivery = null;
+            }
+
+            final long now = System.currentTimeMillis();
+
+            if (logger.isTraceEnabled()) {
+               logger.trace("It is {} now and we are running deliveryTime = {}", now, deliveryTime);
+            }
+
+            // if the OS woke us up too early nothing will be expired and the same time will be scheduled again
+            advance(now);
+
+            refs = drainExpired();
+
+            nextTime = nextBucketTime();
+         }
+
+         if (refs != null) {
+            for (Map.Entry<Queue, List<MessageReference>> entry : refs.entrySet()) {
+               Queue queue = entry.getKey();
+               List<MessageReference> list = entry.getValue();
+               if (logger.isTraceEnabled()) {
+                  logger.trace("Delivering {} elements on list to queue {}", list.size(), queue);
+               }
+               queue.addHead(list, true);
+            }
+         }
+
+         if (nextTime != Long.MAX_VALUE) {
+            scheduleDelivery(nextTime);
+         }
+      }
+   }
+
+   /**
+    * Compares references in the order they should be delivered, following the same rules as
+    * {@link ScheduledDeliveryHandlerImpl.MessageReferenceComparator}: by delivery time, then references added to the
+    * head before the ones added to the tail. Heads added later go before heads added earlier, while tails keep the
+    * order they were added.
+    */
+   private static int compare(MessageReference ref1, long entry1, MessageReference ref2, long entry2) {
+      final int compareTime = Long.compare(ref1.getScheduledDeliveryTime(), ref2.getScheduledDeliveryTime());
+      if (compareTime != 0) {
+         return compareTime;
+      }
+      final boolean tail1 = (entry1 & 1) != 0;
+      final boolean tail2 = (entry2 & 1) != 0;
+      if (tail1 != tail2) {
+         return tail1 ? 1 : -1;
+      }
+      return tail1 ? Long.compare(entry1, entry2) : Long.compare(entry2, entry1);
+   }
+
+   /**
+    * An array based bag of references. Each reference has an entry made of its insertion sequence and its tail flag,
+    * used to sort them on delivery.
+    */
+   private static final class Bucket {
+
+      private static final MessageReference[] EMPTY_REFS = new MessageReference[0];
+
+      private static final long[] EMPTY_ENTRIES = new long[0];
+
+      private static final int INITIAL_CAPACITY = 4;
+
+      // bigger arrays are released on clear, to give the memory back after a burst of scheduled messages
+      private static final int MAX_RETAINED_CAPACITY = 1024;
+
+      private MessageReference[] refs = EMPTY_REFS;
+
+      private long[] entries = EMPTY_ENTRIES;
+
+      private int size;
+
+      void add(MessageReference ref, long entry) {
+         ensureCapacity(size + 1);
+         refs[size] = ref;
+         entries[size] = entry;
+         size++;
+      }
+
+      void addAll(Bucket other) {
+         if (other.size == 0) {
+            return;
+         }
+         ensureCapacity(size + other.size);
+         System.arraycopy(other.refs, 0, refs, size, other.size);
+         System.arraycopy(other.entries, 0, entries, size, other.size);
+         size += other.size;
+      }
+
+      void remove(int index) {
+         final int moved = size - index - 1;
+         if (moved > 0) {
+            System.arraycopy(refs, index + 1, refs, index, moved);
+            System.arraycopy(entries, index + 1, entries, index, moved);
+         }
+         refs[--size] = null;
+      }
+
+      /**
+       * Moves the references matching {@code predicate} into {@code removed}, keeping the order of the remaining ones.
+       *
+       * @return {@code true} if any reference has been removed
+       */
+      boolean removeIf(Predicate<MessageReference> predicate, Bucket removed) {
+         int kept = 0;
+         for (int i = 0; i < size; i++) {
+            final MessageReference ref = refs[i];
+            if (predicate.test(ref)) {
+               removed.add(ref, entries[i]);
+            } else {
+               refs[kept] = ref;
+               entries[kept] = entries[i];
+               kept++;
+            }
+         }
+         if (kept == size) {
+            return false;
+         }
+         Arrays.fill(refs, kept, size, null);
+         size = kept;
+         return true;
+      }
+
+      void clear() {
+         if (refs.length > MAX_RETAINED_CAPACITY) {
+            refs = EMPTY_REFS;
+            entries = EMPTY_ENTRIES;
+         } else {
+            Arrays.fill(refs, 0, size, null);
+         }
+         size = 0;
+      }
+
+      private void ensureCapacity(int capacity) {
+         if (capacity > refs.length) {
+            final int newCapacity = Math.max(capacity, Math.max(INITIAL_CAPACITY, refs.length + (refs.length >> 1)));
+            refs = Arrays.copyOf(refs, newCapacity);
+            entries = Arrays.copyOf(entries, newCapacity);
+         }
+      }
+
+      /**
+       * Bottom-up merge sort of both arrays in delivery order.
+       */
+      void sort() {
+         if (size < 2) {
+            return;
+         }
+         MessageReference[] srcRefs = refs;
+         long[] srcEntries = entries;
+         MessageReference[] dstRefs = new MessageReference[size];
+         long[] dstEntries = new long[size];
+
+         for (int width = 1; width < size; width <<= 1) {
+            for (int low = 0; low < size; low += width << 1) {
+               final int middle = Math.min(low + width, size);
+               final int high = Math.min(low + (width << 1), size);
+               merge(srcRefs, srcEntries, dstRefs, dstEntries, low, middle, high);
+            }
+            final MessageReference[] swapRefs = srcRefs;
+            srcRefs = dstRefs;
+            dstRefs = swapRefs;
+            final long[] swapEntries = srcEntries;
+            srcEntries = dstEntries;
+            dstEntries = swapEntries;
+         }
+
+         if (srcRefs != refs) {
+            System.arraycopy(srcRefs, 0, refs, 0, size);
+            System.arraycopy(srcEntries, 0, entries, 0, size);
+         }
+      }
+
+      private static void merge(MessageReference[] srcRefs, long[] srcEntries,
+                                MessageReference[] dstRefs, long[] dstEntries,
+                                int low, int middle, int high) {
+         int left = low;
+         int right = middle;
+         for (int i = low; i < high; i++) {
+            if (right >= high || left < middle && compare(srcRefs[left], srcEntries[left], srcRefs[right], srcEntries[right]) <= 0) {
+               dstRefs[i] = srcRefs[left];
+               dstEntries[i] = srcEntries[left];
+               left++;
+            } else {
+               dstRefs[i] = srcRefs[right];
+               dstEntries[i] = srcEntries[right];
+               right++;
+            }
+         }
+      }
+   }
+}
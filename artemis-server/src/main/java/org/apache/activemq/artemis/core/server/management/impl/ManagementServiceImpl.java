@@ -64,6 +64,8 @@ import org.apache.activemq.artemis.api.core.management.RemoteBrokerConnectionCon
 import org.apache.activemq.artemis.api.core.management.ResourceNames;
 import org.apache.activemq.artemis.core.config.ClusterConnectionConfiguration;
 import org.apache.activemq.artemis.core.config.Configuration;
+import org.apache.activemq.artemis.core.io.SequentialFileFactory;
+import org.apache.activemq.artemis.core.io.buffer.TimedBuffer;
 import org.apache.activemq.artemis.core.management.impl.AcceptorControlImpl;
 import org.apache.activemq.artemis.core.management.impl.ActiveMQServerControlImpl;
 import org.apache.activemq.artemis.core.management.impl.AddressControlImpl;
@@ -83,6 +85,8 @@ import org.apache.activemq.artemis.core.messagecounter.MessageCounter;
 import org.apache.activemq.artemis.core.messagecounter.MessageCounterManager;
 import org.apache.activemq.artemis.core.messagecounter.impl.MessageCounterManagerImpl;
 import org.apache.activemq.artemis.core.paging.PagingManager;
+import org.apache.activemq.artemis.core.paging.impl.PageCompactor;
+import org.apache.activemq.artemis.core.paging.impl.SharedPageCache;
 import org.apache.activemq.artemis.core.persistence.StorageManager;
 import org.apache.activemq.artemis.core.postoffice.PostOffice;
 import org.apache.activemq.artemis.core.remoting.server.RemotingService;
@@ -257,6 +261,31 @@ public class ManagementServiceImpl implements ManagementService {
             builder.build(BrokerMetricNames.AUTHENTICATION_COUNT, securityStore, metrics -> (double) securityStore.getAuthenticationFailureCount(), ActiveMQServerControl.AUTHENTICATION_FAILURE_COUNT, Arrays.asList(Tag.of("result", "failure")));
             builder.build(BrokerMetricNames.AUTHORIZATION_COUNT, securityStore, metrics -> (double) securityStore.getAuthorizationSuccessCount(), ActiveMQServerControl.AUTHORIZATION_SUCCESS_COUNT, Arrays.asList(Tag.of("result", "success")));
             builder.build(BrokerMetricNames.AUTHORIZATION_COUNT, securityStore, metrics -> (double) securityStore.getAuthorizationFailureCount(), ActiveMQServerControl.AUTHORIZATION_FAILURE_COUNT, Arrays.asList(Tag.of("result", "failure")));
+            SharedPageCache pageCache = pagingManager != null ? pagingManager.getSharedPageCache() : null;
+            if (pageCache != null) {
+               builder.build(BrokerMetricNames.PAGE_CACHE_SIZE, pageCache, metrics -> (double) pageCache.getSize(), ActiveMQServerControl.PAGE_CACHE_SIZE_DESCRIPTION, Collections.emptyList());
+               builder.build(BrokerMetricNames.PAGE_CACHE_PAGES, pageCache, metrics -> (double) pageCache.getPageCount(), ActiveMQServerControl.PAGE_CACHE_PAGES_DESCRIPTION, Collections.emptyList());
+               builder.build(BrokerMetricNames.PAGE_CACHE_COUNT, pageCache, metrics -> (double) pageCache.getHitCount(), ActiveMQServerControl.PAGE_CACHE_HIT_COUNT_DESCRIPTION, Arrays.asList(Tag.of("result", "hit")));
+               builder.build(BrokerMetricNames.PAGE_CACHE_COUNT, pageCache, metrics -> (double) pageCache.getMissCount(), ActiveMQServerControl.PAGE_CACHE_MISS_COUNT_DESCRIPTION, Arrays.asList(Tag.of("result", "miss")));
+               builder.build(BrokerMetricNames.PAGE_CACHE_EVICTION_COUNT, pageCache, metrics -> (double) pageCache.getEvictionCount(), ActiveMQServerControl.PAGE_CACHE_EVICTION_COUNT_DESCRIPTION, Collections.emptyList());
+            }
+            PageCompactor pageCompactor = pagingManager != null ? pagingManager.getPageCompactor() : null;
+            if (pageCompactor != null) {
+               builder.build(BrokerMetricNames.PAGE_COMPACT_COUNT, pageCompactor, metrics -> (double) pageCompactor.getCompactedPages(), ActiveMQServerControl.PAGE_COMPACT_COUNT_DESCRIPTION, Collections.emptyList());
+               builder.build(BrokerMetricNames.PAGE_COMPACT_BYTES_RECLAIMED, pageCompactor, metrics -> (double) pageCompactor.getBytesReclaimed(), ActiveMQServerControl.PAGE_COMPACT_BYTES_RECLAIMED_DESCRIPTION, Collections.emptyList());
+            }
+            SequentialFileFactory journalFactory = storageManager != null ? storageManager.getJournalSequentialFileFactory() : null;
+            TimedBuffer journalBuffer = journalFactory != null ? journalFactory.getTimedBuffer() : null;
+            if (journalBuffer != null) {
+               builder.build(BrokerMetricNames.JOURNAL_BUFFER_TIMEOUT, journalBuffer, metrics -> (double) journalBuffer.getFlushTimeout(), ActiveMQServerControl.JOURNAL_BUFFER_TIMEOUT_DESCRIPTION, Collections.emptyList());
+               builder.build(BrokerMetricNames.JOURNAL_BUFFER_SYNC_LATENCY, journalBuffer, metrics -> (double) journalBuffer.getSyncLatency(), ActiveMQServerControl.JOURNAL_BUFFER_SYNC_LATENCY_DESCRIPTION, Collections.emptyList());
+               int[] batchSizeBuckets = journalBuffer.getBatchSizeBuckets();
+               for (int i = 0; i <= batchSizeBuckets.length; i++) {
+                  final int bucket = i;
+                  String size = i < batchSizeBuckets.length ? String.valueOf(batchSizeBuckets[i]) : "+Inf";
+                  builder.build(BrokerMetricNames.JOURNAL_BUFFER_BATCH_COUNT, journalBuffer, metrics -> (double) journalBuffer.getBatchCount(bucket), ActiveMQServerControl.JOURNAL_BUFFER_BATCH_COUNT_DESCRIPTION, Arrays.asList(Tag.of("size", size)));
+               }
+            }
          });
       }
    }
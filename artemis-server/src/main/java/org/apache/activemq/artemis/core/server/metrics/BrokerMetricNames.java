@@ -27,4 +27,13 @@ public class BrokerMetricNames {
    public static final String ACTIVE = "active";
    public static final String AUTHENTICATION_COUNT = "authentication.count";
    public static final String AUTHORIZATION_COUNT = "authorization.count";
+   public static final String PAGE_CACHE_SIZE = "page.cache.size";
+   public static final String PAGE_CACHE_PAGES = "page.cache.pages";
+   public static final String PAGE_CACHE_COUNT = "page.cache.count";
+   public static final String PAGE_CACHE_EVICTION_COUNT = "page.cache.eviction.count";
+   public static final String PAGE_COMPACT_COUNT = "page.compact.count";
+   public static final String PAGE_COMPACT_BYTES_RECLAIMED = "page.compact.bytes.reclaimed";
+   public static final String JOURNAL_BUFFER_TIMEOUT = "journal.buffer.timeout";
+   public static final String JOURNAL_BUFFER_SYNC_LATENCY = "journal.buffer.sync.latency";
+   public static final String JOURNAL_BUFFER_BATCH_COUNT = "journal.buffer.batch.count";
 }
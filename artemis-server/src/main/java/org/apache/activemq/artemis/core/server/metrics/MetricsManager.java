@@ -25,6 +25,7 @@ import java.util.concurrent.ConcurrentHashMap;
 import java.util.function.Consumer;
 import java.util.function.ToDoubleFunction;
 
+import io.micrometer.core.instrument.FunctionCounter;
 import io.micrometer.core.instrument.Gauge;
 import io.micrometer.core.instrument.Gauge.Builder;
 import io.micrometer.core.instrument.Meter;
@@ -103,6 +104,16 @@ public class MetricsManager {
          if (metricsConfiguration.isSecurityCaches() && securityStore.isSecurityEnabled()) {
             CaffeineCacheMetrics.monitor(meterRegistry, ((SecurityStoreImpl)securityStore).getAuthenticationCache(), "authentication", commonTags);
             CaffeineCacheMetrics.monitor(meterRegistry, ((SecurityStoreImpl)securityStore).getAuthorizationCache(), "authorization", commonTags);
+            FunctionCounter.builder("cache.permission.checks", (SecurityStoreImpl)securityStore, SecurityStoreImpl::getAuthorizationCacheHitCount)
+               .tags(commonTags)
+               .tags("cache", "authorization", "result", "hit")
+               .description("The number of authorizations granted by the cached permissions")
+               .register(meterRegistry);
+            FunctionCounter.builder("cache.permission.checks", (SecurityStoreImpl)securityStore, SecurityStoreImpl::getAuthorizationCacheMissCount)
+               .tags(commonTags)
+               .tags("cache", "authorization", "result", "miss")
+               .description("The number of authorizations not found in the cached permissions")
+               .register(meterRegistry);
          }
       }
    }
@@ -17,13 +17,20 @@
 package org.apache.activemq.artemis.core.server.replay;
 
 import java.io.File;
+import java.io.IOException;
 import java.text.SimpleDateFormat;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
 import java.util.Date;
 import java.util.HashMap;
+import java.util.HashSet;
 import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.FutureTask;
 import java.util.concurrent.TimeUnit;
 
 import org.apache.activemq.artemis.api.core.ActiveMQBuffer;
@@ -59,6 +66,9 @@ public class ReplayManager {
    }
    private static final Logger logger = LoggerFactory.getLogger(MethodHandles.lookup().lookupClass());
 
+   // the most messages routed by a single commit
+   private static final int ROUTE_BATCH_SIZE = 1000;
+
    private final ActiveMQServer server;
    private JournalImpl journal;
    private final File retentionFolder;
@@ -110,10 +120,16 @@ public class ReplayManager {
 
       List<JournalFile> files = messagesJournal.orderFiles();
 
+      removeOrphanIndexes(files);
+
       RoutingContext context = new RoutingContextImpl(null);
 
       Map<Long, Set<JournalFile>> largeMessageLocations = new HashMap<>();
 
+      // the files are read and filtered in parallel, but their messages are routed in order
+      final ArrayDeque<FutureTask<FileScan>> scans = new ArrayDeque<>();
+      final int maxPendingScans = Runtime.getRuntime().availableProcessors();
+
       for (JournalFile file : files) {
          if (start != null || end != null) {
             final String fileName = file.getFile().getFileName();
@@ -135,59 +151,179 @@ public class ReplayManager {
                continue;
             }
          }
-         logger.debug("Reading retention file {}", file);
-         JournalImpl.readJournalFile(messagesFF, file, new JournalReaderCallback() {
-            @Override
-            public void onReadEventRecord(RecordInfo info) throws Exception {
-               switch (info.getUserRecordType()) {
-                  case JournalRecordIds.ADD_MESSAGE_BODY:
-                     Set<JournalFile> files = largeMessageLocations.get(info.id);
-                     if (files == null) {
-                        files = new LinkedHashSet<>();
-                        largeMessageLocations.put(info.id, files);
-                     }
-                     files.add(file);
-                     break;
-
-                  default:
-                     onReadAddRecord(info);
-               }
-            }
 
-            @Override
-            public void onReadAddRecord(RecordInfo info) throws Exception {
-               if (info.getUserRecordType() == JournalRecordIds.ADD_LARGE_MESSAGE) {
-                  ActiveMQBuffer buffer = ActiveMQBuffers.wrappedBuffer(info.data);
-                  LargeServerMessage message = new LargeServerMessageImpl(server.getStorageManager());
-                  LargeMessagePersister.getInstance().decode(buffer, message, null);
-                  route(filter, context, messagesFF, message.toMessage(), sourceAddress, targetAddress, largeMessageLocations);
-               } else if (info.getUserRecordType() == JournalRecordIds.ADD_MESSAGE_PROTOCOL) {
-                  ActiveMQBuffer buffer = ActiveMQBuffers.wrappedBuffer(info.data);
-                  Message message = MessagePersister.getInstance().decode(buffer, null, null, server.getStorageManager());
-                  route(filter, context, messagesFF, message, sourceAddress, targetAddress, largeMessageLocations);
-               }
+         final RetentionFileIndex index = RetentionFileIndex.load(file.getFile().getJavaFile());
+         final FutureTask<FileScan> scan;
+         if (index != null && !index.mightContainAddress(sourceAddress)) {
+            logger.debug("File {} being skipped as its index has no message for {}", file, sourceAddress);
+            scan = new FutureTask<>(() -> new FileScan(file, index.getLargeMessageBodyIds()));
+            scan.run();
+         } else {
+            scan = new FutureTask<>(() -> scan(messagesFF, file, index == null, filter, sourceAddress, targetAddress));
+            server.getThreadPool().execute(scan);
+         }
+         scans.add(scan);
 
-            }
+         while (scans.size() >= maxPendingScans) {
+            route(scans.poll(), context, messagesFF, largeMessageLocations);
+         }
+      }
 
-            @Override
-            public void onReadUpdateRecord(RecordInfo info) throws Exception {
-               onReadAddRecord(info);
-            }
+      while (!scans.isEmpty()) {
+         route(scans.poll(), context, messagesFF, largeMessageLocations);
+      }
+
+      logger.debug("Replay done::sourceAddress={}", sourceAddress);
+   }
+
+   /**
+    * The messages of a retention file to replay, along with the large message bodies it holds.
+    */
+   private static final class FileScan {
+
+      final JournalFile file;
+
+      final long[] largeMessageBodyIds;
+
+      final List<Message> messages;
+
+      final List<Long> skippedLargeMessageIds;
+
+      FileScan(JournalFile file, long[] largeMessageBodyIds) {
+         this(file, largeMessageBodyIds, Collections.emptyList(), Collections.emptyList());
+      }
 
-            @Override
-            public void onReadAddRecordTX(long transactionID, RecordInfo info) throws Exception {
-               onReadAddRecord(info);
+      FileScan(JournalFile file, long[] largeMessageBodyIds, List<Message> messages, List<Long> skippedLargeMessageIds) {
+         this.file = file;
+         this.largeMessageBodyIds = largeMessageBodyIds;
+         this.messages = messages;
+         this.skippedLargeMessageIds = skippedLargeMessageIds;
+      }
+   }
+
+   private FileScan scan(SequentialFileFactory messagesFF,
+                         JournalFile file,
+                         boolean buildIndex,
+                         Filter filter,
+                         String sourceAddress,
+                         String targetAddress) throws Exception {
+      logger.debug("Reading retention file {}", file);
+      final RetentionFileIndex.Builder indexBuilder = new RetentionFileIndex.Builder();
+      final List<Message> messages = new ArrayList<>();
+      final List<Long> skippedLargeMessageIds = new ArrayList<>();
+
+      JournalImpl.readJournalFile(messagesFF, file, new JournalReaderCallback() {
+         @Override
+         public void onReadEventRecord(RecordInfo info) throws Exception {
+            switch (info.getUserRecordType()) {
+               case JournalRecordIds.ADD_MESSAGE_BODY:
+                  indexBuilder.addLargeMessageBody(info.id);
+                  break;
+
+               default:
+                  onReadAddRecord(info);
             }
+         }
 
-            @Override
-            public void onReadUpdateRecordTX(long transactionID, RecordInfo info) throws Exception {
-               onReadUpdateRecord(info);
+         @Override
+         public void onReadAddRecord(RecordInfo info) throws Exception {
+            final Message message;
+            if (info.getUserRecordType() == JournalRecordIds.ADD_LARGE_MESSAGE) {
+               ActiveMQBuffer buffer = ActiveMQBuffers.wrappedBuffer(info.data);
+               LargeServerMessage largeMessage = new LargeServerMessageImpl(server.getStorageManager());
+               LargeMessagePersister.getInstance().decode(buffer, largeMessage, null);
+               message = largeMessage.toMessage();
+            } else if (info.getUserRecordType() == JournalRecordIds.ADD_MESSAGE_PROTOCOL) {
+               ActiveMQBuffer buffer = ActiveMQBuffers.wrappedBuffer(info.data);
+               message = MessagePersister.getInstance().decode(buffer, null, null, server.getStorageManager());
+            } else {
+               return;
             }
+            indexBuilder.addMessage(message.getAddress());
+            if (messageMatch(filter, message, sourceAddress, targetAddress)) {
+               messages.add(message);
+            } else if (message.isLargeMessage()) {
+               skippedLargeMessageIds.add(message.getMessageID());
+            }
+         }
+
+         @Override
+         public void onReadUpdateRecord(RecordInfo info) throws Exception {
+            onReadAddRecord(info);
+         }
+
+         @Override
+         public void onReadAddRecordTX(long transactionID, RecordInfo info) throws Exception {
+            onReadAddRecord(info);
+         }
+
+         @Override
+         public void onReadUpdateRecordTX(long transactionID, RecordInfo info) throws Exception {
+            onReadUpdateRecord(info);
+         }
+
+      }, null, false, null);
 
-         }, null, false, null);
+      final RetentionFileIndex index = indexBuilder.build(file.getFile().getJavaFile().length());
+      if (buildIndex) {
+         try {
+            index.store(file.getFile().getJavaFile());
+         } catch (IOException e) {
+            logger.debug("Unable to store the index of retention file {}", file, e);
+         }
       }
+      return new FileScan(file, index.getLargeMessageBodyIds(), messages, skippedLargeMessageIds);
+   }
 
-      logger.debug("Replay done::sourceAddress={}", sourceAddress);
+   private void route(FutureTask<FileScan> scanTask,
+                      RoutingContext context,
+                      SequentialFileFactory messagesFF,
+                      Map<Long, Set<JournalFile>> largeMessageLocations) throws Exception {
+      // runs the scan right here if no thread of the pool picked it yet
+      scanTask.run();
+      final FileScan scan;
+      try {
+         scan = scanTask.get();
+      } catch (ExecutionException e) {
+         if (e.getCause() instanceof Exception cause) {
+            throw cause;
+         }
+         throw e;
+      }
+      for (long id : scan.largeMessageBodyIds) {
+         largeMessageLocations.computeIfAbsent(id, k -> new LinkedHashSet<>()).add(scan.file);
+      }
+      for (Long id : scan.skippedLargeMessageIds) {
+         largeMessageLocations.remove(id);
+      }
+      // routed in batches, each one stored by a single commit
+      for (int from = 0; from < scan.messages.size(); from += ROUTE_BATCH_SIZE) {
+         final List<Message> batch = scan.messages.subList(from, Math.min(scan.messages.size(), from + ROUTE_BATCH_SIZE));
+         for (Message message : batch) {
+            prepareRoute(messagesFF, message, largeMessageLocations);
+         }
+         server.getPostOffice().route(batch, context, false, false);
+         context.clear();
+      }
+   }
+
+   /**
+    * Removes the indexes of the retention files removed by the journal.
+    */
+   private void removeOrphanIndexes(List<JournalFile> files) {
+      final Set<String> indexNames = new HashSet<>();
+      for (JournalFile file : files) {
+         indexNames.add(RetentionFileIndex.indexFile(file.getFile().getJavaFile()).getName());
+      }
+      final File[] indexFiles = retentionFolder.listFiles((dir, name) -> name.endsWith(RetentionFileIndex.INDEX_EXTENSION));
+      if (indexFiles != null) {
+         for (File indexFile : indexFiles) {
+            if (!indexNames.contains(indexFile.getName())) {
+               logger.debug("Removing the index {} of a retention file no longer present", indexFile);
+               indexFile.delete();
+            }
+         }
+      }
    }
 
    private boolean messageMatch(Filter filter, Message message, String sourceAddress, String targetAddress) {
@@ -208,23 +344,11 @@ public class ReplayManager {
    }
 
 
-   private void route(Filter filter, RoutingContext context, SequentialFileFactory messagesFF, Message message, String sourceAddress, String targetAddress, Map<Long, Set<JournalFile>> filesMap) throws Exception {
-      if (messageMatch(filter, message, sourceAddress, targetAddress)) {
-         final long originalMessageID = message.getMessageID();
-         message.setMessageID(server.getStorageManager().generateID());
-         if (message.isLargeMessage()) {
-            readLargeMessageBody(messagesFF, message, filesMap, originalMessageID);
-         }
-         if (targetAddress != null && !sourceAddress.equals(targetAddress)) {
-            message.setAddress(targetAddress);
-            message.reencode();
-         }
-         server.getPostOffice().route(message, context, false, false, null);
-         context.clear();
-      } else {
-         if (message.isLargeMessage()) {
-            filesMap.remove(message.getMessageID());
-         }
+   private void prepareRoute(SequentialFileFactory messagesFF, Message message, Map<Long, Set<JournalFile>> filesMap) throws Exception {
+      final long originalMessageID = message.getMessageID();
+      message.setMessageID(server.getStorageManager().generateID());
+      if (message.isLargeMessage()) {
+         readLargeMessageBody(messagesFF, message, filesMap, originalMessageID);
       }
    }
 
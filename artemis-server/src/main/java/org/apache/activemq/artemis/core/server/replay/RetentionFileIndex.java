@@ -0,0 +1,224 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.activemq.artemis.core.server.replay;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.lang.invoke.MethodHandles;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Set;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * A sidecar of a retention journal file, which tells the {@link ReplayManager} whether the file may contain messages
+ * of an address without reading it.
+ * <p>
+ * It holds a bloom filter of the addresses of the messages in the file, and the ids of the large messages whose body
+ * is (partly) stored in it: the body of a large message may be in a file without any message of its address. The
+ * index is built the first time the file is read by a replay, and stored next to it in {@link #indexFile}: retention
+ * files are never modified once copied, hence the index stays valid as long as the size of the file matches.
+ */
+public final class RetentionFileIndex {
+
+   private static final Logger logger = LoggerFactory.getLogger(MethodHandles.lookup().lookupClass());
+
+   public static final String INDEX_EXTENSION = ".index";
+
+   private static final int MAGIC = 0x52544958;
+
+   private static final int VERSION = 1;
+
+   private static final int BITS_PER_ADDRESS = 10;
+
+   private static final int HASH_FUNCTIONS = 4;
+
+   private final long fileSize;
+
+   private final int numberOfMessages;
+
+   private final long[] addressBits;
+
+   private final long[] largeMessageBodyIds;
+
+   private RetentionFileIndex(long fileSize, int numberOfMessages, long[] addressBits, long[] largeMessageBodyIds) {
+      this.fileSize = fileSize;
+      this.numberOfMessages = numberOfMessages;
+      this.addressBits = addressBits;
+      this.largeMessageBodyIds = largeMessageBodyIds;
+   }
+
+   public static File indexFile(File retentionFile) {
+      return new File(retentionFile.getParentFile(), retentionFile.getName() + INDEX_EXTENSION);
+   }
+
+   /**
+    * The number of messages stored in the retention file.
+    */
+   public int getNumberOfMessages() {
+      return numberOfMessages;
+   }
+
+   /**
+    * The ids of the large messages whose body is stored in the retention file.
+    */
+   public long[] getLargeMessageBodyIds() {
+      return largeMessageBodyIds;
+   }
+
+   /**
+    * {@code false} if the retention file has no message of {@code address}; {@code true} if it may have some.
+    */
+   public boolean mightContainAddress(String address) {
+      final long hash = hash(address);
+      final int bits = addressBits.length * Long.SIZE;
+      for (int i = 0; i < HASH_FUNCTIONS; i++) {
+         final int bit = bitOf(hash, i, bits);
+         if ((addressBits[bit >>> 6] & (1L << bit)) == 0) {
+            return false;
+         }
+      }
+      return true;
+   }
+
+   // FNV-1a: the two halves of the hash are used to derive the bloom filter positions
+   private static long hash(String address) {
+      long hash = 0xcbf29ce484222325L;
+      for (int i = 0; i < address.length(); i++) {
+         hash ^= address.charAt(i);
+         hash *= 0x100000001b3L;
+      }
+      return hash;
+   }
+
+   private static int bitOf(long hash, int function, int bits) {
+      final int combined = (int) hash + function * (int) (hash >>> 32);
+      return (combined & Integer.MAX_VALUE) % bits;
+   }
+
+   /**
+    * Writes the index of {@code retentionFile} next to it: the index is written aside and then renamed, so a partial
+    * index is never loaded.
+    */
+   public void store(File retentionFile) throws IOException {
+      final File indexFile = indexFile(retentionFile);
+      final File tmpFile = new File(indexFile.getParentFile(), indexFile.getName() + ".tmp");
+      try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(tmpFile)))) {
+         out.writeInt(MAGIC);
+         out.writeInt(VERSION);
+         out.writeLong(fileSize);
+         out.writeInt(numberOfMessages);
+         out.writeInt(addressBits.length);
+         for (long word : addressBits) {
+            out.writeLong(word);
+         }
+         out.writeInt(largeMessageBodyIds.length);
+         for (long id : largeMessageBodyIds) {
+            out.writeLong(id);
+         }
+      }
+      Files.move(tmpFile.toPath(), indexFile.toPath(), StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+   }
+
+   /**
+    * Loads the index of {@code retentionFile}, or returns {@code null} if there is none or it doesn't match the file.
+    */
+   public static RetentionFileIndex load(File retentionFile) {
+      final File indexFile = indexFile(retentionFile);
+      if (!indexFile.exists()) {
+         return null;
+      }
+      try (DataInputStream in = new DataInputStream(new BufferedInputStream(new FileInputStream(indexFile)))) {
+         if (in.readInt() != MAGIC || in.readInt() != VERSION) {
+            logger.debug("{} isn't a valid index", indexFile);
+            return null;
+         }
+         final long fileSize = in.readLong();
+         if (fileSize != retentionFile.length()) {
+            logger.debug("{} is stale: indexed size = {}, actual size = {}", indexFile, fileSize, retentionFile.length());
+            return null;
+         }
+         final int numberOfMessages = in.readInt();
+         final long[] addressBits = new long[in.readInt()];
+         for (int i = 0; i < addressBits.length; i++) {
+            addressBits[i] = in.readLong();
+         }
+         final long[] largeMessageBodyIds = new long[in.readInt()];
+         for (int i = 0; i < largeMessageBodyIds.length; i++) {
+            largeMessageBodyIds[i] = in.readLong();
+         }
+         if (addressBits.length == 0) {
+            return null;
+         }
+         return new RetentionFileIndex(fileSize, numberOfMessages, addressBits, largeMessageBodyIds);
+      } catch (IOException | RuntimeException e) {
+         logger.debug("Unable to load {}", indexFile, e);
+         return null;
+      }
+   }
+
+   /**
+    * Collects the content of a retention file while it is read.
+    */
+   public static final class Builder {
+
+      private final Set<String> addresses = new HashSet<>();
+
+      private final Set<Long> largeMessageBodyIds = new HashSet<>();
+
+      private int numberOfMessages;
+
+      public Builder addMessage(String address) {
+         numberOfMessages++;
+         if (address != null) {
+            addresses.add(address);
+         }
+         return this;
+      }
+
+      public Builder addLargeMessageBody(long messageId) {
+         largeMessageBodyIds.add(messageId);
+         return this;
+      }
+
+      public RetentionFileIndex build(long fileSize) {
+         final int words = Math.max(1, (addresses.size() * BITS_PER_ADDRESS + Long.SIZE - 1) / Long.SIZE);
+         final long[] addressBits = new long[words];
+         final int bits = words * Long.SIZE;
+         for (String address : addresses) {
+            final long hash = hash(address);
+            for (int i = 0; i < HASH_FUNCTIONS; i++) {
+               final int bit = bitOf(hash, i, bits);
+               addressBits[bit >>> 6] |= 1L << bit;
+            }
+         }
+         final long[] bodyIds = largeMessageBodyIds.stream().mapToLong(Long::longValue).toArray();
+         Arrays.sort(bodyIds);
+         return new RetentionFileIndex(fileSize, numberOfMessages, addressBits, bodyIds);
+      }
+   }
+}
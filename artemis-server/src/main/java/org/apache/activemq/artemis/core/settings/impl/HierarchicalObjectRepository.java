@@ -23,11 +23,13 @@ import java.util.Collection;
 import java.util.Comparator;
 import java.util.HashMap;
 import java.util.HashSet;
+import java.util.IdentityHashMap;
 import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
 import java.util.concurrent.locks.ReentrantReadWriteLock;
 import java.util.regex.Pattern;
 
@@ -51,15 +53,20 @@ public class HierarchicalObjectRepository<T> implements HierarchicalRepository<T
    /**
     * The default Match to fall back to
     */
-   private T defaultmatch;
+   private volatile T defaultmatch;
 
    /**
     * the matches; separate wildcard matches from exact matches to reduce the searching necessary with a
     * large number of exact matches
     */
    private final Map<String, Match<T>> wildcardMatches = new HashMap<>();
-   private final Map<String, Match<T>> exactMatches = new HashMap<>();
-   private final Map<String, Match<T>> literalMatches = new HashMap<>();
+   private final Map<String, Match<T>> exactMatches = new ConcurrentHashMap<>();
+   private final Map<String, Match<T>> literalMatches = new ConcurrentHashMap<>();
+
+   /**
+    * the {@link #wildcardMatches} indexed by the words they start with, rebuilt whenever they change
+    */
+   private volatile WildcardIndex<T> wildcardIndex;
 
    /**
     * Certain values cannot be removed after installed.
@@ -91,19 +98,17 @@ public class HierarchicalObjectRepository<T> implements HierarchicalRepository<T
    private final Map<String, T> cache = new ConcurrentHashMap<>();
 
    /**
-    * Need a lock instead of using multiple {@link ConcurrentHashMap}s.
-    * <p>
-    * We could have a race between the state of {@link #wildcardMatches}, {@link #exactMatches},
-    * and {@link #cache}:
-    * <p>
-    * Thread1: calls {@link #addMatch(String, T)}: i. cleans cache; ii. adds match to Map.<br>
-    * Thread2: could add an (out-dated) entry to the cache between 'i. clean cache' and 'ii. add
-    * match to Map'.
+    * Incremented by every change of the matches, after the change and before the cache is invalidated.
     * <p>
-    * The lock is OK with regards to performance because we can search the cache before entering the
-    * lock.
-    * <p>
-    * The lock is required for the 'add match to cache' part.
+    * {@link #getMatch(String)} doesn't lock: it reads the generation before computing a value and checks it again
+    * once the value is cached. If it changed, the value may be out-dated and the invalidation may have happened
+    * before the value was cached, so the value is removed from the cache. Else any concurrent change will invalidate
+    * the cache after the value was cached.
+    */
+   private final AtomicLong generation = new AtomicLong();
+
+   /**
+    * Serializes the changes of the matches and of the listeners.
     */
    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock(false);
 
@@ -133,6 +138,7 @@ public class HierarchicalObjectRepository<T> implements HierarchicalRepository<T
          this.literalMatchMarkerStart = 0;
          this.literalMatchMarkerEnd = 0;
       }
+      this.wildcardIndex = WildcardIndex.build(wildcardMatches.values(), this.wildcardConfiguration);
    }
 
    @Override
@@ -203,13 +209,6 @@ public class HierarchicalObjectRepository<T> implements HierarchicalRepository<T
       modifiedMatch = matchModifier.modify(modifiedMatch);
       lock.writeLock().lock();
       try {
-         // an exact match (i.e. one without wildcards) won't impact any other matches so no need to clear the cache
-         if (usesWildcards(modifiedMatch)) {
-            clearCache();
-         } else if (modifiedMatch != null && cache.containsKey(modifiedMatch)) {
-            cache.remove(modifiedMatch);
-         }
-
          if (immutableMatch) {
             immutables.add(modifiedMatch);
          }
@@ -219,9 +218,18 @@ public class HierarchicalObjectRepository<T> implements HierarchicalRepository<T
             literalMatches.put(modifiedMatch, match1);
          } else if (usesWildcards(modifiedMatch)) {
             wildcardMatches.put(modifiedMatch, match1);
+            indexWildcardMatches();
          } else {
             exactMatches.put(modifiedMatch, match1);
          }
+
+         // an exact match (i.e. one without wildcards) won't impact any other matches so no need to clear the cache
+         if (usesWildcards(modifiedMatch)) {
+            clearCache();
+         } else {
+            generation.incrementAndGet();
+            cache.remove(modifiedMatch);
+         }
       } finally {
          lock.writeLock().unlock();
       }
@@ -254,19 +262,19 @@ public class HierarchicalObjectRepository<T> implements HierarchicalRepository<T
       if (cacheResult != null) {
          return cacheResult;
       }
-      lock.readLock().lock();
-      try {
-         List<Match<T>> matches =
-            getMatches(modifiedMatch);
-         T actualMatch = merge(matches);
-         T value = actualMatch != null ? actualMatch : defaultmatch;
-         if (value != null) {
-            cache.put(modifiedMatch, value);
+      // see generation
+      final long computedGeneration = generation.get();
+      List<Match<T>> matches =
+         getMatches(modifiedMatch);
+      T actualMatch = merge(matches);
+      T value = actualMatch != null ? actualMatch : defaultmatch;
+      if (value != null) {
+         cache.put(modifiedMatch, value);
+         if (generation.get() != computedGeneration) {
+            cache.remove(modifiedMatch, value);
          }
-         return value;
-      } finally {
-         lock.readLock().unlock();
       }
+      return value;
    }
 
    @Override
@@ -316,17 +324,18 @@ public class HierarchicalObjectRepository<T> implements HierarchicalRepository<T
             logger.debug("Cannot remove match {} since it came from a main config", modMatch);
          } else {
             /**
-             * Clear the cache before removing the match, but only if the match used wildcards. This
-             * will force any thread at {@link #getMatch(String)} to get the lock to recompute.
+             * Clear the cache after removing the match, so that any value computed by {@link #getMatch(String)}
+             * meanwhile is dropped (see {@link #generation}).
              */
             if (usesWildcards(modMatch)) {
-               clearCache();
-               wildcardMatches.remove(modMatch);
+               if (wildcardMatches.remove(modMatch) != null) {
+                  indexWildcardMatches();
+               }
             } else {
-               clearCache();
                exactMatches.remove(modMatch);
                literalMatches.remove(modMatch);
             }
+            clearCache();
             onChange();
          }
       } finally {
@@ -364,8 +373,8 @@ public class HierarchicalObjectRepository<T> implements HierarchicalRepository<T
     */
    @Override
    public void setDefault(final T defaultValue) {
-      clearCache();
       defaultmatch = defaultValue;
+      clearCache();
    }
 
    /**
@@ -381,9 +390,9 @@ public class HierarchicalObjectRepository<T> implements HierarchicalRepository<T
    public void clear() {
       lock.writeLock().lock();
       try {
-         clearCache();
          listeners.clear();
          clearMatches();
+         clearCache();
       } finally {
          lock.writeLock().unlock();
       }
@@ -393,12 +402,12 @@ public class HierarchicalObjectRepository<T> implements HierarchicalRepository<T
    public void swap(Set<Map.Entry<String, T>> entries) {
       lock.writeLock().lock();
       try {
-         clearCache();
          immutables.clear();
          clearMatches();
          for (Map.Entry<String, T> entry : entries) {
             addMatch(entry.getKey(), entry.getValue(), true, false);
          }
+         clearCache();
       } finally {
          lock.writeLock().unlock();
       }
@@ -413,6 +422,7 @@ public class HierarchicalObjectRepository<T> implements HierarchicalRepository<T
 
    @Override
    public void clearCache() {
+      generation.incrementAndGet();
       cache.clear();
    }
 
@@ -420,6 +430,11 @@ public class HierarchicalObjectRepository<T> implements HierarchicalRepository<T
       wildcardMatches.clear();
       exactMatches.clear();
       literalMatches.clear();
+      indexWildcardMatches();
+   }
+
+   private void indexWildcardMatches() {
+      wildcardIndex = WildcardIndex.build(wildcardMatches.values(), wildcardConfiguration);
    }
 
    private void onChange() {
@@ -458,7 +473,7 @@ public class HierarchicalObjectRepository<T> implements HierarchicalRepository<T
          matches.add(literalMatch);
       }
 
-      wildcardMatches.values().stream().
+      wildcardIndex.candidates(match).stream().
          filter(m -> m.getPattern().matcher(match).matches()).
          sorted((m1, m2) -> matchComparator.compare(m1.getMatch(), m2.getMatch())).
          forEach(m -> matches.add(m));
@@ -466,6 +481,101 @@ public class HierarchicalObjectRepository<T> implements HierarchicalRepository<T
       return matches;
    }
 
+   /**
+    * An immutable trie of wildcard matches, each one held by the node of the literal words it starts with, e.g.
+    * {@code a.b.*.#} by the node of {@code a} then {@code b}. A match can only apply to the addresses starting with
+    * its literal words, so the candidate matches of an address are the ones held by the nodes on the path of its
+    * words: the others needn't be tried. The candidates keep the order of the matches the index was built from.
+    */
+   private static final class WildcardIndex<T> {
+
+      private static final String REGEX_CHARACTERS = "\\^|?*+()[]{}";
+
+      private final List<Match<T>> matches = new ArrayList<>();
+
+      private final Map<String, WildcardIndex<T>> children = new HashMap<>();
+
+      private final char delimiter;
+
+      private final IdentityHashMap<Match<T>, Integer> order;
+
+      private WildcardIndex(char delimiter, IdentityHashMap<Match<T>, Integer> order) {
+         this.delimiter = delimiter;
+         this.order = order;
+      }
+
+      static <T> WildcardIndex<T> build(Collection<Match<T>> wildcardMatches, WildcardConfiguration wildcardConfiguration) {
+         final char delimiter = wildcardConfiguration.getDelimiter();
+         final IdentityHashMap<Match<T>, Integer> order = new IdentityHashMap<>();
+         final WildcardIndex<T> root = new WildcardIndex<>(delimiter, order);
+         // Match escapes '.' and '$' only: the words are compared as strings if they and the delimiter are literals
+         final boolean indexWords = REGEX_CHARACTERS.indexOf(delimiter) < 0;
+         for (Match<T> match : wildcardMatches) {
+            order.put(match, order.size());
+            WildcardIndex<T> node = root;
+            if (indexWords) {
+               for (String word : split(match.getMatch(), delimiter)) {
+                  if (!isLiteral(word, wildcardConfiguration)) {
+                     break;
+                  }
+                  node = node.children.computeIfAbsent(word, w -> new WildcardIndex<>(delimiter, order));
+               }
+            }
+            node.matches.add(match);
+         }
+         return root;
+      }
+
+      private static boolean isLiteral(String word, WildcardConfiguration wildcardConfiguration) {
+         if (word.indexOf(wildcardConfiguration.getAnyWords()) >= 0 || word.indexOf(wildcardConfiguration.getSingleWord()) >= 0) {
+            return false;
+         }
+         for (int i = 0; i < word.length(); i++) {
+            if (REGEX_CHARACTERS.indexOf(word.charAt(i)) >= 0) {
+               return false;
+            }
+         }
+         return true;
+      }
+
+      private static List<String> split(String address, char delimiter) {
+         final List<String> words = new ArrayList<>();
+         int start = 0;
+         int end;
+         while ((end = address.indexOf(delimiter, start)) >= 0) {
+            words.add(address.substring(start, end));
+            start = end + 1;
+         }
+         words.add(address.substring(start));
+         return words;
+      }
+
+      /**
+       * The matches which may apply to {@code address}.
+       */
+      List<Match<T>> candidates(String address) {
+         final List<Match<T>> candidates = new ArrayList<>(matches);
+         WildcardIndex<T> node = this;
+         int start = 0;
+         while (!node.children.isEmpty()) {
+            final int end = address.indexOf(delimiter, start);
+            node = node.children.get(end < 0 ? address.substring(start) : address.substring(start, end));
+            if (node == null) {
+               break;
+            }
+            candidates.addAll(node.matches);
+            if (end < 0) {
+               break;
+            }
+            start = end + 1;
+         }
+         if (candidates.size() > matches.size()) {
+            candidates.sort(Comparator.comparingInt(order::get));
+         }
+         return candidates;
+      }
+   }
+
    /**
     * Modifies the match String for any add or get from the repository
     */
@@ -0,0 +1,40 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.activemq.artemis.core.settings.impl;
+
+/**
+ * How a queue stores the references of the messages waiting to be delivered.
+ * <ul>
+ * <li>{@link #LINKED}: a linked list of references, each reference being a node of the list.</li>
+ * <li>{@link #PACKED}: segments of arrays where the references not delivered yet are packed as their message, sequence
+ * and delivery count, better suited to queues holding a very large number of messages.</li>
+ * </ul>
+ */
+public enum ReferenceStorePolicy {
+   LINKED, PACKED;
+
+   public static ReferenceStorePolicy getType(int type) {
+      switch (type) {
+         case 0:
+            return LINKED;
+         case 1:
+            return PACKED;
+         default:
+            return null;
+      }
+   }
+}
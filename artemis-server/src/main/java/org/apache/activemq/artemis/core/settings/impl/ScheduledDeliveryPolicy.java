@@ -0,0 +1,40 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.activemq.artemis.core.settings.impl;
+
+/**
+ * How a queue keeps track of its scheduled references (scheduled delivery time and redelivery delay).
+ * <ul>
+ * <li>{@link #SORTED}: a sorted set, ordered by delivery time, with one timer per distinct delivery time.</li>
+ * <li>{@link #TIMER_WHEEL}: a hierarchical timing wheel with O(1) insertion and a single timer, better suited to
+ * queues holding a very large number of scheduled messages.</li>
+ * </ul>
+ */
+public enum ScheduledDeliveryPolicy {
+   SORTED, TIMER_WHEEL;
+
+   public static ScheduledDeliveryPolicy getType(int type) {
+      switch (type) {
+         case 0:
+            return SORTED;
+         case 1:
+            return TIMER_WHEEL;
+         default:
+            return null;
+      }
+   }
+}
@@ -16,6 +16,8 @@
  */
 package org.apache.activemq.artemis.spi.core.protocol;
 
+import java.io.File;
+
 import org.apache.activemq.artemis.api.core.SimpleString;
 import org.apache.activemq.artemis.core.server.MessageReference;
 import org.apache.activemq.artemis.core.server.ServerConsumer;
@@ -80,6 +82,23 @@ public interface SessionCallback {
                                     boolean continues,
                                     boolean requiresResponse);
 
+   /**
+    * Sends the {@code count} bytes of {@code file} starting at {@code position} as a large message continuation,
+    * without copying them through the heap, for protocols and connections able to hand a file region to the transport.
+    *
+    * @param onSent run once the transport is done with the file, whether the write succeeded or not
+    * @return the size of the packet sent, or {@code -1} if the continuation can't be sent this way: nothing was sent and
+    * {@code onSent} won't run, {@link #sendLargeMessageContinuation(ServerConsumer, byte[], boolean, boolean)} has to be used instead
+    */
+   default int sendLargeMessageContinuation(ServerConsumer consumerID,
+                                            File file,
+                                            long position,
+                                            int count,
+                                            boolean continues,
+                                            Runnable onSent) {
+      return -1;
+   }
+
    void closed();
 
    void disconnect(ServerConsumer consumerId, String errorMessage);
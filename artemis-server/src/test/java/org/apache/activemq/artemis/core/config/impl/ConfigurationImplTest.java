@@ -22,6 +22,7 @@ import static org.junit.jupiter.api.Assertions.assertInstanceOf;
 import static org.junit.jupiter.api.Assertions.assertNotEquals;
 import static org.junit.jupiter.api.Assertions.assertNotNull;
 import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 import static org.junit.jupiter.api.Assertions.fail;
 
@@ -169,10 +170,35 @@ public class ConfigurationImplTest extends AbstractConfigurationTestBase {
       assertEquals(conf.getJournalLocation(), conf.getNodeManagerLockLocation());
       assertNull(conf.getJournalDeviceBlockSize());
       assertEquals(ActiveMQDefaultConfiguration.isDefaultReadWholePage(), conf.isReadWholePage());
+      assertTrue(conf.getJournalStripeDirectories().isEmpty());
+      assertEquals(ActiveMQDefaultConfiguration.isDefaultJournalChecksum(), conf.isJournalChecksum());
+      assertEquals(ActiveMQDefaultConfiguration.isDefaultJournalAdaptiveBufferTimeout(), conf.isJournalAdaptiveBufferTimeout());
+      assertEquals(ActiveMQDefaultConfiguration.isDefaultJournalWriteThrough(), conf.isJournalWriteThrough());
+      assertEquals(ActiveMQDefaultConfiguration.getDefaultSharedPageCacheMaxSize(), conf.getSharedPageCacheMaxSize());
+      assertEquals(ActiveMQDefaultConfiguration.getDefaultPageCounterRebuildParallelism(), conf.getPageCounterRebuildParallelism());
+      assertEquals(ActiveMQDefaultConfiguration.getDefaultPageCompactPeriod(), conf.getPageCompactPeriod());
+      assertEquals(ActiveMQDefaultConfiguration.getDefaultPageCompactThreshold(), conf.getPageCompactThreshold());
       assertEquals(ActiveMQDefaultConfiguration.getDefaultJournalBufferTimeoutNio(), conf.getPageSyncTimeout());
       assertEquals(ActiveMQDefaultConfiguration.getDefaultTemporaryQueueNamespace(), conf.getTemporaryQueueNamespace());
    }
 
+   @Test
+   public void testJournalStripesValidation() {
+      ConfigurationImpl configuration = new ConfigurationImpl();
+      configuration.setJournalStripeDirectories(List.of("stripe1", "stripe2"));
+      ConfigurationUtils.validateConfiguration(configuration);
+
+      configuration.setHAPolicyConfiguration(new SharedStorePrimaryPolicyConfiguration());
+      ConfigurationUtils.validateConfiguration(configuration);
+
+      configuration.setHAPolicyConfiguration(ReplicationPrimaryPolicyConfiguration.withDefault());
+      assertThrows(IllegalArgumentException.class, () -> ConfigurationUtils.validateConfiguration(configuration));
+
+      configuration.setHAPolicyConfiguration(null);
+      configuration.setJournalRetentionDirectory("history");
+      assertThrows(IllegalArgumentException.class, () -> ConfigurationUtils.validateConfiguration(configuration));
+   }
+
    @Test
    public void testNullMaskPassword() {
       ConfigurationImpl impl = new ConfigurationImpl();
@@ -1869,6 +1895,8 @@ public class ConfigurationImplTest extends AbstractConfigurationTestBase {
       insertionOrderedProperties.put("storeConfiguration.jdbcConnectionUrl", "url");
       insertionOrderedProperties.put("storeConfiguration.jdbcDriverClassName", "dcn");
       insertionOrderedProperties.put("storeConfiguration.jdbcJournalSyncPeriodMillis", 456);
+      insertionOrderedProperties.put("storeConfiguration.jdbcJournalPipelined", true);
+      insertionOrderedProperties.put("storeConfiguration.jdbcJournalMaxBatchSize", 135);
       insertionOrderedProperties.put("storeConfiguration.jdbcLockAcquisitionTimeoutMillis", 789);
       insertionOrderedProperties.put("storeConfiguration.jdbcLockExpirationMillis", 321);
       insertionOrderedProperties.put("storeConfiguration.jdbcLockRenewPeriodMillis", 654);
@@ -1889,6 +1917,8 @@ public class ConfigurationImplTest extends AbstractConfigurationTestBase {
       assertEquals("url", dsc.getJdbcConnectionUrl());
       assertEquals("dcn", dsc.getJdbcDriverClassName());
       assertEquals(456, dsc.getJdbcJournalSyncPeriodMillis());
+      assertTrue(dsc.isJdbcJournalPipelined());
+      assertEquals(135, dsc.getJdbcJournalMaxBatchSize());
       assertEquals(789, dsc.getJdbcLockAcquisitionTimeoutMillis());
       assertEquals(321, dsc.getJdbcLockExpirationMillis());
       assertEquals(654, dsc.getJdbcLockRenewPeriodMillis());
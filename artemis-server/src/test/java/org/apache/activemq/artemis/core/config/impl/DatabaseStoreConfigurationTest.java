@@ -41,6 +41,8 @@ public class DatabaseStoreConfigurationTest extends ServerTestBase {
       assertEquals(StoreConfiguration.StoreType.DATABASE, storeConfiguration.getStoreType());
       assertEquals("sourcepassword", storeConfiguration.getJdbcUser());
       assertEquals("targetpassword", storeConfiguration.getJdbcPassword());
+      assertTrue(storeConfiguration.isJdbcJournalPipelined());
+      assertEquals(250, storeConfiguration.getJdbcJournalMaxBatchSize());
    }
 
    @Test
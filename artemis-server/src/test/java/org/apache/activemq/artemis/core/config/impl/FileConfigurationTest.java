@@ -79,6 +79,8 @@ import org.apache.activemq.artemis.core.server.metrics.plugins.SimpleMetricsPlug
 import org.apache.activemq.artemis.core.server.plugin.ActiveMQServerBasePlugin;
 import org.apache.activemq.artemis.core.server.plugin.ActiveMQServerPlugin;
 import org.apache.activemq.artemis.core.settings.impl.AddressSettings;
+import org.apache.activemq.artemis.core.settings.impl.ReferenceStorePolicy;
+import org.apache.activemq.artemis.core.settings.impl.ScheduledDeliveryPolicy;
 import org.apache.activemq.artemis.core.settings.impl.SlowConsumerPolicy;
 import org.apache.activemq.artemis.core.settings.impl.SlowConsumerThresholdMeasurementUnit;
 import org.apache.activemq.artemis.tests.extensions.parameterized.ParameterizedTestExtension;
@@ -206,6 +208,7 @@ public class FileConfigurationTest extends AbstractConfigurationTestBase {
       assertEquals(25000, conf.getAddressQueueScanPeriod());
       assertEquals(127, conf.getIDCacheSize());
       assertTrue(conf.isPersistIDCache());
+      assertTrue(conf.isCompactIDCache());
       assertEquals(Integer.valueOf(777), conf.getJournalDeviceBlockSize());
       assertTrue(conf.isPersistDeliveryCountBeforeDelivery());
       assertEquals("pagingdir", conf.getPagingDirectory());
@@ -217,10 +220,15 @@ public class FileConfigurationTest extends AbstractConfigurationTestBase {
 
       assertEquals(17, conf.getPageMaxConcurrentIO(), "max concurrent io");
       assertTrue(conf.isReadWholePage());
+      assertEquals(50L * 1024 * 1024, conf.getSharedPageCacheMaxSize());
+      assertEquals(3, conf.getPageCounterRebuildParallelism());
+      assertEquals(60000L, conf.getPageCompactPeriod());
+      assertEquals(75, conf.getPageCompactThreshold());
       assertEquals("somedir2", conf.getJournalDirectory());
       assertEquals("history", conf.getJournalRetentionDirectory());
       assertEquals(10L * 1024L * 1024L * 1024L, conf.getJournalRetentionMaxBytes());
       assertEquals(TimeUnit.DAYS.toMillis(365), conf.getJournalRetentionPeriod());
+      assertEquals(List.of("stripe1", "stripe2"), conf.getJournalStripeDirectories());
       assertFalse(conf.isCreateJournalDir());
       assertEquals(JournalType.NIO, conf.getJournalType());
       assertEquals(10000, conf.getJournalBufferSize_NIO());
@@ -540,6 +548,8 @@ public class FileConfigurationTest extends AbstractConfigurationTestBase {
       assertTrue(conf.getAddressSettings().get("a1").isEnableIngressTimestamp());
       assertNull(conf.getAddressSettings().get("a1").getIDCacheSize());
       assertNull(conf.getAddressSettings().get("a1").getInitialQueueBufferSize());
+      assertEquals(ScheduledDeliveryPolicy.SORTED, conf.getAddressSettings().get("a1").getScheduledDeliveryPolicy());
+      assertEquals(ReferenceStorePolicy.LINKED, conf.getAddressSettings().get("a1").getReferenceStorePolicy());
 
       assertEquals("a2.1", conf.getAddressSettings().get("a2").getDeadLetterAddress().toString());
       assertTrue(conf.getAddressSettings().get("a2").isAutoCreateDeadLetterResources());
@@ -583,6 +593,8 @@ public class FileConfigurationTest extends AbstractConfigurationTestBase {
       assertFalse(conf.getAddressSettings().get("a2").isEnableIngressTimestamp());
       assertEquals(Integer.valueOf(500), conf.getAddressSettings().get("a2").getIDCacheSize());
       assertEquals(Integer.valueOf(128), conf.getAddressSettings().get("a2").getInitialQueueBufferSize());
+      assertEquals(ScheduledDeliveryPolicy.TIMER_WHEEL, conf.getAddressSettings().get("a2").getScheduledDeliveryPolicy());
+      assertEquals(ReferenceStorePolicy.PACKED, conf.getAddressSettings().get("a2").getReferenceStorePolicy());
 
       assertEquals(111, conf.getMirrorAckManagerQueueAttempts());
       assertTrue(conf.isMirrorAckManagerWarnUnacked());
@@ -649,6 +661,9 @@ public class FileConfigurationTest extends AbstractConfigurationTestBase {
       assertEquals(CriticalAnalyzerPolicy.HALT, conf.getCriticalAnalyzerPolicy());
 
       assertFalse(conf.isJournalDatasync());
+      assertTrue(conf.isJournalChecksum());
+      assertTrue(conf.isJournalAdaptiveBufferTimeout());
+      assertTrue(conf.isJournalWriteThrough());
 
       // keep test for backwards compatibility
       ActiveMQMetricsPlugin metricsPlugin = conf.getMetricsPlugin();
@@ -28,6 +28,7 @@ import java.util.concurrent.CountDownLatch;
 import java.util.concurrent.Executor;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicInteger;
 
@@ -295,6 +296,68 @@ public class OperationContextUnitTest extends ServerTestBase {
       }
    }
 
+   @Test
+   public void testConcurrentCompletionsKeepOrder() throws Exception {
+      ExecutorService executor = Executors.newCachedThreadPool(ActiveMQThreadFactory.defaultThreadFactory(getClass().getName()));
+      Queue<Long> completions = new ConcurrentLinkedQueue<>();
+      final int N = 20_000;
+      try {
+         final OperationContextImpl impl = new OperationContextImpl(new OrderedExecutor(executor));
+         final Semaphore storeLinedUp = new Semaphore(0);
+         final Semaphore pageLinedUp = new Semaphore(0);
+         final Semaphore replicationLinedUp = new Semaphore(0);
+
+         // journal, page and replication completions each arrive on their own thread
+         executor.execute(() -> {
+            for (int i = 0; i < N; i++) {
+               storeLinedUp.acquireUninterruptibly();
+               impl.done();
+            }
+         });
+         executor.execute(() -> {
+            for (int i = 0; i < N; i++) {
+               pageLinedUp.acquireUninterruptibly();
+               impl.pageSyncDone();
+            }
+         });
+         executor.execute(() -> {
+            for (int i = 0; i < N; i++) {
+               replicationLinedUp.acquireUninterruptibly();
+               impl.replicationDone();
+            }
+         });
+
+         for (long l = 0; l < N; l++) {
+            impl.storeLineUp();
+            storeLinedUp.release();
+            impl.pageSyncLineUp();
+            pageLinedUp.release();
+            impl.replicationLineUp();
+            replicationLinedUp.release();
+            final long finalL = l;
+            impl.executeOnCompletion(new IOCallback() {
+               @Override
+               public void onError(int errorCode, String errorMessage) {
+               }
+
+               @Override
+               public void done() {
+                  completions.add(finalL);
+               }
+            });
+         }
+
+         Wait.assertEquals(N, completions::size);
+
+         for (long i = 0; i < N; i++) {
+            assertEquals(i, (long) completions.poll(), "ordered");
+         }
+         assertEquals(0, impl.tasks.size());
+      } finally {
+         executor.shutdownNow();
+      }
+   }
+
    @Test
    public void testIgnoreReplication() throws Exception {
       ExecutorService executor = Executors.newSingleThreadExecutor(ActiveMQThreadFactory.defaultThreadFactory(getClass().getName()));
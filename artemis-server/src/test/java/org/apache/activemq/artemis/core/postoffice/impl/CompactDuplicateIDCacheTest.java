@@ -0,0 +1,235 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.activemq.artemis.core.postoffice.impl;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.apache.activemq.artemis.api.core.Pair;
+import org.apache.activemq.artemis.api.core.SimpleString;
+import org.apache.activemq.artemis.core.persistence.StorageManager;
+import org.apache.activemq.artemis.core.postoffice.DuplicateIDCache;
+import org.apache.activemq.artemis.core.transaction.Transaction;
+import org.apache.activemq.artemis.core.transaction.TransactionOperation;
+import org.apache.activemq.artemis.utils.RandomUtil;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mockito;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class CompactDuplicateIDCacheTest {
+
+   private static final SimpleString ADDRESS = SimpleString.of("address");
+
+   @Test
+   public void testFifoEvictionWhileGrowing() throws Exception {
+      final int size = 1000;
+      final DuplicateIDCache cache = DuplicateIDCaches.inMemory(ADDRESS, size, true);
+      final byte[][] ids = new byte[size * 3 / 2][];
+      for (int i = 0; i < ids.length; i++) {
+         ids[i] = RandomUtil.randomBytes();
+         cache.addToCache(ids[i]);
+      }
+      for (int i = 0; i < ids.length; i++) {
+         assertEquals(i >= ids.length - size, cache.contains(ids[i]), "id " + i);
+      }
+      final List<Pair<byte[], Long>> map = cache.getMap();
+      assertEquals(size, map.size());
+      for (Pair<byte[], Long> id : map) {
+         assertNull(id.getB());
+      }
+
+      cache.clear();
+      assertTrue(cache.getMap().isEmpty());
+      for (byte[] id : ids) {
+         assertFalse(cache.contains(id));
+      }
+   }
+
+   @Test
+   public void testSameBehaviourOfInMemoryCache() throws Exception {
+      final int size = 50;
+      final DuplicateIDCache expected = DuplicateIDCaches.inMemory(ADDRESS, size, false);
+      final DuplicateIDCache cache = DuplicateIDCaches.inMemory(ADDRESS, size, true);
+      final byte[][] ids = new byte[size * 3][];
+      for (int i = 0; i < ids.length; i++) {
+         // ids of different lengths, from the common ones of the clients down to tail-only hashing
+         ids[i] = RandomUtil.randomBytes(1 + i % 40);
+      }
+      final SplittableRandom random = new SplittableRandom(0);
+      for (int i = 0; i < 100_000; i++) {
+         final byte[] id = ids[random.nextInt(ids.length)];
+         if (random.nextInt(10) == 0) {
+            expected.deleteFromCache(id);
+            cache.deleteFromCache(id);
+         } else {
+            assertEquals(expected.atomicVerify(id, null), cache.atomicVerify(id, null), "operation " + i);
+         }
+         assertEquals(expected.contains(id), cache.contains(id), "operation " + i);
+      }
+      for (byte[] id : ids) {
+         assertEquals(expected.contains(id), cache.contains(id));
+      }
+      final List<Pair<byte[], Long>> expectedMap = expected.getMap();
+      final List<Pair<byte[], Long>> map = cache.getMap();
+      assertEquals(expectedMap.size(), map.size());
+      for (int i = 0; i < map.size(); i++) {
+         assertArrayEquals(expectedMap.get(i).getA(), map.get(i).getA());
+      }
+   }
+
+   @Test
+   public void testPersistentDeletesEvictedIds() throws Exception {
+      final StorageManager storageManager = newStorageManager();
+      final DuplicateIDCache cache = DuplicateIDCaches.persistent(ADDRESS, 4, storageManager, true);
+      final byte[][] ids = new byte[6][];
+      for (int i = 0; i < ids.length; i++) {
+         ids[i] = RandomUtil.randomBytes();
+         cache.addToCache(ids[i]);
+         Mockito.verify(storageManager).storeDuplicateID(ADDRESS, ids[i], i);
+      }
+      Mockito.verify(storageManager).deleteDuplicateID(0);
+      Mockito.verify(storageManager).deleteDuplicateID(1);
+      Mockito.verify(storageManager, Mockito.times(2)).deleteDuplicateID(Mockito.anyLong());
+
+      final List<Pair<byte[], Long>> map = cache.getMap();
+      assertEquals(4, map.size());
+      // the ring has been overwritten from its start
+      assertArrayEquals(ids[4], map.get(0).getA());
+      assertEquals(4L, map.get(0).getB());
+      assertArrayEquals(ids[2], map.get(2).getA());
+      assertEquals(2L, map.get(2).getB());
+
+      cache.deleteFromCache(ids[3]);
+      Mockito.verify(storageManager).deleteDuplicateID(3);
+      assertFalse(cache.contains(ids[3]));
+      assertEquals(3, cache.getMap().size());
+   }
+
+   @Test
+   public void testLoadDeletesExceedingIds() throws Exception {
+      final StorageManager storageManager = newStorageManager();
+      final DuplicateIDCache cache = DuplicateIDCaches.persistent(ADDRESS, 4, storageManager, true);
+      final List<Pair<byte[], Long>> ids = new ArrayList<>();
+      for (long i = 0; i < 6; i++) {
+         ids.add(new Pair<>(RandomUtil.randomBytes(), 100 + i));
+      }
+      cache.load(ids);
+
+      Mockito.verify(storageManager).deleteDuplicateIDTransactional(Mockito.anyLong(), Mockito.eq(100L));
+      Mockito.verify(storageManager).deleteDuplicateIDTransactional(Mockito.anyLong(), Mockito.eq(101L));
+      Mockito.verify(storageManager).commit(Mockito.anyLong());
+      for (int i = 0; i < ids.size(); i++) {
+         assertEquals(i >= 2, cache.contains(ids.get(i).getA()));
+      }
+
+      // the ring is full: the next id evicts the oldest loaded one
+      cache.addToCache(RandomUtil.randomBytes());
+      Mockito.verify(storageManager).deleteDuplicateID(102L);
+      assertFalse(cache.contains(ids.get(2).getA()));
+   }
+
+   @Test
+   public void testRollbackRemovesInstantAdd() throws Exception {
+      final StorageManager storageManager = newStorageManager();
+      final DuplicateIDCache cache = DuplicateIDCaches.persistent(ADDRESS, 10, storageManager, true);
+      final Transaction tx = Mockito.mock(Transaction.class);
+      Mockito.when(tx.getID()).thenReturn(1000L);
+      final byte[] id = RandomUtil.randomBytes();
+
+      assertTrue(cache.atomicVerify(id, tx));
+      assertFalse(cache.atomicVerify(id, tx));
+      Mockito.verify(tx).markAsRollbackOnly(Mockito.any());
+
+      final ArgumentCaptor<TransactionOperation> operation = ArgumentCaptor.forClass(TransactionOperation.class);
+      Mockito.verify(tx).addOperation(operation.capture());
+      operation.getValue().beforeRollback(tx);
+      assertFalse(cache.contains(id));
+      Mockito.verify(storageManager).deleteDuplicateID(0);
+   }
+
+   @Test
+   public void testAddAfterCommit() throws Exception {
+      final DuplicateIDCache cache = DuplicateIDCaches.inMemory(ADDRESS, 10, true);
+      final Transaction tx = Mockito.mock(Transaction.class);
+      final byte[] id = RandomUtil.randomBytes();
+
+      cache.addToCache(id, tx);
+      assertFalse(cache.contains(id));
+
+      final ArgumentCaptor<TransactionOperation> operation = ArgumentCaptor.forClass(TransactionOperation.class);
+      Mockito.verify(tx).afterStore(operation.capture());
+      operation.getValue().afterCommit(tx);
+      assertTrue(cache.contains(id));
+   }
+
+   @Test
+   public void testContainsWhileAdding() throws Exception {
+      final int size = 100_000;
+      final int present = 100;
+      final DuplicateIDCache cache = DuplicateIDCaches.inMemory(ADDRESS, size, true);
+      final byte[][] ids = new byte[present][];
+      for (int i = 0; i < present; i++) {
+         ids[i] = RandomUtil.randomBytes();
+         cache.addToCache(ids[i]);
+      }
+      final AtomicBoolean adding = new AtomicBoolean(true);
+      final AtomicInteger misses = new AtomicInteger();
+      final CountDownLatch done = new CountDownLatch(2);
+      for (int r = 0; r < 2; r++) {
+         new Thread(() -> {
+            try {
+               int i = 0;
+               while (adding.get()) {
+                  if (!cache.contains(ids[i++ % present])) {
+                     misses.incrementAndGet();
+                  }
+               }
+            } finally {
+               done.countDown();
+            }
+         }).start();
+      }
+      try {
+         // no evictions, but the cache keeps growing and moving its entries around
+         for (int i = present; i < size; i++) {
+            cache.addToCache(RandomUtil.randomBytes());
+         }
+      } finally {
+         adding.set(false);
+      }
+      done.await();
+      assertEquals(0, misses.get());
+   }
+
+   private static StorageManager newStorageManager() {
+      final StorageManager storageManager = Mockito.mock(StorageManager.class);
+      final AtomicLong ids = new AtomicLong();
+      Mockito.when(storageManager.generateID()).thenAnswer(invocation -> ids.getAndIncrement());
+      return storageManager;
+   }
+}
@@ -23,6 +23,7 @@ import static org.junit.jupiter.api.Assertions.fail;
 import javax.security.auth.Subject;
 import java.security.PrivilegedExceptionAction;
 import java.util.Set;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import org.apache.activemq.artemis.api.core.ActiveMQSecurityException;
 import org.apache.activemq.artemis.api.core.SimpleString;
@@ -104,6 +105,48 @@ public class SecurityStoreImplTest {
       securityStore.invalidateAuthorizationCache(); // ensure this doesn't throw an NPE
    }
 
+   @Test
+   public void testAuthorizationCache() throws Exception {
+      final AtomicInteger authorizations = new AtomicInteger();
+      final ActiveMQSecurityManager5 countingSecurityManager = Mockito.mock(ActiveMQSecurityManager5.class);
+      Mockito.when(countingSecurityManager.authenticate(ArgumentMatchers.anyString(), ArgumentMatchers.anyString(), ArgumentMatchers.isNull(), ArgumentMatchers.isNull())).thenReturn(new Subject());
+      Mockito.when(countingSecurityManager.authorize(ArgumentMatchers.any(Subject.class), ArgumentMatchers.any(), ArgumentMatchers.any(CheckType.class), ArgumentMatchers.anyString())).thenAnswer(invocation -> {
+         authorizations.incrementAndGet();
+         return true;
+      });
+      SecurityStoreImpl securityStore = new SecurityStoreImpl(new HierarchicalObjectRepository<>(), countingSecurityManager, 10000, true, "", null, null, 1000, 1000);
+      final SecurityAuth session = Mockito.mock(SecurityAuth.class);
+      Mockito.when(session.getUsername()).thenReturn("user");
+      Mockito.when(session.getPassword()).thenReturn("password");
+      final SimpleString address = SimpleString.of("address");
+
+      securityStore.check(address, CheckType.SEND, session);
+      assertEquals(1, authorizations.get());
+      assertEquals(0, securityStore.getAuthorizationCacheHitCount());
+      assertEquals(1, securityStore.getAuthorizationCacheMissCount());
+
+      securityStore.check(address, CheckType.SEND, session);
+      assertEquals(1, authorizations.get());
+      assertEquals(1, securityStore.getAuthorizationCacheHitCount());
+
+      // the other permissions and addresses are checked on their own
+      securityStore.check(address, CheckType.CONSUME, session);
+      securityStore.check(SimpleString.of("other"), CheckType.SEND, session);
+      securityStore.check(address, SimpleString.of("queue"), CheckType.SEND, session);
+      assertEquals(4, authorizations.get());
+      securityStore.check(address, CheckType.CONSUME, session);
+      securityStore.check(address, SimpleString.of("queue"), CheckType.SEND, session);
+      assertEquals(4, authorizations.get());
+      assertEquals(1, securityStore.getAuthorizationCacheSize());
+      assertEquals(3, securityStore.getAuthorizationCacheHitCount());
+      assertEquals(4, securityStore.getAuthorizationCacheMissCount());
+
+      // a change of the security settings invalidates the cache
+      securityStore.onChange();
+      securityStore.check(address, CheckType.SEND, session);
+      assertEquals(5, authorizations.get());
+   }
+
    @Test
    public void getCaller() throws Exception {
       SecurityStoreImpl securityStore = new SecurityStoreImpl(new HierarchicalObjectRepository<>(), securityManager, 999, true, "", null, null, 0, 0);
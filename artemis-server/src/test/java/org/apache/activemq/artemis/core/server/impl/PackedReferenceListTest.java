@@ -0,0 +1,382 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.activemq.artemis.core.server.impl;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Random;
+import java.util.TreeSet;
+
+import org.apache.activemq.artemis.core.message.impl.CoreMessage;
+import org.apache.activemq.artemis.core.server.MessageReference;
+import org.apache.activemq.artemis.core.server.Queue;
+import org.apache.activemq.artemis.utils.collections.LinkedListImpl;
+import org.apache.activemq.artemis.utils.collections.LinkedListIterator;
+import org.apache.activemq.artemis.utils.collections.NodeStore;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mockito;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class PackedReferenceListTest {
+
+   private Queue queue;
+
+   private PackedReferenceList list;
+
+   @BeforeEach
+   public void setUp() {
+      queue = Mockito.mock(Queue.class);
+      list = new PackedReferenceList(queue);
+   }
+
+   private MessageReference newReference(long sequence) {
+      MessageReference reference = new MessageReferenceImpl(new CoreMessage(sequence, 50), queue);
+      reference.setSequence(sequence);
+      return reference;
+   }
+
+   private List<Long> sequences() {
+      List<Long> sequences = new ArrayList<>();
+      list.forEach(reference -> sequences.add(reference.getSequence()));
+      return sequences;
+   }
+
+   @Test
+   public void testAddAndPollInOrder() {
+      final int references = PackedReferenceList.SEGMENT_SIZE * 5 + 3;
+      for (int i = 0; i < references; i++) {
+         list.addTail(newReference(i));
+      }
+      assertEquals(references, list.size());
+      for (int i = 0; i < references; i++) {
+         MessageReference reference = list.poll();
+         assertEquals(i, reference.getSequence());
+         assertEquals(i, reference.getMessage().getMessageID());
+         assertSame(queue, reference.getQueue());
+      }
+      assertNull(list.poll());
+      assertNull(list.peek());
+      assertEquals(0, list.size());
+   }
+
+   @Test
+   public void testAddHead() {
+      final int references = PackedReferenceList.SEGMENT_SIZE * 3;
+      for (int i = references; i > 0; i--) {
+         list.addHead(newReference(i));
+      }
+      for (int i = 1; i <= references; i++) {
+         assertEquals(i, list.poll().getSequence());
+      }
+      assertEquals(0, list.size());
+   }
+
+   @Test
+   public void testPackedStateIsRestored() {
+      MessageReference delivered = newReference(1);
+      delivered.setDeliveryCount(3);
+      list.addTail(delivered);
+
+      MessageReference unpacked = list.poll();
+      assertNotSame(delivered, unpacked);
+      assertEquals(3, unpacked.getDeliveryCount());
+      assertEquals(3, unpacked.getPersistedCount());
+      assertEquals(1, unpacked.getSequence());
+      assertSame(delivered.getMessage(), unpacked.getMessage());
+   }
+
+   @Test
+   public void testUnpackedReferenceKeepsIdentity() {
+      list.addTail(newReference(1));
+      list.addTail(newReference(2));
+
+      MessageReference first = list.peek();
+      assertSame(first, list.peek());
+      assertSame(first, list.get(0));
+      try (LinkedListIterator<MessageReference> iterator = list.iterator()) {
+         assertSame(first, iterator.next());
+         MessageReference second = iterator.next();
+         assertSame(second, list.get(1));
+      }
+      assertSame(first, list.poll());
+   }
+
+   @Test
+   public void testReferencesWithStateAreNotPacked() {
+      MessageReference scheduled = newReference(1);
+      scheduled.setScheduledDeliveryTime(System.currentTimeMillis() + 60_000);
+      MessageReference consumed = newReference(2);
+      consumed.setConsumerId(10);
+      MessageReference otherQueue = new MessageReferenceImpl(new CoreMessage(3, 50), Mockito.mock(Queue.class));
+      otherQueue.setSequence(3);
+
+      list.addTail(scheduled);
+      list.addTail(consumed);
+      list.addTail(otherQueue);
+
+      assertSame(scheduled, list.poll());
+      assertSame(consumed, list.poll());
+      assertSame(otherQueue, list.poll());
+   }
+
+   @Test
+   public void testAddSortedSplitsSegments() {
+      final int references = PackedReferenceList.SEGMENT_SIZE * 4;
+      for (int i = 0; i < references; i++) {
+         list.addTail(newReference(i * 2L));
+      }
+      // fill every gap, forcing the full segments to be split
+      for (int i = references - 1; i > 0; i--) {
+         list.addSorted(newReference(i * 2L - 1));
+      }
+      List<Long> sequences = sequences();
+      assertEquals(references * 2 - 1, sequences.size());
+      for (int i = 0; i < sequences.size(); i++) {
+         assertEquals(i, sequences.get(i).longValue());
+      }
+   }
+
+   @Test
+   public void testIteratorIsMovedBySplit() {
+      // the first segment is half full, the second one is full
+      final int references = PackedReferenceList.SEGMENT_SIZE / 2 + PackedReferenceList.SEGMENT_SIZE;
+      final int position = references - 10;
+      for (int i = 0; i < references; i++) {
+         list.addTail(newReference(i * 2L));
+      }
+      try (LinkedListIterator<MessageReference> iterator = list.iterator()) {
+         for (int i = 0; i <= position; i++) {
+            assertEquals(i * 2L, iterator.next().getSequence());
+         }
+         // splits the second segment, moving the iterator to the new one
+         list.addSorted(newReference((PackedReferenceList.SEGMENT_SIZE / 2 + 50) * 2L + 1));
+         // shifts the reference of the iterator
+         list.addSorted(newReference(position * 2L - 1));
+         list.addSorted(newReference(position * 2L + 5));
+
+         iterator.repeat();
+         assertEquals(position * 2L, iterator.next().getSequence());
+         assertEquals(position * 2L + 2, iterator.next().getSequence());
+         assertEquals(position * 2L + 4, iterator.next().getSequence());
+         assertEquals(position * 2L + 5, iterator.next().getSequence());
+         for (int i = position + 3; i < references; i++) {
+            assertEquals(i * 2L, iterator.next().getSequence());
+         }
+         assertFalse(iterator.hasNext());
+      }
+      assertEquals(references + 3, list.size());
+   }
+
+   @Test
+   public void testIteratorRemove() {
+      for (int i = 0; i < 10; i++) {
+         list.addTail(newReference(i));
+      }
+      try (LinkedListIterator<MessageReference> iterator = list.iterator()) {
+         assertThrows(NoSuchElementException.class, iterator::remove);
+         while (iterator.hasNext()) {
+            MessageReference reference = iterator.next();
+            if (reference.getSequence() % 2 == 0) {
+               assertSame(reference, iterator.removeLastElement());
+            }
+         }
+      }
+      assertEquals(List.of(1L, 3L, 5L, 7L, 9L), sequences());
+   }
+
+   @Test
+   public void testRemoveWithID() {
+      final int references = PackedReferenceList.SEGMENT_SIZE * 2;
+      for (int i = 0; i < references; i++) {
+         list.addTail(newReference(i));
+      }
+      ReferenceNodeStore store = new ReferenceNodeStore();
+      list.setNodeStore(store);
+      assertEquals(references, store.size());
+
+      // references added after the node store are not packed either
+      list.addTail(newReference(references));
+      assertEquals(references + 1, store.size());
+
+      for (int i = 0; i <= references; i += 3) {
+         MessageReference removed = list.removeWithID("", i);
+         assertEquals(i, removed.getSequence());
+      }
+      assertNull(list.removeWithID("", 0));
+      assertEquals(list.size(), store.size());
+      for (long sequence : sequences()) {
+         assertTrue(sequence % 3 != 0);
+      }
+
+      list.clearID();
+      assertEquals(0, store.size());
+   }
+
+   /**
+    * Applies random operations to both a {@link PackedReferenceList} and a {@link LinkedListImpl}, keeping the lists
+    * sorted by sequence as a queue does, and compares the results.
+    */
+   @Test
+   public void testRandomOperations() {
+      final long seed = System.currentTimeMillis();
+      final Random random = new Random(seed);
+      final String message = "seed " + seed;
+
+      final LinkedListImpl<Long> model = new LinkedListImpl<>((a, b) -> Long.compare(b, a));
+      final TreeSet<Long> used = new TreeSet<>();
+      final List<LinkedListIterator<Long>> modelIterators = new ArrayList<>();
+      final List<LinkedListIterator<MessageReference>> iterators = new ArrayList<>();
+      // whether the last element returned by each iterator was not moved since, as the queue only repeats or removes
+      // an element right after iterating it: the two lists differ when the element was removed in between
+      final List<Boolean> returned = new ArrayList<>();
+
+      for (int operation = 0; operation < 20_000; operation++) {
+         final int choice = random.nextInt(100);
+         boolean modified = false;
+         if (choice < 20) {
+            final long sequence = used.isEmpty() ? 0 : used.last() + 1 + random.nextInt(3);
+            used.add(sequence);
+            model.addTail(sequence);
+            list.addTail(newReference(sequence));
+            modified = true;
+         } else if (choice < 25) {
+            final long sequence = used.isEmpty() ? 0 : used.first() - 1 - random.nextInt(3);
+            used.add(sequence);
+            model.addHead(sequence);
+            list.addHead(newReference(sequence));
+            modified = true;
+         } else if (choice < 40) {
+            if (!used.isEmpty()) {
+               final long sequence = used.first() + (long) (random.nextDouble() * (used.last() - used.first() + 2)) - 1;
+               if (used.add(sequence)) {
+                  model.addSorted(sequence);
+                  list.addSorted(newReference(sequence));
+                  modified = true;
+               }
+            }
+         } else if (choice < 55) {
+            final Long expected = model.poll();
+            final MessageReference reference = list.poll();
+            assertEquals(expected, reference == null ? null : reference.getSequence(), message);
+            if (expected != null) {
+               used.remove(expected);
+               modified = true;
+            }
+         } else if (choice < 60) {
+            final Long expected = model.peek();
+            final MessageReference reference = list.peek();
+            assertEquals(expected, reference == null ? null : reference.getSequence(), message);
+            if (reference != null) {
+               assertSame(reference, list.peek(), message);
+            }
+         } else if (choice < 62) {
+            if (model.size() > 0) {
+               final int position = random.nextInt(model.size());
+               assertEquals(model.get(position), list.get(position).getSequence(), message);
+            }
+         } else if (choice < 65) {
+            if (iterators.size() < 5) {
+               modelIterators.add(model.iterator());
+               iterators.add(list.iterator());
+               returned.add(false);
+            }
+         } else if (choice < 67) {
+            if (!iterators.isEmpty()) {
+               final int i = random.nextInt(iterators.size());
+               modelIterators.remove(i).close();
+               iterators.remove(i).close();
+               returned.remove(i);
+            }
+         } else if (!iterators.isEmpty()) {
+            final int i = random.nextInt(iterators.size());
+            final LinkedListIterator<Long> modelIterator = modelIterators.get(i);
+            final LinkedListIterator<MessageReference> iterator = iterators.get(i);
+            if (choice < 90) {
+               final boolean hasNext = modelIterator.hasNext();
+               assertEquals(hasNext, iterator.hasNext(), message);
+               if (hasNext) {
+                  assertEquals(modelIterator.next(), iterator.next().getSequence(), message);
+                  returned.set(i, true);
+               }
+            } else if (choice < 94 && returned.get(i)) {
+               modelIterator.repeat();
+               iterator.repeat();
+               assertTrue(iterator.hasNext(), message);
+               assertEquals(modelIterator.next(), iterator.next().getSequence(), message);
+            } else if (choice >= 94 && returned.get(i)) {
+               final Long expected = modelIterator.removeLastElement();
+               assertEquals(expected, iterator.removeLastElement().getSequence(), message);
+               used.remove(expected);
+               returned.set(i, false);
+               modified = true;
+            }
+         }
+         if (modified) {
+            returned.replaceAll(value -> false);
+         }
+         assertEquals(model.size(), list.size(), message);
+      }
+
+      final List<Long> expected = new ArrayList<>();
+      model.forEach(expected::add);
+      assertEquals(expected, sequences(), message);
+
+      modelIterators.forEach(LinkedListIterator::close);
+      iterators.forEach(LinkedListIterator::close);
+   }
+
+   private static final class ReferenceNodeStore implements NodeStore<MessageReference> {
+
+      private final Map<Long, LinkedListImpl.Node<MessageReference>> nodes = new HashMap<>();
+
+      @Override
+      public void storeNode(MessageReference element, LinkedListImpl.Node<MessageReference> node) {
+         nodes.put(element.getSequence(), node);
+      }
+
+      @Override
+      public LinkedListImpl.Node<MessageReference> getNode(String listID, long id) {
+         return nodes.get(id);
+      }
+
+      @Override
+      public void removeNode(MessageReference element, LinkedListImpl.Node<MessageReference> node) {
+         nodes.remove(element.getSequence());
+      }
+
+      @Override
+      public void clear() {
+         nodes.clear();
+      }
+
+      @Override
+      public int size() {
+         return nodes.size();
+      }
+   }
+}
@@ -22,6 +22,7 @@ import static org.junit.jupiter.api.Assertions.assertTrue;
 import static org.junit.jupiter.api.Assertions.fail;
 
 import java.lang.invoke.MethodHandles;
+import java.util.Arrays;
 import java.util.Collection;
 import java.util.HashSet;
 import java.util.LinkedList;
@@ -32,6 +33,7 @@ import java.util.concurrent.CountDownLatch;
 import java.util.concurrent.Executor;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
 import java.util.concurrent.ScheduledThreadPoolExecutor;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicInteger;
@@ -56,8 +58,12 @@ import org.apache.activemq.artemis.core.server.Consumer;
 import org.apache.activemq.artemis.core.server.MessageReference;
 import org.apache.activemq.artemis.core.server.Queue;
 import org.apache.activemq.artemis.core.server.RoutingContext;
+import org.apache.activemq.artemis.core.server.ScheduledDeliveryHandler;
 import org.apache.activemq.artemis.core.server.ServerConsumer;
+import org.apache.activemq.artemis.core.settings.impl.ScheduledDeliveryPolicy;
 import org.apache.activemq.artemis.core.transaction.Transaction;
+import org.apache.activemq.artemis.tests.extensions.parameterized.ParameterizedTestExtension;
+import org.apache.activemq.artemis.tests.extensions.parameterized.Parameters;
 import org.apache.activemq.artemis.utils.ActiveMQThreadFactory;
 import org.apache.activemq.artemis.utils.RandomUtil;
 import org.apache.activemq.artemis.utils.ReferenceCounter;
@@ -66,17 +72,37 @@ import org.apache.activemq.artemis.utils.collections.LinkedListIterator;
 import org.apache.activemq.artemis.utils.collections.NodeStoreFactory;
 import org.apache.activemq.artemis.utils.critical.CriticalComponentImpl;
 import org.apache.activemq.artemis.utils.critical.EmptyCriticalAnalyzer;
-import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestTemplate;
+import org.junit.jupiter.api.extension.ExtendWith;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+@ExtendWith(ParameterizedTestExtension.class)
 public class ScheduledDeliveryHandlerTest {
 
    private static final Logger logger = LoggerFactory.getLogger(MethodHandles.lookup().lookupClass());
 
-   @Test
+   private final ScheduledDeliveryPolicy policy;
+
+   @Parameters(name = "policy={0}")
+   public static Collection<Object[]> getParameters() {
+      return Arrays.asList(new Object[][] {{ScheduledDeliveryPolicy.SORTED}, {ScheduledDeliveryPolicy.TIMER_WHEEL}});
+   }
+
+   public ScheduledDeliveryHandlerTest(ScheduledDeliveryPolicy policy) {
+      this.policy = policy;
+   }
+
+   private ScheduledDeliveryHandler newHandler(ScheduledExecutorService scheduler, Queue queue) {
+      if (policy == ScheduledDeliveryPolicy.TIMER_WHEEL) {
+         return new TimerWheelScheduledDeliveryHandler(scheduler, queue);
+      }
+      return new ScheduledDeliveryHandlerImpl(scheduler, queue);
+   }
+
+   @TestTemplate
    public void testScheduleRandom() throws Exception {
-      ScheduledDeliveryHandlerImpl handler = new ScheduledDeliveryHandlerImpl(null, new FakeQueueForScheduleUnitTest(0));
+      ScheduledDeliveryHandler handler = newHandler(null, new FakeQueueForScheduleUnitTest(0));
 
       long nextMessage = 0;
       long NUMBER_OF_SEQUENCES = 100000;
@@ -99,9 +125,9 @@ public class ScheduledDeliveryHandlerTest {
 
    }
 
-   @Test
+   @TestTemplate
    public void testScheduleSameTimeHeadAndTail() throws Exception {
-      ScheduledDeliveryHandlerImpl handler = new ScheduledDeliveryHandlerImpl(null, new FakeQueueForScheduleUnitTest(0));
+      ScheduledDeliveryHandler handler = newHandler(null, new FakeQueueForScheduleUnitTest(0));
 
       long time = System.currentTimeMillis() + 10000;
       for (int i = 10001; i < 20000; i++) {
@@ -121,9 +147,9 @@ public class ScheduledDeliveryHandlerTest {
 
    }
 
-   @Test
+   @TestTemplate
    public void testScheduleFixedSample() throws Exception {
-      ScheduledDeliveryHandlerImpl handler = new ScheduledDeliveryHandlerImpl(null, new FakeQueueForScheduleUnitTest(0));
+      ScheduledDeliveryHandler handler = newHandler(null, new FakeQueueForScheduleUnitTest(0));
 
       addMessage(handler, 0, 48L, true);
       addMessage(handler, 1, 75L, true);
@@ -135,9 +161,9 @@ public class ScheduledDeliveryHandlerTest {
 
    }
 
-   @Test
+   @TestTemplate
    public void testScheduleWithAddHeads() throws Exception {
-      ScheduledDeliveryHandlerImpl handler = new ScheduledDeliveryHandlerImpl(null, new FakeQueueForScheduleUnitTest(0));
+      ScheduledDeliveryHandler handler = newHandler(null, new FakeQueueForScheduleUnitTest(0));
 
       addMessage(handler, 0, 1, true);
       addMessage(handler, 1, 2, true);
@@ -156,9 +182,9 @@ public class ScheduledDeliveryHandlerTest {
 
    }
 
-   @Test
+   @TestTemplate
    public void testScheduleFixedSampleTailAndHead() throws Exception {
-      ScheduledDeliveryHandlerImpl handler = new ScheduledDeliveryHandlerImpl(null, new FakeQueueForScheduleUnitTest(0));
+      ScheduledDeliveryHandler handler = newHandler(null, new FakeQueueForScheduleUnitTest(0));
 
       // mix a sequence of tails / heads, but at the end this was supposed to be all sequential
       addMessage(handler, 1, 48L, true);
@@ -185,7 +211,7 @@ public class ScheduledDeliveryHandlerTest {
       validateSequence(handler);
    }
 
-   @Test
+   @TestTemplate
    public void testScheduleNow() throws Exception {
 
       ExecutorService executor = Executors.newFixedThreadPool(50, ActiveMQThreadFactory.defaultThreadFactory(getClass().getName()));
@@ -201,12 +227,59 @@ public class ScheduledDeliveryHandlerTest {
       }
    }
 
+   @TestTemplate
+   public void testScheduleSpreadOverTime() throws Exception {
+      final int NUMBER_OF_MESSAGES = 500;
+
+      ScheduledThreadPoolExecutor scheduler = new ScheduledThreadPoolExecutor(2, ActiveMQThreadFactory.defaultThreadFactory(getClass().getName()));
+      try {
+         final FakeQueueForScheduleUnitTest fakeQueue = new FakeQueueForScheduleUnitTest(NUMBER_OF_MESSAGES);
+         final ScheduledDeliveryHandler handler = newHandler(scheduler, fakeQueue);
+
+         final long now = System.currentTimeMillis();
+
+         // up to 5 seconds makes sure messages are cascaded from the upper levels of a timing wheel
+         for (int i = 0; i < NUMBER_OF_MESSAGES; i++) {
+            checkAndSchedule(handler, i, now + RandomUtil.randomInterval(0, 5000), RandomUtil.randomBoolean(), fakeQueue);
+         }
+
+         if (!fakeQueue.waitCompletion(30, TimeUnit.SECONDS)) {
+            fail("Couldn't complete queue.add, still missing " + fakeQueue.expectedElements.getCount());
+         }
+
+         assertEquals(0, handler.getScheduledCount());
+         assertTrue(handler.getScheduledReferences().isEmpty());
+      } finally {
+         scheduler.shutdownNow();
+      }
+   }
+
+   @TestTemplate
+   public void testCancelKeepsSequence() throws Exception {
+      ScheduledDeliveryHandler handler = newHandler(null, new FakeQueueForScheduleUnitTest(0));
+
+      final long time = System.currentTimeMillis() + 60_000;
+      for (int i = 0; i < 200; i++) {
+         addMessage(handler, i, time + i * 1000, true);
+      }
+
+      List<MessageReference> cancelled = handler.cancel(ref -> ref.getMessage().getMessageID() >= 100);
+
+      assertEquals(100, cancelled.size());
+      for (int i = 0; i < 100; i++) {
+         assertEquals(100 + i, cancelled.get(i).getMessage().getMessageID());
+      }
+
+      assertEquals(100, handler.getScheduledCount());
+      validateSequence(handler);
+   }
+
    private void internalSchedule(ExecutorService executor, ScheduledThreadPoolExecutor scheduler) throws Exception {
       final int NUMBER_OF_MESSAGES = 200;
       int NUMBER_OF_THREADS = 20;
 
       final FakeQueueForScheduleUnitTest fakeQueue = new FakeQueueForScheduleUnitTest(NUMBER_OF_MESSAGES * NUMBER_OF_THREADS);
-      final ScheduledDeliveryHandlerImpl handler = new ScheduledDeliveryHandlerImpl(scheduler, fakeQueue);
+      final ScheduledDeliveryHandler handler = newHandler(scheduler, fakeQueue);
 
       final long now = System.currentTimeMillis();
 
@@ -245,7 +318,7 @@ public class ScheduledDeliveryHandlerTest {
       }
    }
 
-   private void validateSequence(ScheduledDeliveryHandlerImpl handler) throws Exception {
+   private void validateSequence(ScheduledDeliveryHandler handler) throws Exception {
       long lastSequence = -1;
       for (MessageReference ref : handler.getScheduledReferences()) {
          assertEquals(lastSequence + 1, ref.getMessage().getMessageID());
@@ -253,7 +326,7 @@ public class ScheduledDeliveryHandlerTest {
       }
    }
 
-   private void addMessage(ScheduledDeliveryHandlerImpl handler,
+   private void addMessage(ScheduledDeliveryHandler handler,
                            long nextMessageID,
                            long nextScheduledTime,
                            boolean tail) {
@@ -262,7 +335,7 @@ public class ScheduledDeliveryHandlerTest {
       handler.addInPlace(nextScheduledTime, refImpl, tail);
    }
 
-   private void checkAndSchedule(ScheduledDeliveryHandlerImpl handler,
+   private void checkAndSchedule(ScheduledDeliveryHandler handler,
                                  long nextMessageID,
                                  long nextScheduledTime,
                                  boolean tail,
@@ -273,7 +346,7 @@ public class ScheduledDeliveryHandlerTest {
    }
 
    private void debugList(boolean fail,
-                          ScheduledDeliveryHandlerImpl handler,
+                          ScheduledDeliveryHandler handler,
                           long numberOfExpectedMessages) throws Exception {
       List<MessageReference> refs = handler.getScheduledReferences();
 
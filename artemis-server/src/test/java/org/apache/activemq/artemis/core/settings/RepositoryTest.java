@@ -26,6 +26,7 @@ import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.concurrent.atomic.AtomicInteger;
 
 import org.apache.activemq.artemis.core.config.WildcardConfiguration;
@@ -112,6 +113,75 @@ public class RepositoryTest extends ServerTestBase {
       assertEquals("leaf", repo.getMatch("b"));
    }
 
+   @Test
+   public void testWildcardMatchesWithDifferentPrefixes() throws Throwable {
+      HierarchicalObjectRepository<String> repo = new HierarchicalObjectRepository<>();
+
+      repo.addMatch("a.b.*", "ab*");
+      repo.addMatch("a.*.c", "a*c");
+      repo.addMatch("*.b.c", "*bc");
+      repo.addMatch("a.b.#", "ab#");
+      repo.addMatch("x.#", "x#");
+      repo.addMatch("$sys.mqtt.#", "mqtt#");
+      repo.addMatch("ab*.c", "ab*c");
+      repo.setDefault("default");
+
+      assertEquals("ab*", repo.getMatch("a.b.c"));
+      assertEquals("ab*", repo.getMatch("a.b.d"));
+      assertEquals("ab#", repo.getMatch("a.b"));
+      assertEquals("ab#", repo.getMatch("a.b.d.e"));
+      assertEquals("a*c", repo.getMatch("a.d.c"));
+      assertEquals("*bc", repo.getMatch("d.b.c"));
+      assertEquals("x#", repo.getMatch("x"));
+      assertEquals("x#", repo.getMatch("x.y.z"));
+      assertEquals("mqtt#", repo.getMatch("$sys.mqtt.queue"));
+      assertEquals("ab*c", repo.getMatch("abd.c"));
+      assertEquals("default", repo.getMatch("a"));
+      assertEquals("default", repo.getMatch("xy.z"));
+
+      repo.removeMatch("a.b.*");
+      assertEquals("ab#", repo.getMatch("a.b.d"));
+      assertEquals("a*c", repo.getMatch("a.b.c"));
+   }
+
+   @Test
+   public void testCacheWithConcurrentChanges() throws Throwable {
+      HierarchicalObjectRepository<String> repo = new HierarchicalObjectRepository<>();
+      repo.setDefault("default");
+
+      AtomicBoolean running = new AtomicBoolean(true);
+      List<Thread> readers = new ArrayList<>();
+      for (int i = 0; i < 3; i++) {
+         Thread reader = new Thread(() -> {
+            while (running.get()) {
+               for (int j = 0; j < 10; j++) {
+                  repo.getMatch("a.b." + j);
+               }
+            }
+         });
+         reader.start();
+         readers.add(reader);
+      }
+      try {
+         for (int i = 0; i < 10_000; i++) {
+            repo.addMatch("a.b." + i % 10, "exact" + i);
+            if (i % 7 == 0) {
+               repo.addMatch("a.#", "wildcard" + i);
+            }
+         }
+      } finally {
+         running.set(false);
+         for (Thread reader : readers) {
+            reader.join();
+         }
+      }
+
+      for (int i = 0; i < 10; i++) {
+         assertEquals("exact" + (9_990 + i), repo.getMatch("a.b." + i));
+      }
+      assertEquals("wildcard" + 9_996, repo.getMatch("a.c"));
+   }
+
    @Test
    public void testMultipleMatchesHasRightOrder() {
       HierarchicalRepository<String> repository = new HierarchicalObjectRepository<>();
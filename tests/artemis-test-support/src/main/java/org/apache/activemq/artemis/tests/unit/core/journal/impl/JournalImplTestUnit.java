@@ -3051,6 +3051,43 @@ public abstract class JournalImplTestUnit extends JournalImplTestBase {
       loadAndCheck();
    }
 
+   @Test
+   public void testParallelLoad() throws Exception {
+      setup(2, 512 + 2 * 1024, true);
+
+      createJournal();
+      startJournal();
+      load();
+
+      for (int i = 0; i < 10; i++) {
+         final long base = i * 100L;
+         add(base + 1, base + 2, base + 3, base + 4, base + 5);
+         addTx(base + 1, base + 11, base + 12, base + 13);
+         update(base + 1, base + 3);
+         updateTx(base + 1, base + 11);
+         delete(base + 2);
+         commit(base + 1);
+         addTx(base + 2, base + 21, base + 22);
+         deleteTx(base + 2, base + 4);
+         if (i % 2 == 0) {
+            prepare(base + 2, new SimpleEncoding(10, (byte) 0));
+         } else {
+            rollback(base + 2);
+         }
+      }
+
+      stopJournal(false);
+
+      // the same journal must be loaded the same way either reading the files one by one or ahead
+      for (int parallelism : new int[]{1, 4}) {
+         createJournal();
+         ((JournalImpl) journal).setLoadParallelism(parallelism);
+         startJournal();
+         loadAndCheck();
+         stopJournal(false);
+      }
+   }
+
    @Test
    public void testReclaimAfterUpdate() throws Exception {
       setup(2, 60 * 1024, true);
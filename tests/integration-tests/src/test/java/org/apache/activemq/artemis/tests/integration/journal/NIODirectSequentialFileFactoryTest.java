@@ -0,0 +1,77 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.activemq.artemis.tests.integration.journal;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
+
+import java.io.File;
+import java.nio.ByteBuffer;
+
+import io.netty.util.internal.PlatformDependent;
+import org.apache.activemq.artemis.core.io.SequentialFile;
+import org.apache.activemq.artemis.core.io.SequentialFileFactory;
+import org.apache.activemq.artemis.core.io.nio.NIOSequentialFileFactory;
+import org.apache.activemq.artemis.tests.unit.core.journal.impl.SequentialFileFactoryTestBase;
+import org.apache.activemq.artemis.utils.PowerOf2Util;
+import org.junit.jupiter.api.Test;
+
+public class NIODirectSequentialFileFactoryTest extends SequentialFileFactoryTestBase {
+
+   @Override
+   protected SequentialFileFactory createFactory(String folder) {
+      File dir = new File(folder);
+      dir.mkdirs();
+      assumeTrue(NIOSequentialFileFactory.isDirectIOSupported(dir), "Test case needs direct I/O to run");
+      return new NIOSequentialFileFactory(dir, false, 0, 0, 1, false, null, null, true);
+   }
+
+   @Test
+   public void testBuffer() throws Exception {
+      SequentialFile file = factory.createSequentialFile("filtetmp.log");
+      file.open();
+      ByteBuffer buff = factory.newBuffer(10);
+      assertEquals(factory.getAlignment(), buff.limit());
+      assertTrue(PowerOf2Util.isAligned(PlatformDependent.directBufferAddress(buff), factory.getAlignment()));
+      file.close();
+      factory.releaseBuffer(buff);
+   }
+
+   @Test
+   public void testUnalignedWrite() throws Exception {
+      SequentialFile file = factory.createSequentialFile("unaligned.log");
+      file.open();
+      file.fill(factory.getAlignment() * 2);
+      file.writeDirect(ByteBuffer.wrap(new byte[] {1, 2, 3}), true);
+      file.writeDirect(ByteBuffer.wrap(new byte[] {4, 5}), true);
+      assertEquals(factory.getAlignment() * 2, file.position());
+      file.close();
+
+      file.open();
+      ByteBuffer read = factory.newBuffer(factory.getAlignment() * 2);
+      file.read(read);
+      assertEquals(1, read.get(0));
+      assertEquals(3, read.get(2));
+      assertEquals(0, read.get(3));
+      assertEquals(4, read.get(factory.getAlignment()));
+      assertEquals(5, read.get(factory.getAlignment() + 1));
+      factory.releaseBuffer(read);
+      file.close();
+   }
+
+}
@@ -19,6 +19,7 @@ package org.apache.activemq.artemis.tests.integration.journal;
 import java.io.File;
 import java.lang.invoke.MethodHandles;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Iterator;
 import java.util.LinkedList;
 import java.util.List;
@@ -39,6 +40,7 @@ import org.apache.activemq.artemis.core.io.SequentialFile;
 import org.apache.activemq.artemis.core.io.SequentialFileFactory;
 import org.apache.activemq.artemis.core.io.nio.NIOSequentialFileFactory;
 import org.apache.activemq.artemis.core.journal.EncoderPersister;
+import org.apache.activemq.artemis.core.journal.JournalCompactStatistics;
 import org.apache.activemq.artemis.core.journal.LoaderCallback;
 import org.apache.activemq.artemis.core.journal.PreparedTransactionInfo;
 import org.apache.activemq.artemis.core.journal.RecordInfo;
@@ -1449,6 +1451,57 @@ public class NIOJournalCompactTest extends JournalImplTestBase {
 
    }
 
+   @Test
+   public void testCompactStatistics() throws Exception {
+      setup(2, 60 * 1024, false);
+
+      createJournal();
+      startJournal();
+      load();
+
+      int NUMBER_OF_RECORDS = 1000;
+
+      for (int i = 0; i < NUMBER_OF_RECORDS; i++) {
+         add(i);
+         if (i > 0 && i % 100 == 0) {
+            journal.forceMoveNextFile();
+         }
+      }
+
+      for (int i = 0; i < NUMBER_OF_RECORDS; i++) {
+         if (i % 10 != 0) {
+            delete(i);
+         }
+      }
+
+      journal.forceMoveNextFile();
+
+      final int filesBeforeCompact = journal.getDataFilesCount();
+
+      JournalCompactStatistics statistics = journal.getCompactStatistics();
+      assertEquals(0, statistics.getCompactCount());
+
+      startCompact();
+      // records appended while compacting are moved into the compacted ones
+      add(NUMBER_OF_RECORDS);
+      update(0);
+      delete(10);
+      finishCompact();
+
+      assertEquals(1, statistics.getCompactCount());
+      assertTrue(journal.getDataFilesCount() < filesBeforeCompact);
+      // the current file is compacted as well
+      assertEquals((long) (filesBeforeCompact + 1 - journal.getDataFilesCount()) * journal.getFileSize(), statistics.getBytesReclaimed());
+      // the journal is locked once to start compacting and once to switch to the compacted files
+      assertEquals(2, Arrays.stream(statistics.getPauseCounts()).sum());
+      assertEquals(NUMBER_OF_RECORDS / 10, journal.getIDMapSize());
+
+      stopJournal();
+      createJournal();
+      startJournal();
+      loadAndCheck();
+   }
+
 
    @Test
    public void testReconfigureJournalSize() throws Exception {
@@ -0,0 +1,135 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.activemq.artemis.tests.integration.largemessage;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.apache.activemq.artemis.api.core.Interceptor;
+import org.apache.activemq.artemis.api.core.QueueConfiguration;
+import org.apache.activemq.artemis.api.core.RoutingType;
+import org.apache.activemq.artemis.api.core.SimpleString;
+import org.apache.activemq.artemis.api.core.TransportConfiguration;
+import org.apache.activemq.artemis.api.core.client.ActiveMQClient;
+import org.apache.activemq.artemis.api.core.client.ClientConsumer;
+import org.apache.activemq.artemis.api.core.client.ClientMessage;
+import org.apache.activemq.artemis.api.core.client.ClientProducer;
+import org.apache.activemq.artemis.api.core.client.ClientSession;
+import org.apache.activemq.artemis.api.core.client.ClientSessionFactory;
+import org.apache.activemq.artemis.api.core.client.ServerLocator;
+import org.apache.activemq.artemis.core.protocol.core.impl.wireformat.SessionReceiveContinuationMessage;
+import org.apache.activemq.artemis.core.remoting.impl.netty.TransportConstants;
+import org.apache.activemq.artemis.core.server.ActiveMQServer;
+import org.apache.activemq.artemis.spi.core.protocol.RemotingConnection;
+import org.apache.activemq.artemis.tests.util.ActiveMQTestBase;
+import org.apache.activemq.artemis.utils.RandomUtil;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Large messages delivered to core consumers over Netty, with their body sent as regions of the body file.
+ */
+public class LargeMessageFileRegionTest extends ActiveMQTestBase {
+
+   private static final SimpleString ADDRESS = SimpleString.of("LargeMessageFileRegionTest");
+
+   private static final int BODY_SIZE = 2 * 1024 * 1024 + 123;
+
+   private static final int MESSAGES = 3;
+
+   private ActiveMQServer startServer(boolean zeroCopyLargeMessages) throws Exception {
+      Map<String, Object> params = new HashMap<>();
+      params.put(TransportConstants.ZERO_COPY_LARGE_MESSAGES, zeroCopyLargeMessages);
+      ActiveMQServer server = createServer(true, createDefaultNettyConfig().clearAcceptorConfigurations().addAcceptorConfiguration(new TransportConfiguration(NETTY_ACCEPTOR_FACTORY, params)));
+      server.start();
+      return server;
+   }
+
+   @Test
+   public void testFileRegions() throws Exception {
+      ActiveMQServer server = startServer(true);
+
+      sendAndReceive(server, true);
+   }
+
+   @Test
+   public void testFileRegionsDisabled() throws Exception {
+      ActiveMQServer server = startServer(false);
+
+      sendAndReceive(server, false);
+   }
+
+   @Test
+   public void testOutgoingInterceptorSeesTheContinuations() throws Exception {
+      ActiveMQServer server = startServer(true);
+
+      // the interceptors expect the body on the packet: the continuations are sent from the heap
+      AtomicInteger interceptedContinuations = new AtomicInteger();
+      server.getRemotingService().addOutgoingInterceptor((Interceptor) (packet, connection) -> {
+         if (packet instanceof SessionReceiveContinuationMessage) {
+            interceptedContinuations.incrementAndGet();
+         }
+         return true;
+      });
+
+      sendAndReceive(server, true);
+
+      final int chunks = (BODY_SIZE + ActiveMQClient.DEFAULT_MIN_LARGE_MESSAGE_SIZE - 1) / ActiveMQClient.DEFAULT_MIN_LARGE_MESSAGE_SIZE;
+      assertEquals(MESSAGES * chunks, interceptedContinuations.get());
+   }
+
+   private void sendAndReceive(ActiveMQServer server, boolean fileRegionSupported) throws Exception {
+      byte[] body = RandomUtil.randomBytes(BODY_SIZE);
+
+      ServerLocator locator = createNettyNonHALocator();
+      ClientSessionFactory sf = createSessionFactory(locator);
+      ClientSession session = addClientSession(sf.createSession(false, true, true));
+      session.createQueue(QueueConfiguration.of(ADDRESS).setRoutingType(RoutingType.ANYCAST));
+
+      ClientProducer producer = session.createProducer(ADDRESS);
+      for (int i = 0; i < MESSAGES; i++) {
+         ClientMessage message = session.createMessage(true);
+         message.setBodyInputStream(new ByteArrayInputStream(body));
+         producer.send(message);
+      }
+
+      for (RemotingConnection connection : server.getRemotingService().getConnections()) {
+         assertEquals(fileRegionSupported, connection.getTransportConnection().isFileRegionSupported());
+      }
+
+      session.start();
+      ClientConsumer consumer = session.createConsumer(ADDRESS);
+      for (int i = 0; i < MESSAGES; i++) {
+         ClientMessage message = consumer.receive(5000);
+         assertNotNull(message);
+         ByteArrayOutputStream received = new ByteArrayOutputStream(BODY_SIZE);
+         message.saveToOutputStream(received);
+         assertArrayEquals(body, received.toByteArray());
+         message.acknowledge();
+      }
+
+      session.close();
+
+      validateNoFilesOnLargeDir();
+   }
+}
@@ -116,6 +116,7 @@ import org.apache.activemq.artemis.jms.client.ActiveMQConnection;
 import org.apache.activemq.artemis.jms.client.ActiveMQConnectionFactory;
 import org.apache.activemq.artemis.jms.client.ActiveMQSession;
 import org.apache.activemq.artemis.json.JsonArray;
+import org.apache.activemq.artemis.json.JsonNumber;
 import org.apache.activemq.artemis.json.JsonObject;
 import org.apache.activemq.artemis.json.JsonValue;
 import org.apache.activemq.artemis.marker.WebServerComponentMarker;
@@ -293,6 +294,25 @@ public class ActiveMQServerControlTest extends ManagementTestBase {
       Wait.assertEquals(1, () -> serverControl.getAuthorizationCacheSize());
    }
 
+   @TestTemplate
+   public void testJournalCompactStatistics() throws Exception {
+      ActiveMQServerControl serverControl = createManagementControl();
+
+      assertEquals(0, serverControl.getJournalCompactCount());
+      assertEquals(0, serverControl.getJournalCompactBytesReclaimed());
+
+      server.getStorageManager().getMessageJournal().scheduleCompactAndBlock(60);
+
+      assertEquals(1, serverControl.getJournalCompactCount());
+      assertTrue(serverControl.getJournalCompactBytesReclaimed() >= 0);
+
+      JsonObject histogram = JsonUtil.readJsonObject(serverControl.getJournalCompactPauseHistogram());
+      assertTrue(histogram.containsKey("maxPauseMillis"));
+      JsonObject pauses = histogram.getJsonObject("pauses");
+      assertTrue(pauses.containsKey("+Inf"));
+      assertEquals(2, pauses.values().stream().mapToLong(count -> ((JsonNumber) count).longValue()).sum());
+   }
+
    @TestTemplate
    public void testCurrentTime() throws Exception {
       long time = System.currentTimeMillis();
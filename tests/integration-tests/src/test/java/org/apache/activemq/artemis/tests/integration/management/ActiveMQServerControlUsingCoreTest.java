@@ -853,6 +853,21 @@ public class ActiveMQServerControlUsingCoreTest extends ActiveMQServerControlTes
             return (Integer) proxy.retrieveAttributeValue("JournalCompactPercentage", Integer.class);
          }
 
+         @Override
+         public long getJournalCompactCount() {
+            return (Long) proxy.retrieveAttributeValue("JournalCompactCount", Long.class);
+         }
+
+         @Override
+         public long getJournalCompactBytesReclaimed() {
+            return (Long) proxy.retrieveAttributeValue("JournalCompactBytesReclaimed", Long.class);
+         }
+
+         @Override
+         public String getJournalCompactPauseHistogram() {
+            return (String) proxy.retrieveAttributeValue("JournalCompactPauseHistogram");
+         }
+
          @Override
          public boolean isPersistenceEnabled() {
             return (Boolean) proxy.retrieveAttributeValue("PersistenceEnabled");
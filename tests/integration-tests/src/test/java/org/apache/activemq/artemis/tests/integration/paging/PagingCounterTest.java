@@ -19,6 +19,7 @@ package org.apache.activemq.artemis.tests.integration.paging;
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertFalse;
 import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
 
 import javax.jms.Connection;
 import javax.jms.ConnectionFactory;
@@ -534,6 +535,48 @@ public class PagingCounterTest extends ActiveMQTestBase {
       Wait.assertEquals(3000L, queue::getMessageCount, 1000, 100);
    }
 
+   @Test
+   public void testParallelRebuild() throws Exception {
+      final int[] messages = {3000, 2000};
+      for (int i = 0; i < messages.length; i++) {
+         Queue queue = server.createQueue(QueueConfiguration.of(SimpleString.of("A" + (i + 1))).setRoutingType(RoutingType.ANYCAST));
+         queue.getPagingStore().startPaging();
+      }
+
+      ConnectionFactory cf = CFUtil.createConnectionFactory("core", "tcp://localhost:61616");
+      try (Connection connection = cf.createConnection()) {
+         Session session = connection.createSession(true, Session.SESSION_TRANSACTED);
+         for (int i = 0; i < messages.length; i++) {
+            MessageProducer producer = session.createProducer(session.createQueue("A" + (i + 1)));
+            for (int m = 0; m < messages[i]; m++) {
+               producer.send(session.createTextMessage("i" + m));
+            }
+            session.commit();
+         }
+      }
+
+      server.stop();
+
+      server = newActiveMQServer();
+      server.getConfiguration().setPageCounterRebuildParallelism(4);
+
+      try (AssertionLoggerHandler rebuildLogger = new AssertionLoggerHandler()) {
+         server.start();
+
+         for (int i = 0; i < messages.length; i++) {
+            Queue queue = server.locateQueue(SimpleString.of("A" + (i + 1)));
+            assertNotNull(queue);
+            assertTrue(queue.getPagingStore().getNumberOfPages() > 1);
+            Wait.assertTrue(queue.getPagingStore().getCursorProvider()::isRebuildDone);
+            assertEquals(messages[i], queue.getPagingStore().getCursorProvider().getSubscription(queue.getID()).getCounter().getValue());
+            Wait.assertEquals((long) messages[i], queue::getMessageCount, 1000, 100);
+         }
+
+         // AMQ221087 logs the time taken by each address
+         Wait.assertEquals(messages.length, () -> rebuildLogger.countText("AMQ221087"));
+      }
+   }
+
    private ActiveMQServer newActiveMQServer() throws Exception {
 
       OperationContextImpl.clearContext();
@@ -0,0 +1,249 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.activemq.artemis.tests.integration.persistence;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.EnumSet;
+
+import org.apache.activemq.artemis.api.core.Message;
+import org.apache.activemq.artemis.api.core.QueueConfiguration;
+import org.apache.activemq.artemis.api.core.RoutingType;
+import org.apache.activemq.artemis.api.core.SimpleString;
+import org.apache.activemq.artemis.api.core.client.ActiveMQClient;
+import org.apache.activemq.artemis.api.core.client.ClientConsumer;
+import org.apache.activemq.artemis.api.core.client.ClientMessage;
+import org.apache.activemq.artemis.api.core.client.ClientProducer;
+import org.apache.activemq.artemis.api.core.client.ClientSession;
+import org.apache.activemq.artemis.api.core.client.ClientSessionFactory;
+import org.apache.activemq.artemis.api.core.client.ServerLocator;
+import org.apache.activemq.artemis.cli.commands.tools.binary.BinaryDataExporter;
+import org.apache.activemq.artemis.cli.commands.tools.binary.BinaryDataImporter;
+import org.apache.activemq.artemis.core.config.Configuration;
+import org.apache.activemq.artemis.core.config.impl.ConfigurationImpl;
+import org.apache.activemq.artemis.core.server.ActiveMQServer;
+import org.apache.activemq.artemis.core.server.JournalType;
+import org.apache.activemq.artemis.core.settings.impl.AddressSettings;
+import org.apache.activemq.artemis.tests.util.ActiveMQTestBase;
+import org.apache.activemq.artemis.utils.UUIDGenerator;
+import org.junit.jupiter.api.Test;
+
+/**
+ * A test of the binary export/import functionality
+ */
+public class BinaryImportExportTest extends ActiveMQTestBase {
+
+   private static final int CONSUMER_TIMEOUT = 5000;
+
+   private ActiveMQServer server;
+
+   private ServerLocator locator;
+
+   private ClientSessionFactory factory;
+
+   @Test
+   public void testMessageProperties() throws Exception {
+      testMessageProperties(false);
+   }
+
+   @Test
+   public void testMessagePropertiesCompressed() throws Exception {
+      testMessageProperties(true);
+   }
+
+   private void testMessageProperties(boolean compress) throws Exception {
+      final String queueName = "A1";
+      ClientSession session = basicSetUp(false);
+      session.createQueue(QueueConfiguration.of(queueName));
+      ClientProducer producer = session.createProducer(queueName);
+
+      final org.apache.activemq.artemis.utils.UUID userID = UUIDGenerator.getInstance().generateUUID();
+      for (int i = 0; i < 5; i++) {
+         ClientMessage msg = session.createMessage(Message.TEXT_TYPE, true, Long.MAX_VALUE - i, 1000 + i, (byte) 7);
+         msg.getBodyBuffer().writeString("Bob the giant pig " + i);
+         msg.setUserID(userID);
+         msg.putBooleanProperty("myBooleanProperty", Boolean.TRUE);
+         msg.putBytesProperty("myBytesProperty", new byte[]{0, 1, 2, 3, 4});
+         msg.putDoubleProperty("myDoubleProperty", i * 1.6);
+         msg.putIntProperty("myIntProperty", i);
+         msg.putLongProperty("myLongProperty", Long.MAX_VALUE - i);
+         msg.putObjectProperty("myNullObjectProperty", null);
+         msg.putStringProperty("myStringProperty", "myStringPropertyValue_" + i);
+         msg.putStringProperty(SimpleString.of("mySimpleStringProperty"), SimpleString.of("mySimpleStringPropertyValue_" + i));
+         producer.send(msg);
+      }
+
+      session = exportAndImport(session, compress);
+
+      ClientConsumer consumer = session.createConsumer(queueName);
+      session.start();
+      for (int i = 0; i < 5; i++) {
+         ClientMessage msg = consumer.receive(CONSUMER_TIMEOUT);
+         assertNotNull(msg);
+         assertEquals("Bob the giant pig " + i, msg.getBodyBuffer().readString());
+         assertEquals(Message.TEXT_TYPE, msg.getType());
+         assertEquals(Long.MAX_VALUE - i, msg.getExpiration());
+         assertEquals(1000 + i, msg.getTimestamp());
+         assertEquals((byte) 7, msg.getPriority());
+         assertEquals(userID, msg.getUserID());
+         assertEquals(Boolean.TRUE, msg.getBooleanProperty("myBooleanProperty"));
+         assertArrayEquals(new byte[]{0, 1, 2, 3, 4}, msg.getBytesProperty("myBytesProperty"));
+         assertEquals(i * 1.6, msg.getDoubleProperty("myDoubleProperty"), 0.000001);
+         assertEquals(i, msg.getIntProperty("myIntProperty").intValue());
+         assertEquals(Long.MAX_VALUE - i, msg.getLongProperty("myLongProperty").longValue());
+         assertTrue(msg.getPropertyNames().contains(SimpleString.of("myNullObjectProperty")));
+         assertNull(msg.getObjectProperty("myNullObjectProperty"));
+         assertEquals("myStringPropertyValue_" + i, msg.getStringProperty("myStringProperty"));
+         assertEquals(SimpleString.of("mySimpleStringPropertyValue_" + i), msg.getSimpleStringProperty(SimpleString.of("mySimpleStringProperty")));
+      }
+      assertNull(consumer.receiveImmediate());
+   }
+
+   @Test
+   public void testPagingOnManyAddresses() throws Exception {
+      final int addresses = 5;
+      final int messages = 100;
+      ClientSession session = basicSetUp(true);
+
+      for (int a = 0; a < addresses; a++) {
+         session.createAddress(SimpleString.of("address" + a), EnumSet.of(RoutingType.MULTICAST), false);
+         session.createQueue(QueueConfiguration.of("queue" + a + "a").setAddress("address" + a));
+         session.createQueue(QueueConfiguration.of("queue" + a + "b").setAddress("address" + a).setFilterString("i >= 50"));
+         ClientProducer producer = session.createProducer("address" + a);
+         for (int i = 0; i < messages; i++) {
+            ClientMessage message = session.createMessage(true);
+            message.putIntProperty("i", i);
+            message.getBodyBuffer().writeBytes(new byte[1024]);
+            producer.send(message);
+         }
+         assertTrue(server.getPagingManager().getPageStore(SimpleString.of("address" + a)).isPaging());
+      }
+
+      session = exportAndImport(session, true);
+
+      session.start();
+      for (int a = 0; a < addresses; a++) {
+         assertEquals("i >= 50", server.locateQueue("queue" + a + "b").getFilter().getFilterString().toString());
+         assertOrdered(session, "queue" + a + "a", 0, messages);
+         assertOrdered(session, "queue" + a + "b", 50, messages);
+      }
+   }
+
+   @Test
+   public void testLargeMessages() throws Exception {
+      final String queueName = "A1";
+      final int largeSize = 3 * ActiveMQClient.DEFAULT_MIN_LARGE_MESSAGE_SIZE + 7;
+      ClientSession session = basicSetUp(true);
+      session.createQueue(QueueConfiguration.of(queueName));
+      ClientProducer producer = session.createProducer(queueName);
+
+      // the first large message stays on the journal, the last one is paged
+      for (int i = 0; i < 30; i++) {
+         ClientMessage message = session.createMessage(true);
+         message.putIntProperty("i", i);
+         if (i == 0 || i == 29) {
+            byte[] body = new byte[largeSize];
+            for (int j = 0; j < body.length; j++) {
+               body[j] = getSamplebyte(j);
+            }
+            message.setBodyInputStream(new ByteArrayInputStream(body));
+         } else {
+            message.getBodyBuffer().writeBytes(new byte[1024]);
+         }
+         producer.send(message);
+      }
+
+      session = exportAndImport(session, false);
+
+      ClientConsumer consumer = session.createConsumer(queueName);
+      session.start();
+      for (int i = 0; i < 30; i++) {
+         ClientMessage message = consumer.receive(CONSUMER_TIMEOUT);
+         assertNotNull(message);
+         assertEquals(i, message.getIntProperty("i").intValue());
+         if (i == 0 || i == 29) {
+            assertTrue(message.isLargeMessage());
+            assertEquals(largeSize, message.getBodySize());
+            for (int j = 0; j < largeSize; j++) {
+               assertEquals(getSamplebyte(j), message.getBodyBuffer().readByte());
+            }
+         }
+         message.acknowledge();
+      }
+      assertNull(consumer.receiveImmediate());
+   }
+
+   @Test
+   public void testImportRejectsOtherFormats() throws Exception {
+      basicSetUp(false);
+      BinaryDataImporter importer = new BinaryDataImporter();
+      assertThrows(IOException.class, () -> importer.process(new ByteArrayInputStream("<?xml version=\"1.0\"?>".getBytes()), factory));
+   }
+
+   private void assertOrdered(ClientSession session, String queueName, int first, int last) throws Exception {
+      try (ClientConsumer consumer = session.createConsumer(queueName)) {
+         for (int i = first; i < last; i++) {
+            ClientMessage message = consumer.receive(CONSUMER_TIMEOUT);
+            assertNotNull(message, queueName + " message " + i);
+            assertEquals(i, message.getIntProperty("i").intValue(), queueName);
+            message.acknowledge();
+         }
+         assertNull(consumer.receiveImmediate());
+      }
+   }
+
+   private ClientSession basicSetUp(boolean paging) throws Exception {
+      server = createServer(true);
+      if (paging) {
+         server.getAddressSettingsRepository().addMatch("#", new AddressSettings().setPageSizeBytes(10 * 1024).setMaxSizeBytes(20 * 1024).setMaxReadPageBytes(-1).setMaxReadPageMessages(-1));
+      }
+      server.start();
+      locator = createInVMNonHALocator().setBlockOnNonDurableSend(true).setBlockOnDurableSend(true);
+      factory = createSessionFactory(locator);
+      return addClientSession(factory.createSession(false, true, true));
+   }
+
+   /**
+    * Stops the server, exports its data, starts it again without any data and imports what was exported.
+    */
+   private ClientSession exportAndImport(ClientSession session, boolean compress) throws Exception {
+      session.close();
+      locator.close();
+      server.stop();
+
+      Configuration configuration = new ConfigurationImpl().setBindingsDirectory(server.getConfiguration().getBindingsDirectory()).setJournalDirectory(server.getConfiguration().getJournalDirectory()).setPagingDirectory(server.getConfiguration().getPagingDirectory()).setLargeMessagesDirectory(server.getConfiguration().getLargeMessagesDirectory()).setJournalType(JournalType.NIO);
+      ByteArrayOutputStream output = new ByteArrayOutputStream();
+      new BinaryDataExporter().setCompress(compress).setThreads(4).process(output, configuration);
+
+      clearDataRecreateServerDirs();
+      server.start();
+      locator = createInVMNonHALocator();
+      factory = createSessionFactory(locator);
+
+      new BinaryDataImporter().setThreads(3).setCommitInterval(10).process(new ByteArrayInputStream(output.toByteArray()), factory);
+
+      return addClientSession(factory.createSession(false, true, true));
+   }
+}
@@ -19,6 +19,9 @@ package org.apache.activemq.artemis.tests.integration.retention;
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertNotNull;
 import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.File;
 
 import javax.jms.Connection;
 import javax.jms.ConnectionFactory;
@@ -32,6 +35,7 @@ import org.apache.activemq.artemis.api.core.QueueConfiguration;
 import org.apache.activemq.artemis.api.core.RoutingType;
 import org.apache.activemq.artemis.core.server.ActiveMQServer;
 import org.apache.activemq.artemis.core.server.impl.AddressInfo;
+import org.apache.activemq.artemis.core.server.replay.RetentionFileIndex;
 import org.apache.activemq.artemis.tests.util.ActiveMQTestBase;
 import org.apache.activemq.artemis.tests.util.CFUtil;
 import org.apache.activemq.artemis.tests.util.RandomUtil;
@@ -132,6 +136,50 @@ public class ReplayTest extends ActiveMQTestBase {
 
    }
 
+   @Test
+   public void testReplayIndexesRetentionFiles() throws Exception {
+      ConnectionFactory cf = CFUtil.createConnectionFactory("CORE", "tcp://localhost:61616");
+
+      try (Connection connection = cf.createConnection()) {
+         Session session = connection.createSession(false, Session.AUTO_ACKNOWLEDGE);
+         Queue queue = session.createQueue("t1");
+         MessageProducer producer = session.createProducer(queue);
+         for (int i = 0; i < 10; i++) {
+            producer.send(session.createTextMessage("message " + i));
+         }
+
+         server.replay(null, null, "t1", "t2", null);
+
+         File retentionFolder = server.getConfiguration().getJournalRetentionLocation();
+         File[] retentionFiles = retentionFolder.listFiles((dir, name) -> name.endsWith(".amq"));
+         assertNotNull(retentionFiles);
+         assertTrue(retentionFiles.length > 0);
+         int indexedMessages = 0;
+         boolean indexedT1 = false;
+         for (File retentionFile : retentionFiles) {
+            RetentionFileIndex index = RetentionFileIndex.load(retentionFile);
+            assertNotNull(index, "missing index for " + retentionFile);
+            indexedMessages += index.getNumberOfMessages();
+            indexedT1 |= index.mightContainAddress("t1");
+         }
+         assertTrue(indexedMessages >= 10);
+         assertTrue(indexedT1);
+
+         // the indexes are used by the next replay
+         server.replay(null, null, "t1", "t2", null);
+         server.replay(null, null, "unknown", "t2", null);
+
+         connection.start();
+         MessageConsumer consumer = session.createConsumer(session.createQueue("t2"));
+         for (int i = 0; i < 20; i++) {
+            TextMessage receivedMessage = (TextMessage) consumer.receive(5000);
+            assertNotNull(receivedMessage);
+            assertEquals("message " + (i % 10), receivedMessage.getText());
+         }
+         assertNull(consumer.receiveNoWait());
+      }
+   }
+
    @Test
    public void testReplayLargeAMQP() throws Exception {
       testReplay("AMQP", 500 * 1024, false);
@@ -0,0 +1,131 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.activemq.artemis.tests.integration.server;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.apache.activemq.artemis.api.core.ActiveMQDuplicateIdException;
+import org.apache.activemq.artemis.api.core.Message;
+import org.apache.activemq.artemis.api.core.QueueConfiguration;
+import org.apache.activemq.artemis.api.core.RoutingType;
+import org.apache.activemq.artemis.api.core.SimpleString;
+import org.apache.activemq.artemis.core.message.impl.CoreMessage;
+import org.apache.activemq.artemis.core.postoffice.RoutingStatus;
+import org.apache.activemq.artemis.core.server.ActiveMQServer;
+import org.apache.activemq.artemis.core.server.Queue;
+import org.apache.activemq.artemis.core.server.impl.RoutingContextImpl;
+import org.apache.activemq.artemis.tests.util.ActiveMQTestBase;
+import org.apache.activemq.artemis.tests.util.Wait;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+public class BatchRouteTest extends ActiveMQTestBase {
+
+   private final SimpleString addressA = SimpleString.of("BatchRouteTestA");
+
+   private final SimpleString addressB = SimpleString.of("BatchRouteTestB");
+
+   private ActiveMQServer server;
+
+   @Override
+   @BeforeEach
+   public void setUp() throws Exception {
+      super.setUp();
+      server = createServer(true);
+      server.start();
+      server.createQueue(QueueConfiguration.of(addressA).setRoutingType(RoutingType.ANYCAST));
+      server.createQueue(QueueConfiguration.of(addressB).setRoutingType(RoutingType.ANYCAST));
+   }
+
+   private Message createMessage(SimpleString address) {
+      final CoreMessage message = new CoreMessage(server.getStorageManager().generateID(), 100);
+      message.setAddress(address);
+      message.setRoutingType(RoutingType.ANYCAST);
+      message.setDurable(true);
+      return message;
+   }
+
+   @Test
+   public void testRouteBatch() throws Exception {
+      final List<Message> messages = new ArrayList<>();
+      for (int i = 0; i < 10; i++) {
+         messages.add(createMessage(i % 3 == 0 ? addressB : addressA));
+      }
+      messages.add(createMessage(SimpleString.of("BatchRouteTestNoBindings")));
+
+      final List<RoutingStatus> statuses = server.getPostOffice().route(messages, new RoutingContextImpl(null), false, true);
+
+      assertEquals(messages.size(), statuses.size());
+      for (int i = 0; i < 10; i++) {
+         assertEquals(RoutingStatus.OK, statuses.get(i));
+      }
+      assertEquals(RoutingStatus.NO_BINDINGS, statuses.get(10));
+
+      server.stop();
+      server.start();
+
+      final Queue queueA = server.locateQueue(addressA);
+      final Queue queueB = server.locateQueue(addressB);
+      Wait.assertEquals(6L, queueA::getMessageCount);
+      Wait.assertEquals(4L, queueB::getMessageCount);
+   }
+
+   @Test
+   public void testRouteBatchWithDuplicate() throws Exception {
+      final Message sent = createMessage(addressA);
+      sent.putStringProperty(Message.HDR_DUPLICATE_DETECTION_ID, "dup2");
+      assertEquals(RoutingStatus.OK, server.getPostOffice().route(sent, new RoutingContextImpl(null), false));
+
+      final List<Message> messages = new ArrayList<>();
+      for (int i = 0; i < 5; i++) {
+         final Message message = createMessage(addressA);
+         message.putStringProperty(Message.HDR_DUPLICATE_DETECTION_ID, "dup" + i);
+         messages.add(message);
+      }
+
+      // the whole batch is rejected
+      assertThrows(ActiveMQDuplicateIdException.class, () -> server.getPostOffice().route(messages, new RoutingContextImpl(null), false, true));
+
+      Wait.assertEquals(1L, server.locateQueue(addressA)::getMessageCount);
+   }
+
+   @Test
+   public void testRouteBatchWithDuplicateInBatch() throws Exception {
+      final List<Message> messages = new ArrayList<>();
+      for (int i = 0; i < 5; i++) {
+         final Message message = createMessage(addressA);
+         message.putStringProperty(Message.HDR_DUPLICATE_DETECTION_ID, i == 3 ? "inBatch0" : "inBatch" + i);
+         messages.add(message);
+      }
+
+      // the whole batch is rejected, as if the second message was already in the cache
+      assertThrows(ActiveMQDuplicateIdException.class, () -> server.getPostOffice().route(messages, new RoutingContextImpl(null), false, true));
+
+      Wait.assertEquals(0L, server.locateQueue(addressA)::getMessageCount);
+
+      // nothing was added to the cache by the rejected batch
+      final Message resent = createMessage(addressA);
+      resent.putStringProperty(Message.HDR_DUPLICATE_DETECTION_ID, "inBatch0");
+      assertEquals(RoutingStatus.OK, server.getPostOffice().route(resent, new RoutingContextImpl(null), false));
+
+      Wait.assertEquals(1L, server.locateQueue(addressA)::getMessageCount);
+   }
+}
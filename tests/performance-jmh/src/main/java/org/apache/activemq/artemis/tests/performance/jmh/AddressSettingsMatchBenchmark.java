@@ -0,0 +1,87 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.activemq.artemis.tests.performance.jmh;
+
+import java.util.concurrent.ThreadLocalRandom;
+
+import org.apache.activemq.artemis.core.settings.impl.AddressSettings;
+import org.apache.activemq.artemis.core.settings.impl.HierarchicalObjectRepository;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Resolves the settings of many auto-created addresses against wildcard address settings, with the match already
+ * cached or not. Run it with {@code -t} to see how concurrent lookups scale.
+ */
+@State(Scope.Benchmark)
+@Fork(2)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 8, time = 1)
+public class AddressSettingsMatchBenchmark {
+
+   @Param({"10", "1000"})
+   private int wildcardMatches;
+
+   @Param({"65536"})
+   private int addresses;
+
+   private HierarchicalObjectRepository<AddressSettings> repository;
+
+   private String[] addressNames;
+
+   @Setup
+   public void init() {
+      repository = new HierarchicalObjectRepository<>();
+      repository.setDefault(new AddressSettings());
+      repository.addMatch("#", new AddressSettings().setMaxDeliveryAttempts(5));
+      for (int i = 0; i < wildcardMatches; i++) {
+         repository.addMatch("tenant" + i + ".#", new AddressSettings().setMaxSizeBytes(1024 * 1024));
+         repository.addMatch("tenant" + i + ".*.orders", new AddressSettings().setAutoDeleteQueues(false));
+      }
+      addressNames = new String[addresses];
+      for (int i = 0; i < addresses; i++) {
+         addressNames[i] = "tenant" + i % wildcardMatches + ".device" + i + (i % 2 == 0 ? ".orders" : ".events");
+      }
+   }
+
+   private String nextAddress() {
+      return addressNames[ThreadLocalRandom.current().nextInt(addressNames.length)];
+   }
+
+   /**
+    * All the addresses are cached by the warmup.
+    */
+   @Benchmark
+   public AddressSettings cachedMatch() {
+      return repository.getMatch(nextAddress());
+   }
+
+   /**
+    * The cache holds one address at most, hence clearing it is cheap.
+    */
+   @Benchmark
+   public AddressSettings uncachedMatch() {
+      repository.clearCache();
+      return repository.getMatch(nextAddress());
+   }
+}
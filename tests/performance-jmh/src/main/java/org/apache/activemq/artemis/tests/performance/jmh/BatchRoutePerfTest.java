@@ -0,0 +1,131 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.activemq.artemis.tests.performance.jmh;
+
+import java.io.File;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.apache.activemq.artemis.api.core.Message;
+import org.apache.activemq.artemis.api.core.QueueConfiguration;
+import org.apache.activemq.artemis.api.core.RoutingType;
+import org.apache.activemq.artemis.api.core.SimpleString;
+import org.apache.activemq.artemis.core.config.impl.ConfigurationImpl;
+import org.apache.activemq.artemis.core.message.impl.CoreMessage;
+import org.apache.activemq.artemis.core.persistence.StorageManager;
+import org.apache.activemq.artemis.core.postoffice.PostOffice;
+import org.apache.activemq.artemis.core.server.ActiveMQServer;
+import org.apache.activemq.artemis.core.server.ActiveMQServers;
+import org.apache.activemq.artemis.core.server.JournalType;
+import org.apache.activemq.artemis.core.server.Queue;
+import org.apache.activemq.artemis.core.server.RoutingContext;
+import org.apache.activemq.artemis.core.server.impl.RoutingContextImpl;
+import org.apache.activemq.artemis.utils.FileUtil;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Routes durable messages to a queue of an embedded broker one by one vs as a batch (see
+ * {@link PostOffice#route(List, RoutingContext, boolean, boolean)}), waiting for them to be stored.
+ */
+@State(Scope.Benchmark)
+@Fork(2)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 8, time = 1)
+public class BatchRoutePerfTest {
+
+   private static final SimpleString ADDRESS = SimpleString.of("queue");
+
+   @Param({"1", "10", "100"})
+   private int batchSize;
+
+   @Param({"false", "true"})
+   private boolean batched;
+
+   private File directory;
+   private ActiveMQServer server;
+   private PostOffice postOffice;
+   private StorageManager storageManager;
+   private Queue queue;
+
+   @Setup(Level.Trial)
+   public void init() throws Exception {
+      directory = Files.createTempDirectory("batch-route-benchmark").toFile();
+      final ConfigurationImpl configuration = new ConfigurationImpl();
+      configuration.setSecurityEnabled(false);
+      configuration.setJournalType(JournalType.NIO);
+      configuration.setJournalDirectory(new File(directory, "journal").getAbsolutePath());
+      configuration.setBindingsDirectory(new File(directory, "bindings").getAbsolutePath());
+      configuration.setPagingDirectory(new File(directory, "paging").getAbsolutePath());
+      configuration.setLargeMessagesDirectory(new File(directory, "large-messages").getAbsolutePath());
+      configuration.addAcceptorConfiguration("invm", "vm://0");
+      server = ActiveMQServers.newActiveMQServer(configuration, true);
+      server.start();
+      queue = server.createQueue(QueueConfiguration.of(ADDRESS).setRoutingType(RoutingType.ANYCAST));
+      postOffice = server.getPostOffice();
+      storageManager = server.getStorageManager();
+   }
+
+   @TearDown(Level.Iteration)
+   public void purge() throws Exception {
+      queue.deleteAllReferences();
+   }
+
+   @TearDown(Level.Trial)
+   public void cleanup() throws Exception {
+      server.stop();
+      FileUtil.deleteDirectory(directory);
+   }
+
+   private Message createMessage() {
+      final CoreMessage message = new CoreMessage(storageManager.generateID(), 100);
+      message.setAddress(ADDRESS);
+      message.setRoutingType(RoutingType.ANYCAST);
+      message.setDurable(true);
+      return message;
+   }
+
+   @Benchmark
+   public int route() throws Exception {
+      final RoutingContext context = new RoutingContextImpl(null);
+      if (batched) {
+         final List<Message> messages = new ArrayList<>(batchSize);
+         for (int i = 0; i < batchSize; i++) {
+            messages.add(createMessage());
+         }
+         postOffice.route(messages, context, false, true);
+      } else {
+         for (int i = 0; i < batchSize; i++) {
+            postOffice.route(createMessage(), context, false);
+            if (!context.isReusable()) {
+               context.clear();
+            }
+         }
+      }
+      storageManager.waitOnOperations();
+      return batchSize;
+   }
+}
@@ -43,6 +43,8 @@ public class DuplicateIDCacheBenchmark {
    private int size;
    @Param({"false", "true"})
    private boolean persist;
+   @Param({"false", "true"})
+   private boolean compact;
 
    private DuplicateIDCache cache;
 
@@ -55,8 +57,8 @@ public class DuplicateIDCacheBenchmark {
    @Setup
    public void init() throws Exception {
       cache = persist ?
-         DuplicateIDCaches.persistent(SimpleString.of("benchmark"), size, new NullStorageManager()) :
-         DuplicateIDCaches.inMemory(SimpleString.of("benchmark"), size);
+         DuplicateIDCaches.persistent(SimpleString.of("benchmark"), size, new NullStorageManager(), compact) :
+         DuplicateIDCaches.inMemory(SimpleString.of("benchmark"), size, compact);
       final int idSize = findNextHigherPowerOf2(size);
       idsMask = idSize - 1;
       nextId = 0;
@@ -0,0 +1,194 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.activemq.artemis.tests.performance.jmh;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.apache.activemq.artemis.api.core.Message;
+import org.apache.activemq.artemis.api.core.SimpleString;
+import org.apache.activemq.artemis.core.filter.Filter;
+import org.apache.activemq.artemis.core.filter.impl.FilterImpl;
+import org.apache.activemq.artemis.core.message.impl.CoreMessage;
+import org.apache.activemq.artemis.core.persistence.impl.nullpm.NullStorageManager;
+import org.apache.activemq.artemis.core.postoffice.Binding;
+import org.apache.activemq.artemis.core.postoffice.BindingType;
+import org.apache.activemq.artemis.core.postoffice.impl.BindingsImpl;
+import org.apache.activemq.artemis.core.server.Bindable;
+import org.apache.activemq.artemis.core.server.RoutingContext;
+import org.apache.activemq.artemis.core.server.impl.RoutingContextImpl;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Routes messages to a topic with many selective subscriptions, e.g. {@code region = 'EU' AND type = 'X'}.
+ */
+@State(Scope.Benchmark)
+@Fork(2)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 8, time = 1)
+public class FilterIndexPerfTest {
+
+   private static final SimpleString ADDRESS = SimpleString.of("topic");
+
+   private static final String[] REGIONS = {"EU", "US", "APAC", "LATAM", "MEA"};
+
+   private static final class BindingFake implements Binding {
+
+      final SimpleString id;
+      final Long idl;
+      final Filter filter;
+      final AtomicLong routed = new AtomicLong();
+
+      BindingFake(SimpleString id, long idl, Filter filter) {
+         this.id = id;
+         this.idl = idl;
+         this.filter = filter;
+      }
+
+      @Override
+      public void unproposed(SimpleString groupID) {
+      }
+
+      @Override
+      public SimpleString getAddress() {
+         return ADDRESS;
+      }
+
+      @Override
+      public Bindable getBindable() {
+         return null;
+      }
+
+      @Override
+      public BindingType getType() {
+         return BindingType.LOCAL_QUEUE;
+      }
+
+      @Override
+      public SimpleString getUniqueName() {
+         return id;
+      }
+
+      @Override
+      public SimpleString getRoutingName() {
+         return id;
+      }
+
+      @Override
+      public SimpleString getClusterName() {
+         return null;
+      }
+
+      @Override
+      public Filter getFilter() {
+         return filter;
+      }
+
+      @Override
+      public boolean isHighAcceptPriority(Message message) {
+         return false;
+      }
+
+      @Override
+      public boolean isExclusive() {
+         return false;
+      }
+
+      @Override
+      public Long getID() {
+         return idl;
+      }
+
+      @Override
+      public int getDistance() {
+         return 0;
+      }
+
+      @Override
+      public void route(Message message, RoutingContext context) {
+         routed.incrementAndGet();
+      }
+
+      @Override
+      public void close() {
+      }
+
+      @Override
+      public String toManagementString() {
+         return "FakeBiding Address=" + ADDRESS;
+      }
+
+      @Override
+      public boolean isConnected() {
+         return true;
+      }
+
+      @Override
+      public void routeWithAck(Message message, RoutingContext context) {
+      }
+   }
+
+   @Param({"100", "5000"})
+   int subscriptions;
+
+   @Param({"false", "true"})
+   boolean indexed;
+
+   BindingsImpl bindings;
+
+   Message[] messages;
+
+   long next;
+
+   @Setup
+   public void init() throws Exception {
+      bindings = new BindingsImpl(ADDRESS, null, new NullStorageManager(1000));
+      bindings.setFilterIndexThreshold(indexed ? 0 : -1);
+      final int types = Math.max(1, subscriptions / REGIONS.length);
+      for (int i = 0; i < subscriptions; i++) {
+         final Filter filter = FilterImpl.createFilter("region = '" + REGIONS[i % REGIONS.length] + "' AND type = 'T" + (i / REGIONS.length) % types + "'");
+         bindings.addBinding(new BindingFake(SimpleString.of("subscription." + i), i, filter));
+      }
+      messages = new Message[1024];
+      for (int i = 0; i < messages.length; i++) {
+         final CoreMessage message = new CoreMessage(i, 100);
+         message.setAddress(ADDRESS);
+         message.putStringProperty("region", REGIONS[i % REGIONS.length]);
+         message.putStringProperty("type", "T" + i % types);
+         messages[i] = message;
+      }
+   }
+
+   private Message nextMessage() {
+      final long current = next;
+      next = current + 1;
+      return messages[(int) (current & (messages.length - 1))];
+   }
+
+   @Benchmark
+   public RoutingContext testRoute() throws Exception {
+      final RoutingContext context = new RoutingContextImpl(null);
+      bindings.route(nextMessage(), context);
+      return context;
+   }
+}
@@ -0,0 +1,150 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.activemq.artemis.tests.performance.jmh;
+
+import java.io.File;
+import java.lang.invoke.MethodHandles;
+import java.util.Arrays;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+import org.apache.activemq.artemis.core.io.SequentialFileFactory;
+import org.apache.activemq.artemis.core.io.nio.NIOSequentialFileFactory;
+import org.apache.activemq.artemis.core.journal.Journal;
+import org.apache.activemq.artemis.core.journal.JournalCompactStatistics;
+import org.apache.activemq.artemis.core.journal.impl.JournalImpl;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Measures the latency of the appends on a journal being compacted over and over, whose tail shows the pauses of the
+ * compactions: the pauses histogram is logged at the end of each trial.
+ */
+@State(Scope.Benchmark)
+@Fork(2)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 10, time = 2)
+@BenchmarkMode(Mode.SampleTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class JournalCompactPerfTest {
+
+   private static final Logger logger = LoggerFactory.getLogger(MethodHandles.lookup().lookupClass());
+
+   private static final String STORE_DIR = System.getProperty("user.dir") + File.separator + "JournalCompactPerfTest";
+   private static final String FILE_PREFIX = "perf";
+   private static final String FILE_EXTENSION = "amq";
+   private static final byte RECORD_TYPE = 0;
+
+   @Param({"100000", "1000000"})
+   private int liveRecords;
+   @Param({"64"})
+   private int recordSize;
+   @Param({"10485760"})
+   private int fileSize;
+   @Param({"4"})
+   private int minFiles;
+   @Param({"20"})
+   private int poolSize;
+
+   private SequentialFileFactory factory;
+   private Journal journal;
+   private byte[] recordData;
+   private volatile boolean compacting;
+   private volatile Exception compactFailure;
+   private Thread compactor;
+
+   @Setup
+   public void init() throws Exception {
+      File storeDir = new File(STORE_DIR);
+      factory = new NIOSequentialFileFactory(storeDir, false, 1).setDatasync(false);
+      factory.start();
+      factory.createDirs();
+      // compacting is only triggered by this benchmark
+      journal = new JournalImpl(fileSize, minFiles, poolSize, 0, 0, factory, FILE_PREFIX, FILE_EXTENSION, factory.getMaxIO());
+      journal.start();
+      journal.loadInternalOnly();
+      recordData = new byte[recordSize];
+      Arrays.fill(recordData, (byte) 1);
+      // every live record is followed by a dead one, so each compaction has half of the data to reclaim
+      for (long id = 0; id < liveRecords; id++) {
+         journal.appendAddRecord(id, RECORD_TYPE, recordData, false);
+         journal.appendAddRecord(liveRecords + id, RECORD_TYPE, recordData, false);
+         journal.appendDeleteRecord(liveRecords + id, false);
+      }
+      journal.flush();
+      compacting = true;
+      compactor = new Thread(() -> {
+         while (compacting) {
+            try {
+               journal.scheduleCompactAndBlock(-1);
+            } catch (Exception e) {
+               compactFailure = e;
+               return;
+            }
+         }
+      }, "journal-compactor");
+      compactor.start();
+   }
+
+   @Benchmark
+   public void syncUpdateWhileCompacting() throws Exception {
+      final long id = ThreadLocalRandom.current().nextInt(liveRecords);
+      journal.appendUpdateRecord(id, RECORD_TYPE, recordData, true);
+   }
+
+   /**
+    * Fails the trial if the compactions failed, since the appends aren't measured against compactions anymore.
+    */
+   @TearDown(Level.Iteration)
+   public void checkCompactions() throws Exception {
+      final Exception failure = compactFailure;
+      if (failure != null) {
+         throw failure;
+      }
+   }
+
+   @TearDown
+   public synchronized void stop() throws InterruptedException {
+      compacting = false;
+      compactor.join();
+      final JournalCompactStatistics statistics = journal.getCompactStatistics();
+      logger.info("{} pauses (ms) < {}: {}", statistics, Arrays.toString(statistics.getPauseBucketsMillis()), Arrays.toString(statistics.getPauseCounts()));
+      try {
+         journal.stop();
+      } catch (Exception ignore) {
+
+      }
+      factory.stop();
+      Stream.of(factory.getDirectory().listFiles()).forEach(File::delete);
+      factory.getDirectory().delete();
+   }
+
+}
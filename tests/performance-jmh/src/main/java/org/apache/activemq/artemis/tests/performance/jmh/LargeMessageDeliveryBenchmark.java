@@ -0,0 +1,196 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.activemq.artemis.tests.performance.jmh;
+
+import java.io.File;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.StandardOpenOption;
+import java.util.Collections;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+
+import io.netty.bootstrap.Bootstrap;
+import io.netty.bootstrap.ServerBootstrap;
+import io.netty.buffer.ByteBuf;
+import io.netty.channel.Channel;
+import io.netty.channel.ChannelHandlerContext;
+import io.netty.channel.ChannelInboundHandlerAdapter;
+import io.netty.channel.ChannelInitializer;
+import io.netty.channel.EventLoopGroup;
+import io.netty.channel.nio.NioEventLoopGroup;
+import io.netty.channel.socket.SocketChannel;
+import io.netty.channel.socket.nio.NioServerSocketChannel;
+import io.netty.channel.socket.nio.NioSocketChannel;
+import org.apache.activemq.artemis.api.core.ActiveMQBuffer;
+import org.apache.activemq.artemis.api.core.ActiveMQException;
+import org.apache.activemq.artemis.core.remoting.impl.netty.NettyConnection;
+import org.apache.activemq.artemis.core.server.ActiveMQComponent;
+import org.apache.activemq.artemis.spi.core.remoting.ClientConnectionLifeCycleListener;
+import org.apache.activemq.artemis.spi.core.remoting.ClientProtocolManager;
+import org.apache.activemq.artemis.spi.core.remoting.Connection;
+import org.apache.activemq.artemis.utils.FileUtil;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Compares the delivery of a large message body over a loopback connection, chunk by chunk as the broker does:
+ * reading each chunk into a heap buffer and copying it into a transport buffer vs handing each chunk to the
+ * transport as a region of the body file.
+ * <p>
+ * Run it with {@code -prof gc} to compare the allocation rate of the two paths too.
+ */
+@State(Scope.Benchmark)
+@Fork(2)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 8, time = 1)
+@OutputTimeUnit(TimeUnit.SECONDS)
+public class LargeMessageDeliveryBenchmark {
+
+   // the size of the fields around the body of a continuation packet
+   private static final int HEADER_SIZE = 17;
+   private static final int TRAILER_SIZE = 9;
+
+   @Param({"16"})
+   private int bodyMiB;
+
+   @Param({"102400"})
+   private int chunkSize;
+
+   private File directory;
+   private File body;
+   private long bodySize;
+   private FileChannel bodyChannel;
+   private EventLoopGroup group;
+   private Channel serverChannel;
+   private Channel clientChannel;
+   private NettyConnection connection;
+   private final AtomicLong received = new AtomicLong();
+   private long expectedReceived;
+
+   @Setup(Level.Trial)
+   public void init() throws Exception {
+      directory = Files.createTempDirectory("large-message-delivery-benchmark").toFile();
+      body = new File(directory, "body.msg");
+      bodySize = bodyMiB * 1024L * 1024L;
+      try (RandomAccessFile file = new RandomAccessFile(body, "rw")) {
+         file.setLength(bodySize);
+      }
+      bodyChannel = FileChannel.open(body.toPath(), StandardOpenOption.READ);
+
+      group = new NioEventLoopGroup(2);
+      serverChannel = new ServerBootstrap().group(group).channel(NioServerSocketChannel.class).childHandler(new ChannelInitializer<SocketChannel>() {
+         @Override
+         protected void initChannel(SocketChannel ch) {
+            ch.pipeline().addLast(new ChannelInboundHandlerAdapter() {
+               @Override
+               public void channelRead(ChannelHandlerContext ctx, Object msg) {
+                  final ByteBuf bytes = (ByteBuf) msg;
+                  received.addAndGet(bytes.readableBytes());
+                  bytes.release();
+               }
+            });
+         }
+      }).bind("localhost", 0).sync().channel();
+      clientChannel = new Bootstrap().group(group).channel(NioSocketChannel.class).handler(new ChannelInboundHandlerAdapter()).connect(serverChannel.localAddress()).sync().channel();
+      connection = new NettyConnection(Collections.emptyMap(), clientChannel, new NoopListener(), false, false);
+      if (!connection.isFileRegionSupported()) {
+         throw new IllegalStateException("file regions aren't supported on " + clientChannel);
+      }
+   }
+
+   @TearDown(Level.Trial)
+   public void cleanup() throws Exception {
+      clientChannel.close().sync();
+      serverChannel.close().sync();
+      group.shutdownGracefully(0, 0, TimeUnit.SECONDS).sync();
+      bodyChannel.close();
+      FileUtil.deleteDirectory(directory);
+   }
+
+   @Benchmark
+   public long heapCopy() throws Exception {
+      final ByteBuffer chunk = ByteBuffer.allocate(chunkSize);
+      for (long position = 0; position < bodySize; position += chunkSize) {
+         final int chunkLen = (int) Math.min(bodySize - position, chunkSize);
+         chunk.clear().limit(chunkLen);
+         bodyChannel.read(chunk, position);
+         final ActiveMQBuffer packet = connection.createTransportBuffer(HEADER_SIZE + chunkLen + TRAILER_SIZE);
+         packet.writerIndex(HEADER_SIZE);
+         packet.writeBytes(chunk.array(), 0, chunkLen);
+         packet.writerIndex(packet.writerIndex() + TRAILER_SIZE);
+         connection.write(packet, false, false);
+      }
+      return awaitReceived(bodySize + chunks() * (HEADER_SIZE + TRAILER_SIZE));
+   }
+
+   @Benchmark
+   public long fileRegion() throws Exception {
+      for (long position = 0; position < bodySize; position += chunkSize) {
+         final int chunkLen = (int) Math.min(bodySize - position, chunkSize);
+         final ActiveMQBuffer header = connection.createTransportBuffer(HEADER_SIZE);
+         header.writerIndex(HEADER_SIZE);
+         final ActiveMQBuffer trailer = connection.createTransportBuffer(TRAILER_SIZE);
+         trailer.writerIndex(TRAILER_SIZE);
+         connection.writeFileRegion(header, body, position, chunkLen, trailer, null);
+      }
+      return awaitReceived(bodySize + chunks() * (HEADER_SIZE + TRAILER_SIZE));
+   }
+
+   private long chunks() {
+      return (bodySize + chunkSize - 1) / chunkSize;
+   }
+
+   private long awaitReceived(long bytes) {
+      expectedReceived += bytes;
+      while (received.get() < expectedReceived) {
+         LockSupport.parkNanos(10_000);
+      }
+      return expectedReceived;
+   }
+
+   private static final class NoopListener implements ClientConnectionLifeCycleListener {
+
+      @Override
+      public void connectionCreated(ActiveMQComponent component, Connection connection, ClientProtocolManager protocol) {
+      }
+
+      @Override
+      public void connectionDestroyed(Object connectionID, boolean failed) {
+      }
+
+      @Override
+      public void connectionException(Object connectionID, ActiveMQException me) {
+      }
+
+      @Override
+      public void connectionReadyForWrites(Object connectionID, boolean ready) {
+      }
+   }
+}
@@ -0,0 +1,149 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.activemq.artemis.tests.performance.jmh;
+
+import java.lang.management.ManagementFactory;
+import java.lang.reflect.Proxy;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.activemq.artemis.core.message.impl.CoreMessage;
+import org.apache.activemq.artemis.core.server.MessageReference;
+import org.apache.activemq.artemis.core.server.Queue;
+import org.apache.activemq.artemis.core.server.impl.MessageReferenceImpl;
+import org.apache.activemq.artemis.core.server.impl.PackedReferenceList;
+import org.apache.activemq.artemis.core.server.impl.QueueImpl;
+import org.apache.activemq.artemis.core.settings.impl.ReferenceStorePolicy;
+import org.apache.activemq.artemis.utils.collections.PriorityLinkedList;
+import org.apache.activemq.artemis.utils.collections.PriorityLinkedListImpl;
+import org.openjdk.jmh.annotations.AuxCounters;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Compares the heap retained by each message held by a queue with each {@link ReferenceStorePolicy}, using the same
+ * lists created by {@link QueueImpl} to store its references.
+ * <p>
+ * The queue is filled with {@link #QUEUE_DEPTH} messages once per trial, and the heap retained per message, measured
+ * after a full GC before and after filling it, is reported as the {@code retainedBytesPerMessage} secondary result. It
+ * is to be compared with {@link MessageReference#getMemoryEstimate()} and the message memory estimate used by paging to
+ * account for the address size. The primary result is the throughput of consuming the head of the queue and adding a
+ * new message to its tail, i.e. the cost of packing and unpacking the references.
+ */
+@State(Scope.Benchmark)
+@Fork(value = 2, jvmArgsAppend = "-Xmx4g")
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 8, time = 1)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class MessageReferenceFootprintBenchmark {
+
+   private static final int QUEUE_DEPTH = 1 << 20;
+
+   @Param({"LINKED", "PACKED"})
+   private ReferenceStorePolicy referenceStorePolicy;
+
+   @Param({"0", "1024"})
+   private int bodySize;
+
+   /**
+    * Whether all the references share the same message, e.g. a message routed to many queues: the retained size is
+    * then the cost of a reference alone.
+    */
+   @Param({"false", "true"})
+   private boolean sharedMessage;
+
+   private Queue queue;
+
+   private CoreMessage message;
+
+   private PriorityLinkedList<MessageReference> messageReferences;
+
+   private long nextId;
+
+   private double retainedBytesPerMessage;
+
+   @AuxCounters(AuxCounters.Type.EVENTS)
+   @State(Scope.Thread)
+   public static class Footprint {
+
+      public double retainedBytesPerMessage;
+   }
+
+   @Setup(Level.Trial)
+   public void init() {
+      // references only need a queue to be created
+      queue = (Queue) Proxy.newProxyInstance(Queue.class.getClassLoader(), new Class[]{Queue.class}, (proxy, method, args) -> {
+         if (method.getReturnType() == boolean.class) {
+            return false;
+         }
+         if (method.getName().equals("toString")) {
+            return "benchmark";
+         }
+         if (method.getName().equals("hashCode")) {
+            return 0;
+         }
+         return null;
+      });
+      message = newMessage();
+      if (referenceStorePolicy == ReferenceStorePolicy.PACKED) {
+         messageReferences = new PriorityLinkedListImpl<>(QueueImpl.NUM_PRIORITIES, priority -> new PackedReferenceList(queue));
+      } else {
+         messageReferences = new PriorityLinkedListImpl<>(QueueImpl.NUM_PRIORITIES, MessageReferenceImpl.getSequenceComparator());
+      }
+
+      final long before = usedHeap();
+      for (int i = 0; i < QUEUE_DEPTH; i++) {
+         enqueue();
+      }
+      final long after = usedHeap();
+      retainedBytesPerMessage = (double) (after - before) / QUEUE_DEPTH;
+   }
+
+   private static long usedHeap() {
+      for (int i = 0; i < 3; i++) {
+         System.gc();
+      }
+      return ManagementFactory.getMemoryMXBean().getHeapMemoryUsage().getUsed();
+   }
+
+   private CoreMessage newMessage() {
+      final CoreMessage message = new CoreMessage(nextId++, bodySize + 50);
+      message.getBodyBuffer().writeBytes(new byte[bodySize]);
+      return message;
+   }
+
+   private void enqueue() {
+      final MessageReference reference = new MessageReferenceImpl(sharedMessage ? message : newMessage(), queue);
+      reference.setSequence(nextId++);
+      messageReferences.addTail(reference, reference.getMessage().getPriority());
+   }
+
+   @Benchmark
+   public MessageReference pollAndAdd(Footprint footprint) {
+      footprint.retainedBytesPerMessage = retainedBytesPerMessage;
+      final MessageReference reference = messageReferences.poll();
+      enqueue();
+      return reference;
+   }
+}
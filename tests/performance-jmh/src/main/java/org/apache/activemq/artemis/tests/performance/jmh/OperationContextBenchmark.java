@@ -0,0 +1,162 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.activemq.artemis.tests.performance.jmh;
+
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.apache.activemq.artemis.core.io.IOCallback;
+import org.apache.activemq.artemis.core.io.OperationConsistencyLevel;
+import org.apache.activemq.artemis.core.persistence.impl.journal.OperationContextImpl;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Group;
+import org.openjdk.jmh.annotations.GroupThreads;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Control;
+
+/**
+ * Session threads line up journal, page and replication operations on their operation contexts, while one journal,
+ * one page and one replication thread complete them, as the I/O completion threads of the broker do for every
+ * session. The {@code session} score is the rate of completed operations.
+ */
+@State(Scope.Group)
+@Fork(2)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 8, time = 1)
+public class OperationContextBenchmark {
+
+   // operations a session has in flight before waiting for their completion, as a producer window would do
+   private static final int MAX_IN_FLIGHT = 32;
+
+   @Param({"1", "16", "256"})
+   private int sessions;
+
+   @Param({"FULL", "STORAGE"})
+   private OperationConsistencyLevel consistencyLevel;
+
+   private OperationContextImpl[] contexts;
+
+   private AtomicInteger[] inFlight;
+
+   private IOCallback[] callbacks;
+
+   private final Queue<OperationContextImpl> journalCompletions = new ConcurrentLinkedQueue<>();
+
+   private final Queue<OperationContextImpl> pageCompletions = new ConcurrentLinkedQueue<>();
+
+   private final Queue<OperationContextImpl> replicationCompletions = new ConcurrentLinkedQueue<>();
+
+   private final AtomicInteger sessionThreads = new AtomicInteger();
+
+   @Setup
+   public void init() {
+      // completions run on the thread releasing them, the executors of the broker are not what is measured here
+      final Executor executor = Runnable::run;
+      contexts = new OperationContextImpl[sessions];
+      inFlight = new AtomicInteger[sessions];
+      callbacks = new IOCallback[sessions];
+      for (int i = 0; i < sessions; i++) {
+         contexts[i] = new OperationContextImpl(executor);
+         final AtomicInteger sessionInFlight = new AtomicInteger();
+         inFlight[i] = sessionInFlight;
+         callbacks[i] = new IOCallback() {
+            @Override
+            public void done() {
+               sessionInFlight.decrementAndGet();
+            }
+
+            @Override
+            public void onError(int errorCode, String errorMessage) {
+               throw new IllegalStateException(errorMessage);
+            }
+         };
+      }
+   }
+
+   @State(Scope.Thread)
+   public static class SessionThread {
+
+      private int next;
+
+      @Setup
+      public void init(OperationContextBenchmark benchmark) {
+         // each session thread starts from a different session
+         next = benchmark.sessionThreads.getAndIncrement();
+      }
+   }
+
+   @Benchmark
+   @Group("completions")
+   @GroupThreads(2)
+   public void session(SessionThread sessionThread, Control control) {
+      final int session = sessionThread.next++ % sessions;
+      final AtomicInteger sessionInFlight = inFlight[session];
+      while (sessionInFlight.get() >= MAX_IN_FLIGHT) {
+         if (control.stopMeasurement) {
+            return;
+         }
+         Thread.yield();
+      }
+      sessionInFlight.incrementAndGet();
+      final OperationContextImpl context = contexts[session];
+      context.storeLineUp();
+      journalCompletions.add(context);
+      context.pageSyncLineUp();
+      pageCompletions.add(context);
+      context.replicationLineUp();
+      replicationCompletions.add(context);
+      context.executeOnCompletion(callbacks[session], consistencyLevel);
+   }
+
+   @Benchmark
+   @Group("completions")
+   @GroupThreads(1)
+   public void journal() {
+      final OperationContextImpl context = journalCompletions.poll();
+      if (context != null) {
+         context.done();
+      }
+   }
+
+   @Benchmark
+   @Group("completions")
+   @GroupThreads(1)
+   public void page() {
+      final OperationContextImpl context = pageCompletions.poll();
+      if (context != null) {
+         context.pageSyncDone();
+      }
+   }
+
+   @Benchmark
+   @Group("completions")
+   @GroupThreads(1)
+   public void replication() {
+      final OperationContextImpl context = replicationCompletions.poll();
+      if (context != null) {
+         context.replicationDone();
+      }
+   }
+}
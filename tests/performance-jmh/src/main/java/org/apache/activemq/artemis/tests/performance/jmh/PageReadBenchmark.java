@@ -0,0 +1,118 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.activemq.artemis.tests.performance.jmh;
+
+import java.io.File;
+import java.nio.file.Files;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.activemq.artemis.api.core.SimpleString;
+import org.apache.activemq.artemis.core.io.SequentialFile;
+import org.apache.activemq.artemis.core.io.SequentialFileFactory;
+import org.apache.activemq.artemis.core.io.nio.NIOSequentialFileFactory;
+import org.apache.activemq.artemis.core.message.impl.CoreMessage;
+import org.apache.activemq.artemis.core.message.impl.CoreMessagePersister;
+import org.apache.activemq.artemis.core.paging.PagedMessage;
+import org.apache.activemq.artemis.core.paging.impl.MappedPageReader;
+import org.apache.activemq.artemis.core.paging.impl.Page;
+import org.apache.activemq.artemis.core.paging.impl.PagedMessageImpl;
+import org.apache.activemq.artemis.core.persistence.StorageManager;
+import org.apache.activemq.artemis.core.persistence.impl.nullpm.NullStorageManager;
+import org.apache.activemq.artemis.spi.core.protocol.MessagePersister;
+import org.apache.activemq.artemis.utils.FileUtil;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Compares the cost of looking up a single message of a page which isn't loaded, e.g. while reloading paged references:
+ * decoding the whole page vs decoding just the requested record through {@link MappedPageReader}.
+ */
+@State(Scope.Benchmark)
+@Fork(2)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 8, time = 1)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+public class PageReadBenchmark {
+
+   private static final SimpleString ADDRESS = SimpleString.of("benchmark");
+
+   @Param({"1000", "10000"})
+   private int messages;
+
+   @Param({"100", "1024"})
+   private int bodySize;
+
+   private File directory;
+
+   private SequentialFileFactory factory;
+
+   private StorageManager storageManager;
+
+   @Setup(Level.Trial)
+   public void init() throws Exception {
+      MessagePersister.registerPersister(CoreMessagePersister.getInstance());
+      directory = Files.createTempDirectory("page-read-benchmark").toFile();
+      factory = new NIOSequentialFileFactory(directory, 1);
+      storageManager = new NullStorageManager();
+      final Page page = new Page(ADDRESS, storageManager, factory, factory.createSequentialFile("000000001.page"), 1);
+      page.open(true);
+      final byte[] body = new byte[bodySize];
+      for (int i = 0; i < messages; i++) {
+         final CoreMessage message = new CoreMessage().initBuffer(bodySize + 100);
+         message.setMessageID(i);
+         message.setAddress(ADDRESS);
+         message.getBodyBuffer().writeBytes(body);
+         page.writeDirect(new PagedMessageImpl(message, new long[]{1}));
+      }
+      page.sync();
+      page.close(false);
+   }
+
+   @TearDown(Level.Trial)
+   public void cleanup() throws Exception {
+      FileUtil.deleteDirectory(directory);
+   }
+
+   @Benchmark
+   public PagedMessage readWholePage() throws Exception {
+      final SequentialFile file = factory.createSequentialFile("000000001.page");
+      file.open();
+      try {
+         final Page page = new Page(ADDRESS, storageManager, factory, file, 1);
+         return page.read(storageManager).get(ThreadLocalRandom.current().nextInt(messages));
+      } finally {
+         file.close();
+      }
+   }
+
+   @Benchmark
+   public PagedMessage readMapped() throws Exception {
+      try (MappedPageReader reader = MappedPageReader.map(new File(directory, "000000001.page"))) {
+         return reader.read(ThreadLocalRandom.current().nextInt(messages), 1, storageManager);
+      }
+   }
+}
@@ -0,0 +1,127 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.activemq.artemis.tests.performance.jmh;
+
+import java.lang.reflect.Proxy;
+import java.util.SplittableRandom;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.activemq.artemis.core.message.impl.CoreMessage;
+import org.apache.activemq.artemis.core.server.MessageReference;
+import org.apache.activemq.artemis.core.server.Queue;
+import org.apache.activemq.artemis.core.server.ScheduledDeliveryHandler;
+import org.apache.activemq.artemis.core.server.impl.MessageReferenceImpl;
+import org.apache.activemq.artemis.core.server.impl.ScheduledDeliveryHandlerImpl;
+import org.apache.activemq.artemis.core.server.impl.TimerWheelScheduledDeliveryHandler;
+import org.apache.activemq.artemis.core.settings.impl.ScheduledDeliveryPolicy;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Compares the cost of scheduling a message on a queue which already holds {@link #size} scheduled messages, for each
+ * {@link ScheduledDeliveryPolicy}.
+ */
+@State(Scope.Benchmark)
+@Fork(value = 2, jvmArgsAppend = "-Xmx8g")
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 8, time = 1)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class ScheduledDeliveryHandlerBenchmark {
+
+   // one hour: long enough to not have anything delivered while measuring
+   private static final long SCHEDULE_WINDOW = TimeUnit.HOURS.toMillis(1);
+
+   private static final int REFERENCES = 1 << 16;
+
+   @Param({"10000", "1000000", "10000000"})
+   private int size;
+
+   @Param({"SORTED", "TIMER_WHEEL"})
+   private ScheduledDeliveryPolicy policy;
+
+   private Queue queue;
+
+   private ScheduledDeliveryHandler handler;
+
+   private MessageReference[] references;
+
+   private int next;
+
+   @Setup(Level.Trial)
+   public void init() {
+      // the handlers only need a queue to track their metrics
+      queue = (Queue) Proxy.newProxyInstance(Queue.class.getClassLoader(), new Class[]{Queue.class}, (proxy, method, args) -> {
+         if (method.getReturnType() == boolean.class) {
+            return false;
+         }
+         if (method.getName().equals("toString")) {
+            return "benchmark";
+         }
+         return null;
+      });
+      references = new MessageReference[REFERENCES];
+      for (int i = 0; i < REFERENCES; i++) {
+         references[i] = new MessageReferenceImpl(new CoreMessage(i, 50), queue);
+      }
+   }
+
+   @Setup(Level.Iteration)
+   public void fill() {
+      handler = policy == ScheduledDeliveryPolicy.TIMER_WHEEL ?
+         new TimerWheelScheduledDeliveryHandler(null, queue) :
+         new ScheduledDeliveryHandlerImpl(null, queue);
+      // always use the same seed!
+      SplittableRandom random = new SplittableRandom(0);
+      final long now = System.currentTimeMillis();
+      for (MessageReference ref : references) {
+         ref.setScheduledDeliveryTime(now + SCHEDULE_WINDOW + random.nextLong(SCHEDULE_WINDOW));
+      }
+      for (int i = 0; i < size; i++) {
+         final MessageReference ref = new MessageReferenceImpl(new CoreMessage(i, 50), queue);
+         final long deliveryTime = now + SCHEDULE_WINDOW + random.nextLong(SCHEDULE_WINDOW);
+         ref.setScheduledDeliveryTime(deliveryTime);
+         handler.addInPlace(deliveryTime, ref, true);
+      }
+      next = 0;
+   }
+
+   @Benchmark
+   public MessageReference schedule() {
+      // the same references are scheduled again and again: the handlers don't care about duplicates
+      final MessageReference ref = references[next++ & (REFERENCES - 1)];
+      handler.addInPlace(ref.getScheduledDeliveryTime(), ref, true);
+      return ref;
+   }
+
+   @Benchmark
+   @Threads(4)
+   public MessageReference scheduleContended() {
+      final MessageReference ref = references[ThreadLocalRandom.current().nextInt(REFERENCES)];
+      handler.addInPlace(ref.getScheduledDeliveryTime(), ref, true);
+      return ref;
+   }
+}
@@ -0,0 +1,103 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.activemq.artemis.tests.performance.jmh;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import org.apache.activemq.artemis.api.core.SimpleString;
+import org.apache.activemq.artemis.selector.filter.BooleanExpression;
+import org.apache.activemq.artemis.selector.filter.Filterable;
+import org.apache.activemq.artemis.selector.impl.SelectorParser;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+@State(Scope.Benchmark)
+@Fork(2)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 8, time = 1)
+public class SelectorBenchmark {
+
+   @Param({
+      "region = 'EU' AND priority > 4",
+      "type LIKE 'order.%' AND amount >= 1000.0",
+      "region IN ('EU', 'US') OR NOT (priority < 3)",
+      "customerId = 123456789 AND (region = 'EU' OR region = 'US') AND 1 + 1 = 2"})
+   private String selector;
+
+   @Param({"false", "true"})
+   private boolean compile;
+
+   private BooleanExpression expression;
+
+   private Filterable[] messages;
+
+   private int next;
+
+   @Setup
+   public void init() throws Exception {
+      expression = SelectorParser.parse(selector, compile);
+      final String[] regions = {"EU", "US", "APAC", "LATAM"};
+      messages = new Filterable[1024];
+      for (int i = 0; i < messages.length; i++) {
+         final Map<SimpleString, Object> properties = new HashMap<>();
+         properties.put(SimpleString.of("region"), regions[i % regions.length]);
+         properties.put(SimpleString.of("priority"), i % 10);
+         properties.put(SimpleString.of("type"), (i % 3 == 0 ? "order." : "invoice.") + i);
+         properties.put(SimpleString.of("amount"), (double) (i * 7 % 2000));
+         properties.put(SimpleString.of("customerId"), i % 2 == 0 ? 123456789L : (long) i);
+         messages[i] = new PropertiesFilterable(properties);
+      }
+   }
+
+   @Benchmark
+   public boolean matches() throws Exception {
+      final Filterable message = messages[next];
+      next = (next + 1) & (messages.length - 1);
+      return expression.matches(message);
+   }
+
+   private static final class PropertiesFilterable implements Filterable {
+
+      private final Map<SimpleString, Object> properties;
+
+      PropertiesFilterable(Map<SimpleString, Object> properties) {
+         this.properties = properties;
+      }
+
+      @Override
+      public <T> T getBodyAs(Class<T> type) {
+         return null;
+      }
+
+      @Override
+      public Object getProperty(SimpleString name) {
+         return properties.get(name);
+      }
+
+      @Override
+      public Object getLocalConnectionId() {
+         return null;
+      }
+   }
+}
@@ -18,7 +18,9 @@ package org.apache.activemq.artemis.tests.timing.core.journal.impl;
 
 import java.lang.invoke.MethodHandles;
 import java.util.ArrayList;
+import java.util.concurrent.TimeUnit;
 
+import org.apache.activemq.artemis.core.journal.impl.JournalImpl;
 import org.apache.activemq.artemis.nativo.jlibaio.LibaioContext;
 import org.apache.activemq.artemis.tests.unit.core.journal.impl.JournalImplTestBase;
 import org.junit.jupiter.api.AfterEach;
@@ -27,6 +29,7 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
 
 public abstract class JournalImplTestUnit extends JournalImplTestBase {
 
@@ -164,4 +167,57 @@ public abstract class JournalImplTestUnit extends JournalImplTestBase {
       stopJournal();
    }
 
+   @Test
+   public void testParallelLoadTime() throws Exception {
+      setup(2, 1024 * 1024, false);
+      createJournal();
+      startJournal();
+      load();
+
+      byte[] record = generateRecord(recordLength);
+
+      int NUMBER_OF_RECORDS = 50000;
+
+      for (int count = 0; count < NUMBER_OF_RECORDS; count++) {
+         journal.appendAddRecord(count, (byte) 0, record, false);
+         journal.appendUpdateRecord(count, (byte) 0, record, false);
+      }
+
+      stopJournal(false);
+
+      final long sequential = loadTime(1, NUMBER_OF_RECORDS);
+      final long parallel = loadTime(4, NUMBER_OF_RECORDS);
+
+      // a parallel load mustn't be slower than a sequential one, allowing for the noise of the timings
+      assertTrue(parallel <= sequential * 5 / 4 + TimeUnit.MILLISECONDS.toNanos(20), "parallel load took " +
+         TimeUnit.NANOSECONDS.toMillis(parallel) + " ms vs " + TimeUnit.NANOSECONDS.toMillis(sequential) + " ms sequentially");
+   }
+
+   /**
+    * @return the shortest time in nanoseconds out of a few loads of the journal with the given parallelism
+    */
+   private long loadTime(int parallelism, int expectedRecords) throws Exception {
+      long best = Long.MAX_VALUE;
+      int files = 0;
+      for (int i = 0; i < 3; i++) {
+         createJournal();
+         ((JournalImpl) journal).setLoadParallelism(parallelism);
+         startJournal();
+
+         long start = System.nanoTime();
+
+         journal.load(new ArrayList<>(), new ArrayList<>(), null);
+
+         best = Math.min(best, System.nanoTime() - start);
+
+         assertEquals(expectedRecords, journal.getIDMapSize());
+
+         files = journal.getDataFilesCount();
+
+         stopJournal(false);
+      }
+      logger.debug("Loaded {} files with parallelism {} in {} ms", files, parallelism, TimeUnit.NANOSECONDS.toMillis(best));
+      return best;
+   }
+
 }
@@ -0,0 +1,136 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.activemq.artemis.tests.unit.core.journal.impl;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.File;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.apache.activemq.artemis.core.io.SequentialFileFactory;
+import org.apache.activemq.artemis.core.io.nio.NIOSequentialFileFactory;
+import org.apache.activemq.artemis.core.journal.PreparedTransactionInfo;
+import org.apache.activemq.artemis.core.journal.RecordInfo;
+import org.apache.activemq.artemis.core.journal.impl.JournalImpl;
+import org.apache.activemq.artemis.tests.util.ActiveMQTestBase;
+import org.apache.activemq.artemis.utils.DataConstants;
+import org.apache.activemq.artemis.utils.RandomUtil;
+import org.junit.jupiter.api.Test;
+
+public class JournalChecksumTest extends ActiveMQTestBase {
+
+   private static final int FILE_SIZE = 1024 * 1024;
+   private static final String FILE_PREFIX = "checksum";
+   private static final String FILE_EXTENSION = "amq";
+   private static final int RECORDS = 10;
+
+   private final byte[] recordData = RandomUtil.randomBytes(100);
+
+   private JournalImpl journal;
+
+   private SequentialFileFactory newFactory(boolean checksum) {
+      SequentialFileFactory factory = new NIOSequentialFileFactory(getTestDirfile(), true, 100 * 1024, 10 * 1024, 1, false).setChecksum(checksum);
+      factory.start();
+      runAfter(factory::stop);
+      return factory;
+   }
+
+   private void startJournal(boolean checksum) throws Exception {
+      journal = new JournalImpl(FILE_SIZE, 2, 2, 0, 0, newFactory(checksum), FILE_PREFIX, FILE_EXTENSION, 1);
+      journal.start();
+      runAfter(journal::stop);
+   }
+
+   private List<RecordInfo> load() throws Exception {
+      List<RecordInfo> records = new ArrayList<>();
+      journal.load(records, new ArrayList<PreparedTransactionInfo>(), null);
+      return records;
+   }
+
+   private void appendRecords() throws Exception {
+      startJournal(true);
+      load();
+      // each sync append is flushed on its own batch
+      for (int i = 0; i < RECORDS; i++) {
+         journal.appendAddRecord(i, (byte) 1, recordData, true);
+      }
+      journal.stop();
+   }
+
+   @Test
+   public void testLoadChecksummedBatches() throws Exception {
+      appendRecords();
+
+      for (boolean checksum : new boolean[]{true, false}) {
+         startJournal(checksum);
+         List<RecordInfo> records = load();
+         assertEquals(RECORDS, records.size());
+         for (int i = 0; i < RECORDS; i++) {
+            assertEquals(i, records.get(i).id);
+            assertArrayEquals(recordData, records.get(i).data);
+         }
+         journal.stop();
+      }
+   }
+
+   @Test
+   public void testTornBatchIgnored() throws Exception {
+      appendRecords();
+
+      int batches = 0;
+      for (File dataFile : getTestDirfile().listFiles((dir, name) -> name.startsWith(FILE_PREFIX) && name.endsWith(FILE_EXTENSION))) {
+         try (RandomAccessFile file = new RandomAccessFile(dataFile, "rw")) {
+            FileChannel channel = file.getChannel();
+            ByteBuffer buffer = ByteBuffer.allocate((int) channel.size());
+            channel.read(buffer, 0);
+            int lastBatch = -1;
+            int pos = JournalImpl.SIZE_HEADER;
+            while (buffer.get(pos) == JournalImpl.CHECKSUM_RECORD) {
+               lastBatch = pos;
+               batches++;
+               pos += JournalImpl.SIZE_CHECKSUM_RECORD + buffer.getInt(pos + 1);
+            }
+            if (lastBatch >= 0) {
+               // damage the data of the last record only: its own size checks can't notice it
+               int damaged = pos - DataConstants.SIZE_INT - 1;
+               channel.write(ByteBuffer.wrap(new byte[]{(byte) ~buffer.get(damaged)}), damaged);
+            }
+         }
+      }
+      assertEquals(RECORDS, batches);
+
+      startJournal(true);
+      List<RecordInfo> records = load();
+      assertEquals(RECORDS - 1, records.size());
+      for (RecordInfo record : records) {
+         assertTrue(record.id != RECORDS - 1);
+         assertArrayEquals(recordData, record.data);
+      }
+
+      // the records appended after the torn batch are loaded as usual
+      journal.appendAddRecord(RECORDS, (byte) 1, recordData, true);
+      journal.stop();
+      startJournal(true);
+      assertEquals(RECORDS, load().size());
+   }
+}
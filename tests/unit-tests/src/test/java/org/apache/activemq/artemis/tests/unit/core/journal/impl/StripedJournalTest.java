@@ -0,0 +1,354 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.activemq.artemis.tests.unit.core.journal.impl;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.apache.activemq.artemis.api.core.ActiveMQIOErrorException;
+import org.apache.activemq.artemis.core.io.SequentialFileFactory;
+import org.apache.activemq.artemis.core.io.nio.NIOSequentialFileFactory;
+import org.apache.activemq.artemis.core.journal.IOCompletion;
+import org.apache.activemq.artemis.core.journal.Journal;
+import org.apache.activemq.artemis.core.journal.PreparedTransactionInfo;
+import org.apache.activemq.artemis.core.journal.RecordInfo;
+import org.apache.activemq.artemis.core.journal.TransactionFailureCallback;
+import org.apache.activemq.artemis.core.journal.impl.JournalImpl;
+import org.apache.activemq.artemis.core.journal.impl.StripedJournal;
+import org.apache.activemq.artemis.core.persistence.Persister;
+import org.apache.activemq.artemis.tests.util.ActiveMQTestBase;
+import org.apache.activemq.artemis.utils.RandomUtil;
+import org.junit.jupiter.api.Test;
+
+public class StripedJournalTest extends ActiveMQTestBase {
+
+   private static final int FILE_SIZE = 100 * 1024;
+   private static final int RECORDS = 100;
+   private static final byte RECORD_TYPE = 1;
+
+   private final byte[] recordData = RandomUtil.randomBytes(100);
+
+   private JournalImpl coordinator;
+   private JournalImpl[] stripes;
+   private StripedJournal journal;
+
+   private SequentialFileFactory newFactory(String directory) {
+      File dir = new File(getTestDirfile(), directory);
+      dir.mkdirs();
+      return new NIOSequentialFileFactory(dir, 1);
+   }
+
+   private JournalImpl newJournal(String directory, String extension) {
+      return new JournalImpl(FILE_SIZE, 2, 2, 0, 0, newFactory(directory), "striped", extension, 1);
+   }
+
+   private JournalImpl newFailingCommitJournal(String directory) {
+      return new JournalImpl(FILE_SIZE, 2, 2, 0, 0, newFactory(directory), "striped", "amq", 1) {
+         @Override
+         public void appendCommitRecord(long txID, boolean sync, IOCompletion callback, boolean lineUpContext) {
+            throw new IllegalStateException("crash before committing " + txID);
+         }
+      };
+   }
+
+   private void startJournal(int stripesCount) throws Exception {
+      stripes = new JournalImpl[stripesCount];
+      for (int i = 0; i < stripesCount; i++) {
+         stripes[i] = newJournal("stripe" + i, "amq");
+      }
+      startJournal(newJournal("stripe0", "stripes"), stripes);
+   }
+
+   private void startJournal(JournalImpl coordinator, JournalImpl... stripes) throws Exception {
+      this.coordinator = coordinator;
+      this.stripes = stripes;
+      journal = new StripedJournal(coordinator, stripes);
+      journal.start();
+      runAfter(journal::stop);
+   }
+
+   private List<RecordInfo> load() throws Exception {
+      return load(new ArrayList<>(), null);
+   }
+
+   private List<RecordInfo> load(List<PreparedTransactionInfo> preparedTransactions,
+                                 TransactionFailureCallback failureCallback) throws Exception {
+      List<RecordInfo> records = new ArrayList<>();
+      journal.load(records, preparedTransactions, failureCallback);
+      return records;
+   }
+
+   private static Set<Long> ids(List<RecordInfo> records) {
+      Set<Long> ids = new TreeSet<>();
+      for (RecordInfo record : records) {
+         ids.add(record.id);
+      }
+      return ids;
+   }
+
+   private static Set<Long> ids(long from, long to) {
+      Set<Long> ids = new TreeSet<>();
+      for (long id = from; id < to; id++) {
+         ids.add(id);
+      }
+      return ids;
+   }
+
+   private void appendTransaction(long txID) throws Exception {
+      for (long id = 0; id < RECORDS; id++) {
+         journal.appendAddRecordTransactional(txID, id, RECORD_TYPE, recordData);
+      }
+   }
+
+   @Test
+   public void testRecordsSpreadAcrossStripes() throws Exception {
+      startJournal(3);
+      load();
+      for (long id = 0; id < RECORDS; id++) {
+         journal.appendAddRecord(id, RECORD_TYPE, recordData, false);
+      }
+      for (long id = 0; id < RECORDS; id += 2) {
+         journal.appendUpdateRecord(id, RECORD_TYPE, recordData, false);
+      }
+      for (long id = 0; id < RECORDS; id += 10) {
+         journal.appendDeleteRecord(id, false);
+      }
+      journal.flush();
+      for (JournalImpl stripe : stripes) {
+         assertTrue(stripe.getNumberOfRecords() > 0);
+      }
+      assertEquals(RECORDS - RECORDS / 10, journal.getNumberOfRecords());
+      journal.stop();
+
+      startJournal(3);
+      List<RecordInfo> records = load();
+      Set<Long> expected = ids(0, RECORDS);
+      expected.removeIf(id -> id % 10 == 0);
+      assertEquals(expected, ids(records));
+      long lastAdded = -1;
+      for (RecordInfo record : records) {
+         assertArrayEquals(recordData, record.data);
+         if (!record.isUpdate) {
+            // the stripes are merged in the order the records were added
+            assertTrue(record.id > lastAdded);
+            lastAdded = record.id;
+         }
+      }
+   }
+
+   @Test
+   public void testTransactionAcrossStripes() throws Exception {
+      startJournal(3);
+      load();
+      appendTransaction(RECORDS);
+      journal.appendCommitRecord(RECORDS, true);
+      appendTransaction(RECORDS + 1);
+      journal.appendRollbackRecord(RECORDS + 1, true);
+      journal.stop();
+
+      startJournal(3);
+      assertEquals(ids(0, RECORDS), ids(load()));
+      // the commit decision is gone once every stripe committed
+      journal.flush();
+      assertEquals(0, coordinator.getNumberOfRecords());
+   }
+
+   @Test
+   public void testTransactionAcrossStripesCompletesCallback() throws Exception {
+      startJournal(3);
+      load();
+      appendTransaction(RECORDS);
+      CountingCompletion completion = new CountingCompletion();
+      journal.appendCommitRecord(RECORDS, false, completion, true);
+      assertTrue(completion.done.await(10, TimeUnit.SECONDS));
+      assertEquals(1, completion.linedUp.get());
+      assertEquals(0, completion.errors.get());
+      journal.stop();
+
+      startJournal(3);
+      assertEquals(ids(0, RECORDS), ids(load()));
+   }
+
+   @Test
+   public void testContextLinedUpOnceForAllStripes() throws Exception {
+      startJournal(3);
+      load();
+      CountingCompletion completion = new CountingCompletion();
+      journal.lineUpContext(completion);
+      assertEquals(1, completion.linedUp.get());
+   }
+
+   @Test
+   public void testPreparedTransactionAcrossStripes() throws Exception {
+      final byte[] xid = RandomUtil.randomBytes(20);
+      startJournal(3);
+      load();
+      appendTransaction(RECORDS);
+      journal.appendPrepareRecord(RECORDS, xid, true);
+      journal.stop();
+
+      startJournal(3);
+      List<PreparedTransactionInfo> preparedTransactions = new ArrayList<>();
+      assertEquals(0, load(preparedTransactions, null).size());
+      assertEquals(1, preparedTransactions.size());
+      assertEquals(RECORDS, preparedTransactions.get(0).getId());
+      assertArrayEquals(xid, preparedTransactions.get(0).getExtraData());
+      assertEquals(ids(0, RECORDS), ids(preparedTransactions.get(0).getRecords()));
+      journal.appendCommitRecord(RECORDS, true);
+      journal.stop();
+
+      startJournal(3);
+      assertEquals(ids(0, RECORDS), ids(load()));
+   }
+
+   @Test
+   public void testCommitDecisionAppliedOnLoad() throws Exception {
+      startJournal(newJournal("stripe0", "stripes"), newJournal("stripe0", "amq"), newFailingCommitJournal("stripe1"));
+      load();
+      appendTransaction(RECORDS);
+      assertThrows(ActiveMQIOErrorException.class, () -> journal.appendCommitRecord(RECORDS, true));
+      journal.stop();
+
+      startJournal(2);
+      assertEquals(ids(0, RECORDS), ids(load()));
+      journal.stop();
+
+      startJournal(2);
+      assertEquals(ids(0, RECORDS), ids(load()));
+   }
+
+   @Test
+   public void testMissingCommitDecisionRolledBackOnLoad() throws Exception {
+      JournalImpl failingCoordinator = new JournalImpl(FILE_SIZE, 2, 2, 0, 0, newFactory("stripe0"), "striped", "stripes", 1) {
+         @Override
+         public void appendAddRecord(long id,
+                                     byte recordType,
+                                     Persister persister,
+                                     Object record,
+                                     boolean sync,
+                                     IOCompletion callback) {
+            throw new IllegalStateException("crash before deciding " + id);
+         }
+      };
+      startJournal(failingCoordinator, newJournal("stripe0", "amq"), newJournal("stripe1", "amq"));
+      load();
+      appendTransaction(RECORDS);
+      assertThrows(ActiveMQIOErrorException.class, () -> journal.appendCommitRecord(RECORDS, true));
+      journal.stop();
+
+      startJournal(2);
+      AtomicInteger failedRecords = new AtomicInteger();
+      List<PreparedTransactionInfo> preparedTransactions = new ArrayList<>();
+      assertEquals(0, load(preparedTransactions, (txID, records, recordsToDelete) -> failedRecords.addAndGet(records.size())).size());
+      assertEquals(0, preparedTransactions.size());
+      assertEquals(RECORDS, failedRecords.get());
+      journal.stop();
+
+      startJournal(2);
+      assertEquals(0, load().size());
+   }
+
+   @Test
+   public void testRecordsFollowedAfterAddingStripes() throws Exception {
+      startJournal(2);
+      load();
+      for (long id = 0; id < RECORDS; id++) {
+         journal.appendAddRecord(id, RECORD_TYPE, recordData, false);
+      }
+      journal.stop();
+
+      startJournal(3);
+      assertEquals(ids(0, RECORDS), ids(load()));
+      for (long id = 0; id < RECORDS; id += 2) {
+         journal.appendUpdateRecord(id, RECORD_TYPE, recordData, false);
+         journal.appendDeleteRecord(id, false);
+      }
+      journal.stop();
+
+      startJournal(3);
+      Set<Long> expected = ids(0, RECORDS);
+      expected.removeIf(id -> id % 2 == 0);
+      assertEquals(expected, ids(load()));
+   }
+
+   @Test
+   public void testRecordsDeletedInTransactionNotFollowed() throws Exception {
+      startJournal(2);
+      load();
+      for (long id = 0; id < RECORDS; id++) {
+         journal.appendAddRecord(id, RECORD_TYPE, recordData, false);
+      }
+      journal.stop();
+
+      startJournal(3);
+      assertEquals(ids(0, RECORDS), ids(load()));
+      for (long id = 0; id < RECORDS; id++) {
+         journal.appendDeleteRecordTransactional(RECORDS, id);
+      }
+      journal.appendCommitRecord(RECORDS, true);
+      assertEquals(0, stripes[2].getNumberOfRecords());
+      // the ids are free again, hence spread across all the stripes
+      for (long id = 0; id < RECORDS; id++) {
+         journal.appendAddRecord(id, RECORD_TYPE, recordData, true);
+      }
+      assertTrue(stripes[2].getNumberOfRecords() > 0);
+   }
+
+   @Test
+   public void testStripesKeepTheirOwnDirectories() throws Exception {
+      startJournal(3);
+      load();
+      for (Journal stripe : stripes) {
+         assertTrue(stripe.getFileFactory().listFiles("amq").size() > 0);
+      }
+      assertEquals(0, stripes[1].getFileFactory().listFiles("stripes").size());
+   }
+
+   private static final class CountingCompletion implements IOCompletion {
+
+      final AtomicInteger linedUp = new AtomicInteger();
+      final AtomicInteger errors = new AtomicInteger();
+      final CountDownLatch done = new CountDownLatch(1);
+
+      @Override
+      public void storeLineUp() {
+         linedUp.incrementAndGet();
+      }
+
+      @Override
+      public void done() {
+         done.countDown();
+      }
+
+      @Override
+      public void onError(int errorCode, String errorMessage) {
+         errors.incrementAndGet();
+         done.countDown();
+      }
+   }
+}
@@ -24,9 +24,14 @@ import java.nio.ByteBuffer;
 import java.nio.channels.FileChannel;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicInteger;
 import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.LongStream;
+import java.util.zip.CRC32C;
 
 import io.netty.buffer.ByteBuf;
 import org.apache.activemq.artemis.api.core.ActiveMQBuffer;
@@ -39,6 +44,7 @@ import org.apache.activemq.artemis.core.io.buffer.TimedBufferObserver;
 import org.apache.activemq.artemis.core.io.nio.NIOSequentialFile;
 import org.apache.activemq.artemis.core.io.nio.NIOSequentialFileFactory;
 import org.apache.activemq.artemis.core.journal.EncodingSupport;
+import org.apache.activemq.artemis.core.journal.impl.JournalImpl;
 import org.apache.activemq.artemis.tests.util.ActiveMQTestBase;
 import org.apache.activemq.artemis.utils.Env;
 import org.apache.activemq.artemis.utils.ReusableLatch;
@@ -130,6 +136,180 @@ public class TimedBufferTest extends ActiveMQTestBase {
       }
 
    }
+
+   @Test
+   public void testFillBufferWithChecksum() {
+      final ArrayList<ByteBuffer> buffers = new ArrayList<>();
+      class TestObserver implements TimedBufferObserver {
+
+         @Override
+         public void flushBuffer(final ByteBuf byteBuf, final boolean sync, final List<IOCallback> callbacks) {
+            final ByteBuffer buffer = ByteBuffer.allocate(byteBuf.readableBytes());
+            byteBuf.getBytes(byteBuf.readerIndex(), buffer);
+            buffer.flip();
+            buffers.add(buffer);
+         }
+
+         @Override
+         public int getRemainingBytes() {
+            return 1024 * 1024;
+         }
+      }
+
+      TimedBuffer timedBuffer = new TimedBuffer(null, 100, TimedBufferTest.ONE_SECOND_IN_NANOS, false);
+      timedBuffer.setChecksum(true);
+
+      timedBuffer.start();
+
+      try {
+
+         timedBuffer.setObserver(new TestObserver());
+
+         CRC32C checksum = new CRC32C();
+         int x = 0;
+         // the checksum record doesn't take room from the records
+         for (int i = 0; i < 10; i++) {
+            byte[] bytes = new byte[10];
+            for (int j = 0; j < 10; j++) {
+               bytes[j] = ActiveMQTestBase.getSamplebyte(x++);
+            }
+            checksum.update(bytes);
+
+            assertTrue(timedBuffer.checkSize(10));
+            timedBuffer.addBytes(ActiveMQBuffers.wrappedBuffer(bytes), false, dummyCallback);
+         }
+
+         timedBuffer.checkSize(1);
+
+         assertEquals(1, buffers.size());
+
+         ByteBuffer flushedBuffer = buffers.get(0);
+
+         assertEquals(JournalImpl.SIZE_CHECKSUM_RECORD + 100, flushedBuffer.remaining());
+         assertEquals(JournalImpl.CHECKSUM_RECORD, flushedBuffer.get());
+         assertEquals(100, flushedBuffer.getInt());
+         assertEquals((int) checksum.getValue(), flushedBuffer.getInt());
+
+         for (int i = 0; i < 100; i++) {
+            assertEquals(ActiveMQTestBase.getSamplebyte(i), flushedBuffer.get());
+         }
+      } finally {
+         timedBuffer.stop();
+      }
+
+   }
+
+   /**
+    * Completes the writes of each flushed batch after {@code latencyMillis}.
+    */
+   private static final class LatencyObserver implements TimedBufferObserver {
+
+      private final long latencyMillis;
+
+      private final AtomicInteger flushes = new AtomicInteger();
+
+      private LatencyObserver(long latencyMillis) {
+         this.latencyMillis = latencyMillis;
+      }
+
+      @Override
+      public void flushBuffer(final ByteBuf byteBuf, final boolean sync, final List<IOCallback> callbacks) {
+         flushes.incrementAndGet();
+         if (latencyMillis > 0) {
+            try {
+               TimeUnit.MILLISECONDS.sleep(latencyMillis);
+            } catch (InterruptedException e) {
+               throw new RuntimeException(e);
+            }
+         }
+         IOCallback.done(callbacks);
+      }
+
+      @Override
+      public int getRemainingBytes() {
+         return Integer.MAX_VALUE;
+      }
+   }
+
+   private static void syncWrite(TimedBuffer timedBuffer) throws Exception {
+      final ReusableLatch latch = new ReusableLatch(1);
+      synchronized (timedBuffer) {
+         timedBuffer.checkSize(10);
+         timedBuffer.addBytes(ActiveMQBuffers.wrappedBuffer(new byte[10]), true, new IOCallback() {
+            @Override
+            public void done() {
+               latch.countDown();
+            }
+
+            @Override
+            public void onError(int errorCode, String errorMessage) {
+            }
+         });
+      }
+      assertTrue(latch.await(10, TimeUnit.SECONDS));
+   }
+
+   @Test
+   public void testAdaptiveTimeoutShrinksOnSingleWriter() throws Exception {
+      final int timeout = (int) TimeUnit.MILLISECONDS.toNanos(10);
+      TimedBuffer timedBuffer = new TimedBuffer(null, 100, timeout, false);
+      timedBuffer.setAdaptiveTimeout(true);
+      timedBuffer.start();
+      try {
+         LatencyObserver observer = new LatencyObserver(0);
+         timedBuffer.setObserver(observer);
+
+         // each sync is serving a single write: waiting for more writes would just delay them
+         for (int i = 0; i < 100; i++) {
+            syncWrite(timedBuffer);
+         }
+
+         assertTrue(timedBuffer.getFlushTimeout() < timeout / 2, "timeout = " + timedBuffer.getFlushTimeout());
+         assertTrue(timedBuffer.getFlushTimeout() >= timeout / 100, "timeout = " + timedBuffer.getFlushTimeout());
+         assertTrue(timedBuffer.getSyncLatency() >= 0);
+         assertEquals(100, timedBuffer.getBatchCount(0));
+         assertEquals(observer.flushes.get(), LongStream.of(timedBuffer.getBatchCounts()).sum());
+      } finally {
+         timedBuffer.stop();
+      }
+   }
+
+   @Test
+   public void testAdaptiveTimeoutFollowsSyncLatency() throws Exception {
+      final int timeout = (int) TimeUnit.MILLISECONDS.toNanos(1);
+      final long latencyMillis = 5;
+      TimedBuffer timedBuffer = new TimedBuffer(null, 1024, timeout, false);
+      timedBuffer.setAdaptiveTimeout(true);
+      timedBuffer.start();
+      ExecutorService executor = Executors.newFixedThreadPool(8);
+      runAfter(executor::shutdownNow);
+      try {
+         LatencyObserver observer = new LatencyObserver(latencyMillis);
+         timedBuffer.setObserver(observer);
+
+         // concurrent writers are waiting on each sync: the timeout has to follow the sync latency
+         List<Future<?>> writers = new ArrayList<>();
+         for (int i = 0; i < 8; i++) {
+            writers.add(executor.submit(() -> {
+               for (int j = 0; j < 50; j++) {
+                  syncWrite(timedBuffer);
+               }
+               return null;
+            }));
+         }
+         for (Future<?> writer : writers) {
+            writer.get(30, TimeUnit.SECONDS);
+         }
+
+         assertTrue(timedBuffer.getSyncLatency() >= TimeUnit.MILLISECONDS.toNanos(latencyMillis), "latency = " + timedBuffer.getSyncLatency());
+         assertTrue(timedBuffer.getFlushTimeout() > timeout, "timeout = " + timedBuffer.getFlushTimeout());
+         assertTrue(timedBuffer.getFlushTimeout() <= timeout * 10L, "timeout = " + timedBuffer.getFlushTimeout());
+         assertTrue(observer.flushes.get() < 8 * 50);
+      } finally {
+         timedBuffer.stop();
+      }
+   }
+
    @Test
    public void testTimeOnTimedBuffer() throws Exception {
       final ReusableLatch latchFlushed = new ReusableLatch(0);
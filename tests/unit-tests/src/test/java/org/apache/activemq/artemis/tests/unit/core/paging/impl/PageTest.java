@@ -17,10 +17,16 @@
 package org.apache.activemq.artemis.tests.unit.core.paging.impl;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 
 import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.StandardOpenOption;
 import java.util.Arrays;
+import java.util.BitSet;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
 
@@ -32,7 +38,10 @@ import org.apache.activemq.artemis.core.io.nio.NIOSequentialFileFactory;
 import org.apache.activemq.artemis.core.message.impl.CoreMessage;
 import org.apache.activemq.artemis.core.message.impl.CoreMessagePersister;
 import org.apache.activemq.artemis.core.paging.PagedMessage;
+import org.apache.activemq.artemis.core.paging.impl.CompactedPageHeader;
+import org.apache.activemq.artemis.core.paging.impl.MappedPageReader;
 import org.apache.activemq.artemis.core.paging.impl.Page;
+import org.apache.activemq.artemis.core.paging.impl.PageIndex;
 import org.apache.activemq.artemis.core.paging.impl.PagedMessageImpl;
 import org.apache.activemq.artemis.core.persistence.StorageManager;
 import org.apache.activemq.artemis.core.persistence.impl.journal.JournalStorageManager;
@@ -243,6 +252,169 @@ public class PageTest extends ActiveMQTestBase {
 
    }
 
+   @Test
+   public void testMappedPageReader() throws Exception {
+      recreateDirectory(getTestDir());
+      SequentialFileFactory factory = new NIOSequentialFileFactory(getTestDirfile(), 1);
+      SequentialFile file = factory.createSequentialFile("00010.page");
+      Page page = new Page(SimpleString.of("something"), new NullStorageManager(), factory, file, 10);
+      page.open(true);
+
+      SimpleString simpleDestination = SimpleString.of("Test");
+      final int numberOfElements = 100;
+      addPageElements(simpleDestination, page, numberOfElements, 1);
+      page.sync();
+
+      // a damaged record at the end must be ignored, as a regular read does
+      long position = file.position();
+      addPageElements(simpleDestination, page, 1, numberOfElements + 1);
+      file.position(position + 1);
+      file.writeDirect(ByteBuffer.wrap(new byte[]{'Z', 'Z', 'Z', 'Z'}), true);
+      page.close(false);
+
+      try (MappedPageReader reader = MappedPageReader.map(file.getJavaFile())) {
+         // read backward first: the records are indexed on demand
+         for (int i = numberOfElements - 1; i >= 0; i--) {
+            PagedMessage message = reader.read(i, 10, new NullStorageManager());
+            assertNotNull(message);
+            assertEquals(i + 1, message.getMessage().getMessageID());
+            assertEquals(simpleDestination, message.getMessage().getAddressSimpleString());
+            assertEquals(10, message.getPageNumber());
+            assertEquals(i, message.getMessageNumber());
+         }
+         assertNull(reader.read(numberOfElements, 10, new NullStorageManager()));
+         assertNull(reader.read(-1, 10, new NullStorageManager()));
+         assertEquals(numberOfElements, reader.getNumberOfMessages());
+      }
+   }
+
+   @Test
+   public void testPageIndex() throws Exception {
+      recreateDirectory(getTestDir());
+      SequentialFileFactory factory = new NIOSequentialFileFactory(getTestDirfile(), 1);
+      SequentialFile file = factory.createSequentialFile("00010.page");
+      Page page = new Page(SimpleString.of("something"), new NullStorageManager(), factory, file, 10);
+      page.open(true);
+
+      SimpleString simpleDestination = SimpleString.of("Test");
+      final int numberOfElements = 100;
+      addPageElements(simpleDestination, page, numberOfElements, 1);
+      assertNull(PageIndex.load(file.getJavaFile()));
+      page.close(false);
+
+      PageIndex index = PageIndex.load(file.getJavaFile());
+      assertNotNull(index);
+      assertEquals(numberOfElements, index.size());
+      assertFalse(index.hasLargeMessages());
+      assertFalse(page.mayContainLargeMessages());
+
+      // only the last entry is validated on load: a stale entry must be detected while reading
+      PageIndex staleIndex = new PageIndex();
+      for (int i = 0; i < numberOfElements - 1; i++) {
+         staleIndex.add(index.getOffset(i) + 1, false);
+      }
+      staleIndex.add(index.getOffset(numberOfElements - 1), false);
+      staleIndex.store(file.getJavaFile());
+
+      for (int run = 0; run < 2; run++) {
+         try (MappedPageReader reader = MappedPageReader.map(file.getJavaFile())) {
+            assertEquals(numberOfElements, reader.getNumberOfMessages());
+            for (int i = numberOfElements - 1; i >= 0; i--) {
+               PagedMessage message = reader.read(i, 10, new NullStorageManager());
+               assertNotNull(message);
+               assertEquals(i + 1, message.getMessage().getMessageID());
+               assertEquals(i, message.getMessageNumber());
+            }
+            assertNull(reader.read(numberOfElements, 10, new NullStorageManager()));
+         }
+         index.store(file.getJavaFile());
+      }
+
+      // appending to the page invalidates the index
+      page.open(false);
+      file.position(file.size());
+      addPageElements(simpleDestination, page, 1, numberOfElements + 1);
+      page.sync();
+      assertNull(PageIndex.load(file.getJavaFile()));
+      assertTrue(page.mayContainLargeMessages());
+      page.close(false);
+
+      index.store(file.getJavaFile());
+      page.delete(null);
+      assertFalse(file.exists());
+      assertFalse(PageIndex.indexFile(file.getJavaFile()).exists());
+   }
+
+   @Test
+   public void testCompactedPage() throws Exception {
+      recreateDirectory(getTestDir());
+      SequentialFileFactory factory = new NIOSequentialFileFactory(getTestDirfile(), 1);
+      SequentialFile file = factory.createSequentialFile("00010.page");
+      Page page = new Page(SimpleString.of("something"), new NullStorageManager(), factory, file, 10);
+      page.open(true);
+
+      SimpleString simpleDestination = SimpleString.of("Test");
+      final int numberOfElements = 100;
+      addPageElements(simpleDestination, page, numberOfElements, 1);
+      page.close(false);
+      final long originalSize = file.getJavaFile().length();
+
+      // keep every 10th message, as the compactor would once the others are acked
+      BitSet retained = new BitSet(numberOfElements);
+      for (int i = 0; i < numberOfElements; i += 10) {
+         retained.set(i);
+      }
+      CompactedPageHeader header = new CompactedPageHeader(numberOfElements, retained);
+      try (MappedPageReader reader = MappedPageReader.map(file.getJavaFile());
+           FileChannel channel = FileChannel.open(Page.compactionFile(file.getJavaFile()).toPath(), StandardOpenOption.CREATE, StandardOpenOption.WRITE)) {
+         assertEquals(numberOfElements, reader.getNumberOfRecords());
+         ByteBuffer headerBuffer = ByteBuffer.allocate(header.getEncodeSize());
+         header.encode(headerBuffer);
+         headerBuffer.flip();
+         channel.write(headerBuffer);
+         for (int i = 0; i < numberOfElements; i++) {
+            if (retained.get(i)) {
+               channel.write(reader.getRecord(i));
+            }
+         }
+      }
+      assertTrue(page.replaceWithCompacted());
+      assertFalse(Page.compactionFile(file.getJavaFile()).exists());
+      assertTrue(file.getJavaFile().length() < originalSize);
+
+      // the messages kept have their original number
+      page = new Page(SimpleString.of("something"), new NullStorageManager(), factory, file, 10);
+      LinkedList<PagedMessage> messages = page.getMessages();
+      assertEquals(retained.cardinality(), messages.size());
+      assertEquals(numberOfElements, page.getNumberOfMessages());
+      assertNotNull(page.getCompactedHeader());
+      LinkedListIterator<PagedMessage> iterator = messages.iterator();
+      for (int i = 0; i < numberOfElements; i += 10) {
+         PagedMessage message = iterator.next();
+         assertEquals(i, message.getMessageNumber());
+         assertEquals(i + 1, message.getMessage().getMessageID());
+         assertEquals(i, page.getMessage(i).getMessageNumber());
+      }
+      assertNull(page.getMessage(1));
+      assertEquals(numberOfElements, page.readNumberOfMessages());
+
+      try (MappedPageReader reader = MappedPageReader.map(file.getJavaFile())) {
+         assertEquals(numberOfElements, reader.getNumberOfMessages());
+         assertEquals(retained.cardinality(), reader.getNumberOfRecords());
+         assertNull(reader.read(1, 10, new NullStorageManager()));
+         PagedMessage message = reader.read(90, 10, new NullStorageManager());
+         assertNotNull(message);
+         assertEquals(90, message.getMessageNumber());
+         assertEquals(91, message.getMessage().getMessageID());
+      }
+
+      // a compacted copy left behind by a page deleted meanwhile is discarded
+      Page.compactionFile(file.getJavaFile()).createNewFile();
+      page.delete(null);
+      assertFalse(file.exists());
+      assertFalse(Page.compactionFile(file.getJavaFile()).exists());
+   }
+
    protected void addPageElements(final SimpleString simpleDestination,
                                   final Page page,
                                   final int numberOfElements,
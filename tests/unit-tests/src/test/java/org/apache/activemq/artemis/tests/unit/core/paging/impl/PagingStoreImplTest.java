@@ -20,6 +20,7 @@ import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertFalse;
 import static org.junit.jupiter.api.Assertions.assertNull;
 import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 
 import java.io.File;
@@ -57,10 +58,12 @@ import org.apache.activemq.artemis.core.paging.cursor.PagedReferenceImpl;
 import org.apache.activemq.artemis.core.paging.cursor.impl.PageCursorProviderImpl;
 import org.apache.activemq.artemis.core.paging.cursor.impl.PageCursorProviderTestAccessor;
 import org.apache.activemq.artemis.core.paging.impl.Page;
+import org.apache.activemq.artemis.core.paging.impl.PageCache;
 import org.apache.activemq.artemis.core.paging.impl.PageReadWriter;
 import org.apache.activemq.artemis.core.paging.impl.PageTransactionInfoImpl;
 import org.apache.activemq.artemis.core.paging.impl.PagingStoreImpl;
 import org.apache.activemq.artemis.core.paging.impl.PagingStoreTestAccessor;
+import org.apache.activemq.artemis.core.paging.impl.SharedPageCache;
 import org.apache.activemq.artemis.core.persistence.StorageManager;
 import org.apache.activemq.artemis.core.persistence.impl.journal.OperationContextImpl;
 import org.apache.activemq.artemis.core.persistence.impl.nullpm.NullStorageManager;
@@ -366,6 +369,95 @@ public class PagingStoreImplTest extends ActiveMQTestBase {
       }
    }
 
+   @Test
+   public void testSharedPageCache() throws Exception {
+      SequentialFileFactory factory = new NIOSequentialFileFactory(getTestDirfile(), 1);
+
+      SimpleString destination = SimpleString.of("test");
+
+      PagingStoreFactory storeFactory = new FakeStoreFactory(factory);
+
+      SharedPageCache sharedCache = new SharedPageCache(100 * 1024 * 1024);
+
+      PagingManager pagingManager = new FakePagingManager() {
+         @Override
+         public SharedPageCache getSharedPageCache() {
+            return sharedCache;
+         }
+      };
+
+      PagingStoreImpl storeImpl = new PagingStoreImpl(PagingStoreImplTest.destinationTestName, null, 100, pagingManager, createStorageManagerMock(), factory, storeFactory, PagingStoreImplTest.destinationTestName, new AddressSettings().setAddressFullMessagePolicy(AddressFullMessagePolicy.PAGE), getExecutorFactory().getExecutor(), getExecutorFactory().getExecutor(), true);
+
+      storeImpl.start();
+
+      storeImpl.startPaging();
+
+      for (int i = 0; i < 30; i++) {
+         Message msg = createMessage(i, storeImpl, destination, createRandomBuffer(i + 1L, 10));
+         final RoutingContextImpl ctx = new RoutingContextImpl(null);
+         assertTrue(storeImpl.page(msg, ctx.getTransaction(), ctx.getContextListing(storeImpl.getStoreName())));
+         if (i % 10 == 9) {
+            storeImpl.forceAnotherPage();
+         }
+      }
+
+      assertEquals(4, storeImpl.getNumberOfPages());
+
+      // the pages written are retained as soon as the store moves to the next page
+      assertEquals(3, sharedCache.getPageCount());
+
+      Page page = storeImpl.usePage(1);
+      assertEquals(10, page.getMessages().size());
+      assertEquals(1, sharedCache.getHitCount());
+      assertEquals(2, sharedCache.getPageCount());
+
+      // no longer used: the decoded page is handed over to the shared cache again
+      page.usageDown();
+      assertEquals(3, sharedCache.getPageCount());
+
+      assertSame(page, storeImpl.usePage(1));
+      assertEquals(2, sharedCache.getHitCount());
+      page.usageDown();
+
+      // the page is going to be deleted
+      storeImpl.removePage(1);
+      assertEquals(2, sharedCache.getPageCount());
+      assertEquals(0, sharedCache.getMissCount());
+
+      Page page2 = storeImpl.usePage(2);
+      assertEquals(10, page2.getMessages().size());
+      page2.usageDown();
+      Page page3 = storeImpl.usePage(3);
+      assertEquals(10, page3.getMessages().size());
+      page3.usageDown();
+      assertEquals(page2.getSize() + page3.getSize(), sharedCache.getSize());
+
+      storeImpl.stop();
+      assertEquals(0, sharedCache.getPageCount());
+      assertEquals(0, sharedCache.getSize());
+
+      // only one of the pages fits: the least recently used one is evicted
+      SharedPageCache smallCache = new SharedPageCache(page2.getSize() + page3.getSize() - 1);
+      PageCache owner = new PageCache(storeImpl, smallCache);
+      smallCache.offer(owner, page2);
+      smallCache.offer(owner, page3);
+      assertEquals(1, smallCache.getEvictionCount());
+      assertEquals(1, smallCache.getPageCount());
+      assertNull(smallCache.take(owner, 2));
+      assertSame(page3, smallCache.take(owner, 3));
+
+      // the size released is the one accounted when the page was offered, even if the page size changed since
+      Page growing = Mockito.mock(Page.class);
+      Mockito.when(growing.isLoaded()).thenReturn(true);
+      Mockito.when(growing.getPageId()).thenReturn(10L);
+      Mockito.when(growing.getSize()).thenReturn(100L, 200L);
+      smallCache.offer(owner, growing);
+      assertEquals(100, smallCache.getSize());
+      assertSame(growing, smallCache.take(owner, 10));
+      assertEquals(0, smallCache.getSize());
+      assertEquals(0, smallCache.getPageCount());
+   }
+
    private void debugPage(PagingStoreImpl storeImpl, PageSubscription subscription, long startPage, long endPage) throws Exception {
       for (long pgID = startPage; pgID <= endPage; pgID++) {
          Page page = storeImpl.newPageObject(pgID);
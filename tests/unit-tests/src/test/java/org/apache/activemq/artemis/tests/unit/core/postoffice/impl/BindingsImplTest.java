@@ -16,6 +16,7 @@
  */
 package org.apache.activemq.artemis.tests.unit.core.postoffice.impl;
 
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
 import static org.junit.jupiter.api.Assertions.assertEquals;
 
 import javax.transaction.xa.Xid;
@@ -30,6 +31,7 @@ import org.apache.activemq.artemis.api.core.ActiveMQException;
 import org.apache.activemq.artemis.api.core.Message;
 import org.apache.activemq.artemis.api.core.SimpleString;
 import org.apache.activemq.artemis.core.filter.Filter;
+import org.apache.activemq.artemis.core.filter.impl.FilterImpl;
 import org.apache.activemq.artemis.core.message.impl.CoreMessage;
 import org.apache.activemq.artemis.core.persistence.impl.nullpm.NullStorageManager;
 import org.apache.activemq.artemis.core.postoffice.Binding;
@@ -86,6 +88,42 @@ public class BindingsImplTest extends ActiveMQTestBase {
       assertEquals(0, fake.routedCount.get());
    }
 
+   @Test
+   public void testRouteWithFilterIndex() throws Exception {
+      final String[] selectors = {"region = 'EU' AND type = 'X'", "region IN ('EU', 'US')", "'US' = region OR region = 'APAC'",
+                                  "region = 'EU' AND priority > 4", "priority > 4", "region LIKE 'E%'", "NOT (region = 'EU')"};
+      final int[] notIndexed = routeWithFilters(selectors, -1);
+      final int[] indexed = routeWithFilters(selectors, 0);
+      assertArrayEquals(notIndexed, indexed);
+      assertEquals(14, notIndexed[0]);
+   }
+
+   private int[] routeWithFilters(String[] selectors, int filterIndexThreshold) throws Exception {
+      final BindingsImpl bind = new BindingsImpl(null, null, new NullStorageManager(1000));
+      bind.setFilterIndexThreshold(filterIndexThreshold);
+      final FakeBinding[] bindings = new FakeBinding[selectors.length];
+      for (int i = 0; i < selectors.length; i++) {
+         bindings[i] = new FakeBinding(SimpleString.of("sub" + i));
+         bindings[i].filter = FilterImpl.createFilter(selectors[i]);
+         bind.addBinding(bindings[i]);
+      }
+      final String[] regions = {"EU", "US", "APAC", null};
+      for (int i = 0; i < 160; i++) {
+         final CoreMessage message = new CoreMessage(i, 100);
+         if (regions[i % regions.length] != null) {
+            message.putStringProperty("region", regions[i % regions.length]);
+         }
+         message.putStringProperty("type", i % 3 == 0 ? "X" : "Y");
+         message.putIntProperty("priority", i % 10);
+         bind.route(message, new RoutingContextImpl(new FakeTransaction()));
+      }
+      final int[] routed = new int[bindings.length];
+      for (int i = 0; i < bindings.length; i++) {
+         routed[i] = bindings[i].routedCount.get();
+      }
+      return routed;
+   }
+
    @Test
    public void testRemoveWhileRouting() throws Exception {
       // It would require many iterations before getting a failure
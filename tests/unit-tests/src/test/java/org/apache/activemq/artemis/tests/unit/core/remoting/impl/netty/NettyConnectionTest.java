@@ -81,6 +81,13 @@ public class NettyConnectionTest extends ActiveMQTestBase {
 
    }
 
+   @Test
+   public void testFileRegionNotSupportedWithoutSocket() throws Exception {
+      NettyConnection conn = new NettyConnection(emptyMap, createChannel(), new MyListener(), false, false);
+
+      assertFalse(conn.isFileRegionSupported());
+   }
+
    @Test
    public void throwsExceptionOnBlockUntilWritableIfClosed() {
       assertThrows(IllegalStateException.class, () -> {